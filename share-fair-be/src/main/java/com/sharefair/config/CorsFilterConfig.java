@@ -1,5 +1,6 @@
 package com.sharefair.config;
 
+import com.sharefair.repository.PageCursor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
@@ -18,6 +19,7 @@ public class CorsFilterConfig {
         config.addAllowedMethod("*");
         config.addExposedHeader("Content-Type");
         config.addExposedHeader("Authorization");
+        config.addExposedHeader(PageCursor.HEADER);
         config.setMaxAge(3600L);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -1,12 +1,176 @@
 package com.sharefair.config;
 
+import com.sharefair.service.QuantizedVectorStore;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "sharefair.embedding")
 public class EmbeddingProperties {
     private double similarityThreshold = 0.8;
+    private LocalIndex localIndex = new LocalIndex();
+    private Quantized quantized = new Quantized();
+    private QueryCache queryCache = new QueryCache();
+    private QueryCall queryCall = new QueryCall();
+    private Backfill backfill = new Backfill();
+    private Jobs jobs = new Jobs();
+    private Hybrid hybrid = new Hybrid();
+    private Rerank rerank = new Rerank();
+    private Planner planner = new Planner();
+    private ResultCache resultCache = new ResultCache();
+    private SlowLog slowLog = new SlowLog();
+
+    /**
+     * In-JVM HNSW index over listing embeddings. When disabled, vector search goes to pgvector.
+     * A failed load is retried after {@code initialBackoff}, doubling up to {@code maxBackoff}.
+     */
+    @Data
+    public static class LocalIndex {
+        private boolean enabled = false;
+        private int m = 16;
+        private int efConstruction = 64;
+        private int efSearch = 64;
+        private Duration initialBackoff = Duration.ofSeconds(5);
+        private Duration maxBackoff = Duration.ofMinutes(5);
+    }
+
+    /**
+     * In-JVM first-pass index over int8 or binary (sign-bit) codes of the listing embeddings,
+     * optionally after a PCA projection to {@code pcaDimensions} (zero keeps all). The best
+     * {@code candidates} by code score are re-ranked exactly. Used when the HNSW local index is not.
+     */
+    @Data
+    public static class Quantized {
+        private boolean enabled = false;
+        private QuantizedVectorStore.Encoding encoding = QuantizedVectorStore.Encoding.INT8;
+        private int pcaDimensions = 0;
+        private int trainingSample = 10_000;
+        private int candidates = 200;
+    }
+
+    /**
+     * Query-text to embedding cache in front of the embedding model: an in-memory tier per
+     * replica and an optional Postgres tier shared by all replicas.
+     */
+    @Data
+    public static class QueryCache {
+        private long maxSize = 10_000;
+        private Duration expireAfterAccess = Duration.ofHours(6);
+        private boolean persistentEnabled = true;
+        private Duration persistentRetention = Duration.ofDays(30);
+    }
+
+    /**
+     * Embedding of search queries on the request path. A request waits at most {@code timeout}
+     * for the model before searching by keyword instead. If the model has not answered after
+     * {@code hedgeDelay} a second identical call is made and the first answer wins (zero disables
+     * hedging). The circuit breaker skips the model for {@code openDuration} once, over the last
+     * {@code windowSize} calls, the failure rate or the share of calls slower than
+     * {@code slowCallThreshold} reaches its threshold.
+     */
+    @Data
+    public static class QueryCall {
+        private Duration timeout = Duration.ofMillis(750);
+        private Duration hedgeDelay = Duration.ZERO;
+        private int threads = 16;
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration slowCallThreshold = Duration.ofMillis(400);
+        private double slowCallRateThreshold = 0.8;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+    }
+
+    /**
+     * Bulk embedding backfill: listings are scanned {@code pageSize} at a time, embedded
+     * {@code batchSize} texts per model call with at most {@code concurrency} calls in flight.
+     */
+    @Data
+    public static class Backfill {
+        private int pageSize = 256;
+        private int batchSize = 32;
+        private int concurrency = 4;
+    }
+
+    /**
+     * Durable per-listing embedding jobs (the {@code embedding_jobs} queue). Each replica polls
+     * every {@code pollInterval}, runs up to {@code threads} jobs at once and holds each for at
+     * most {@code lease}. A failed job is retried after {@code initialBackoff}, doubling up to
+     * {@code maxBackoff}, and is dead after {@code maxAttempts}.
+     */
+    @Data
+    public static class Jobs {
+        private boolean enabled = true;
+        private int threads = 2;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private Duration lease = Duration.ofMinutes(5);
+        private int maxAttempts = 8;
+        private Duration initialBackoff = Duration.ofSeconds(10);
+        private Duration maxBackoff = Duration.ofHours(1);
+        private Duration statsInterval = Duration.ofSeconds(15);
+    }
+
+    /**
+     * Hybrid retrieval: lexical (full-text) and vector candidates are fetched in parallel and
+     * merged with reciprocal-rank fusion, {@code weight / (rrfK + rank)} per list, before the
+     * requested sort is applied. When disabled, a search uses either vector or keyword retrieval.
+     */
+    @Data
+    public static class Hybrid {
+        private boolean enabled = false;
+        private int lexicalCandidates = 100;
+        private int vectorCandidates = 100;
+        private double lexicalWeight = 1.0;
+        private double vectorWeight = 1.0;
+        private int rrfK = 60;
+        private int parallelism = 8;
+    }
+
+    /**
+     * Exact second stage for quantized-index candidates: they are re-ranked in the JVM by exact
+     * cosine similarity over cached embeddings (at most {@code cacheSize} vectors, 1.5 KB each at
+     * 384 dimensions).
+     */
+    @Data
+    public static class Rerank {
+        private long cacheSize = 20_000;
+    }
+
+    /**
+     * Combined radius/filter/vector search. When the spatial and attribute filters are estimated
+     * to leave at most {@code exactScanThreshold} listings, they drive the query and distances
+     * are computed exactly; otherwise the HNSW index drives it and the filters are applied after.
+     */
+    @Data
+    public static class Planner {
+        private long exactScanThreshold = 5_000;
+    }
+
+    /**
+     * Search result cache. Entries are keyed on the catalog version, so local listing writes
+     * invalidate them immediately; the TTL bounds staleness from writes on other replicas.
+     * Empty results expire sooner so that a newly created listing is not hidden for long.
+     */
+    @Data
+    public static class ResultCache {
+        private boolean enabled = false;
+        private long maxSize = 5_000;
+        private Duration ttl = Duration.ofSeconds(60);
+        private Duration emptyTtl = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Searches slower than {@code threshold} are logged with their stage breakdown, each with
+     * probability {@code sampleRate}.
+     */
+    @Data
+    public static class SlowLog {
+        private Duration threshold = Duration.ofMillis(500);
+        private double sampleRate = 0.1;
+    }
 }
@@ -1,15 +1,42 @@
 package com.sharefair.config;
 
+import com.sharefair.repository.impl.PgVectorBinding;
+import com.sharefair.service.SearchTrace;
 import org.jooq.DSLContext;
+import org.jooq.ExecuteListener;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import javax.sql.DataSource;
+import java.sql.SQLException;
 
 @Configuration
 public class JooqConfig {
+    private static final String SQL_START = "sharefair.sqlStart";
+
     @Bean
     public DSLContext dslContext(DataSource dataSource) {
-        return DSL.using(dataSource, org.jooq.SQLDialect.POSTGRES);
+        DSLContext dsl = DSL.using(dataSource, SQLDialect.POSTGRES);
+        // Register pgvector's type on each pooled connection before it is first used so that values
+        // map to PGvector and travel in binary.
+        ExecuteListener registerVectorType = ExecuteListener.onPrepareStart(ctx -> {
+            try {
+                PgVectorBinding.registerType(ctx.connection());
+            } catch (SQLException e) {
+                throw new DataAccessException("Failed to register pgvector type", e);
+            }
+        });
+        // SQL time (rendering through the last fetched row) for the search stage breakdown
+        ExecuteListener searchTrace = ExecuteListener
+                .onStart(ctx -> ctx.data(SQL_START, System.nanoTime()))
+                .onEnd(ctx -> {
+                    if (ctx.data(SQL_START) instanceof Long start) {
+                        SearchTrace.recordSql(System.nanoTime() - start);
+                    }
+                });
+        dsl.configuration().set(registerVectorType, searchTrace);
+        return dsl;
     }
 }
@@ -0,0 +1,96 @@
+package com.sharefair.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "sharefair.recommendations")
+public class RecommendationProperties {
+    private Feeds feeds = new Feeds();
+    private Taste taste = new Taste();
+    private Cooccurrence cooccurrence = new Cooccurrence();
+    private Popularity popularity = new Popularity();
+    private Similar similar = new Similar();
+
+    /**
+     * Materialized per-user feeds of {@code size} ranked listing ids. Feeds older than
+     * {@code maxAge} are rebuilt in batches of {@code refreshBatch} every {@code refreshInterval};
+     * the shared list of {@code popularSize} popular listings is recomputed every
+     * {@code popularRefresh}.
+     */
+    @Data
+    public static class Feeds {
+        private int size = 50;
+        private int popularSize = 100;
+        private Duration popularRefresh = Duration.ofMinutes(10);
+        private Duration maxAge = Duration.ofHours(24);
+        private Duration refreshInterval = Duration.ofMinutes(15);
+        private int refreshBatch = 500;
+        private int threads = 2;
+    }
+
+    /**
+     * Per-user taste vectors: each borrowed, lent or viewed listing adds its embedding with the
+     * given weight, and older signals lose half their weight every {@code halfLife}. Repeated
+     * views of the same listing by the same user within {@code viewDedupe} count once.
+     */
+    @Data
+    public static class Taste {
+        private boolean enabled = true;
+        private double borrowWeight = 1.0;
+        private double lendWeight = 0.5;
+        private double viewWeight = 0.1;
+        private Duration halfLife = Duration.ofDays(30);
+        private Duration viewDedupe = Duration.ofHours(1);
+        private int viewQueue = 1000;
+    }
+
+    /**
+     * In-memory "borrowed together" model: the {@code topK} neighbours of every listing over the
+     * last {@code maxHistory} listings of each borrower, rebuilt from completed transactions every
+     * {@code rebuildInterval}, reading {@code rebuildBatch} pairs per query.
+     */
+    @Data
+    public static class Cooccurrence {
+        private boolean enabled = true;
+        private int topK = 20;
+        private int maxHistory = 200;
+        private Duration rebuildInterval = Duration.ofHours(6);
+        private int rebuildBatch = 5000;
+    }
+
+    /**
+     * Listing popularity from detail views and completed transactions, each event weighted by
+     * {@code viewWeight} or {@code transactionWeight} and losing half its weight every
+     * {@code halfLife}. Counters are flushed every {@code flushInterval} in statements of up to
+     * {@code flushBatch} listings; stored scores are re-decayed every {@code decayInterval}.
+     * Changing {@code halfLife} skews the ranks of existing rows until their activity turns over.
+     */
+    @Data
+    public static class Popularity {
+        private double viewWeight = 1.0;
+        private double transactionWeight = 10.0;
+        private Duration halfLife = Duration.ofDays(7);
+        private Duration flushInterval = Duration.ofSeconds(10);
+        private int flushBatch = 500;
+        private Duration decayInterval = Duration.ofHours(1);
+    }
+
+    /**
+     * Precomputed top-{@code size} similar listings per listing. Every {@code refreshInterval}
+     * up to {@code refreshBatch} listings without a list and as many lists older than
+     * {@code maxAge} are (re)computed.
+     */
+    @Data
+    public static class Similar {
+        private int size = 20;
+        private Duration maxAge = Duration.ofHours(24);
+        private Duration refreshInterval = Duration.ofMinutes(10);
+        private int refreshBatch = 200;
+        private int threads = 1;
+    }
+}
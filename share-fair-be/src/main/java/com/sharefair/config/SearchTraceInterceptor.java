@@ -0,0 +1,70 @@
+package com.sharefair.config;
+
+import com.sharefair.service.SearchTelemetry;
+import com.sharefair.service.SearchTrace;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wraps search requests in a {@link SearchTrace}. The request shape recorded for the slow-search
+ * log keeps the filters and paging parameters, but not the query text or coordinates.
+ */
+@Component
+public class SearchTraceInterceptor implements HandlerInterceptor {
+
+    private static final String[] SHAPE_PARAMS = {
+            "neighborhood", "category", "radius", "sortBy", "limit", "offset", "facets"
+    };
+
+    private final SearchTelemetry searchTelemetry;
+
+    public SearchTraceInterceptor(SearchTelemetry searchTelemetry) {
+        this.searchTelemetry = searchTelemetry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SearchTrace.start(shape(request));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        SearchTrace trace = SearchTrace.current();
+        try {
+            if (trace != null) {
+                searchTelemetry.record(trace, request.getRequestURI(), response.getStatus());
+            }
+        } finally {
+            SearchTrace.clear();
+        }
+    }
+
+    static Map<String, Object> shape(HttpServletRequest request) {
+        Map<String, Object> shape = new LinkedHashMap<>();
+        String query = request.getParameter("query");
+        if (query != null && !query.isBlank()) {
+            shape.put("queryLength", query.length());
+            shape.put("queryWords", query.trim().split("\\s+").length);
+        }
+        for (String name : SHAPE_PARAMS) {
+            String value = request.getParameter(name);
+            if (value != null) {
+                shape.put(name, value);
+            }
+        }
+        if (request.getParameter("lat") != null || request.getParameter("latitude") != null) {
+            shape.put("geo", true);
+        }
+        if (request.getParameter("cursor") != null) {
+            shape.put("cursor", true);
+        }
+        return shape;
+    }
+}
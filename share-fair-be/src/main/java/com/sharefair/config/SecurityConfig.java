@@ -35,7 +35,11 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/v1/auth/oauth/**").permitAll()
                         .requestMatchers("/api/v1/auth/refresh").permitAll()
+                        .requestMatchers("/api/v1/search/backfill-embeddings", "/api/v1/search/backfill-embeddings/**",
+                                "/api/v1/search/embedding-jobs", "/api/v1/search/embedding-jobs/**")
+                        .hasRole("ADMIN")
                         .requestMatchers("/api/v1/search/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/listings/stream").authenticated()
                         .requestMatchers(HttpMethod.GET, "/api/v1/listings", "/api/v1/listings/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/users/**").permitAll()
                         .requestMatchers("/api/v1/auth/me").authenticated()
@@ -60,6 +64,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/notifications/**").authenticated()
                         .requestMatchers("/api/v1/notification-preferences/**").authenticated()
                         .requestMatchers(HttpMethod.GET, "/api/v1/recommendations/similar/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/recommendations/also-borrowed/**").permitAll()
                         .requestMatchers("/api/v1/recommendations/**").authenticated()
                         .requestMatchers("/ws/**").permitAll()
                         .requestMatchers("/api/v1/messages/**").authenticated()
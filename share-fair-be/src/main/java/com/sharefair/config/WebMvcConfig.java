@@ -0,0 +1,21 @@
+package com.sharefair.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final SearchTraceInterceptor searchTraceInterceptor;
+
+    public WebMvcConfig(SearchTraceInterceptor searchTraceInterceptor) {
+        this.searchTraceInterceptor = searchTraceInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(searchTraceInterceptor)
+                .addPathPatterns("/api/v1/search", "/api/v1/search/location");
+    }
+}
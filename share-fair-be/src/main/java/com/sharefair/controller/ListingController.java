@@ -1,22 +1,31 @@
 package com.sharefair.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sharefair.dto.ApiResponse;
 import com.sharefair.dto.ListingDto;
 import com.sharefair.dto.ListingMapper;
 import com.sharefair.entity.Listing;
 import com.sharefair.entity.Review;
+import com.sharefair.repository.CursorPage;
+import com.sharefair.repository.ListingCatalogQuery;
 import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.PageCursor;
 import com.sharefair.repository.ReviewRepository;
 import com.sharefair.security.UserPrincipal;
-import com.sharefair.service.SearchService;
 import com.sharefair.service.ImageStorageService;
+import com.sharefair.service.ListingCatalogService;
+import com.sharefair.service.PopularityService;
+import com.sharefair.service.TasteVectorService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -29,49 +38,133 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/v1/listings")
 public class ListingController {
     private final ListingRepository listingRepository;
-    private final SearchService searchService;
     private final ReviewRepository reviewRepository;
     private final ImageStorageService imageStorageService;
+    private final TasteVectorService tasteVectorService;
+    private final PopularityService popularityService;
+    private final ListingCatalogService listingCatalogService;
+    private final ObjectMapper objectMapper;
 
-    public ListingController(ListingRepository listingRepository, SearchService searchService,
-                             ReviewRepository reviewRepository, ImageStorageService imageStorageService) {
+    public ListingController(ListingRepository listingRepository,
+                             ReviewRepository reviewRepository, ImageStorageService imageStorageService,
+                             TasteVectorService tasteVectorService, PopularityService popularityService,
+                             ListingCatalogService listingCatalogService, ObjectMapper objectMapper) {
         this.listingRepository = listingRepository;
-        this.searchService = searchService;
         this.reviewRepository = reviewRepository;
         this.imageStorageService = imageStorageService;
+        this.tasteVectorService = tasteVectorService;
+        this.popularityService = popularityService;
+        this.listingCatalogService = listingCatalogService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Catalog page. Pass the previous response's {@code nextCursor} as {@code cursor} to read the
+     * next page with a seek query; a {@code page} number without a cursor is still honoured for
+     * older clients. {@code totalElements} is exact unless {@code totalExact} is false, in which
+     * case it is an estimate of the size of a large unfiltered catalog.
+     */
     @GetMapping
     public ResponseEntity<ApiResponse<Map<String, Object>>> getListings(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "date") String sortBy,
+            @RequestParam(required = false) String neighborhood,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean available) {
         page = Math.max(0, page);
         limit = Math.max(1, Math.min(limit, 100));
-        List<Listing> allListings = listingRepository.findAll();
-        int start = page * limit;
-        int end = Math.min(start + limit, allListings.size());
-        List<Listing> pageListings = allListings.subList(start, end);
+        ListingCatalogQuery query = catalogQuery(sortBy, neighborhood, category, status, available);
+
+        List<Listing> pageListings;
+        String nextCursor = null;
+        boolean hasMore;
+        if (cursor == null && page > 0) {
+            int offset = (int) Math.min(Integer.MAX_VALUE, (long) page * limit);
+            pageListings = listingCatalogService.page(query, limit, offset);
+            hasMore = pageListings.size() == limit;
+        } else {
+            CursorPage<Listing> result = listingCatalogService.page(query, limit,
+                    cursor != null ? PageCursor.decode(cursor) : null);
+            pageListings = result.items();
+            nextCursor = result.nextCursor();
+            hasMore = result.hasMore();
+        }
 
         List<ListingDto> dtos = pageListings.stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
 
-        int totalPages = (int) Math.ceil((double) allListings.size() / limit);
+        ListingCatalogService.CatalogCount total = listingCatalogService.count(query);
+        int totalPages = (int) Math.ceil((double) total.total() / limit);
 
         Map<String, Object> response = new HashMap<>();
         response.put("content", dtos);
         response.put("currentPage", page);
         response.put("totalPages", totalPages);
-        response.put("totalElements", allListings.size());
+        response.put("totalElements", total.total());
+        response.put("totalExact", total.exact());
         response.put("pageSize", limit);
+        response.put("hasMore", hasMore);
+        response.put("nextCursor", nextCursor);
 
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    /**
+     * The whole catalog, or the part matching the filters, as newline-delimited JSON: one listing
+     * per line in {@code sortBy} order, read and written in batches so neither side holds it all.
+     * Lines carry the listing only, without the owner rating that {@code getListings} adds, so the
+     * export costs one query per batch. Requires authentication (see SecurityConfig).
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamListings(
+            @RequestParam(defaultValue = "date") String sortBy,
+            @RequestParam(required = false) String neighborhood,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean available) {
+        ListingCatalogQuery query = catalogQuery(sortBy, neighborhood, category, status, available);
+        StreamingResponseBody body = out -> listingCatalogService.forEach(query, listing -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(ListingMapper.toDto(listing)));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private static ListingCatalogQuery catalogQuery(String sortBy, String neighborhood, String category,
+                                                    String status, Boolean available) {
+        return ListingCatalogQuery.builder()
+                .sortBy(sortBy)
+                .neighborhood(neighborhood)
+                .category(category)
+                .status(status)
+                .available(available)
+                .build();
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ListingDto>> getListing(@PathVariable String id) {
+    public ResponseEntity<ApiResponse<ListingDto>> getListing(
+            @PathVariable String id,
+            @AuthenticationPrincipal UserPrincipal principal) {
         return listingRepository.findById(id)
-                .map(listing -> ResponseEntity.ok(ApiResponse.success(toDto(listing))))
+                .map(listing -> {
+                    if (principal == null) {
+                        popularityService.recordView(listing.getId());
+                    } else if (!principal.getId().equals(listing.getOwnerId())) {
+                        popularityService.recordView(listing.getId());
+                        tasteVectorService.recordView(principal.getId(), listing.getId());
+                    }
+                    return ResponseEntity.ok(ApiResponse.success(toDto(listing)));
+                })
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body((ApiResponse<ListingDto>) ApiResponse.error("Listing not found")));
     }
@@ -89,7 +182,6 @@ public class ListingController {
             listing.setPricePerDay(BigDecimal.ZERO);
         }
         Listing saved = listingRepository.save(listing);
-        searchService.generateEmbedding(saved.getId());
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success(toDto(saved)));
     }
@@ -118,7 +210,6 @@ public class ListingController {
                     listing.setOwnerId(existing.getOwnerId());
                     listing.setCreatedAt(existing.getCreatedAt());
                     Listing updated = listingRepository.update(listing);
-                    searchService.generateEmbedding(updated.getId());
                     return ResponseEntity.ok(ApiResponse.success(toDto(updated)));
                 })
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
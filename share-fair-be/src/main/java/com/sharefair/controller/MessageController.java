@@ -5,6 +5,8 @@ import com.sharefair.dto.ConversationDto;
 import com.sharefair.dto.MessageDto;
 import com.sharefair.dto.SendMessageRequest;
 import com.sharefair.dto.StartConversationRequest;
+import com.sharefair.repository.CursorPage;
+import com.sharefair.repository.PageCursor;
 import com.sharefair.security.UserPrincipal;
 import com.sharefair.service.MessageService;
 import org.springframework.http.ResponseEntity;
@@ -49,9 +51,20 @@ public class MessageController {
             @PathVariable String conversationId,
             @RequestParam(defaultValue = "50") int limit,
             @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal UserPrincipal principal) {
-        return ResponseEntity.ok(ApiResponse.success(
-                messageService.getMessages(conversationId, principal.getId(), limit, offset)));
+        if (cursor == null && offset > 0) {
+            return ResponseEntity.ok(ApiResponse.success(
+                    messageService.getMessages(conversationId, principal.getId(), limit, offset)));
+        }
+
+        CursorPage<MessageDto> page = messageService.getMessages(conversationId, principal.getId(), limit,
+                cursor != null ? PageCursor.decode(cursor) : null);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasMore()) {
+            response.header(PageCursor.HEADER, page.nextCursor());
+        }
+        return response.body(ApiResponse.success(page.items()));
     }
 
     @PostMapping("/conversations/{conversationId}")
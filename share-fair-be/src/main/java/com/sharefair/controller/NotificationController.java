@@ -3,6 +3,8 @@ package com.sharefair.controller;
 import com.sharefair.dto.ApiResponse;
 import com.sharefair.dto.NotificationDto;
 import com.sharefair.entity.Notification;
+import com.sharefair.repository.CursorPage;
+import com.sharefair.repository.PageCursor;
 import com.sharefair.security.UserPrincipal;
 import com.sharefair.service.NotificationService;
 import org.springframework.http.ResponseEntity;
@@ -25,13 +27,28 @@ public class NotificationController {
     public ResponseEntity<ApiResponse<List<NotificationDto>>> getNotifications(
             @AuthenticationPrincipal UserPrincipal principal,
             @RequestParam(defaultValue = "20") int limit,
-            @RequestParam(defaultValue = "0") int offset) {
-        List<NotificationDto> notifications = notificationService
-                .getUserNotifications(principal.getId(), limit, offset)
-                .stream()
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) String cursor) {
+        if (cursor == null && offset > 0) {
+            List<NotificationDto> notifications = notificationService
+                    .getUserNotifications(principal.getId(), limit, offset)
+                    .stream()
+                    .map(this::toDto)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(ApiResponse.success(notifications));
+        }
+
+        // The next page's cursor travels in a header so the body stays a plain list
+        CursorPage<Notification> page = notificationService.getUserNotifications(
+                principal.getId(), limit, cursor != null ? PageCursor.decode(cursor) : null);
+        List<NotificationDto> notifications = page.items().stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(ApiResponse.success(notifications));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasMore()) {
+            response.header(PageCursor.HEADER, page.nextCursor());
+        }
+        return response.body(ApiResponse.success(notifications));
     }
 
     @GetMapping("/unread-count")
@@ -51,4 +51,20 @@ public class RecommendationController {
                 .collect(Collectors.toList());
         return ResponseEntity.ok(ApiResponse.success(listings));
     }
+
+    /**
+     * Listings frequently borrowed by people who borrowed the given listing (public endpoint for
+     * listing detail page).
+     */
+    @GetMapping("/also-borrowed/{listingId}")
+    public ResponseEntity<ApiResponse<List<ListingDto>>> getAlsoBorrowed(
+            @PathVariable String listingId,
+            @RequestParam(defaultValue = "6") int limit) {
+        List<ListingDto> listings = recommendationService
+                .getAlsoBorrowed(listingId, Math.min(limit, 12))
+                .stream()
+                .map(ListingMapper::toDto)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(ApiResponse.success(listings));
+    }
 }
@@ -1,12 +1,26 @@
 package com.sharefair.controller;
 
 import com.sharefair.dto.ApiResponse;
+import com.sharefair.dto.BackfillStatusDto;
+import com.sharefair.dto.EmbeddingJobStatusDto;
 import com.sharefair.dto.ListingDto;
 import com.sharefair.dto.ListingMapper;
+import com.sharefair.dto.MapViewDto;
 import com.sharefair.entity.Listing;
+import com.sharefair.repository.CursorPage;
 import com.sharefair.repository.NeighborhoodRepository;
+import com.sharefair.repository.PageCursor;
+import com.sharefair.service.AutocompleteIndex;
+import com.sharefair.service.EmbeddingBackfillService;
+import com.sharefair.service.FacetService;
+import com.sharefair.service.ListingEmbeddingService;
+import com.sharefair.service.MapClusterService;
 import com.sharefair.service.SearchService;
+import com.sharefair.service.SearchTrace;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -19,13 +33,36 @@ import java.util.stream.Collectors;
 public class SearchController {
     private final NeighborhoodRepository neighborhoodRepository;
     private final SearchService searchService;
+    private final EmbeddingBackfillService embeddingBackfillService;
+    private final ListingEmbeddingService listingEmbeddingService;
+    private final AutocompleteIndex autocompleteIndex;
+    private final FacetService facetService;
+    private final MapClusterService mapClusterService;
 
     public SearchController(NeighborhoodRepository neighborhoodRepository,
-                            SearchService searchService) {
+                            SearchService searchService,
+                            EmbeddingBackfillService embeddingBackfillService,
+                            ListingEmbeddingService listingEmbeddingService,
+                            AutocompleteIndex autocompleteIndex,
+                            FacetService facetService,
+                            MapClusterService mapClusterService) {
         this.neighborhoodRepository = neighborhoodRepository;
         this.searchService = searchService;
+        this.embeddingBackfillService = embeddingBackfillService;
+        this.listingEmbeddingService = listingEmbeddingService;
+        this.autocompleteIndex = autocompleteIndex;
+        this.facetService = facetService;
+        this.mapClusterService = mapClusterService;
     }
 
+    /**
+     * Listing search. Pages are keyset-paginated: pass the previous response's {@code nextCursor}
+     * as {@code cursor}. A non-zero {@code offset} without a cursor is still honoured for older
+     * clients, through the same plan as the first page. With {@code lat}/{@code lng}, the radius (default 10 km), query and filters are
+     * applied together. Otherwise the first page also carries facet counts for the query and
+     * filters unless {@code facets=false}. Admins can pass {@code explain=true} to get the search
+     * path and per-stage timings (everything but response serialization) in {@code explain}.
+     */
     @GetMapping
     public ResponseEntity<ApiResponse<Map<String, Object>>> search(
             @RequestParam(required = false) String query,
@@ -36,39 +73,68 @@ public class SearchController {
             @RequestParam(required = false) Double lng,
             @RequestParam(defaultValue = "relevance") String sortBy,
             @RequestParam(defaultValue = "20") int limit,
-            @RequestParam(defaultValue = "0") int offset) {
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean facets,
+            @RequestParam(defaultValue = "false") boolean explain) {
 
         limit = Math.max(1, Math.min(limit, 100));
         offset = Math.max(0, offset);
+        boolean nearby = lat != null && lng != null;
+        double radiusKm = radius != null ? radius : 10;
+
+        if (cursor == null && offset > 0) {
+            List<Listing> listings = nearby
+                    ? searchService.searchNearby(query, neighborhood, category, lat, lng, radiusKm, sortBy, limit, offset)
+                    : searchService.semanticSearch(query, neighborhood, category, sortBy, limit, offset);
+            return respond(toResponse(listings, listings.size() == limit, null), explain);
+        }
 
-        List<Listing> listings;
-        if (lat != null && lng != null && "distance".equals(sortBy)) {
-            double radiusKm = radius != null ? radius : 10;
-            listings = searchService.searchByLocation(lat, lng, radiusKm, limit, offset);
-        } else {
-            listings = searchService.semanticSearch(query, neighborhood, category, sortBy, limit, offset);
+        PageCursor after = cursor != null ? PageCursor.decode(cursor) : null;
+        CursorPage<Listing> page = nearby
+                ? searchService.searchNearby(query, neighborhood, category, lat, lng, radiusKm, sortBy, limit, after)
+                : searchService.semanticSearch(query, neighborhood, category, sortBy, limit, after);
+        Map<String, Object> response = toResponse(page.items(), page.hasMore(), page.nextCursor());
+        if (facets && after == null && !nearby) {
+            response.put("facets", SearchTrace.time(SearchTrace.Stage.FACETS,
+                    () -> facetService.facets(query, neighborhood, category, sortBy)));
         }
+        return respond(response, explain);
+    }
 
-        List<ListingDto> dtos = listings.stream()
-                .map(ListingMapper::toDto)
-                .collect(Collectors.toList());
+    /**
+     * Starts (or resumes) the background embedding backfill of up to {@code maxListings} listings
+     * (0 for all of them). Returns immediately with the run's status; poll the GET endpoint for
+     * progress. Admin only.
+     */
+    @PostMapping("/backfill-embeddings")
+    public ResponseEntity<ApiResponse<BackfillStatusDto>> backfillEmbeddings(
+            @RequestParam(defaultValue = "1000") long maxListings) {
+        BackfillStatusDto status = embeddingBackfillService.start(Math.max(0, maxListings));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success(status));
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("listings", dtos);
-        response.put("total", dtos.size());
-        response.put("hasMore", dtos.size() == limit);
+    @GetMapping("/backfill-embeddings")
+    public ResponseEntity<ApiResponse<BackfillStatusDto>> backfillStatus() {
+        return ResponseEntity.ok(ApiResponse.success(embeddingBackfillService.status()));
+    }
 
-        return ResponseEntity.ok(ApiResponse.success(response));
+    @PostMapping("/backfill-embeddings/stop")
+    public ResponseEntity<ApiResponse<BackfillStatusDto>> stopBackfill() {
+        embeddingBackfillService.stop();
+        return ResponseEntity.ok(ApiResponse.success(embeddingBackfillService.status()));
     }
 
-    @PostMapping("/backfill-embeddings")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> backfillEmbeddings(
-            @RequestParam(defaultValue = "100") int batchSize) {
-        batchSize = Math.max(1, Math.min(batchSize, 1000));
-        int processed = searchService.backfillEmbeddings(batchSize);
-        Map<String, Object> result = new HashMap<>();
-        result.put("processed", processed);
-        return ResponseEntity.ok(ApiResponse.success(result));
+    @GetMapping("/embedding-jobs")
+    public ResponseEntity<ApiResponse<EmbeddingJobStatusDto>> embeddingJobStatus() {
+        return ResponseEntity.ok(ApiResponse.success(listingEmbeddingService.status()));
+    }
+
+    /** Gives every dead embedding job a fresh set of attempts, e.g. after a model outage. Admin only. */
+    @PostMapping("/embedding-jobs/requeue-dead")
+    public ResponseEntity<ApiResponse<EmbeddingJobStatusDto>> requeueDeadEmbeddingJobs() {
+        listingEmbeddingService.requeueDead();
+        return ResponseEntity.ok(ApiResponse.success(listingEmbeddingService.status()));
     }
 
     @GetMapping("/location")
@@ -77,24 +143,36 @@ public class SearchController {
             @RequestParam double longitude,
             @RequestParam(defaultValue = "5") double radius,
             @RequestParam(defaultValue = "20") int limit,
-            @RequestParam(defaultValue = "0") int offset) {
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) String cursor) {
 
         limit = Math.max(1, Math.min(limit, 100));
         offset = Math.max(0, offset);
         radius = Math.max(0.5, Math.min(radius, 50));
 
-        List<Listing> listings = searchService.searchByLocation(latitude, longitude, radius, limit, offset);
-
-        List<ListingDto> dtos = listings.stream()
-                .map(ListingMapper::toDto)
-                .collect(Collectors.toList());
+        if (cursor == null && offset > 0) {
+            List<Listing> listings = searchService.searchByLocation(latitude, longitude, radius, limit, offset);
+            return respond(toResponse(listings, listings.size() == limit, null), false);
+        }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("listings", dtos);
-        response.put("total", dtos.size());
-        response.put("hasMore", dtos.size() == limit);
+        PageCursor after = cursor != null ? PageCursor.decode(cursor) : null;
+        CursorPage<Listing> page = searchService.searchByLocation(latitude, longitude, radius, limit, after);
+        return respond(toResponse(page.items(), page.hasMore(), page.nextCursor()), false);
+    }
 
-        return ResponseEntity.ok(ApiResponse.success(response));
+    /**
+     * Listings in a map viewport: clustered counts per tile cell when zoomed out, individual
+     * listings from zoom 16. {@code west > east} denotes a box crossing the antimeridian.
+     */
+    @GetMapping("/map")
+    public ResponseEntity<ApiResponse<MapViewDto>> mapView(
+            @RequestParam double south,
+            @RequestParam double west,
+            @RequestParam double north,
+            @RequestParam double east,
+            @RequestParam int zoom) {
+        MapViewDto view = mapClusterService.view(south, west, north, east, Math.max(0, Math.min(zoom, 22)));
+        return ResponseEntity.ok(ApiResponse.success(view));
     }
 
     @GetMapping("/neighborhoods")
@@ -111,8 +189,41 @@ public class SearchController {
 
     @GetMapping("/autocomplete")
     public ResponseEntity<ApiResponse<List<String>>> autocomplete(@RequestParam String query) {
-        List<String> suggestions = neighborhoodRepository.searchListingTitles(query);
+        List<String> suggestions = autocompleteIndex.isReady()
+                ? autocompleteIndex.suggest(query, 10)
+                : neighborhoodRepository.searchListingTitles(query);
         return ResponseEntity.ok(ApiResponse.success(suggestions));
     }
 
+    /** Ends the traced part of a search handler; the rest of the request is serialization. */
+    private static ResponseEntity<ApiResponse<Map<String, Object>>> respond(Map<String, Object> response,
+                                                                          boolean explain) {
+        SearchTrace trace = SearchTrace.current();
+        if (trace != null) {
+            if (explain && isAdmin()) {
+                response.put("explain", trace.explain());
+            }
+            trace.handled();
+        }
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    private static boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
+    private static Map<String, Object> toResponse(List<Listing> listings, boolean hasMore, String nextCursor) {
+        List<ListingDto> dtos = SearchTrace.time(SearchTrace.Stage.DTO_MAPPING, () -> listings.stream()
+                .map(ListingMapper::toDto)
+                .collect(Collectors.toList()));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("listings", dtos);
+        response.put("total", dtos.size());
+        response.put("hasMore", hasMore);
+        response.put("nextCursor", nextCursor);
+        return response;
+    }
 }
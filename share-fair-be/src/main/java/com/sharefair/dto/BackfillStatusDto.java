@@ -0,0 +1,26 @@
+package com.sharefair.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackfillStatusDto {
+    private String state;
+    private long total;
+    private long processed;
+    private long failed;
+    private double progress;
+    private double throughputPerSecond;
+    private double errorRate;
+    private String cursor;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String lastError;
+}
@@ -0,0 +1,17 @@
+package com.sharefair.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddingJobStatusDto {
+    private long pending;
+    private long running;
+    private long dead;
+    private double oldestAgeSeconds;
+}
@@ -0,0 +1,17 @@
+package com.sharefair.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapClusterDto {
+    private String cell;
+    private long count;
+    private double latitude;
+    private double longitude;
+}
@@ -0,0 +1,26 @@
+package com.sharefair.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listings in a map viewport: per-cell clusters below the point zoom, individual listings at or
+ * above it. {@code level} is the tile level the clusters were read at (0 when returning points).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapViewDto {
+    private int level;
+    @Builder.Default
+    private List<MapClusterDto> clusters = new ArrayList<>();
+    @Builder.Default
+    private List<ListingDto> points = new ArrayList<>();
+    private boolean truncated;
+}
@@ -0,0 +1,16 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A listing that a user has borrowed in at least one completed transaction. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletedBorrow {
+    private String borrowerId;
+    private String listingId;
+}
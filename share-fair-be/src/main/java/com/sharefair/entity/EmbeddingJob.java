@@ -0,0 +1,17 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A claimed row of {@code embedding_jobs}: the listing to embed and the generation that was claimed. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddingJob {
+    private String listingId;
+    private int generation;
+    private int attempts;
+}
@@ -0,0 +1,18 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Queue depth per state and the age in seconds of the oldest job that is not dead. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddingJobStats {
+    private long pending;
+    private long running;
+    private long dead;
+    private double oldestAgeSeconds;
+}
@@ -0,0 +1,18 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListingEmbedding {
+    private String id;
+    private float[] embedding;
+    private String neighborhood;
+    private String category;
+    private Boolean available;
+}
@@ -0,0 +1,29 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts of available listings per facet value for one filter set. Value maps are ordered by
+ * count (price ranges by bucket); listings with no value for a facet are not counted under it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListingFacets {
+    private long total;
+    @Builder.Default
+    private Map<String, Long> categories = new LinkedHashMap<>();
+    @Builder.Default
+    private Map<String, Long> neighborhoods = new LinkedHashMap<>();
+    @Builder.Default
+    private Map<String, Long> listingTypes = new LinkedHashMap<>();
+    @Builder.Default
+    private Map<String, Long> priceRanges = new LinkedHashMap<>();
+}
@@ -0,0 +1,19 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Listing fields the autocomplete index needs, with the listing's completed-rental count. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListingTitle {
+    private String id;
+    private String title;
+    private String category;
+    private String status;
+    private long popularity;
+}
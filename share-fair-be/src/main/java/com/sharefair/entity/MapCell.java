@@ -0,0 +1,20 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One non-empty web-mercator tile of {@code listing_map_cells}, with its listings' centroid. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapCell {
+    private int level;
+    private int x;
+    private int y;
+    private long count;
+    private double latitude;
+    private double longitude;
+}
@@ -0,0 +1,18 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Activity on one listing since the last flush, with its forward-decayed log weight. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularityIncrement {
+    private String listingId;
+    private double logWeight;
+    private long views;
+    private long transactions;
+}
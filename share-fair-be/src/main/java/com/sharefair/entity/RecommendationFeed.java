@@ -0,0 +1,26 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** A user's materialized recommendations: ranked listing ids and the categories they came from. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationFeed {
+    private String userId;
+    private List<String> categories;
+    private List<String> listingIds;
+    private LocalDateTime computedAt;
+
+    /** Nothing to personalize from yet (no taste vector, no completed transactions): served the popular list. */
+    public boolean isCold() {
+        return listingIds == null || listingIds.isEmpty();
+    }
+}
@@ -0,0 +1,21 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** A listing's precomputed nearest neighbours by embedding distance, nearest first. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarListings {
+    private String listingId;
+    private List<String> neighbourIds;
+    private List<Float> distances;
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,17 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredQueryEmbedding {
+    private float[] embedding;
+    private LocalDateTime lastUsedAt;
+}
@@ -0,0 +1,20 @@
+package com.sharefair.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/** Time-decayed average embedding of the listings a user interacted with, and its total weight. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TasteVector {
+    private String userId;
+    private float[] embedding;
+    private double weight;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,30 @@
+package com.sharefair.event;
+
+import com.sharefair.entity.Listing;
+import lombok.Getter;
+
+/**
+ * Published by the listing repository after every write so that in-memory search
+ * structures can follow the catalog without polling the database.
+ */
+@Getter
+public class ListingChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        EMBEDDING_UPDATED,
+        DELETED
+    }
+
+    private final String listingId;
+    private final Type type;
+    /** Snapshot of the written row for CREATED/UPDATED, null otherwise. */
+    private final Listing listing;
+
+    public ListingChangedEvent(String listingId, Type type, Listing listing) {
+        this.listingId = listingId;
+        this.type = type;
+        this.listing = listing;
+    }
+}
@@ -0,0 +1,20 @@
+package com.sharefair.event;
+
+import lombok.Getter;
+
+/** Published by {@code TransactionService} when a transaction reaches COMPLETED. */
+@Getter
+public class TransactionCompletedEvent {
+
+    private final String transactionId;
+    private final String listingId;
+    private final String borrowerId;
+    private final String ownerId;
+
+    public TransactionCompletedEvent(String transactionId, String listingId, String borrowerId, String ownerId) {
+        this.transactionId = transactionId;
+        this.listingId = listingId;
+        this.borrowerId = borrowerId;
+        this.ownerId = ownerId;
+    }
+}
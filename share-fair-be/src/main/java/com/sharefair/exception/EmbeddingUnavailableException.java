@@ -0,0 +1,15 @@
+package com.sharefair.exception;
+
+/**
+ * The embedding model could not produce a query embedding in time (or is being skipped because
+ * it has been failing); search falls back to keyword matching.
+ */
+public class EmbeddingUnavailableException extends RuntimeException {
+    public EmbeddingUnavailableException(String message) {
+        super(message);
+    }
+
+    public EmbeddingUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
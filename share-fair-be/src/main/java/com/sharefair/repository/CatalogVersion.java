@@ -0,0 +1,25 @@
+package com.sharefair.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the listing catalog as seen by this instance, bumped by the listing repository after
+ * every write that can change search results (create, update, delete, embedding update).
+ * Caches that include it in their keys never serve results computed before the latest write.
+ * Writes made by other replicas are not observed; caches bound that staleness with a TTL.
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long bump() {
+        return version.incrementAndGet();
+    }
+}
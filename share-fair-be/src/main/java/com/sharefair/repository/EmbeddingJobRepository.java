@@ -0,0 +1,21 @@
+package com.sharefair.repository;
+
+import com.sharefair.entity.EmbeddingJob;
+import com.sharefair.entity.EmbeddingJobStats;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface EmbeddingJobRepository {
+    /** Claims up to {@code limit} ready jobs (or jobs whose lease expired) for {@code workerId}. */
+    List<EmbeddingJob> claim(String workerId, int limit, Duration lease);
+    /** Deletes the job if it is still at the claimed generation, otherwise makes it ready again. */
+    void complete(EmbeddingJob job, String workerId);
+    /** Releases the job for another attempt at {@code delay} from now. */
+    void retry(EmbeddingJob job, String workerId, Duration delay, String error);
+    /** Marks the job dead unless the listing was edited since it was claimed, in which case it is retried now. */
+    void bury(EmbeddingJob job, String workerId, String error);
+    /** Makes all dead jobs ready again with a fresh attempt budget. */
+    int requeueDead();
+    EmbeddingJobStats stats();
+}
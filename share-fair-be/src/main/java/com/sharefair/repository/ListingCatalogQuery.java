@@ -0,0 +1,26 @@
+package com.sharefair.repository;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Filters and ordering of the paged listing catalog. Unset (null or blank) filters match every
+ * listing; {@link #sortBy} is {@code "price"} (cheapest first) or, by default, newest first.
+ */
+@Data
+@Builder
+public class ListingCatalogQuery {
+    private String neighborhood;
+    private String category;
+    private String status;
+    private Boolean available;
+    private String sortBy;
+
+    public boolean isFiltered() {
+        return hasText(neighborhood) || hasText(category) || hasText(status) || available != null;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -1,13 +1,19 @@
 package com.sharefair.repository;
 
 import com.sharefair.entity.Listing;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.entity.ListingFacets;
+import com.sharefair.entity.ListingTitle;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ListingRepository {
     Listing save(Listing listing);
     Listing update(Listing listing);
     Optional<Listing> findById(String id);
+    List<Listing> findByIds(List<String> ids);
     List<Listing> findAll();
     List<Listing> findByOwnerId(String ownerId);
     List<Listing> findByCategory(String category);
@@ -17,14 +23,50 @@ public interface ListingRepository {
     void delete(String id);
     long count();
 
+    /** One page of the catalog in {@code query}'s order, seeking past {@code after}. */
+    CursorPage<Listing> findCatalog(ListingCatalogQuery query, int limit, PageCursor after);
+    List<Listing> findCatalog(ListingCatalogQuery query, int limit, int offset);
+    long countCatalog(ListingCatalogQuery query);
+    /** Planner row estimate of the listings table ({@code pg_class.reltuples}); negative if never analyzed. */
+    long estimateCount();
+
     List<Listing> findBySimilarity(float[] queryEmbedding, String neighborhood,
                                     String category, double similarityThreshold,
                                     int limit, int offset);
+    CursorPage<Listing> findBySimilarity(float[] queryEmbedding, String neighborhood,
+                                          String category, double similarityThreshold,
+                                          int limit, PageCursor after);
     List<Listing> findByKeyword(String query, String neighborhood,
                                  String category, String sortBy, int limit, int offset);
+    CursorPage<Listing> findByKeyword(String query, String neighborhood,
+                                       String category, String sortBy, int limit, PageCursor after);
     List<Listing> findByFilters(String neighborhood, String category,
                                  String sortBy, int limit, int offset);
-    void updateEmbedding(String listingId, float[] embedding);
-    List<Listing> findWithoutEmbedding(int limit);
+    CursorPage<Listing> findByFilters(String neighborhood, String category,
+                                       String sortBy, int limit, PageCursor after);
+    void updateEmbedding(String listingId, float[] embedding, String fingerprint);
+    Optional<String> findEmbeddingFingerprint(String listingId);
+    List<Listing> findWithoutEmbedding(String afterId, int limit);
+    long countWithoutEmbedding();
+    void updateEmbeddings(Map<String, float[]> embeddings, Map<String, String> fingerprints);
+    List<ListingEmbedding> findEmbeddingsAfter(String afterId, int limit);
+    Optional<ListingEmbedding> findEmbeddingById(String id);
+    List<ListingEmbedding> findEmbeddingsByIds(Collection<String> ids);
+    List<ListingTitle> findTitlesAfter(String afterId, int limit);
+
+    /**
+     * Facet counts over available listings matching the keyword query or lying within
+     * {@code similarityThreshold} of {@code queryEmbedding} (either may be {@code null}), computed
+     * in a single {@code GROUPING SETS} query. The neighborhood and category filters apply to every
+     * facet except their own, so the unselected values of a filtered dimension are still counted.
+     */
+    ListingFacets countFacets(String query, float[] queryEmbedding, double similarityThreshold,
+                              String neighborhood, String category);
     List<Listing> findByLocation(double lat, double lng, double radiusKm, int limit, int offset);
+    CursorPage<Listing> findByLocation(double lat, double lng, double radiusKm, int limit, PageCursor after);
+    /** One query applying every predicate of {@code search}; see {@link ListingSearch}. */
+    List<Listing> search(ListingSearch search, int limit, int offset);
+    CursorPage<Listing> search(ListingSearch search, int limit, PageCursor after);
+    /** Available listings inside a latitude/longitude box ({@code west <= east}). */
+    List<Listing> findInBounds(double south, double west, double north, double east, int limit);
 }
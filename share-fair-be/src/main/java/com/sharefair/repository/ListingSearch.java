@@ -0,0 +1,36 @@
+package com.sharefair.repository;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Combined listing search: attribute filters, an optional radius and an optional text query,
+ * scored by vector distance when {@link #queryEmbedding} is set and by full-text rank otherwise.
+ * <p>
+ * {@link #exactRanking} chooses how a vector-ranked search is executed: {@code false} lets the
+ * HNSW index drive the scan and applies the other predicates to what it returns (cheap when they
+ * are unselective); {@code true} applies every predicate first and computes exact distances for
+ * the survivors (cheap when they are selective, and never starved by post-filtering).
+ */
+@Data
+@Builder
+public class ListingSearch {
+    private String query;
+    private float[] queryEmbedding;
+    private double similarityThreshold;
+    private String neighborhood;
+    private String category;
+    private Double latitude;
+    private Double longitude;
+    private Double radiusKm;
+    private String sortBy;
+    private boolean exactRanking;
+
+    public boolean hasLocation() {
+        return latitude != null && longitude != null;
+    }
+
+    public boolean hasText() {
+        return query != null && !query.isBlank();
+    }
+}
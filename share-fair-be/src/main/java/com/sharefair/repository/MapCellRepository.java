@@ -0,0 +1,17 @@
+package com.sharefair.repository;
+
+import com.sharefair.entity.MapCell;
+
+import java.util.List;
+
+public interface MapCellRepository {
+    /** Non-empty cells at {@code level} with x in [minX, maxX] and y in [minY, maxY]. */
+    List<MapCell> findCells(int level, int minX, int maxX, int minY, int maxY);
+    /** Total listings in the cells at {@code level} with x in [minX, maxX] and y in [minY, maxY]. */
+    long countListings(int level, int minX, int maxX, int minY, int maxY);
+    /**
+     * Folds up to {@code batchSize} queued listing deltas into the cells; returns how many were
+     * applied, 0 if none are queued or another caller is applying them.
+     */
+    int applyDeltas(int batchSize);
+}
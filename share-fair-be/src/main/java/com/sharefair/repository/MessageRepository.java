@@ -7,5 +7,6 @@ import java.util.List;
 public interface MessageRepository {
     Message save(Message message);
     List<Message> findByConversationId(String conversationId, int limit, int offset);
+    CursorPage<Message> findByConversationId(String conversationId, int limit, PageCursor after);
     void markConversationAsRead(String conversationId, String userId);
 }
@@ -9,6 +9,7 @@ public interface NotificationRepository {
     Notification save(Notification notification);
     Optional<Notification> findById(String id);
     List<Notification> findByUserId(String userId, int limit, int offset);
+    CursorPage<Notification> findByUserId(String userId, int limit, PageCursor after);
     int countUnread(String userId);
     void markAsRead(String id);
     void markAllAsRead(String userId);
@@ -0,0 +1,98 @@
+package com.sharefair.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque keyset-pagination token: the sort key values of the last row of a page (ending with its
+ * id as the tiebreaker), tagged with the ordering they belong to. Repositories turn it into a
+ * seek predicate such as {@code (created_at, id) < (?, ?)} instead of an {@code OFFSET}.
+ * <p>
+ * The wire form is URL-safe Base64 so clients pass it back verbatim without interpreting it.
+ */
+public final class PageCursor {
+
+    /** Ordering tag for cursors that wrap a plain offset (results ranked in memory). */
+    public static final String OFFSET = "offset";
+
+    /** Response header carrying the next cursor for endpoints whose body is a plain list. */
+    public static final String HEADER = "X-Next-Cursor";
+
+    private static final char SEPARATOR = '\n';
+
+    private final String order;
+    private final List<String> values;
+
+    private PageCursor(String order, List<String> values) {
+        this.order = order;
+        this.values = values;
+    }
+
+    public static PageCursor of(String order, Object... values) {
+        List<String> strings = new ArrayList<>(values.length);
+        for (Object value : values) {
+            strings.add(String.valueOf(value));
+        }
+        return new PageCursor(order, List.copyOf(strings));
+    }
+
+    public static PageCursor offset(int offset) {
+        return of(OFFSET, offset);
+    }
+
+    /** @throws IllegalArgumentException if the token is not a cursor produced by {@link #encode()} */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            List<String> parts = Arrays.asList(raw.split(String.valueOf(SEPARATOR), -1));
+            if (parts.size() < 2 || parts.get(0).isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new PageCursor(parts.get(0), List.copyOf(parts.subList(1, parts.size())));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        StringBuilder sb = new StringBuilder(order);
+        for (String value : values) {
+            sb.append(SEPARATOR).append(value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getOrder() {
+        return order;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    /**
+     * Checks that this cursor was issued for {@code expectedOrder} with {@code size} key values.
+     *
+     * @throws IllegalArgumentException if it belongs to a different ordering (e.g. the client
+     *                                  changed {@code sortBy} but kept the cursor)
+     */
+    public PageCursor requireOrder(String expectedOrder, int size) {
+        if (!order.equals(expectedOrder) || values.size() != size) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+        return this;
+    }
+
+    /** Offset carried by an {@link #OFFSET} cursor. */
+    public int offsetValue() {
+        requireOrder(OFFSET, 1);
+        try {
+            return Math.max(0, Integer.parseInt(values.get(0)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
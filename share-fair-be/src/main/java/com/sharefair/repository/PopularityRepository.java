@@ -0,0 +1,22 @@
+package com.sharefair.repository;
+
+import com.sharefair.entity.PopularityIncrement;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code listing_popularity}; see V24 for the forward-decayed {@code log_score}. Methods taking
+ * {@code nowExponent} use it to decay {@code score} to the present: {@code exp(log_score - nowExponent)}.
+ */
+public interface PopularityRepository {
+    /** Adds the increments in one statement and returns the new scores; deleted listings are skipped. */
+    Map<String, Long> add(List<PopularityIncrement> increments, double nowExponent);
+    /** Re-decays up to {@code limit} stored scores that are out of date and returns the new values. */
+    Map<String, Long> decayScores(double nowExponent, int limit);
+    /** Active listings by decayed popularity, then newest first for listings without activity. */
+    List<String> findTopListingIds(int limit);
+    boolean isEmpty();
+    /** Seeds scores from completed transactions (one event each at {@code transactionLogWeight}). */
+    int seedFromTransactions(double transactionLogWeight, double exponentPerSecond, double nowExponent);
+}
@@ -0,0 +1,17 @@
+package com.sharefair.repository;
+
+import com.sharefair.entity.StoredQueryEmbedding;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface QueryEmbeddingRepository {
+    Optional<StoredQueryEmbedding> findByHash(String queryHash);
+    void save(String queryHash, String queryText, float[] embedding);
+    void touch(String queryHash);
+    /**
+     * Deletes entries unused since {@code cutoff}, unless another caller (replica) is doing so at
+     * the same time, in which case it returns 0 without deleting.
+     */
+    int deleteUnusedSince(LocalDateTime cutoff);
+}
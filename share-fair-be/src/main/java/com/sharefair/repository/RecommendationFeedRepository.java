@@ -0,0 +1,29 @@
+package com.sharefair.repository;
+
+import com.sharefair.entity.RecommendationFeed;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface RecommendationFeedRepository {
+    Optional<RecommendationFeed> findByUserId(String userId);
+    void save(RecommendationFeed feed);
+    /** Puts a new listing at the head of every feed built from its category, except its owner's. */
+    int prependListing(String category, String listingId, String ownerId, int maxSize);
+    /**
+     * Claims up to {@code limit} of the oldest feeds computed before {@code cutoff} by moving their
+     * {@code computed_at} to now, so concurrent callers (other replicas) claim disjoint users.
+     */
+    List<String> claimComputedBefore(LocalDateTime cutoff, int limit);
+
+    /** Up to five categories of listings in the user's completed transactions. */
+    List<String> findPreferredCategories(String userId);
+    /** Listings the user has borrowed or lent, in any transaction state. */
+    Set<String> findTransactedListingIds(String userId);
+    /** Newest active listings in the categories that the user neither owns nor has transacted. */
+    List<String> findCategoryCandidates(String userId, List<String> categories, int limit);
+    /** Active listings that the user neither owns nor has transacted, nearest to the taste vector first. */
+    List<String> findTasteCandidates(String userId, float[] taste, int limit);
+}
@@ -0,0 +1,31 @@
+package com.sharefair.repository;
+
+import com.sharefair.entity.SimilarListings;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+public interface SimilarListingRepository {
+    Optional<SimilarListings> findByListingId(String listingId);
+    void save(SimilarListings similar);
+    /**
+     * Stores {@code update} applied to the listing's stored list, under a row lock so that
+     * concurrent merges into the same list are not lost; nothing is written if there is no stored
+     * list or {@code update} returns {@code null}. Returns whether the list was written.
+     */
+    boolean update(String listingId, UnaryOperator<SimilarListings> update);
+    /** The {@code limit} active listings nearest to {@code embedding}, other than {@code excludeId}, with distances. */
+    SimilarListings findNearest(String excludeId, float[] embedding, int limit);
+    /**
+     * Claims up to {@code limit} active listings with an embedding but no stored neighbours by
+     * storing an empty list for each, so concurrent callers claim disjoint listings.
+     */
+    List<String> claimMissing(int limit);
+    /**
+     * Claims up to {@code limit} of the oldest lists computed before {@code cutoff} by moving their
+     * {@code computed_at} to now, so concurrent callers (other replicas) claim disjoint listings.
+     */
+    List<String> claimComputedBefore(LocalDateTime cutoff, int limit);
+}
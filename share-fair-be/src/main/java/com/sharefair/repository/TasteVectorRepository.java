@@ -0,0 +1,15 @@
+package com.sharefair.repository;
+
+import com.sharefair.entity.TasteVector;
+
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+public interface TasteVectorRepository {
+    Optional<TasteVector> findByUserId(String userId);
+    /**
+     * Stores {@code update} applied to the user's current taste vector ({@code null} if none),
+     * under a row lock so that concurrent updates of a stored vector are not lost.
+     */
+    void update(String userId, UnaryOperator<TasteVector> update);
+}
@@ -1,5 +1,6 @@
 package com.sharefair.repository;
 
+import com.sharefair.entity.CompletedBorrow;
 import com.sharefair.entity.Transaction;
 
 import java.util.List;
@@ -15,4 +16,6 @@ public interface TransactionRepository {
     void updatePaymentStatus(String id, String paymentStatus, String stripePaymentId);
     int countByBorrowerIdAndStatus(String borrowerId, String status);
     int countByOwnerIdAndStatus(String ownerId, String status);
+    /** Distinct borrower/listing pairs of completed transactions after the given pair, in key order. */
+    List<CompletedBorrow> findCompletedBorrowsAfter(String afterBorrowerId, String afterListingId, int limit);
 }
@@ -0,0 +1,116 @@
+package com.sharefair.repository.impl;
+
+import com.sharefair.entity.EmbeddingJob;
+import com.sharefair.entity.EmbeddingJobStats;
+import com.sharefair.repository.EmbeddingJobRepository;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Queue operations on {@code embedding_jobs} (see V20). Rows are written by the
+ * {@code trg_listings_embedding_jobs} trigger; every statement here is a single autocommitted
+ * statement, so a claim never holds row locks beyond its own execution and the lease alone
+ * keeps other workers away from a running job.
+ */
+@Repository
+public class EmbeddingJobRepositoryImpl implements EmbeddingJobRepository {
+
+    private final DSLContext dsl;
+    private static final String TABLE = "embedding_jobs";
+
+    public EmbeddingJobRepositoryImpl(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public List<EmbeddingJob> claim(String workerId, int limit, Duration lease) {
+        return dsl.resultQuery(
+                        "UPDATE " + TABLE + " j SET state = 'RUNNING', attempts = j.attempts + 1, locked_by = {0}, "
+                                + "locked_until = NOW() + make_interval(secs => {1}), updated_at = NOW() "
+                                + "FROM (SELECT listing_id FROM " + TABLE + " "
+                                + "      WHERE (state = 'PENDING' AND available_at <= NOW()) "
+                                + "         OR (state = 'RUNNING' AND locked_until < NOW()) "
+                                + "      ORDER BY available_at LIMIT {2} FOR UPDATE SKIP LOCKED) ready "
+                                + "WHERE j.listing_id = ready.listing_id "
+                                + "RETURNING j.listing_id::text AS listing_id, j.generation, j.attempts",
+                        DSL.val(workerId), DSL.val((double) lease.toMillis() / 1000.0), DSL.val(limit))
+                .fetch()
+                .map(this::mapJob);
+    }
+
+    @Override
+    public void complete(EmbeddingJob job, String workerId) {
+        int deleted = dsl.execute(
+                "DELETE FROM " + TABLE + " WHERE listing_id = CAST({0} AS uuid) AND generation = {1} AND locked_by = {2}",
+                DSL.val(job.getListingId()), DSL.val(job.getGeneration()), DSL.val(workerId));
+        if (deleted == 0) {
+            release(job, workerId, Duration.ZERO, null, 0);
+        }
+    }
+
+    @Override
+    public void retry(EmbeddingJob job, String workerId, Duration delay, String error) {
+        release(job, workerId, delay, error, job.getAttempts());
+    }
+
+    @Override
+    public void bury(EmbeddingJob job, String workerId, String error) {
+        int buried = dsl.execute(
+                "UPDATE " + TABLE + " SET state = 'DEAD', last_error = {0}, locked_by = NULL, locked_until = NULL, "
+                        + "updated_at = NOW() "
+                        + "WHERE listing_id = CAST({1} AS uuid) AND generation = {2} AND locked_by = {3}",
+                DSL.val(error), DSL.val(job.getListingId()), DSL.val(job.getGeneration()), DSL.val(workerId));
+        if (buried == 0) {
+            release(job, workerId, Duration.ZERO, error, 0);
+        }
+    }
+
+    /** Returns a claimed job to PENDING, unless another worker took it over after the lease expired. */
+    private void release(EmbeddingJob job, String workerId, Duration delay, String error, int attempts) {
+        dsl.execute(
+                "UPDATE " + TABLE + " SET state = 'PENDING', attempts = {0}, "
+                        + "available_at = NOW() + make_interval(secs => {1}), last_error = {2}, "
+                        + "locked_by = NULL, locked_until = NULL, updated_at = NOW() "
+                        + "WHERE listing_id = CAST({3} AS uuid) AND locked_by = {4}",
+                DSL.val(attempts), DSL.val((double) delay.toMillis() / 1000.0), DSL.val(error),
+                DSL.val(job.getListingId()), DSL.val(workerId));
+    }
+
+    @Override
+    public int requeueDead() {
+        return dsl.execute(
+                "UPDATE " + TABLE + " SET state = 'PENDING', attempts = 0, available_at = NOW(), updated_at = NOW() "
+                        + "WHERE state = 'DEAD'");
+    }
+
+    @Override
+    public EmbeddingJobStats stats() {
+        Record record = dsl.resultQuery(
+                        "SELECT count(*) FILTER (WHERE state = 'PENDING') AS pending, "
+                                + "count(*) FILTER (WHERE state = 'RUNNING') AS running, "
+                                + "count(*) FILTER (WHERE state = 'DEAD') AS dead, "
+                                + "COALESCE(EXTRACT(EPOCH FROM NOW() - min(created_at) FILTER (WHERE state <> 'DEAD')), 0) "
+                                + "AS oldest_age "
+                                + "FROM " + TABLE)
+                .fetchOne();
+        return EmbeddingJobStats.builder()
+                .pending(record.get("pending", Long.class))
+                .running(record.get("running", Long.class))
+                .dead(record.get("dead", Long.class))
+                .oldestAgeSeconds(record.get("oldest_age", Double.class))
+                .build();
+    }
+
+    private EmbeddingJob mapJob(Record record) {
+        return EmbeddingJob.builder()
+                .listingId(record.get("listing_id", String.class))
+                .generation(record.get("generation", Integer.class))
+                .attempts(record.get("attempts", Integer.class))
+                .build();
+    }
+}
@@ -23,4 +23,28 @@ public final class JooqUtils {
         if (value instanceof java.util.Date) return new Date(((java.util.Date) value).getTime()).toLocalDate();
         return null;
     }
+
+    /** Formats a vector as a pgvector text literal, e.g. {@code [0.1,0.2]}. */
+    public static String toVectorString(float[] vector) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) sb.append(",");
+            sb.append(vector[i]);
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /** Parses a pgvector text literal back into a float array. */
+    public static float[] parseVector(String value) {
+        if (value == null) return null;
+        String body = value.substring(1, value.length() - 1);
+        if (body.isEmpty()) return new float[0];
+        String[] parts = body.split(",");
+        float[] vector = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            vector[i] = Float.parseFloat(parts[i]);
+        }
+        return vector;
+    }
 }
@@ -0,0 +1,102 @@
+package com.sharefair.repository.impl;
+
+import com.sharefair.repository.CursorPage;
+import com.sharefair.repository.PageCursor;
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.SortField;
+import org.jooq.impl.DSL;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sort keys of a keyset-paginated query, all in one direction and ending with a unique column
+ * (the row id) as tiebreaker. Produces the ORDER BY, the seek predicate for a {@link PageCursor}
+ * and the cursor for the last row of a page.
+ */
+final class Keyset {
+
+    private static final String ALIAS_PREFIX = "seek_";
+
+    private final String order;
+    private final boolean descending;
+    private final List<Field<?>> keys;
+
+    Keyset(String order, boolean descending, Field<?>... keys) {
+        this.order = order;
+        this.descending = descending;
+        this.keys = List.of(keys);
+    }
+
+    String order() {
+        return order;
+    }
+
+    List<SortField<?>> orderBy() {
+        List<SortField<?>> sortFields = new ArrayList<>(keys.size());
+        for (Field<?> key : keys) {
+            sortFields.add(descending ? key.desc() : key.asc());
+        }
+        return sortFields;
+    }
+
+    /** {@code fields} followed by the sort keys, so the next cursor can be read from the last row. */
+    Field<?>[] select(Field<?>[] fields) {
+        Field<?>[] all = new Field<?>[fields.length + keys.size()];
+        System.arraycopy(fields, 0, all, 0, fields.length);
+        for (int i = 0; i < keys.size(); i++) {
+            all[fields.length + i] = keys.get(i).as(ALIAS_PREFIX + i);
+        }
+        return all;
+    }
+
+    /** Rows strictly after the cursor position, e.g. {@code (created_at, id) < (?, ?)}. */
+    Condition after(PageCursor cursor) {
+        cursor.requireOrder(order, keys.size());
+        Object[] values = new Object[keys.size()];
+        try {
+            for (int i = 0; i < keys.size(); i++) {
+                values[i] = parse(keys.get(i).getType(), cursor.getValues().get(i));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return descending ? DSL.row(keys).lt(values) : DSL.row(keys).gt(values);
+    }
+
+    /**
+     * Trims a result fetched with {@code limit + 1} rows to {@code limit} and derives the next
+     * cursor from the last kept row when the extra row shows there is more.
+     */
+    <T> CursorPage<T> page(List<? extends Record> rows, int limit, RecordMapper<Record, T> mapper) {
+        List<T> items = new ArrayList<>(Math.min(rows.size(), limit));
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            items.add(mapper.map(rows.get(i)));
+        }
+        String next = rows.size() > limit ? cursorOf(rows.get(limit - 1)).encode() : null;
+        return new CursorPage<>(items, next);
+    }
+
+    private PageCursor cursorOf(Record record) {
+        Object[] values = new Object[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            values[i] = record.get(ALIAS_PREFIX + i, keys.get(i).getType());
+        }
+        return PageCursor.of(order, values);
+    }
+
+    private static Object parse(Class<?> type, String value) {
+        if (type == LocalDateTime.class) return LocalDateTime.parse(value);
+        if (type == BigDecimal.class) return new BigDecimal(value);
+        if (type == Float.class) return Float.valueOf(value);
+        if (type == Double.class) return Double.valueOf(value);
+        if (type == UUID.class) return UUID.fromString(value);
+        return value;
+    }
+}
@@ -1,11 +1,23 @@
 package com.sharefair.repository.impl;
 
 import com.sharefair.entity.Listing;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.entity.ListingFacets;
+import com.sharefair.entity.ListingTitle;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.CatalogVersion;
+import com.sharefair.repository.CursorPage;
+import com.sharefair.repository.ListingCatalogQuery;
 import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.ListingSearch;
+import com.sharefair.repository.PageCursor;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.RecordMapper;
+import org.jooq.SortField;
 import org.jooq.impl.DSL;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.sql.Array;
@@ -13,14 +25,21 @@ import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 public class ListingRepositoryImpl implements ListingRepository {
     private final DSLContext dsl;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogVersion catalogVersion;
     private static final String TABLE = "listings";
 
     private static final org.jooq.Field<?>[] LISTING_FIELDS = {
@@ -43,8 +62,27 @@ public class ListingRepositoryImpl implements ListingRepository {
             DSL.field("updated_at")
     };
 
-    public ListingRepositoryImpl(DSLContext dsl) {
+    private static final Field<UUID> ID = DSL.field("id", UUID.class);
+    private static final Field<LocalDateTime> CREATED_AT = DSL.field("created_at", LocalDateTime.class);
+    private static final Field<BigDecimal> PRICE = DSL.field("price", BigDecimal.class);
+    /** Upper bounds (exclusive) of the price facet buckets; the last bucket is open-ended. */
+    private static final int[] PRICE_BUCKET_BOUNDS = {10, 25, 50, 100};
+    private static final List<String> PRICE_BUCKET_LABELS = List.of("0-10", "10-25", "25-50", "50-100", "100+");
+    private static final Field<float[]> EMBEDDING = DSL.field("embedding", PgVectorBinding.VECTOR);
+
+    private static final org.jooq.Field<?>[] EMBEDDING_FIELDS = {
+            DSL.field("id"),
+            EMBEDDING,
+            DSL.field("neighborhood"),
+            DSL.field("category"),
+            DSL.field("available")
+    };
+
+    public ListingRepositoryImpl(DSLContext dsl, ApplicationEventPublisher eventPublisher,
+                                 CatalogVersion catalogVersion) {
         this.dsl = dsl;
+        this.eventPublisher = eventPublisher;
+        this.catalogVersion = catalogVersion;
     }
 
     @Override
@@ -84,6 +122,7 @@ public class ListingRepositoryImpl implements ListingRepository {
                 )
                 .execute();
 
+        publish(listing.getId(), ListingChangedEvent.Type.CREATED, listing);
         return listing;
     }
 
@@ -109,6 +148,7 @@ public class ListingRepositoryImpl implements ListingRepository {
                 .where(DSL.field("id").eq(UUID.fromString(listing.getId())))
                 .execute();
 
+        publish(listing.getId(), ListingChangedEvent.Type.UPDATED, listing);
         return listing;
     }
 
@@ -121,6 +161,31 @@ public class ListingRepositoryImpl implements ListingRepository {
                 .map(this::mapToListing);
     }
 
+    @Override
+    public List<Listing> findByIds(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<UUID> uuids = ids.stream().map(UUID::fromString).collect(Collectors.toList());
+        Map<String, Listing> byId = dsl.select(LISTING_FIELDS)
+                .from(DSL.table(TABLE))
+                .where(DSL.field("id").in(uuids))
+                .fetch()
+                .map(this::mapToListing)
+                .stream()
+                .collect(Collectors.toMap(Listing::getId, Function.identity()));
+
+        // Preserve the caller's ordering (e.g. nearest-first from the vector index)
+        List<Listing> ordered = new ArrayList<>(byId.size());
+        for (String id : ids) {
+            Listing listing = byId.get(id);
+            if (listing != null) {
+                ordered.add(listing);
+            }
+        }
+        return ordered;
+    }
+
     @Override
     public List<Listing> findAll() {
         return dsl.select(LISTING_FIELDS)
@@ -180,6 +245,7 @@ public class ListingRepositoryImpl implements ListingRepository {
         dsl.deleteFrom(DSL.table(TABLE))
                 .where(DSL.field("id").eq(UUID.fromString(id)))
                 .execute();
+        publish(id, ListingChangedEvent.Type.DELETED, null);
     }
 
     @Override
@@ -191,11 +257,68 @@ public class ListingRepositoryImpl implements ListingRepository {
         return count != null ? count : 0L;
     }
 
+    @Override
+    public CursorPage<Listing> findCatalog(ListingCatalogQuery query, int limit, PageCursor after) {
+        return fetchAfter(catalogQuery(query), limit, after);
+    }
+
+    @Override
+    public List<Listing> findCatalog(ListingCatalogQuery query, int limit, int offset) {
+        return fetchOffset(catalogQuery(query), limit, offset);
+    }
+
+    @Override
+    public long countCatalog(ListingCatalogQuery query) {
+        return dsl.fetchCount(DSL.table(TABLE), catalogConditions(query));
+    }
+
+    @Override
+    public long estimateCount() {
+        Long estimate = dsl.resultQuery("SELECT reltuples::bigint FROM pg_class WHERE oid = CAST({0} AS regclass)",
+                        DSL.val(TABLE))
+                .fetchOne(0, Long.class);
+        return estimate != null ? estimate : -1;
+    }
+
+    private ListingQuery catalogQuery(ListingCatalogQuery query) {
+        Keyset keyset = sortKeyset(query.getSortBy());
+        return new ListingQuery(LISTING_FIELDS, catalogConditions(query), keyset, keyset.orderBy(), this::mapToListing);
+    }
+
+    private static List<Condition> catalogConditions(ListingCatalogQuery query) {
+        List<Condition> conditions = new ArrayList<>();
+        if (query.getNeighborhood() != null && !query.getNeighborhood().isBlank()) {
+            conditions.add(DSL.field("neighborhood").eq(query.getNeighborhood()));
+        }
+        if (query.getCategory() != null && !query.getCategory().isBlank()) {
+            conditions.add(DSL.field("category").eq(query.getCategory()));
+        }
+        if (query.getStatus() != null && !query.getStatus().isBlank()) {
+            conditions.add(DSL.field("status").eq(query.getStatus()));
+        }
+        if (query.getAvailable() != null) {
+            conditions.add(DSL.field("available").eq(query.getAvailable()));
+        }
+        return conditions;
+    }
+
     @Override
     public List<Listing> findBySimilarity(float[] queryEmbedding, String neighborhood,
                                            String category, double similarityThreshold,
                                            int limit, int offset) {
-        String vectorString = toVectorString(queryEmbedding);
+        return fetchOffset(similarityQuery(queryEmbedding, neighborhood, category, similarityThreshold), limit, offset);
+    }
+
+    @Override
+    public CursorPage<Listing> findBySimilarity(float[] queryEmbedding, String neighborhood,
+                                                 String category, double similarityThreshold,
+                                                 int limit, PageCursor after) {
+        return fetchAfter(similarityQuery(queryEmbedding, neighborhood, category, similarityThreshold), limit, after);
+    }
+
+    private ListingQuery similarityQuery(float[] queryEmbedding, String neighborhood,
+                                         String category, double similarityThreshold) {
+        Field<float[]> query = DSL.val(queryEmbedding, PgVectorBinding.VECTOR);
 
         List<Condition> conditions = new ArrayList<>();
         conditions.add(DSL.field("available").eq(true));
@@ -208,39 +331,38 @@ public class ListingRepositoryImpl implements ListingRepository {
             conditions.add(DSL.field("category").eq(category));
         }
 
-        Field<Object> distanceField = DSL.field(
-                "embedding <=> {0}::vector",
-                Object.class,
-                DSL.val(vectorString)
-        );
+        Field<Double> distanceField = DSL.field("embedding <=> {0}", Double.class, query);
 
         conditions.add(DSL.condition(
-                "embedding <=> {0}::vector < {1}",
-                DSL.val(vectorString),
+                "embedding <=> {0} < {1}",
+                query,
                 DSL.val(similarityThreshold)
         ));
 
-        return dsl.select(LISTING_FIELDS)
-                .from(DSL.table(TABLE))
-                .where(conditions)
-                .orderBy(distanceField.asc())
-                .limit(limit)
-                .offset(offset)
-                .fetch()
-                .map(this::mapToListing);
+        // The HNSW scan yields rows in distance order; ties (identical texts embed identically)
+        // are put in id order by an incremental sort, matching the (distance, id) cursor.
+        Keyset keyset = new Keyset("similarity", false, distanceField, ID);
+        return new ListingQuery(LISTING_FIELDS, conditions, keyset, keyset.orderBy(), this::mapToListing);
     }
 
     @Override
     public List<Listing> findByKeyword(String query, String neighborhood,
                                         String category, String sortBy, int limit, int offset) {
-        String pattern = "%" + query.toLowerCase() + "%";
+        return fetchOffset(keywordQuery(query, neighborhood, category, sortBy), limit, offset);
+    }
+
+    @Override
+    public CursorPage<Listing> findByKeyword(String query, String neighborhood,
+                                              String category, String sortBy, int limit, PageCursor after) {
+        return fetchAfter(keywordQuery(query, neighborhood, category, sortBy), limit, after);
+    }
+
+    private ListingQuery keywordQuery(String query, String neighborhood, String category, String sortBy) {
+        Field<Object> tsQuery = keywordQuery(query);
 
         List<Condition> conditions = new ArrayList<>();
         conditions.add(DSL.field("available").eq(true));
-        conditions.add(
-                DSL.lower(DSL.field("title", String.class)).like(pattern)
-                        .or(DSL.lower(DSL.field("description", String.class)).like(pattern))
-        );
+        conditions.add(keywordMatch(query, tsQuery));
 
         if (neighborhood != null && !neighborhood.isBlank()) {
             conditions.add(DSL.field("neighborhood").eq(neighborhood));
@@ -249,19 +371,50 @@ public class ListingRepositoryImpl implements ListingRepository {
             conditions.add(DSL.field("category").eq(category));
         }
 
-        return dsl.select(LISTING_FIELDS)
-                .from(DSL.table(TABLE))
-                .where(conditions)
-                .orderBy(getSortField(sortBy))
-                .limit(limit)
-                .offset(offset)
-                .fetch()
-                .map(this::mapToListing);
+        Keyset keyset;
+        if ("price".equals(sortBy) || "date".equals(sortBy)) {
+            keyset = sortKeyset(sortBy);
+        } else {
+            keyset = new Keyset("relevance", true,
+                    DSL.field("ts_rank(search_vector, {0})", Float.class, tsQuery),
+                    DSL.field("word_similarity({0}, title)", Float.class, DSL.val(query)),
+                    CREATED_AT,
+                    ID);
+        }
+        return new ListingQuery(LISTING_FIELDS, conditions, keyset, keyset.orderBy(), this::mapToListing);
+    }
+
+    /**
+     * English (stemmed) and simple (unstemmed, covers Ukrainian) parses of the user's query,
+     * OR-ed together to match the two configurations indexed in {@code search_vector}.
+     */
+    private static Field<Object> keywordQuery(String query) {
+        return DSL.field("(websearch_to_tsquery('english', {0}) || websearch_to_tsquery('simple', {0}))",
+                Object.class, DSL.val(query));
+    }
+
+    /**
+     * Full-text match on the GIN-indexed {@code search_vector}, plus a trigram word-similarity
+     * match on the title so typos and partially typed words still find results.
+     */
+    private static Condition keywordMatch(String query, Field<Object> tsQuery) {
+        return DSL.condition("search_vector @@ {0}", tsQuery)
+                .or(DSL.condition("{0} <% title", DSL.val(query)));
     }
 
     @Override
     public List<Listing> findByFilters(String neighborhood, String category,
                                         String sortBy, int limit, int offset) {
+        return fetchOffset(filterQuery(neighborhood, category, sortBy), limit, offset);
+    }
+
+    @Override
+    public CursorPage<Listing> findByFilters(String neighborhood, String category,
+                                              String sortBy, int limit, PageCursor after) {
+        return fetchAfter(filterQuery(neighborhood, category, sortBy), limit, after);
+    }
+
+    private ListingQuery filterQuery(String neighborhood, String category, String sortBy) {
         List<Condition> conditions = new ArrayList<>();
         conditions.add(DSL.field("available").eq(true));
 
@@ -272,90 +425,410 @@ public class ListingRepositoryImpl implements ListingRepository {
             conditions.add(DSL.field("category").eq(category));
         }
 
-        return dsl.select(LISTING_FIELDS)
+        Keyset keyset = sortKeyset(sortBy);
+        return new ListingQuery(LISTING_FIELDS, conditions, keyset, keyset.orderBy(), this::mapToListing);
+    }
+
+    /** Price ascending or, by default, newest first; the id makes either order total. */
+    private static Keyset sortKeyset(String sortBy) {
+        if ("price".equals(sortBy)) {
+            return new Keyset("price", false, PRICE, ID);
+        }
+        return new Keyset("date", true, CREATED_AT, ID);
+    }
+
+    private List<Listing> fetchOffset(ListingQuery query, int limit, int offset) {
+        return dsl.select(query.fields())
                 .from(DSL.table(TABLE))
-                .where(conditions)
-                .orderBy(getSortField(sortBy))
+                .where(query.conditions())
+                .orderBy(query.orderBy())
                 .limit(limit)
                 .offset(offset)
                 .fetch()
-                .map(this::mapToListing);
+                .map(query.mapper());
     }
 
-    private org.jooq.SortField<?> getSortField(String sortBy) {
-        if ("price".equals(sortBy)) {
-            return DSL.field("price").asc();
-        } else if ("date".equals(sortBy)) {
-            return DSL.field("created_at").desc();
+    private CursorPage<Listing> fetchAfter(ListingQuery query, int limit, PageCursor after) {
+        List<Condition> conditions = new ArrayList<>(query.conditions());
+        if (after != null) {
+            conditions.add(query.keyset().after(after));
         }
-        return DSL.field("created_at").desc();
+        List<? extends org.jooq.Record> rows = dsl.select(query.keyset().select(query.fields()))
+                .from(DSL.table(TABLE))
+                .where(conditions)
+                .orderBy(query.orderBy())
+                .limit(limit + 1)
+                .fetch();
+        return query.keyset().page(rows, limit, query.mapper());
+    }
+
+    /** Select list, filters and ordering shared by the offset and cursor variants of a search. */
+    private record ListingQuery(Field<?>[] fields, List<Condition> conditions, Keyset keyset,
+                                List<? extends SortField<?>> orderBy, RecordMapper<org.jooq.Record, Listing> mapper) {
     }
 
     @Override
-    public void updateEmbedding(String listingId, float[] embedding) {
-        String vectorString = toVectorString(embedding);
+    public void updateEmbedding(String listingId, float[] embedding, String fingerprint) {
         dsl.execute(
-                "UPDATE " + TABLE + " SET embedding = CAST(? AS vector), updated_at = NOW() WHERE id = CAST(? AS uuid)",
-                vectorString, listingId
+                "UPDATE " + TABLE + " SET embedding = {0}, embedding_fingerprint = {1}, updated_at = NOW() "
+                        + "WHERE id = CAST({2} AS uuid)",
+                DSL.val(embedding, PgVectorBinding.VECTOR), DSL.val(fingerprint), DSL.val(listingId)
         );
+        publish(listingId, ListingChangedEvent.Type.EMBEDDING_UPDATED, null);
     }
 
     @Override
-    public List<Listing> findWithoutEmbedding(int limit) {
+    public Optional<String> findEmbeddingFingerprint(String listingId) {
+        return dsl.select(DSL.field("embedding_fingerprint", String.class))
+                .from(DSL.table(TABLE))
+                .where(DSL.field("id").eq(UUID.fromString(listingId)))
+                .fetchOptional(0, String.class);
+    }
+
+    @Override
+    public void updateEmbeddings(Map<String, float[]> embeddings, Map<String, String> fingerprints) {
+        if (embeddings.isEmpty()) {
+            return;
+        }
+        org.jooq.BatchBindStep batch = dsl.batch(dsl.query(
+                "UPDATE " + TABLE + " SET embedding = {0}, embedding_fingerprint = {1}, updated_at = NOW() "
+                        + "WHERE id = CAST({2} AS uuid)",
+                DSL.val((float[]) null, PgVectorBinding.VECTOR), DSL.val((String) null), DSL.val((String) null)
+        ));
+        for (Map.Entry<String, float[]> entry : embeddings.entrySet()) {
+            batch = batch.bind(entry.getValue(), fingerprints.get(entry.getKey()), entry.getKey());
+        }
+        batch.execute();
+        embeddings.keySet().forEach(id -> publish(id, ListingChangedEvent.Type.EMBEDDING_UPDATED, null));
+    }
+
+    @Override
+    public List<Listing> findWithoutEmbedding(String afterId, int limit) {
+        Condition condition = DSL.field("embedding").isNull();
+        if (afterId != null) {
+            condition = condition.and(DSL.field("id").gt(UUID.fromString(afterId)));
+        }
         return dsl.select(LISTING_FIELDS)
                 .from(DSL.table(TABLE))
-                .where(DSL.field("embedding").isNull())
+                .where(condition)
+                .orderBy(DSL.field("id").asc())
                 .limit(limit)
                 .fetch()
                 .map(this::mapToListing);
     }
 
+    @Override
+    public long countWithoutEmbedding() {
+        return dsl.fetchCount(DSL.table(TABLE), DSL.field("embedding").isNull());
+    }
+
+    @Override
+    public List<ListingEmbedding> findEmbeddingsAfter(String afterId, int limit) {
+        Condition condition = DSL.field("embedding").isNotNull();
+        if (afterId != null) {
+            condition = condition.and(DSL.field("id").gt(UUID.fromString(afterId)));
+        }
+        return dsl.select(EMBEDDING_FIELDS)
+                .from(DSL.table(TABLE))
+                .where(condition)
+                .orderBy(DSL.field("id").asc())
+                .limit(limit)
+                .fetch()
+                .map(this::mapToListingEmbedding);
+    }
+
+    @Override
+    public Optional<ListingEmbedding> findEmbeddingById(String id) {
+        return dsl.select(EMBEDDING_FIELDS)
+                .from(DSL.table(TABLE))
+                .where(DSL.field("id").eq(UUID.fromString(id)))
+                .fetchOptional()
+                .map(this::mapToListingEmbedding);
+    }
+
+    @Override
+    public List<ListingEmbedding> findEmbeddingsByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return dsl.select(EMBEDDING_FIELDS)
+                .from(DSL.table(TABLE))
+                .where(DSL.field("id").in(ids.stream().map(UUID::fromString).toList()))
+                .and(EMBEDDING.isNotNull())
+                .fetch()
+                .map(this::mapToListingEmbedding);
+    }
+
+    @Override
+    public List<ListingTitle> findTitlesAfter(String afterId, int limit) {
+        Field<Long> popularity = DSL.field(
+                "COALESCE((SELECT p.score FROM listing_popularity p WHERE p.listing_id = listings.id), 0)",
+                Long.class).as("popularity");
+        return dsl.select(DSL.field("id"), DSL.field("title"), DSL.field("category"), DSL.field("status"),
+                        popularity)
+                .from(DSL.table(TABLE))
+                .where(afterId != null ? DSL.field("id").gt(UUID.fromString(afterId)) : DSL.noCondition())
+                .orderBy(DSL.field("id").asc())
+                .limit(limit)
+                .fetch()
+                .map(record -> ListingTitle.builder()
+                        .id(record.get(DSL.field("id"), String.class))
+                        .title(record.get(DSL.field("title"), String.class))
+                        .category(record.get(DSL.field("category"), String.class))
+                        .status(record.get(DSL.field("status"), String.class))
+                        .popularity(record.get(DSL.field("popularity"), Long.class))
+                        .build());
+    }
+
+    @Override
+    public ListingFacets countFacets(String query, float[] queryEmbedding, double similarityThreshold,
+                                     String neighborhood, String category) {
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(DSL.field("available").eq(true));
+        Condition match = DSL.noCondition();
+        if (query != null && !query.isBlank()) {
+            match = keywordMatch(query, keywordQuery(query));
+        }
+        if (queryEmbedding != null) {
+            Field<float[]> embedding = DSL.val(queryEmbedding, PgVectorBinding.VECTOR);
+            Condition similar = DSL.condition("embedding <=> {0} < {1}", embedding, DSL.val(similarityThreshold));
+            match = match.or(similar);
+        }
+        conditions.add(match);
+
+        // Each dimension is counted without its own filter, so the category facet still lists
+        // the other categories once one is selected.
+        Condition inNeighborhood = neighborhood != null && !neighborhood.isBlank()
+                ? DSL.field("neighborhood").eq(neighborhood) : DSL.trueCondition();
+        Condition inCategory = category != null && !category.isBlank()
+                ? DSL.field("category").eq(category) : DSL.trueCondition();
+        conditions.add(inNeighborhood.or(inCategory));
+
+        Field<String> categoryField = DSL.field("category", String.class);
+        Field<String> neighborhoodField = DSL.field("neighborhood", String.class);
+        Field<String> typeField = DSL.field("listing_type", String.class);
+        Field<String> priceBucket = priceBucket();
+        Field<Long> count = DSL.count().filterWhere(inNeighborhood.and(inCategory)).cast(Long.class);
+        Field<Long> countAnyCategory = DSL.count().filterWhere(inNeighborhood).cast(Long.class);
+        Field<Long> countAnyNeighborhood = DSL.count().filterWhere(inCategory).cast(Long.class);
+
+        // One pass over the matching rows; the empty grouping set yields the overall total.
+        // GROUPING() tells which set a row belongs to, since real NULL values also appear as NULL.
+        org.jooq.Result<? extends org.jooq.Record> rows = dsl.select(
+                        categoryField, neighborhoodField, typeField, priceBucket.as("price_bucket"),
+                        DSL.grouping(categoryField).as("g_category"),
+                        DSL.grouping(neighborhoodField).as("g_neighborhood"),
+                        DSL.grouping(typeField).as("g_type"),
+                        DSL.grouping(priceBucket).as("g_price"),
+                        count.as("facet_count"),
+                        countAnyCategory.as("count_any_category"),
+                        countAnyNeighborhood.as("count_any_neighborhood"))
+                .from(DSL.table(TABLE))
+                .where(conditions)
+                .groupBy(DSL.groupingSets(
+                        new Field<?>[]{categoryField},
+                        new Field<?>[]{neighborhoodField},
+                        new Field<?>[]{typeField},
+                        new Field<?>[]{priceBucket},
+                        new Field<?>[]{}))
+                .orderBy(DSL.when(DSL.grouping(categoryField).eq(0), countAnyCategory)
+                        .when(DSL.grouping(neighborhoodField).eq(0), countAnyNeighborhood)
+                        .otherwise(count).desc())
+                .fetch();
+
+        ListingFacets facets = new ListingFacets();
+        Map<String, Long> prices = new HashMap<>();
+        for (org.jooq.Record row : rows) {
+            long n = row.get("facet_count", Long.class);
+            boolean byCategory = row.get("g_category", Integer.class) == 0;
+            boolean byNeighborhood = row.get("g_neighborhood", Integer.class) == 0;
+            boolean byType = row.get("g_type", Integer.class) == 0;
+            boolean byPrice = row.get("g_price", Integer.class) == 0;
+            if (byCategory) {
+                putFacet(facets.getCategories(), row.get(categoryField), row.get("count_any_category", Long.class));
+            } else if (byNeighborhood) {
+                putFacet(facets.getNeighborhoods(), row.get(neighborhoodField),
+                        row.get("count_any_neighborhood", Long.class));
+            } else if (byType) {
+                putFacet(facets.getListingTypes(), row.get(typeField), n);
+            } else if (byPrice) {
+                putFacet(prices, row.get("price_bucket", String.class), n);
+            } else {
+                facets.setTotal(n);
+            }
+        }
+        for (String bucket : PRICE_BUCKET_LABELS) {
+            if (prices.containsKey(bucket)) {
+                facets.getPriceRanges().put(bucket, prices.get(bucket));
+            }
+        }
+        return facets;
+    }
+
+    private static Field<String> priceBucket() {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (int i = 0; i < PRICE_BUCKET_BOUNDS.length; i++) {
+            sql.append(" WHEN price < ").append(PRICE_BUCKET_BOUNDS[i])
+                    .append(" THEN '").append(PRICE_BUCKET_LABELS.get(i)).append('\'');
+        }
+        sql.append(" ELSE '").append(PRICE_BUCKET_LABELS.get(PRICE_BUCKET_BOUNDS.length)).append("' END");
+        return DSL.field(sql.toString(), String.class);
+    }
+
+    private static void putFacet(Map<String, Long> counts, String value, long count) {
+        if (value != null && count > 0) {
+            counts.put(value, count);
+        }
+    }
+
     @Override
     public List<Listing> findByLocation(double lat, double lng, double radiusKm, int limit, int offset) {
-        double radiusMeters = radiusKm * 1000;
+        return fetchOffset(locationQuery(lat, lng, radiusKm), limit, offset);
+    }
 
-        Field<Object> distanceField = DSL.field(
-                "ST_Distance(ST_MakePoint({0}, {1})::geography, ST_MakePoint(longitude, latitude)::geography)",
-                Object.class,
-                DSL.val(lng),
-                DSL.val(lat)
-        );
+    @Override
+    public CursorPage<Listing> findByLocation(double lat, double lng, double radiusKm, int limit, PageCursor after) {
+        return fetchAfter(locationQuery(lat, lng, radiusKm), limit, after);
+    }
 
-        org.jooq.Field<?>[] fieldsWithDistance = new org.jooq.Field<?>[LISTING_FIELDS.length + 1];
-        System.arraycopy(LISTING_FIELDS, 0, fieldsWithDistance, 0, LISTING_FIELDS.length);
-        fieldsWithDistance[LISTING_FIELDS.length] = distanceField.as("distance_meters");
+    @Override
+    public List<Listing> search(ListingSearch search, int limit, int offset) {
+        return fetchOffset(searchQuery(search), limit, offset);
+    }
+
+    @Override
+    public CursorPage<Listing> search(ListingSearch search, int limit, PageCursor after) {
+        return fetchAfter(searchQuery(search), limit, after);
+    }
 
-        return dsl.select(fieldsWithDistance)
+    private ListingQuery searchQuery(ListingSearch search) {
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(DSL.field("available").eq(true));
+        if (search.getNeighborhood() != null && !search.getNeighborhood().isBlank()) {
+            conditions.add(DSL.field("neighborhood").eq(search.getNeighborhood()));
+        }
+        if (search.getCategory() != null && !search.getCategory().isBlank()) {
+            conditions.add(DSL.field("category").eq(search.getCategory()));
+        }
+
+        Field<?>[] fields = LISTING_FIELDS;
+        Field<Double> geoDistance = null;
+        if (search.hasLocation()) {
+            Field<Object> origin = DSL.field("ST_SetSRID(ST_MakePoint({0}, {1}), 4326)::geography",
+                    Object.class, DSL.val(search.getLongitude()), DSL.val(search.getLatitude()));
+            geoDistance = DSL.field("location <-> {0}", Double.class, origin);
+            if (search.getRadiusKm() != null) {
+                conditions.add(DSL.condition("ST_DWithin(location, {0}, {1}, false)",
+                        origin, DSL.val(search.getRadiusKm() * 1000)));
+            }
+            fields = Arrays.copyOf(LISTING_FIELDS, LISTING_FIELDS.length + 1);
+            fields[LISTING_FIELDS.length] = geoDistance.as("distance_meters");
+        }
+
+        Keyset relevance = null;
+        if (search.getQueryEmbedding() != null) {
+            Field<float[]> query = DSL.val(search.getQueryEmbedding(), PgVectorBinding.VECTOR);
+            conditions.add(DSL.field("embedding").isNotNull());
+            conditions.add(DSL.condition("embedding <=> {0} < {1}", query, DSL.val(search.getSimilarityThreshold())));
+            if (search.isExactRanking()) {
+                // "+ 0" hides the ordering from the HNSW index, so the planner filters first
+                // (spatial/attribute indexes) and sorts the survivors by exact distance.
+                Field<Double> distance = DSL.field("(embedding <=> {0}) + 0", Double.class, query);
+                relevance = new Keyset("similarity", false, distance, ID);
+            } else {
+                // The HNSW scan yields rows in distance order; ties are put in id order by an
+                // incremental sort, so the order matches the (distance, id) keyset of the cursor.
+                Field<Double> distance = DSL.field("embedding <=> {0}", Double.class, query);
+                relevance = new Keyset("similarity", false, distance, ID);
+            }
+        } else if (search.hasText()) {
+            Field<Object> tsQuery = keywordQuery(search.getQuery());
+            conditions.add(keywordMatch(search.getQuery(), tsQuery));
+            relevance = new Keyset("relevance", true,
+                    DSL.field("ts_rank(search_vector, {0})", Float.class, tsQuery),
+                    DSL.field("word_similarity({0}, title)", Float.class, DSL.val(search.getQuery())),
+                    CREATED_AT,
+                    ID);
+        }
+
+        String sortBy = search.getSortBy();
+        Keyset keyset;
+        if ("price".equals(sortBy) || "date".equals(sortBy)) {
+            keyset = sortKeyset(sortBy);
+        } else if (geoDistance != null && ("distance".equals(sortBy) || relevance == null)) {
+            keyset = new Keyset("distance", false, geoDistance, ID);
+        } else if (relevance != null) {
+            keyset = relevance;
+        } else {
+            keyset = sortKeyset(null);
+        }
+
+        return new ListingQuery(fields, conditions, keyset, keyset.orderBy(), this::mapToListingWithDistance);
+    }
+
+    @Override
+    public List<Listing> findInBounds(double south, double west, double north, double east, int limit) {
+        // && on the envelope is answered by the GiST index on location; the exact bounds are
+        // then applied to the plain columns.
+        return dsl.select(LISTING_FIELDS)
                 .from(DSL.table(TABLE))
                 .where(DSL.field("available").eq(true))
-                .and(DSL.condition(
-                        "ST_DWithin(ST_MakePoint(longitude, latitude)::geography, ST_MakePoint({0}, {1})::geography, {2})",
-                        DSL.val(lng),
-                        DSL.val(lat),
-                        DSL.val(radiusMeters)
-                ))
-                .orderBy(DSL.field("distance_meters").asc())
+                .and(DSL.condition("location && ST_MakeEnvelope({0}, {1}, {2}, {3}, 4326)::geography",
+                        DSL.val(west), DSL.val(south), DSL.val(east), DSL.val(north)))
+                .and(DSL.field("latitude", Double.class).between(south, north))
+                .and(DSL.field("longitude", Double.class).between(west, east))
+                .orderBy(ID)
                 .limit(limit)
-                .offset(offset)
                 .fetch()
-                .map(record -> {
-                    Listing listing = mapToListing(record);
-                    Double distMeters = record.get(DSL.field("distance_meters"), Double.class);
-                    if (distMeters != null) {
-                        listing.setDistanceKm(distMeters / 1000.0);
-                    }
-                    return listing;
-                });
-    }
-
-    private String toVectorString(float[] vector) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < vector.length; i++) {
-            if (i > 0) sb.append(",");
-            sb.append(vector[i]);
-        }
-        sb.append("]");
-        return sb.toString();
+                .map(this::mapToListing);
+    }
+
+    private ListingQuery locationQuery(double lat, double lng, double radiusKm) {
+        double radiusMeters = radiusKm * 1000;
+        Field<Object> origin = DSL.field("ST_SetSRID(ST_MakePoint({0}, {1}), 4326)::geography",
+                Object.class, DSL.val(lng), DSL.val(lat));
+
+        // KNN distance on the GiST-indexed location column (sphere, in meters): ordering by it lets
+        // the index return rows nearest-first instead of sorting every match. The radius filter
+        // also measures on the sphere so it agrees with the reported distance.
+        Field<Double> distanceField = DSL.field("location <-> {0}", Double.class, origin);
+
+        org.jooq.Field<?>[] fieldsWithDistance = new org.jooq.Field<?>[LISTING_FIELDS.length + 1];
+        System.arraycopy(LISTING_FIELDS, 0, fieldsWithDistance, 0, LISTING_FIELDS.length);
+        fieldsWithDistance[LISTING_FIELDS.length] = distanceField.as("distance_meters");
+
+        List<Condition> conditions = List.of(
+                DSL.field("available").eq(true),
+                DSL.condition("ST_DWithin(location, {0}, {1}, false)", origin, DSL.val(radiusMeters)));
+
+        Keyset keyset = new Keyset("distance", false, distanceField, ID);
+        return new ListingQuery(fieldsWithDistance, conditions, keyset, keyset.orderBy(), this::mapToListingWithDistance);
+    }
+
+    private Listing mapToListingWithDistance(org.jooq.Record record) {
+        Listing listing = mapToListing(record);
+        if (record.field("distance_meters") != null) {
+            Double distMeters = record.get("distance_meters", Double.class);
+            if (distMeters != null) {
+                listing.setDistanceKm(distMeters / 1000.0);
+            }
+        }
+        return listing;
+    }
+
+    private void publish(String listingId, ListingChangedEvent.Type type, Listing listing) {
+        catalogVersion.bump();
+        eventPublisher.publishEvent(new ListingChangedEvent(listingId, type, listing));
+    }
+
+    private ListingEmbedding mapToListingEmbedding(org.jooq.Record record) {
+        return ListingEmbedding.builder()
+                .id(record.get(DSL.field("id"), String.class))
+                .embedding(record.get(EMBEDDING))
+                .neighborhood(record.get(DSL.field("neighborhood"), String.class))
+                .category(record.get(DSL.field("category"), String.class))
+                .available(record.get(DSL.field("available"), Boolean.class))
+                .build();
     }
 
     private Listing mapToListing(org.jooq.Record record) {
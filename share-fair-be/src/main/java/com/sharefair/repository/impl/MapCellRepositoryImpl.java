@@ -0,0 +1,66 @@
+package com.sharefair.repository.impl;
+
+import com.sharefair.entity.MapCell;
+import com.sharefair.repository.MapCellRepository;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Reads the per-tile listing aggregates (see V18). The {@code trg_listings_map_cells} trigger
+ * queues listing moves as deltas (see V28), which {@link #applyDeltas} folds into the table.
+ */
+@Repository
+public class MapCellRepositoryImpl implements MapCellRepository {
+
+    private final DSLContext dsl;
+    private static final String TABLE = "listing_map_cells";
+
+    public MapCellRepositoryImpl(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public List<MapCell> findCells(int level, int minX, int maxX, int minY, int maxY) {
+        Field<Integer> x = DSL.field("x", Integer.class);
+        Field<Integer> y = DSL.field("y", Integer.class);
+        return dsl.select(x, y,
+                        DSL.field("listing_count", Long.class),
+                        DSL.field("sum_latitude / listing_count", Double.class).as("latitude"),
+                        DSL.field("sum_longitude / listing_count", Double.class).as("longitude"))
+                .from(DSL.table(TABLE))
+                .where(DSL.field("level").eq((short) level))
+                .and(x.between(minX, maxX))
+                .and(y.between(minY, maxY))
+                .fetch()
+                .map(record -> MapCell.builder()
+                        .level(level)
+                        .x(record.get(x))
+                        .y(record.get(y))
+                        .count(record.get("listing_count", Long.class))
+                        .latitude(record.get("latitude", Double.class))
+                        .longitude(record.get("longitude", Double.class))
+                        .build());
+    }
+
+    @Override
+    public long countListings(int level, int minX, int maxX, int minY, int maxY) {
+        Long count = dsl.select(DSL.coalesce(DSL.sum(DSL.field("listing_count", Long.class)), java.math.BigDecimal.ZERO))
+                .from(DSL.table(TABLE))
+                .where(DSL.field("level").eq((short) level))
+                .and(DSL.field("x", Integer.class).between(minX, maxX))
+                .and(DSL.field("y", Integer.class).between(minY, maxY))
+                .fetchOne(0, Long.class);
+        return count != null ? count : 0L;
+    }
+
+    @Override
+    public int applyDeltas(int batchSize) {
+        Integer applied = dsl.resultQuery("SELECT listing_map_cells_apply_deltas({0})", DSL.val(batchSize))
+                .fetchOne(0, Integer.class);
+        return applied != null ? applied : 0;
+    }
+}
@@ -1,7 +1,10 @@
 package com.sharefair.repository.impl;
 
 import com.sharefair.entity.Message;
+import com.sharefair.repository.CursorPage;
 import com.sharefair.repository.MessageRepository;
+import com.sharefair.repository.PageCursor;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Record;
 import org.jooq.impl.DSL;
@@ -26,6 +29,10 @@ public class MessageRepositoryImpl implements MessageRepository {
             DSL.field("created_at")
     };
 
+    /** Newest first; the id breaks ties between messages sent in the same instant. */
+    private static final Keyset NEWEST_FIRST = new Keyset("date", true,
+            DSL.field("created_at", LocalDateTime.class), DSL.field("id", UUID.class));
+
     public MessageRepositoryImpl(DSLContext dsl) {
         this.dsl = dsl;
     }
@@ -54,13 +61,27 @@ public class MessageRepositoryImpl implements MessageRepository {
         return dsl.select(FIELDS)
                 .from(DSL.table(TABLE))
                 .where(DSL.field("conversation_id").eq(UUID.fromString(conversationId)))
-                .orderBy(DSL.field("created_at").desc())
+                .orderBy(NEWEST_FIRST.orderBy())
                 .limit(limit)
                 .offset(offset)
                 .fetch()
                 .map(this::map);
     }
 
+    @Override
+    public CursorPage<Message> findByConversationId(String conversationId, int limit, PageCursor after) {
+        Condition condition = DSL.field("conversation_id").eq(UUID.fromString(conversationId));
+        if (after != null) {
+            condition = condition.and(NEWEST_FIRST.after(after));
+        }
+        return NEWEST_FIRST.page(dsl.select(NEWEST_FIRST.select(FIELDS))
+                .from(DSL.table(TABLE))
+                .where(condition)
+                .orderBy(NEWEST_FIRST.orderBy())
+                .limit(limit + 1)
+                .fetch(), limit, this::map);
+    }
+
     @Override
     public void markConversationAsRead(String conversationId, String userId) {
         dsl.update(DSL.table(TABLE))
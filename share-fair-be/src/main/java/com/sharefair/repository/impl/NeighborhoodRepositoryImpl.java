@@ -2,6 +2,7 @@ package com.sharefair.repository.impl;
 
 import com.sharefair.repository.NeighborhoodRepository;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.impl.DSL;
 import org.springframework.stereotype.Repository;
 import java.util.HashMap;
@@ -45,12 +46,20 @@ public class NeighborhoodRepositoryImpl implements NeighborhoodRepository {
 
     @Override
     public List<String> searchListingTitles(String query) {
-        String searchPattern = "%" + query.toLowerCase() + "%";
-        return dsl.selectDistinct(DSL.field("title"))
+        String searchPattern = "%" + escapeLike(query.toLowerCase()) + "%";
+        Field<Double> score = DSL.field("word_similarity({0}, title)", Double.class, DSL.val(query)).as("score");
+        // Both predicates are served by the trigram index on title; <% tolerates typos.
+        return dsl.selectDistinct(DSL.field("title"), score)
                 .from(DSL.table("listings"))
-                .where(DSL.lower(DSL.field("title", String.class)).like(searchPattern))
+                .where(DSL.field("title", String.class).likeIgnoreCase(searchPattern, '\\')
+                        .or(DSL.condition("{0} <% title", DSL.val(query))))
+                .orderBy(DSL.field("score").desc())
                 .limit(10)
                 .fetch()
                 .map(record -> record.get(DSL.field("title"), String.class));
     }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
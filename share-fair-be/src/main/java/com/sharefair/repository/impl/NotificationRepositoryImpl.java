@@ -1,7 +1,10 @@
 package com.sharefair.repository.impl;
 
 import com.sharefair.entity.Notification;
+import com.sharefair.repository.CursorPage;
 import com.sharefair.repository.NotificationRepository;
+import com.sharefair.repository.PageCursor;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.impl.DSL;
@@ -30,6 +33,10 @@ public class NotificationRepositoryImpl implements NotificationRepository {
             DSL.field("created_at")
     };
 
+    /** Newest first; the id breaks ties between notifications created in the same instant. */
+    private static final Keyset NEWEST_FIRST = new Keyset("date", true,
+            DSL.field("created_at", LocalDateTime.class), DSL.field("id", UUID.class));
+
     public NotificationRepositoryImpl(DSLContext dsl) {
         this.dsl = dsl;
     }
@@ -78,13 +85,27 @@ public class NotificationRepositoryImpl implements NotificationRepository {
         return dsl.select(FIELDS)
                 .from(DSL.table(TABLE))
                 .where(DSL.field("user_id").eq(UUID.fromString(userId)))
-                .orderBy(DSL.field("created_at").desc())
+                .orderBy(NEWEST_FIRST.orderBy())
                 .limit(limit)
                 .offset(offset)
                 .fetch()
                 .map(this::mapToNotification);
     }
 
+    @Override
+    public CursorPage<Notification> findByUserId(String userId, int limit, PageCursor after) {
+        Condition condition = DSL.field("user_id").eq(UUID.fromString(userId));
+        if (after != null) {
+            condition = condition.and(NEWEST_FIRST.after(after));
+        }
+        return NEWEST_FIRST.page(dsl.select(NEWEST_FIRST.select(FIELDS))
+                .from(DSL.table(TABLE))
+                .where(condition)
+                .orderBy(NEWEST_FIRST.orderBy())
+                .limit(limit + 1)
+                .fetch(), limit, this::mapToNotification);
+    }
+
     @Override
     public int countUnread(String userId) {
         Integer count = dsl.selectCount()
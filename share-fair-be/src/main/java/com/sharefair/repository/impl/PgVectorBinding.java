@@ -0,0 +1,127 @@
+package com.sharefair.repository.impl;
+
+import com.pgvector.PGvector;
+import org.jooq.Binding;
+import org.jooq.BindingGetResultSetContext;
+import org.jooq.BindingGetSQLInputContext;
+import org.jooq.BindingGetStatementContext;
+import org.jooq.BindingRegisterContext;
+import org.jooq.BindingSQLContext;
+import org.jooq.BindingSetSQLOutputContext;
+import org.jooq.BindingSetStatementContext;
+import org.jooq.Converter;
+import org.jooq.DataType;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.util.PGobject;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * jOOQ binding for pgvector {@code vector} columns, mapped to {@code float[]}.
+ * <p>
+ * Values are bound as {@link PGvector} objects. Once the {@code vector} type is registered on a
+ * connection (see {@link #registerType(Connection)}), the driver sends them in the binary wire
+ * format, and reads them in binary once a statement is server-prepared, avoiding the
+ * {@code "[0.1,0.2,...]"} text round trip on both client and server. On a connection without the
+ * registration the driver uses the text format and {@link #toFloats(Object)} parses whatever
+ * comes back.
+ */
+public final class PgVectorBinding implements Binding<Object, float[]> {
+
+    /** {@code vector} data type for use with {@link DSL#val(Object, DataType)} and {@link DSL#field(String, DataType)}. */
+    public static final DataType<float[]> VECTOR = SQLDataType.OTHER.asConvertedDataType(new PgVectorBinding());
+
+    private static final Map<BaseConnection, Boolean> REGISTERED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Converter<Object, float[]> converter = Converter.ofNullable(
+            Object.class, float[].class, PgVectorBinding::toFloats, PGvector::new);
+
+    /**
+     * Registers the {@code vector} type on the physical connection behind {@code connection} and
+     * enables binary transfer for its OID, once per connection. The OID is looked up on the
+     * connection itself at its first use, which comes after Flyway has created the extension, so
+     * a fresh database gets binary transfer without a restart. Does nothing for non-PostgreSQL
+     * connections.
+     */
+    public static void registerType(Connection connection) throws SQLException {
+        if (!connection.isWrapperFor(BaseConnection.class)) {
+            return;
+        }
+        BaseConnection pg = connection.unwrap(BaseConnection.class);
+        if (REGISTERED.putIfAbsent(pg, Boolean.TRUE) == null) {
+            pg.addDataType("vector", PGvector.class);
+            int oid = pg.getTypeInfo().getPGType("vector");
+            if (oid != Oid.UNSPECIFIED) {
+                pg.getQueryExecutor().addBinarySendOid(oid);
+                pg.getQueryExecutor().addBinaryReceiveOid(oid);
+            }
+        }
+    }
+
+    static float[] toFloats(Object value) {
+        if (value == null) return null;
+        if (value instanceof PGvector vector) return vector.toArray();
+        if (value instanceof PGobject object) return JooqUtils.parseVector(object.getValue());
+        return JooqUtils.parseVector(value.toString());
+    }
+
+    @Override
+    public Converter<Object, float[]> converter() {
+        return converter;
+    }
+
+    @Override
+    public void sql(BindingSQLContext<float[]> ctx) {
+        if (ctx.render().paramType() == ParamType.INLINED) {
+            ctx.render().visit(DSL.inline(ctx.value() == null ? null : JooqUtils.toVectorString(ctx.value())));
+        } else {
+            ctx.render().sql(ctx.variable());
+        }
+        ctx.render().sql("::vector");
+    }
+
+    @Override
+    public void register(BindingRegisterContext<float[]> ctx) throws SQLException {
+        ctx.statement().registerOutParameter(ctx.index(), Types.OTHER);
+    }
+
+    @Override
+    public void set(BindingSetStatementContext<float[]> ctx) throws SQLException {
+        if (ctx.value() == null) {
+            ctx.statement().setNull(ctx.index(), Types.OTHER);
+            return;
+        }
+        registerType(ctx.statement().getConnection());
+        ctx.statement().setObject(ctx.index(), new PGvector(ctx.value()));
+    }
+
+    @Override
+    public void set(BindingSetSQLOutputContext<float[]> ctx) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void get(BindingGetResultSetContext<float[]> ctx) throws SQLException {
+        ctx.value(toFloats(ctx.resultSet().getObject(ctx.index())));
+    }
+
+    @Override
+    public void get(BindingGetStatementContext<float[]> ctx) throws SQLException {
+        ctx.value(toFloats(ctx.statement().getObject(ctx.index())));
+    }
+
+    @Override
+    public void get(BindingGetSQLInputContext<float[]> ctx) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
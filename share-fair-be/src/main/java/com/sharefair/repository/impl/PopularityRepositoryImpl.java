@@ -0,0 +1,128 @@
+package com.sharefair.repository.impl;
+
+import com.sharefair.entity.PopularityIncrement;
+import com.sharefair.repository.PopularityRepository;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class PopularityRepositoryImpl implements PopularityRepository {
+
+    private static final String TABLE = "listing_popularity";
+    // exp() of a large negative argument raises an underflow error instead of returning zero
+    private static final String MIN_EXPONENT = "-700";
+
+    private final DSLContext dsl;
+
+    public PopularityRepositoryImpl(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public Map<String, Long> add(List<PopularityIncrement> increments, double nowExponent) {
+        if (increments.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        StringBuilder values = new StringBuilder();
+        List<Object> bindings = new ArrayList<>(increments.size() * 4 + 1);
+        for (PopularityIncrement increment : increments) {
+            values.append(values.length() == 0 ? "" : ", ")
+                    .append("(CAST(? AS uuid), CAST(? AS double precision), CAST(? AS bigint), CAST(? AS bigint))");
+            bindings.add(increment.getListingId());
+            bindings.add(increment.getLogWeight());
+            bindings.add(increment.getViews());
+            bindings.add(increment.getTransactions());
+        }
+        bindings.add(nowExponent);
+        bindings.add(nowExponent);
+        String merged = "GREATEST(p.log_score, EXCLUDED.log_score) "
+                + "+ LN(1 + EXP(GREATEST(-ABS(p.log_score - EXCLUDED.log_score), " + MIN_EXPONENT + ")))";
+        String sql = "INSERT INTO " + TABLE + " AS p (listing_id, log_score, score, views, transactions, updated_at) "
+                + "SELECT v.id, v.w, ROUND(EXP(GREATEST(v.w - CAST(? AS double precision), " + MIN_EXPONENT + "))), "
+                + "v.views, v.transactions, NOW() "
+                + "FROM (VALUES " + values + ") AS v(id, w, views, transactions) "
+                + "JOIN listings l ON l.id = v.id "
+                + "ON CONFLICT (listing_id) DO UPDATE SET "
+                + "log_score = " + merged + ", "
+                + "score = ROUND(EXP(GREATEST(" + merged + " - CAST(? AS double precision), " + MIN_EXPONENT + "))), "
+                + "views = p.views + EXCLUDED.views, "
+                + "transactions = p.transactions + EXCLUDED.transactions, "
+                + "updated_at = NOW() "
+                + "RETURNING p.listing_id::text, p.score";
+        // placeholders in statement order: the exponent in SELECT precedes the VALUES rows
+        bindings.add(0, bindings.remove(bindings.size() - 1));
+        return toMap(dsl.resultQuery(sql, bindings.toArray()).fetch());
+    }
+
+    @Override
+    public Map<String, Long> decayScores(double nowExponent, int limit) {
+        String decayed = "ROUND(EXP(GREATEST(log_score - {0}, " + MIN_EXPONENT + ")))";
+        return toMap(dsl.resultQuery(
+                        "UPDATE " + TABLE + " p SET score = s.score "
+                                + "FROM (SELECT listing_id, " + decayed + " AS score FROM " + TABLE + " "
+                                + "WHERE score > 0 AND score <> " + decayed + " LIMIT {1}) s "
+                                + "WHERE p.listing_id = s.listing_id "
+                                + "RETURNING p.listing_id::text, p.score",
+                        DSL.val(nowExponent), DSL.val(limit))
+                .fetch());
+    }
+
+    @Override
+    public List<String> findTopListingIds(int limit) {
+        List<String> ids = new ArrayList<>(dsl.select(DSL.field("p.listing_id::text", String.class))
+                .from(DSL.table(TABLE + " p"))
+                .join(DSL.table("listings l")).on(DSL.field("l.id").eq(DSL.field("p.listing_id")))
+                .where(DSL.field("l.status").eq("ACTIVE"))
+                .orderBy(DSL.field("p.log_score").desc())
+                .limit(limit)
+                .fetch(0, String.class));
+        if (ids.size() < limit) {
+            ids.addAll(dsl.select(DSL.field("l.id::text", String.class))
+                    .from(DSL.table("listings l"))
+                    .where(DSL.field("l.status").eq("ACTIVE"))
+                    .andNotExists(DSL.selectOne()
+                            .from(DSL.table(TABLE + " p"))
+                            .where(DSL.field("p.listing_id").eq(DSL.field("l.id"))))
+                    .orderBy(DSL.field("l.created_at").desc())
+                    .limit(limit - ids.size())
+                    .fetch(0, String.class));
+        }
+        return ids;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !dsl.fetchExists(DSL.selectOne().from(DSL.table(TABLE)));
+    }
+
+    @Override
+    public int seedFromTransactions(double transactionLogWeight, double exponentPerSecond, double nowExponent) {
+        return dsl.execute(
+                "INSERT INTO " + TABLE + " (listing_id, log_score, score, transactions) "
+                        + "SELECT listing_id, s, ROUND(EXP(GREATEST(s - {2}, " + MIN_EXPONENT + "))), n FROM ("
+                        + "  SELECT listing_id, m + LN(SUM(EXP(GREATEST(x - m, " + MIN_EXPONENT + ")))) AS s, COUNT(*) AS n"
+                        + "  FROM (SELECT listing_id, x, MAX(x) OVER (PARTITION BY listing_id) AS m"
+                        + "        FROM (SELECT listing_id, {0} + EXTRACT(EPOCH FROM COALESCE(completed_at, created_at)) * {1} AS x"
+                        + "              FROM transactions WHERE status = 'COMPLETED') events) ranked"
+                        + "  GROUP BY listing_id, m) seeded "
+                        + "ON CONFLICT (listing_id) DO NOTHING",
+                DSL.val(transactionLogWeight), DSL.val(exponentPerSecond), DSL.val(nowExponent));
+    }
+
+    private static Map<String, Long> toMap(Result<Record> rows) {
+        Map<String, Long> scores = new LinkedHashMap<>(rows.size() * 2);
+        for (Record row : rows) {
+            scores.put(row.get(0, String.class), row.get(1, Long.class));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,67 @@
+package com.sharefair.repository.impl;
+
+import com.sharefair.entity.StoredQueryEmbedding;
+import com.sharefair.repository.QueryEmbeddingRepository;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public class QueryEmbeddingRepositoryImpl implements QueryEmbeddingRepository {
+
+    private final DSLContext dsl;
+    private static final String TABLE = "query_embeddings";
+
+    public QueryEmbeddingRepositoryImpl(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public Optional<StoredQueryEmbedding> findByHash(String queryHash) {
+        return dsl.select(DSL.field("embedding", PgVectorBinding.VECTOR), DSL.field("last_used_at"))
+                .from(DSL.table(TABLE))
+                .where(DSL.field("query_hash").eq(queryHash))
+                .fetchOptional()
+                .map(record -> StoredQueryEmbedding.builder()
+                        .embedding(record.value1())
+                        .lastUsedAt(JooqUtils.toLocalDateTime(record.value2()))
+                        .build());
+    }
+
+    @Override
+    public void save(String queryHash, String queryText, float[] embedding) {
+        dsl.execute(
+                "INSERT INTO " + TABLE + " (query_hash, query_text, embedding) VALUES ({0}, {1}, {2}) " +
+                "ON CONFLICT (query_hash) DO NOTHING",
+                DSL.val(queryHash), DSL.val(queryText), DSL.val(embedding, PgVectorBinding.VECTOR)
+        );
+    }
+
+    @Override
+    public void touch(String queryHash) {
+        dsl.update(DSL.table(TABLE))
+                .set(DSL.field("last_used_at"), LocalDateTime.now())
+                .where(DSL.field("query_hash").eq(queryHash))
+                .execute();
+    }
+
+    @Override
+    public int deleteUnusedSince(LocalDateTime cutoff) {
+        return dsl.transactionResult(configuration -> {
+            DSLContext tx = DSL.using(configuration);
+            // Held until commit; replicas whose scheduled run overlaps skip it
+            boolean locked = tx.select(DSL.field("pg_try_advisory_xact_lock(hashtext({0}))", Boolean.class,
+                            DSL.val(TABLE + ".eviction")))
+                    .fetchOne(0, Boolean.class);
+            if (!locked) {
+                return 0;
+            }
+            return tx.deleteFrom(DSL.table(TABLE))
+                    .where(DSL.field("last_used_at").lt(cutoff))
+                    .execute();
+        });
+    }
+}
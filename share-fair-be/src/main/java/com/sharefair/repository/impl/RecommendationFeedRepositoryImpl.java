@@ -0,0 +1,143 @@
+package com.sharefair.repository.impl;
+
+import com.sharefair.entity.RecommendationFeed;
+import com.sharefair.repository.RecommendationFeedRepository;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+public class RecommendationFeedRepositoryImpl implements RecommendationFeedRepository {
+
+    private final DSLContext dsl;
+    private static final String TABLE = "recommendation_feeds";
+    private static final Field<String[]> CATEGORIES = DSL.field("categories", String[].class);
+    private static final Field<String[]> LISTING_IDS = DSL.field("listing_ids::text[]", String[].class);
+    private static final int DEFAULT_EF_SEARCH = 40;
+    private static final int MAX_EF_SEARCH = 1000;
+
+    public RecommendationFeedRepositoryImpl(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public Optional<RecommendationFeed> findByUserId(String userId) {
+        return dsl.select(CATEGORIES, LISTING_IDS, DSL.field("computed_at"))
+                .from(DSL.table(TABLE))
+                .where(DSL.field("user_id").eq(UUID.fromString(userId)))
+                .fetchOptional()
+                .map(record -> RecommendationFeed.builder()
+                        .userId(userId)
+                        .categories(Arrays.asList(record.value1()))
+                        .listingIds(Arrays.asList(record.value2()))
+                        .computedAt(JooqUtils.toLocalDateTime(record.value3()))
+                        .build());
+    }
+
+    @Override
+    public void save(RecommendationFeed feed) {
+        dsl.execute(
+                "INSERT INTO " + TABLE + " (user_id, categories, listing_ids, computed_at) "
+                        + "VALUES (CAST({0} AS uuid), {1}, CAST({2} AS uuid[]), NOW()) "
+                        + "ON CONFLICT (user_id) DO UPDATE SET categories = EXCLUDED.categories, "
+                        + "listing_ids = EXCLUDED.listing_ids, computed_at = EXCLUDED.computed_at",
+                DSL.val(feed.getUserId()),
+                DSL.val(feed.getCategories().toArray(new String[0])),
+                DSL.val(feed.getListingIds().toArray(new String[0])));
+    }
+
+    @Override
+    public int prependListing(String category, String listingId, String ownerId, int maxSize) {
+        return dsl.execute(
+                "UPDATE " + TABLE + " SET listing_ids = "
+                        + "(CAST({0} AS uuid) || array_remove(listing_ids, CAST({0} AS uuid)))[1:{1}] "
+                        + "WHERE categories @> ARRAY[{2}]::text[] AND user_id <> CAST({3} AS uuid)",
+                DSL.val(listingId), DSL.val(maxSize), DSL.val(category), DSL.val(ownerId));
+    }
+
+    @Override
+    public List<String> claimComputedBefore(LocalDateTime cutoff, int limit) {
+        return dsl.resultQuery(
+                        "UPDATE " + TABLE + " f SET computed_at = NOW() "
+                                + "FROM (SELECT user_id FROM " + TABLE + " WHERE computed_at < {0} "
+                                + "      ORDER BY computed_at LIMIT {1} FOR UPDATE SKIP LOCKED) outdated "
+                                + "WHERE f.user_id = outdated.user_id "
+                                + "RETURNING f.user_id::text",
+                        DSL.val(cutoff), DSL.val(limit))
+                .fetch(0, String.class);
+    }
+
+    @Override
+    public List<String> findPreferredCategories(String userId) {
+        UUID user = UUID.fromString(userId);
+        return dsl.selectDistinct(DSL.field("l.category", String.class))
+                .from(DSL.table("transactions t"))
+                .join(DSL.table("listings l")).on(DSL.field("t.listing_id").eq(DSL.field("l.id")))
+                .where(DSL.field("t.borrower_id").eq(user).or(DSL.field("t.owner_id").eq(user)))
+                .and(DSL.field("t.status").eq("COMPLETED"))
+                .and(DSL.field("l.category").isNotNull())
+                .limit(5)
+                .fetch(0, String.class);
+    }
+
+    @Override
+    public Set<String> findTransactedListingIds(String userId) {
+        UUID user = UUID.fromString(userId);
+        return new HashSet<>(dsl.selectDistinct(DSL.field("listing_id", String.class))
+                .from(DSL.table("transactions"))
+                .where(DSL.field("borrower_id").eq(user).or(DSL.field("owner_id").eq(user)))
+                .fetch(0, String.class));
+    }
+
+    @Override
+    public List<String> findCategoryCandidates(String userId, List<String> categories, int limit) {
+        UUID user = UUID.fromString(userId);
+        return dsl.select(DSL.field("l.id", String.class))
+                .from(DSL.table("listings l"))
+                .where(recommendable(user))
+                .and(DSL.field("l.category").in(categories))
+                .orderBy(DSL.field("l.created_at").desc())
+                .limit(limit)
+                .fetch(0, String.class);
+    }
+
+    @Override
+    public List<String> findTasteCandidates(String userId, float[] taste, int limit) {
+        UUID user = UUID.fromString(userId);
+        // The HNSW scan yields only ef_search rows before the owner and transaction filters
+        // apply; widen it so that a full feed survives them.
+        int efSearch = Math.min(MAX_EF_SEARCH, Math.max(DEFAULT_EF_SEARCH, limit * 4));
+        return dsl.transactionResult(configuration -> {
+            DSLContext tx = DSL.using(configuration);
+            tx.execute("SET LOCAL hnsw.ef_search = " + efSearch);
+            return tx.select(DSL.field("l.id", String.class))
+                    .from(DSL.table("listings l"))
+                    .where(recommendable(user))
+                    .and(DSL.field("l.embedding").isNotNull())
+                    .orderBy(DSL.field("l.embedding <=> {0}", Double.class,
+                            DSL.val(taste, PgVectorBinding.VECTOR)))
+                    .limit(limit)
+                    .fetch(0, String.class);
+        });
+    }
+
+    /** Active listings that the user neither owns nor has transacted. */
+    private static Condition recommendable(UUID user) {
+        return DSL.field("l.status").eq("ACTIVE")
+                .and(DSL.field("l.owner_id").ne(user))
+                .andNotExists(DSL.selectOne()
+                        .from(DSL.table("transactions t"))
+                        .where(DSL.field("t.listing_id").eq(DSL.field("l.id")))
+                        .and(DSL.field("t.borrower_id").eq(user).or(DSL.field("t.owner_id").eq(user))));
+    }
+}
@@ -0,0 +1,138 @@
+package com.sharefair.repository.impl;
+
+import com.sharefair.entity.SimilarListings;
+import com.sharefair.repository.SimilarListingRepository;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+@Repository
+public class SimilarListingRepositoryImpl implements SimilarListingRepository {
+
+    private static final String TABLE = "similar_listings";
+    private static final Field<String> LISTING_ID = DSL.field("listing_id::text", String.class);
+    private static final Field<String[]> NEIGHBOUR_IDS = DSL.field("neighbour_ids::text[]", String[].class);
+    private static final Field<Float[]> DISTANCES = DSL.field("distances", Float[].class);
+    private static final Field<Object> COMPUTED_AT = DSL.field("computed_at");
+
+    private final DSLContext dsl;
+
+    public SimilarListingRepositoryImpl(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public Optional<SimilarListings> findByListingId(String listingId) {
+        return dsl.select(LISTING_ID, NEIGHBOUR_IDS, DISTANCES, COMPUTED_AT)
+                .from(DSL.table(TABLE))
+                .where(DSL.field("listing_id").eq(UUID.fromString(listingId)))
+                .fetchOptional()
+                .map(this::map);
+    }
+
+    @Override
+    public boolean update(String listingId, UnaryOperator<SimilarListings> update) {
+        return dsl.transactionResult(configuration -> {
+            DSLContext tx = DSL.using(configuration);
+            Optional<SimilarListings> current = tx.select(LISTING_ID, NEIGHBOUR_IDS, DISTANCES, COMPUTED_AT)
+                    .from(DSL.table(TABLE))
+                    .where(DSL.field("listing_id").eq(UUID.fromString(listingId)))
+                    .forUpdate()
+                    .fetchOptional()
+                    .map(this::map);
+            SimilarListings next = current.map(update).orElse(null);
+            if (next == null) {
+                return false;
+            }
+            tx.execute("UPDATE " + TABLE + " SET neighbour_ids = CAST({0} AS uuid[]), distances = CAST({1} AS real[]) "
+                            + "WHERE listing_id = CAST({2} AS uuid)",
+                    DSL.val(next.getNeighbourIds().toArray(new String[0])),
+                    DSL.val(next.getDistances().toArray(new Float[0])),
+                    DSL.val(listingId));
+            return true;
+        });
+    }
+
+    @Override
+    public void save(SimilarListings similar) {
+        dsl.execute(
+                "INSERT INTO " + TABLE + " (listing_id, neighbour_ids, distances, computed_at) "
+                        + "VALUES (CAST({0} AS uuid), CAST({1} AS uuid[]), CAST({2} AS real[]), {3}) "
+                        + "ON CONFLICT (listing_id) DO UPDATE SET neighbour_ids = EXCLUDED.neighbour_ids, "
+                        + "distances = EXCLUDED.distances, computed_at = EXCLUDED.computed_at",
+                DSL.val(similar.getListingId()),
+                DSL.val(similar.getNeighbourIds().toArray(new String[0])),
+                DSL.val(similar.getDistances().toArray(new Float[0])),
+                DSL.val(similar.getComputedAt()));
+    }
+
+    @Override
+    public SimilarListings findNearest(String excludeId, float[] embedding, int limit) {
+        Field<Double> distance = DSL.field("embedding <=> {0}", Double.class, DSL.val(embedding, PgVectorBinding.VECTOR));
+        List<String> ids = new ArrayList<>(limit);
+        List<Float> distances = new ArrayList<>(limit);
+        dsl.select(DSL.field("id::text", String.class), distance)
+                .from(DSL.table("listings"))
+                .where(DSL.field("id").ne(UUID.fromString(excludeId)))
+                .and(DSL.field("status").eq("ACTIVE"))
+                .and(DSL.field("embedding").isNotNull())
+                .orderBy(distance)
+                .limit(limit)
+                .fetch()
+                .forEach(record -> {
+                    ids.add(record.value1());
+                    distances.add(record.value2().floatValue());
+                });
+        return SimilarListings.builder()
+                .listingId(excludeId)
+                .neighbourIds(ids)
+                .distances(distances)
+                .computedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Override
+    public List<String> claimMissing(int limit) {
+        return dsl.resultQuery(
+                        "INSERT INTO " + TABLE + " (listing_id, neighbour_ids, distances, computed_at) "
+                                + "SELECT l.id, '{}', '{}', NOW() FROM listings l "
+                                + "WHERE l.status = 'ACTIVE' AND l.embedding IS NOT NULL "
+                                + "  AND NOT EXISTS (SELECT 1 FROM " + TABLE + " s WHERE s.listing_id = l.id) "
+                                + "LIMIT {0} "
+                                + "ON CONFLICT (listing_id) DO NOTHING "
+                                + "RETURNING listing_id::text",
+                        DSL.val(limit))
+                .fetch(0, String.class);
+    }
+
+    @Override
+    public List<String> claimComputedBefore(LocalDateTime cutoff, int limit) {
+        return dsl.resultQuery(
+                        "UPDATE " + TABLE + " s SET computed_at = NOW() "
+                                + "FROM (SELECT listing_id FROM " + TABLE + " WHERE computed_at < {0} "
+                                + "      ORDER BY computed_at LIMIT {1} FOR UPDATE SKIP LOCKED) outdated "
+                                + "WHERE s.listing_id = outdated.listing_id "
+                                + "RETURNING s.listing_id::text",
+                        DSL.val(cutoff), DSL.val(limit))
+                .fetch(0, String.class);
+    }
+
+    private SimilarListings map(Record record) {
+        return SimilarListings.builder()
+                .listingId(record.get(LISTING_ID))
+                .neighbourIds(Arrays.asList(record.get(NEIGHBOUR_IDS)))
+                .distances(Arrays.asList(record.get(DISTANCES)))
+                .computedAt(JooqUtils.toLocalDateTime(record.get(COMPUTED_AT)))
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.sharefair.repository.impl;
+
+import com.sharefair.entity.TasteVector;
+import com.sharefair.repository.TasteVectorRepository;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+@Repository
+public class TasteVectorRepositoryImpl implements TasteVectorRepository {
+
+    private static final String TABLE = "user_taste_vectors";
+    private static final Field<float[]> EMBEDDING = DSL.field("embedding", PgVectorBinding.VECTOR);
+
+    private static final Field<?>[] FIELDS = {
+            DSL.field("user_id"),
+            EMBEDDING,
+            DSL.field("weight"),
+            DSL.field("updated_at")
+    };
+
+    private final DSLContext dsl;
+
+    public TasteVectorRepositoryImpl(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public Optional<TasteVector> findByUserId(String userId) {
+        return find(dsl, userId, false);
+    }
+
+    @Override
+    public void update(String userId, UnaryOperator<TasteVector> update) {
+        dsl.transaction(configuration -> {
+            DSLContext tx = DSL.using(configuration);
+            TasteVector next = update.apply(find(tx, userId, true).orElse(null));
+            if (next == null) {
+                return;
+            }
+            tx.insertInto(DSL.table(TABLE))
+                    .columns(FIELDS)
+                    .values(UUID.fromString(userId), DSL.val(next.getEmbedding(), PgVectorBinding.VECTOR),
+                            next.getWeight(), next.getUpdatedAt())
+                    .onConflict(DSL.field("user_id"))
+                    .doUpdate()
+                    .set(EMBEDDING, DSL.val(next.getEmbedding(), PgVectorBinding.VECTOR))
+                    .set(DSL.field("weight"), next.getWeight())
+                    .set(DSL.field("updated_at"), next.getUpdatedAt())
+                    .execute();
+        });
+    }
+
+    private Optional<TasteVector> find(DSLContext ctx, String userId, boolean forUpdate) {
+        var query = ctx.select(FIELDS)
+                .from(DSL.table(TABLE))
+                .where(DSL.field("user_id").eq(UUID.fromString(userId)));
+        return (forUpdate ? query.forUpdate() : query)
+                .fetchOptional()
+                .map(record -> TasteVector.builder()
+                        .userId(record.get(DSL.field("user_id"), String.class))
+                        .embedding(record.get(EMBEDDING))
+                        .weight(record.get(DSL.field("weight"), Double.class))
+                        .updatedAt(JooqUtils.toLocalDateTime(record.get(DSL.field("updated_at"))))
+                        .build());
+    }
+}
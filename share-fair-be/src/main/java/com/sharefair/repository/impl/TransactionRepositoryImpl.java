@@ -1,8 +1,11 @@
 package com.sharefair.repository.impl;
 
+import com.sharefair.entity.CompletedBorrow;
 import com.sharefair.entity.Transaction;
 import com.sharefair.repository.TransactionRepository;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.impl.DSL;
 import org.springframework.stereotype.Repository;
 
@@ -144,6 +147,26 @@ public class TransactionRepositoryImpl implements TransactionRepository {
         );
     }
 
+    @Override
+    public List<CompletedBorrow> findCompletedBorrowsAfter(String afterBorrowerId, String afterListingId, int limit) {
+        Field<Object> borrower = DSL.field("borrower_id");
+        Field<Object> listing = DSL.field("listing_id");
+        Condition condition = DSL.field("status").eq("COMPLETED");
+        if (afterBorrowerId != null) {
+            condition = condition.and(DSL.row(borrower, listing)
+                    .gt(DSL.row(UUID.fromString(afterBorrowerId), UUID.fromString(afterListingId))));
+        }
+        return dsl.selectDistinct(borrower, listing)
+                .from(DSL.table(TABLE))
+                .where(condition)
+                .orderBy(borrower, listing)
+                .limit(limit)
+                .fetch(record -> CompletedBorrow.builder()
+                        .borrowerId(record.get(borrower, String.class))
+                        .listingId(record.get(listing, String.class))
+                        .build());
+    }
+
     private Transaction mapToTransaction(org.jooq.Record record) {
         return Transaction.builder()
                 .id(record.get(DSL.field("id"), String.class))
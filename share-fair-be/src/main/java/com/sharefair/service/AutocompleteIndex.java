@@ -0,0 +1,256 @@
+package com.sharefair.service;
+
+import com.sharefair.entity.Listing;
+import com.sharefair.entity.ListingTitle;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory autocomplete over active listing titles and categories.
+ * <p>
+ * Suggestions are weighted by popularity: each active listing contributes {@code 1 + its decayed
+ * popularity score} (see {@link PopularityService}) to its title and to its category, so a category's weight is the sum over its
+ * listings. Every suggestion is reachable from the start of the text and from the start of each
+ * of its first few words, so "bike" completes "Mountain Bike".
+ * <p>
+ * Loaded once the application is ready and kept current from {@link ListingChangedEvent}s;
+ * until then {@link #isReady()} is false and callers should query the database instead.
+ */
+@Component
+public class AutocompleteIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompleteIndex.class);
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_WORD_KEYS = 6;
+
+    private final ListingRepository listingRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Queue<ListingChangedEvent> changedDuringRebuild = new ConcurrentLinkedQueue<>();
+    private volatile Catalog catalog = new Catalog();
+    private volatile boolean loaded;
+
+    public AutocompleteIndex(ListingRepository listingRepository, MeterRegistry meterRegistry) {
+        this.listingRepository = listingRepository;
+        Gauge.builder("sharefair.autocomplete.suggestions", this, s -> s.catalog.entries.size())
+                .register(meterRegistry);
+        Gauge.builder("sharefair.autocomplete.nodes", this, s -> s.catalog.trie.nodeCount())
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild();
+    }
+
+    /** Up to {@code limit} (max 10) suggestion texts for the given prefix, most popular first. */
+    public List<String> suggest(String prefix, int limit) {
+        String key = QueryEmbeddingCache.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return catalog.trie.top(key, Math.min(limit, MAX_SUGGESTIONS)).stream()
+                    .map(PrefixIndex.Suggestion::text)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Sets a listing's popularity (its decayed score in {@code listing_popularity}) and re-ranks. */
+    public void updatePopularity(String listingId, long popularity) {
+        withWriteLock(() -> catalog.setPopularity(listingId, popularity));
+    }
+
+    @EventListener
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.getType() == ListingChangedEvent.Type.EMBEDDING_UPDATED) {
+            return;
+        }
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(event);
+        }
+        withWriteLock(() -> catalog.apply(event));
+    }
+
+    /** Rebuilds from the database in the background and swaps the result in when complete. */
+    public void scheduleRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                Catalog rebuilt = load();
+                withWriteLock(() -> {
+                    catalog = rebuilt;
+                    loaded = true;
+                    rebuilding.set(false);
+                    ListingChangedEvent event;
+                    while ((event = changedDuringRebuild.poll()) != null) {
+                        rebuilt.apply(event);
+                    }
+                });
+                log.info("Loaded autocomplete index with {} suggestions in {} ms",
+                        rebuilt.entries.size(), System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.warn("Failed to build autocomplete index: {}", e.getMessage());
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    private Catalog load() {
+        Catalog built = new Catalog();
+        String afterId = null;
+        while (true) {
+            List<ListingTitle> batch = listingRepository.findTitlesAfter(afterId, LOAD_BATCH_SIZE);
+            for (ListingTitle row : batch) {
+                built.put(row.getId(), new Source(row.getTitle(), row.getCategory(), row.getPopularity(),
+                        isActive(row.getStatus())));
+            }
+            if (batch.size() < LOAD_BATCH_SIZE) {
+                return built;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean isActive(String status) {
+        return status == null || "ACTIVE".equals(status);
+    }
+
+    /** Normalized keys under which a suggestion is indexed: the whole text and each word start. */
+    static List<String> keys(String normalized) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(normalized);
+        int words = 0;
+        for (int i = normalized.indexOf(' '); i >= 0 && words < MAX_WORD_KEYS; i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+            words++;
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private record Source(String title, String category, long popularity, boolean active) {
+        long weight() {
+            return 1 + Math.max(0, popularity);
+        }
+    }
+
+    private static final class Entry {
+        private final PrefixIndex.Suggestion suggestion;
+        private final List<String> keys;
+        private int listings;
+
+        Entry(PrefixIndex.Suggestion suggestion, List<String> keys) {
+            this.suggestion = suggestion;
+            this.keys = keys;
+        }
+    }
+
+    /** Trie plus the bookkeeping needed to apply listing changes to it. Guarded by the lock. */
+    private static final class Catalog {
+        private final PrefixIndex trie = new PrefixIndex(MAX_SUGGESTIONS);
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final Map<String, Source> listings = new HashMap<>();
+
+        void apply(ListingChangedEvent event) {
+            switch (event.getType()) {
+                case CREATED, UPDATED -> {
+                    Listing listing = event.getListing();
+                    Source previous = listings.get(event.getListingId());
+                    long popularity = previous != null ? previous.popularity() : 0;
+                    put(event.getListingId(), new Source(listing.getTitle(), listing.getCategory(), popularity,
+                            isActive(listing.getStatus())));
+                }
+                case DELETED -> put(event.getListingId(), null);
+                default -> {
+                }
+            }
+        }
+
+        void setPopularity(String listingId, long popularity) {
+            Source previous = listings.get(listingId);
+            if (previous != null && previous.popularity() != popularity) {
+                put(listingId, new Source(previous.title(), previous.category(), popularity, previous.active()));
+            }
+        }
+
+        void put(String listingId, Source source) {
+            Source previous = source != null ? listings.put(listingId, source) : listings.remove(listingId);
+            if (previous != null && previous.active()) {
+                contribute(previous.title(), -previous.weight(), -1);
+                contribute(previous.category(), -previous.weight(), -1);
+            }
+            if (source != null && source.active()) {
+                contribute(source.title(), source.weight(), 1);
+                contribute(source.category(), source.weight(), 1);
+            }
+        }
+
+        private void contribute(String text, long weight, int listingDelta) {
+            if (text == null || text.isBlank()) {
+                return;
+            }
+            String normalized = QueryEmbeddingCache.normalize(text);
+            Entry entry = entries.get(normalized);
+            if (entry == null) {
+                if (listingDelta < 0) {
+                    return;
+                }
+                entry = new Entry(new PrefixIndex.Suggestion(text.trim(), 0), keys(normalized));
+                entries.put(normalized, entry);
+            }
+            entry.listings += listingDelta;
+            PrefixIndex.Suggestion suggestion = entry.suggestion;
+            suggestion.setWeight(suggestion.weight() + weight);
+            if (entry.listings <= 0) {
+                entries.remove(normalized);
+                entry.keys.forEach(key -> trie.remove(key, suggestion));
+            } else if (listingDelta > 0 && entry.listings == 1) {
+                entry.keys.forEach(key -> trie.add(key, suggestion));
+            } else {
+                entry.keys.forEach(trie::reweigh);
+            }
+        }
+    }
+}
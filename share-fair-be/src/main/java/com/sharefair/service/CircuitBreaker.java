@@ -0,0 +1,124 @@
+package com.sharefair.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker over the last {@code windowSize} calls.
+ * <p>
+ * Closed: every call is permitted and its outcome recorded. Once at least {@code minimumCalls}
+ * are in the window and either the failure rate or the slow-call rate reaches its threshold, the
+ * breaker opens and rejects calls for {@code openNanos}. It then lets {@code halfOpenCalls}
+ * trial calls through: if all of them succeed in time it closes with an empty window, otherwise
+ * it opens again.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    // Ring buffer of recent outcomes; all state is guarded by this
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialPermits;
+    private int trialSuccesses;
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, double slowCallRateThreshold,
+                   long slowCallNanos, long openNanos, int halfOpenCalls, LongSupplier clock) {
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.clock = clock;
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+    }
+
+    /** Whether a call may proceed; every permitted call must be followed by {@link #record}. */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialPermits = halfOpenCalls;
+            trialSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialPermits == 0) {
+                return false;
+            }
+            trialPermits--;
+        }
+        return true;
+    }
+
+    synchronized void record(long durationNanos, boolean success) {
+        boolean tooSlow = durationNanos > slowCallNanos;
+        switch (state) {
+            case HALF_OPEN -> {
+                if (!success || tooSlow) {
+                    open();
+                } else if (++trialSuccesses == halfOpenCalls) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                add(!success, tooSlow);
+                if (recorded >= minimumCalls
+                        && (failures >= failureRateThreshold * recorded || slowCalls >= slowCallRateThreshold * recorded)) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // A call that started before the breaker opened; nothing to learn from it
+            }
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void add(boolean isFailure, boolean isSlow) {
+        if (recorded == failed.length) {
+            if (failed[next]) failures--;
+            if (slow[next]) slowCalls--;
+        } else {
+            recorded++;
+        }
+        failed[next] = isFailure;
+        slow[next] = isSlow;
+        if (isFailure) failures++;
+        if (isSlow) slowCalls++;
+        next = (next + 1) % failed.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
@@ -0,0 +1,282 @@
+package com.sharefair.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Item-item co-occurrence counts over borrow histories ("people who borrowed X also borrowed Y"),
+ * with the top-K neighbours of every listing kept up to date as borrows are added.
+ * <p>
+ * Listings and users get dense int ordinals; each listing's row is an open-addressing
+ * {@code int -> int} map from neighbour ordinal to the number of users who borrowed both. Each
+ * user has the set of every listing they borrowed, which decides whether a borrow is new, and a
+ * plain int list of their most recent {@code maxHistory} distinct borrows. Adding a borrow of a
+ * new listing increments one cell in both directions for every listing in that recent history
+ * and offers the neighbour to both top-K lists; the window bounds the cost of very active users.
+ * Counts only grow: listings that are deleted or rented out again are filtered by the caller
+ * and disappear on the next rebuild.
+ * <p>
+ * Not thread-safe: {@link CooccurrenceRecommender} guards reads and writes.
+ */
+public final class CooccurrenceMatrix {
+
+    /** Approximate heap cost of an id string and its ordinal map entry. */
+    private static final long ID_BYTES = 160;
+
+    private final int topK;
+    private final int maxHistory;
+
+    private final Map<String, Integer> listingOrdinals = new HashMap<>();
+    private final Map<String, Integer> userOrdinals = new HashMap<>();
+    private String[] listingIds = new String[1024];
+    private IntIntMap[] rows = new IntIntMap[1024];
+    private int[][] neighbours = new int[1024][];
+    private int[] neighbourCounts = new int[1024];
+    private IntList[] histories = new IntList[1024];
+    private IntIntMap[] borrowed = new IntIntMap[1024];
+    private long pairs;
+
+    public CooccurrenceMatrix(int topK, int maxHistory) {
+        this.topK = Math.max(1, topK);
+        this.maxHistory = Math.max(1, maxHistory);
+    }
+
+    /** Records that {@code userId} borrowed {@code listingId}; returns false if already recorded. */
+    public boolean addBorrow(String userId, String listingId) {
+        int listing = listingOrdinal(listingId);
+        int user = userOrdinal(userId);
+        if (borrowed[user].increment(listing) > 1) {
+            return false;
+        }
+        IntList history = histories[user];
+        for (int i = 0; i < history.size; i++) {
+            int other = history.values[i];
+            if (rows[listing].increment(other) == 1) {
+                pairs++;
+            }
+            rows[other].increment(listing);
+            offer(listing, other);
+            offer(other, listing);
+        }
+        if (history.size >= maxHistory) {
+            history.removeFirst();
+        }
+        history.add(listing);
+        return true;
+    }
+
+    /** Up to {@code limit} listings most often borrowed by the borrowers of {@code listingId}. */
+    public List<String> neighbours(String listingId, int limit) {
+        Integer listing = listingOrdinals.get(listingId);
+        if (listing == null) {
+            return List.of();
+        }
+        int n = Math.min(limit, neighbourCounts[listing]);
+        List<String> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(listingIds[neighbours[listing][i]]);
+        }
+        return result;
+    }
+
+    /** Users who borrowed both listings; 0 if either is unknown. */
+    public int count(String listingId, String otherId) {
+        Integer listing = listingOrdinals.get(listingId);
+        Integer other = listingOrdinals.get(otherId);
+        return listing == null || other == null ? 0 : rows[listing].get(other);
+    }
+
+    public int listings() {
+        return listingOrdinals.size();
+    }
+
+    public int users() {
+        return userOrdinals.size();
+    }
+
+    /** Distinct listing pairs borrowed by at least one common user. */
+    public long pairs() {
+        return pairs;
+    }
+
+    /** Estimated heap footprint: ids, rows, top-K lists and per-user borrows. */
+    public long estimatedBytes() {
+        long bytes = (long) (listingIds.length + rows.length + neighbours.length + histories.length
+                + borrowed.length) * 4
+                + neighbourCounts.length * 4L
+                + (listingOrdinals.size() + userOrdinals.size()) * ID_BYTES;
+        for (int i = 0; i < listingOrdinals.size(); i++) {
+            bytes += rows[i].estimatedBytes() + (neighbours[i] != null ? 16 + neighbours[i].length * 4L : 0);
+        }
+        for (int i = 0; i < userOrdinals.size(); i++) {
+            bytes += histories[i].estimatedBytes() + borrowed[i].estimatedBytes();
+        }
+        return bytes;
+    }
+
+    /** Moves {@code other} into the top-K of {@code listing} if its count now ranks there. */
+    private void offer(int listing, int other) {
+        int[] top = neighbours[listing];
+        if (top == null) {
+            top = neighbours[listing] = new int[topK];
+        }
+        IntIntMap row = rows[listing];
+        int count = row.get(other);
+        int size = neighbourCounts[listing];
+        int position = -1;
+        for (int i = 0; i < size; i++) {
+            if (top[i] == other) {
+                position = i;
+                break;
+            }
+        }
+        if (position < 0) {
+            if (size < topK) {
+                position = size;
+                neighbourCounts[listing] = ++size;
+            } else if (count > row.get(top[size - 1])) {
+                position = size - 1;
+            } else {
+                return;
+            }
+            top[position] = other;
+        }
+        // counts only grow, so the entry can only move towards the head
+        while (position > 0 && row.get(top[position - 1]) < count) {
+            top[position] = top[position - 1];
+            top[position - 1] = other;
+            position--;
+        }
+    }
+
+    private int listingOrdinal(String listingId) {
+        Integer existing = listingOrdinals.get(listingId);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = listingOrdinals.size();
+        if (ordinal == listingIds.length) {
+            int capacity = ordinal * 2;
+            listingIds = Arrays.copyOf(listingIds, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+            neighbours = Arrays.copyOf(neighbours, capacity);
+            neighbourCounts = Arrays.copyOf(neighbourCounts, capacity);
+        }
+        listingOrdinals.put(listingId, ordinal);
+        listingIds[ordinal] = listingId;
+        rows[ordinal] = new IntIntMap();
+        return ordinal;
+    }
+
+    private int userOrdinal(String userId) {
+        Integer existing = userOrdinals.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = userOrdinals.size();
+        if (ordinal == histories.length) {
+            histories = Arrays.copyOf(histories, ordinal * 2);
+            borrowed = Arrays.copyOf(borrowed, ordinal * 2);
+        }
+        userOrdinals.put(userId, ordinal);
+        histories[ordinal] = new IntList();
+        borrowed[ordinal] = new IntIntMap();
+        return ordinal;
+    }
+
+    /** Open-addressing {@code int -> int} map with linear probing; keys are non-negative ordinals. */
+    static final class IntIntMap {
+        private static final int EMPTY = -1;
+
+        private int[] keys;
+        private int[] values;
+        private int size;
+
+        IntIntMap() {
+            keys = new int[4];
+            values = new int[4];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                if (keys[slot] == EMPTY) {
+                    return 0;
+                }
+            }
+        }
+
+        /** Adds one to the key's value and returns the new value. */
+        int increment(int key) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            return ++values[slot];
+        }
+
+        long estimatedBytes() {
+            return 48 + keys.length * 8L;
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = mix(oldKeys[i]) & mask;
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /** Growable int list in insertion order. */
+    static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void removeFirst() {
+            System.arraycopy(values, 1, values, 0, --size);
+        }
+
+        long estimatedBytes() {
+            return 32 + values.length * 4L;
+        }
+    }
+}
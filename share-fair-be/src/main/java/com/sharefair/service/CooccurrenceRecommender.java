@@ -0,0 +1,190 @@
+package com.sharefair.service;
+
+import com.sharefair.config.RecommendationProperties;
+import com.sharefair.entity.CompletedBorrow;
+import com.sharefair.event.TransactionCompletedEvent;
+import com.sharefair.repository.TransactionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * "People who borrowed X also borrowed Y" from an in-memory {@link CooccurrenceMatrix}
+ * ({@code sharefair.recommendations.cooccurrence}).
+ * <p>
+ * The matrix is built from the distinct borrower/listing pairs of completed transactions at
+ * startup and every {@code rebuildInterval}, and updated incrementally from
+ * {@link TransactionCompletedEvent}s in between. Each replica only sees the completions it
+ * handled itself; the periodic rebuild brings the others in. Reads return the precomputed top-K
+ * neighbours of a listing without touching the database.
+ */
+@Component
+public class CooccurrenceRecommender {
+
+    private static final Logger log = LoggerFactory.getLogger(CooccurrenceRecommender.class);
+    private static final String METRIC_PREFIX = "sharefair.recommendations.cooccurrence";
+
+    private final TransactionRepository transactionRepository;
+    private final RecommendationProperties.Cooccurrence config;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Queue<CompletedBorrow> completedDuringRebuild = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cooccurrence-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Timer rebuildTimer;
+    private volatile CooccurrenceMatrix matrix;
+
+    public CooccurrenceRecommender(TransactionRepository transactionRepository,
+                                   RecommendationProperties recommendationProperties,
+                                   MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.config = recommendationProperties.getCooccurrence();
+        this.rebuildTimer = Timer.builder(METRIC_PREFIX + ".rebuild")
+                .description("Time to rebuild the co-occurrence model from completed transactions")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".listings", this, r -> r.read(CooccurrenceMatrix::listings))
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".users", this, r -> r.read(CooccurrenceMatrix::users))
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".pairs", this, r -> r.read(CooccurrenceMatrix::pairs))
+                .description("Listing pairs borrowed by at least one common user")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".memory", this, r -> r.read(CooccurrenceMatrix::estimatedBytes))
+                .description("Estimated heap used by the co-occurrence model")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (config.isEnabled()) {
+            long interval = config.getRebuildInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::rebuild, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Ids of up to {@code limit} listings most often borrowed together with {@code listingId}. */
+    public List<String> neighbours(String listingId, int limit) {
+        CooccurrenceMatrix current = matrix;
+        if (current == null) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return current.neighbours(listingId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onTransactionCompleted(TransactionCompletedEvent event) {
+        if (!config.isEnabled() || event.getBorrowerId() == null || event.getListingId() == null) {
+            return;
+        }
+        CompletedBorrow borrow = new CompletedBorrow(event.getBorrowerId(), event.getListingId());
+        if (rebuilding.get()) {
+            completedDuringRebuild.add(borrow);
+        }
+        CooccurrenceMatrix current = matrix;
+        if (current != null) {
+            withWriteLock(() -> current.addBorrow(borrow.getBorrowerId(), borrow.getListingId()));
+        }
+    }
+
+    /** Rebuilds the model from the transactions table; a no-op while a rebuild is running. */
+    void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            CooccurrenceMatrix rebuilt = load();
+            // Completions seen while loading may or may not be in the scan; adding them again is a no-op
+            withWriteLock(() -> {
+                CompletedBorrow borrow;
+                while ((borrow = completedDuringRebuild.poll()) != null) {
+                    rebuilt.addBorrow(borrow.getBorrowerId(), borrow.getListingId());
+                }
+                matrix = rebuilt;
+                rebuilding.set(false);
+            });
+            long nanos = System.nanoTime() - start;
+            rebuildTimer.record(nanos, TimeUnit.NANOSECONDS);
+            log.info("Rebuilt co-occurrence model: {} listings, {} users, {} pairs, ~{} KiB in {} ms",
+                    rebuilt.listings(), rebuilt.users(), rebuilt.pairs(), rebuilt.estimatedBytes() / 1024,
+                    TimeUnit.NANOSECONDS.toMillis(nanos));
+        } catch (Exception e) {
+            log.warn("Failed to rebuild co-occurrence model: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+            completedDuringRebuild.clear();
+        }
+    }
+
+    private CooccurrenceMatrix load() {
+        CooccurrenceMatrix built = new CooccurrenceMatrix(config.getTopK(), config.getMaxHistory());
+        int batchSize = Math.max(1, config.getRebuildBatch());
+        CompletedBorrow after = null;
+        while (true) {
+            List<CompletedBorrow> batch = transactionRepository.findCompletedBorrowsAfter(
+                    after != null ? after.getBorrowerId() : null, after != null ? after.getListingId() : null,
+                    batchSize);
+            for (CompletedBorrow borrow : batch) {
+                built.addBorrow(borrow.getBorrowerId(), borrow.getListingId());
+            }
+            if (batch.size() < batchSize) {
+                return built;
+            }
+            after = batch.get(batch.size() - 1);
+        }
+    }
+
+    private double read(ToLongFunction<CooccurrenceMatrix> metric) {
+        CooccurrenceMatrix current = matrix;
+        if (current == null) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            return metric.applyAsLong(current);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,243 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.dto.BackfillStatusDto;
+import com.sharefair.entity.Listing;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipelined bulk embedding backfill.
+ * <p>
+ * Listings without an embedding are read with a keyset scan over {@code id}; each page is split
+ * into multi-text {@link EmbeddingModel#embed(List)} calls that run on a fixed pool (bounding the
+ * number of concurrent Ollama requests), and each call's vectors are written back with one JDBC
+ * batch. The next page is fetched while the current one is being embedded.
+ * <p>
+ * Only one run is active at a time. A stopped or failed run can be resumed from its last
+ * completed cursor; rows that failed to embed keep a null embedding and are picked up by the
+ * next full run.
+ */
+@Service
+public class EmbeddingBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingBackfillService.class);
+    private static final String METRIC_PREFIX = "sharefair.embedding.backfill";
+
+    public enum State { IDLE, RUNNING, COMPLETED, STOPPED, FAILED }
+
+    private final ListingRepository listingRepository;
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddingProperties.Backfill config;
+
+    private final ExecutorService coordinator;
+    private final ExecutorService embedders;
+
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Timer batchTimer;
+
+    private volatile Run current = new Run(State.IDLE, null, 0);
+
+    public EmbeddingBackfillService(ListingRepository listingRepository,
+                                    EmbeddingModel embeddingModel,
+                                    EmbeddingProperties embeddingProperties,
+                                    MeterRegistry meterRegistry) {
+        this.listingRepository = listingRepository;
+        this.embeddingModel = embeddingModel;
+        this.config = embeddingProperties.getBackfill();
+        this.coordinator = Executors.newSingleThreadExecutor(named("embedding-backfill"));
+        this.embedders = Executors.newFixedThreadPool(Math.max(1, config.getConcurrency()),
+                named("embedding-backfill-worker"));
+
+        this.succeeded = Counter.builder(METRIC_PREFIX + ".listings").tag("result", "success")
+                .register(meterRegistry);
+        this.failed = Counter.builder(METRIC_PREFIX + ".listings").tag("result", "failure")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder(METRIC_PREFIX + ".batch")
+                .description("Time to embed and store one batch of listings")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".progress", this, s -> s.current.progress())
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".running", this, s -> s.current.state == State.RUNNING ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a backfill in the background and returns immediately. If a run is already in
+     * progress its status is returned instead. A previously stopped or failed run resumes from
+     * its cursor.
+     *
+     * @param maxListings stop after this many listings; 0 for no limit
+     */
+    public synchronized BackfillStatusDto start(long maxListings) {
+        Run previous = current;
+        if (previous.state == State.RUNNING) {
+            return previous.toDto();
+        }
+        String cursor = previous.state == State.STOPPED || previous.state == State.FAILED ? previous.cursor : null;
+        long remaining = listingRepository.countWithoutEmbedding();
+        Run run = new Run(State.RUNNING, cursor, maxListings > 0 ? Math.min(maxListings, remaining) : remaining);
+        current = run;
+        coordinator.submit(() -> execute(run, maxListings));
+        return run.toDto();
+    }
+
+    public BackfillStatusDto status() {
+        return current.toDto();
+    }
+
+    public void stop() {
+        current.stopRequested = true;
+    }
+
+    private void execute(Run run, long maxListings) {
+        log.info("Starting embedding backfill for {} listings (resume cursor: {})", run.total, run.cursor);
+        try {
+            long scheduled = 0;
+            List<Listing> page = listingRepository.findWithoutEmbedding(run.cursor, config.getPageSize());
+            while (!page.isEmpty() && !run.stopRequested) {
+                if (maxListings > 0 && scheduled + page.size() > maxListings) {
+                    page = page.subList(0, (int) (maxListings - scheduled));
+                }
+                scheduled += page.size();
+
+                List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+                for (int i = 0; i < page.size(); i += config.getBatchSize()) {
+                    List<Listing> chunk = page.subList(i, Math.min(i + config.getBatchSize(), page.size()));
+                    inFlight.add(CompletableFuture.runAsync(() -> embedBatch(run, chunk), embedders));
+                }
+
+                String lastId = page.get(page.size() - 1).getId();
+                boolean more = page.size() == config.getPageSize() && (maxListings <= 0 || scheduled < maxListings);
+                List<Listing> next = more ? listingRepository.findWithoutEmbedding(lastId, config.getPageSize()) : List.of();
+
+                CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+                run.cursor = lastId;
+                page = next;
+            }
+            run.finish(run.stopRequested ? State.STOPPED : State.COMPLETED);
+            log.info("Embedding backfill {}: {} embedded, {} failed", run.state, run.processed, run.failed);
+        } catch (Exception e) {
+            run.lastError = e.getMessage();
+            run.finish(State.FAILED);
+            log.warn("Embedding backfill failed at cursor {}: {}", run.cursor, e.getMessage());
+        }
+    }
+
+    private void embedBatch(Run run, List<Listing> chunk) {
+        Timer.Sample sample = Timer.start();
+        try {
+            List<String> texts = chunk.stream().map(SearchService::buildEmbeddingText).toList();
+            List<float[]> vectors = embeddingModel.embed(texts);
+            if (vectors.size() != chunk.size()) {
+                throw new IllegalStateException("Expected " + chunk.size() + " embeddings but got " + vectors.size());
+            }
+            Map<String, float[]> updates = new LinkedHashMap<>();
+            Map<String, String> fingerprints = new LinkedHashMap<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                updates.put(chunk.get(i).getId(), vectors.get(i));
+                fingerprints.put(chunk.get(i).getId(), ListingEmbeddingService.fingerprint(texts.get(i)));
+            }
+            listingRepository.updateEmbeddings(updates, fingerprints);
+            run.processed.addAndGet(chunk.size());
+            succeeded.increment(chunk.size());
+        } catch (Exception e) {
+            run.failed.addAndGet(chunk.size());
+            run.lastError = e.getMessage();
+            failed.increment(chunk.size());
+            log.warn("Failed to embed batch of {} listings starting at {}: {}",
+                    chunk.size(), chunk.get(0).getId(), e.getMessage());
+        } finally {
+            sample.stop(batchTimer);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        current.stopRequested = true;
+        coordinator.shutdownNow();
+        embedders.shutdownNow();
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Run {
+        private volatile State state;
+        private volatile String cursor;
+        private volatile String lastError;
+        private volatile boolean stopRequested;
+        private volatile LocalDateTime finishedAt;
+        private final long total;
+        private final LocalDateTime startedAt;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        Run(State state, String cursor, long total) {
+            this.state = state;
+            this.cursor = cursor;
+            this.total = total;
+            this.startedAt = state == State.RUNNING ? LocalDateTime.now() : null;
+        }
+
+        void finish(State finalState) {
+            finishedAt = LocalDateTime.now();
+            state = finalState;
+        }
+
+        double progress() {
+            if (total == 0) {
+                return state == State.IDLE ? 0.0 : 1.0;
+            }
+            return Math.min(1.0, (processed.get() + failed.get()) / (double) total);
+        }
+
+        BackfillStatusDto toDto() {
+            long done = processed.get();
+            long errors = failed.get();
+            double seconds = startedAt == null ? 0
+                    : Duration.between(startedAt, finishedAt != null ? finishedAt : LocalDateTime.now()).toMillis() / 1000.0;
+            return BackfillStatusDto.builder()
+                    .state(state.name())
+                    .total(total)
+                    .processed(done)
+                    .failed(errors)
+                    .progress(progress())
+                    .throughputPerSecond(seconds > 0 ? done / seconds : 0)
+                    .errorRate(done + errors > 0 ? errors / (double) (done + errors) : 0)
+                    .cursor(cursor)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .lastError(lastError)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.sharefair.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.Listing;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Second stage of quantized vector search: orders the {@link QuantizedListingIndex} candidates,
+ * scored on compressed codes, by exact cosine similarity.
+ * <p>
+ * Listing embeddings are kept unit-normalized in a Caffeine cache, so scoring a candidate is
+ * one {@link VectorMath#dot} call; candidates missing from the cache are loaded in one query.
+ * Entries are dropped when a listing is re-embedded or deleted.
+ */
+@Component
+public class ExactReranker {
+
+    private final ListingRepository listingRepository;
+    private final Cache<String, float[]> embeddings;
+
+    public ExactReranker(ListingRepository listingRepository, EmbeddingProperties embeddingProperties,
+                         MeterRegistry meterRegistry) {
+        this.listingRepository = listingRepository;
+        this.embeddings = Caffeine.newBuilder()
+                .maximumSize(embeddingProperties.getRerank().getCacheSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, embeddings, "listing_embeddings");
+    }
+
+    /**
+     * Returns the candidates whose cosine distance to {@code queryEmbedding} is below
+     * {@code maxDistance} (the same cut-off as the {@code similarityThreshold} used by the ANN
+     * queries), nearest first. Candidates without an embedding are dropped.
+     */
+    public List<Listing> rerank(float[] queryEmbedding, List<Listing> candidates, double maxDistance) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        float[] query = VectorMath.normalize(queryEmbedding);
+        Map<String, float[]> vectors = embeddings.getAll(candidates.stream().map(Listing::getId).toList(),
+                this::load);
+
+        List<Scored> scored = new ArrayList<>(candidates.size());
+        for (Listing listing : candidates) {
+            float[] vector = vectors.get(listing.getId());
+            if (vector == null || vector.length != query.length) {
+                continue;
+            }
+            float distance = 1f - VectorMath.dot(query, vector);
+            if (distance < maxDistance) {
+                scored.add(new Scored(listing, distance));
+            }
+        }
+        // Stable sort: equal distances keep the ANN order
+        scored.sort((a, b) -> Float.compare(a.distance(), b.distance()));
+        return scored.stream().map(Scored::listing).toList();
+    }
+
+    @EventListener
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.getType() == ListingChangedEvent.Type.EMBEDDING_UPDATED
+                || event.getType() == ListingChangedEvent.Type.DELETED) {
+            embeddings.invalidate(event.getListingId());
+        }
+    }
+
+    private Map<String, float[]> load(Iterable<? extends String> ids) {
+        List<String> missing = new ArrayList<>();
+        ids.forEach(missing::add);
+        Map<String, float[]> loaded = new HashMap<>();
+        for (ListingEmbedding row : listingRepository.findEmbeddingsByIds(missing)) {
+            loaded.put(row.getId(), VectorMath.normalize(row.getEmbedding()));
+        }
+        return loaded;
+    }
+
+    private record Scored(Listing listing, float distance) {
+    }
+}
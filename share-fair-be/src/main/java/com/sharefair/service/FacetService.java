@@ -0,0 +1,115 @@
+package com.sharefair.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.ListingFacets;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Facet counts (category, neighborhood, listing type, price range) for a search's filter set.
+ * <p>
+ * Counts without a text query depend only on the neighborhood/category filters, a small key
+ * space, so they are cached as snapshots; every listing write on this instance invalidates all of
+ * them, and {@code SNAPSHOT_TTL} bounds how long writes made by other replicas go unseen. Counts
+ * for a text query are computed per request over the candidates the search itself draws from:
+ * keyword matches for price/date sorting, listings within the similarity threshold for
+ * vector-ranked results, and both for hybrid search. Either way the database does one
+ * {@code GROUPING SETS} round trip.
+ */
+@Service
+public class FacetService {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetService.class);
+    private static final long MAX_SNAPSHOTS = 1_000;
+    private static final Duration SNAPSHOT_TTL = Duration.ofSeconds(30);
+
+    private final ListingRepository listingRepository;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final EmbeddingProperties embeddingProperties;
+    private final Cache<FilterKey, Snapshot> snapshots;
+    private final AtomicLong generation = new AtomicLong();
+
+    public FacetService(ListingRepository listingRepository,
+                        QueryEmbeddingCache queryEmbeddingCache,
+                        EmbeddingProperties embeddingProperties,
+                        MeterRegistry meterRegistry) {
+        this.listingRepository = listingRepository;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.embeddingProperties = embeddingProperties;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(MAX_SNAPSHOTS)
+                .expireAfterWrite(SNAPSHOT_TTL)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "search_facets");
+    }
+
+    /** Facets for {@code SearchService.semanticSearch} called with the same arguments. */
+    public ListingFacets facets(String query, String neighborhood, String category, String sortBy) {
+        if (query == null || query.isBlank()) {
+            return filterFacets(neighborhood, category);
+        }
+        boolean hybrid = embeddingProperties.getHybrid().isEnabled();
+        if (!hybrid && ("price".equals(sortBy) || "date".equals(sortBy))) {
+            return listingRepository.countFacets(query, null, 0, neighborhood, category);
+        }
+        float[] queryEmbedding;
+        try {
+            // Already embedded (and cached) by the search this request just ran
+            queryEmbedding = queryEmbeddingCache.embed(query);
+        } catch (Exception e) {
+            // The search fell back to keyword results too
+            log.warn("Embedding failed for facets of query '{}', counting keyword matches: {}", query, e.getMessage());
+            return listingRepository.countFacets(query, null, 0, neighborhood, category);
+        }
+        return listingRepository.countFacets(hybrid ? query : null, queryEmbedding,
+                embeddingProperties.getSimilarityThreshold(), neighborhood, category);
+    }
+
+    /** Facets over every available listing, narrowed only by the neighborhood/category filters. */
+    public ListingFacets filterFacets(String neighborhood, String category) {
+        FilterKey key = new FilterKey(blankToNull(neighborhood), blankToNull(category));
+        Snapshot snapshot = snapshots.get(key, this::load);
+        if (snapshot.generation() != generation.get()) {
+            // Loaded concurrently with a write; don't serve it, and let the next caller reload.
+            snapshots.asMap().remove(key, snapshot);
+            snapshot = snapshots.get(key, this::load);
+        }
+        return snapshot.facets();
+    }
+
+    @EventListener
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.getType() == ListingChangedEvent.Type.EMBEDDING_UPDATED) {
+            return;
+        }
+        generation.incrementAndGet();
+        snapshots.invalidateAll();
+    }
+
+    private Snapshot load(FilterKey key) {
+        long loadedAt = generation.get();
+        return new Snapshot(loadedAt, listingRepository.countFacets(null, null, 0, key.neighborhood(), key.category()));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private record FilterKey(String neighborhood, String category) {
+    }
+
+    private record Snapshot(long generation, ListingFacets facets) {
+    }
+}
@@ -0,0 +1,504 @@
+package com.sharefair.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical Navigable Small World graph over unit-normalized float vectors.
+ * <p>
+ * Vectors are kept in one flat {@code float[]} (node {@code i} starts at {@code i * dimensions}),
+ * and the listing attributes that search filters on are stored per node so they can be checked
+ * during the graph walk instead of post-filtering. Removed nodes stay in the graph as tombstones
+ * to keep it connected; callers rebuild the index once too many accumulate.
+ * <p>
+ * Not thread-safe: {@link ListingVectorIndex} guards reads and writes.
+ */
+public final class HnswIndex {
+
+    private static final byte FLAG_AVAILABLE = 1;
+    private static final byte FLAG_DELETED = 2;
+
+    public record Hit(String id, float distance) {}
+
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+
+    private float[] vectors;
+    private int[][][] links;
+    private String[] ids;
+    private int[] neighborhoods;
+    private int[] categories;
+    private byte[] flags;
+
+    private final Map<String, Integer> nodeById = new HashMap<>();
+    private final Map<String, Integer> neighborhoodCodes = new HashMap<>();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+
+    private int size;
+    private int deleted;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dimensions, int m, int efConstruction, long seed) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+        allocate(1024);
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /** Number of live (non-deleted) vectors. */
+    public int size() {
+        return nodeById.size();
+    }
+
+    public int deletedCount() {
+        return deleted;
+    }
+
+    public boolean contains(String id) {
+        return nodeById.containsKey(id);
+    }
+
+    /**
+     * Inserts a vector, replacing any previous vector stored under the same id.
+     */
+    public void add(String id, float[] vector, String neighborhood, String category, boolean available) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+        remove(id);
+
+        int node = size++;
+        ensureCapacity(size);
+        normalizeInto(vector, vectors, node * dimensions);
+        ids[node] = id;
+        neighborhoods[node] = code(neighborhoodCodes, neighborhood);
+        categories[node] = code(categoryCodes, category);
+        flags[node] = available ? FLAG_AVAILABLE : 0;
+        nodeById.put(id, node);
+
+        int level = randomLevel();
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[(l == 0 ? maxM0 : m) + 1];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int offset = node * dimensions;
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(vectors, offset, ep, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            NodeHeap candidates = searchLayer(vectors, offset, ep, efConstruction, l, null, Double.POSITIVE_INFINITY);
+            int[] sorted = candidates.drainAscending();
+            float[] distances = new float[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                distances[i] = distance(vectors, offset, sorted[i]);
+            }
+            int[] selected = selectNeighbors(sorted, distances, l == 0 ? maxM0 : m);
+            for (int neighbor : selected) {
+                append(node, l, neighbor);
+                connect(neighbor, l, node);
+            }
+            ep = sorted[0];
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Updates the filterable attributes of an indexed vector in place.
+     *
+     * @return false if the id is not indexed
+     */
+    public boolean updateAttributes(String id, String neighborhood, String category, boolean available) {
+        Integer node = nodeById.get(id);
+        if (node == null) {
+            return false;
+        }
+        neighborhoods[node] = code(neighborhoodCodes, neighborhood);
+        categories[node] = code(categoryCodes, category);
+        flags[node] = (byte) ((flags[node] & ~FLAG_AVAILABLE) | (available ? FLAG_AVAILABLE : 0));
+        return true;
+    }
+
+    public boolean remove(String id) {
+        Integer node = nodeById.remove(id);
+        if (node == null) {
+            return false;
+        }
+        flags[node] |= FLAG_DELETED;
+        deleted++;
+        return true;
+    }
+
+    /**
+     * Returns up to {@code k} available vectors closest to {@code query} by cosine distance,
+     * restricted to the given neighborhood/category when those are non-blank. Hits at or beyond
+     * {@code maxDistance} are dropped.
+     */
+    public List<Hit> search(float[] query, int k, int ef, String neighborhood, String category,
+                            double maxDistance) {
+        if (entryPoint < 0 || k <= 0 || query.length != dimensions) {
+            return List.of();
+        }
+        int neighborhoodCode = filterCode(neighborhoodCodes, neighborhood);
+        int categoryCode = filterCode(categoryCodes, category);
+        if (neighborhoodCode == -2 || categoryCode == -2) {
+            return List.of();
+        }
+
+        float[] normalized = new float[dimensions];
+        normalizeInto(query, normalized, 0);
+
+        int ep = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            ep = greedyClosest(normalized, 0, ep, l);
+        }
+
+        NodeFilter filter = node -> (flags[node] & (FLAG_AVAILABLE | FLAG_DELETED)) == FLAG_AVAILABLE
+                && (neighborhoodCode < 0 || neighborhoods[node] == neighborhoodCode)
+                && (categoryCode < 0 || categories[node] == categoryCode);
+        NodeHeap results = searchLayer(normalized, 0, ep, Math.max(ef, k), 0, filter, maxDistance);
+
+        int[] sorted = results.drainAscending();
+        List<Hit> hits = new ArrayList<>(Math.min(k, sorted.length));
+        for (int node : sorted) {
+            float distance = distance(normalized, 0, node);
+            if (distance >= maxDistance) {
+                break;
+            }
+            hits.add(new Hit(ids[node], distance));
+            if (hits.size() == k) {
+                break;
+            }
+        }
+        return hits;
+    }
+
+    // ── graph construction ──────────────────────────────────────────────────────
+
+    private int randomLevel() {
+        double r = random.nextDouble();
+        return (int) Math.floor(-Math.log(Math.max(r, Double.MIN_VALUE)) * levelMultiplier);
+    }
+
+    private int greedyClosest(float[] query, int queryOffset, int start, int level) {
+        int current = start;
+        float currentDistance = distance(query, queryOffset, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbors = links[current][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int candidate = neighbors[i];
+                float d = distance(query, queryOffset, candidate);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = candidate;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer. Every reachable node is used for navigation, but only nodes
+     * accepted by {@code filter} (all nodes when null) enter the result heap.
+     */
+    private NodeHeap searchLayer(float[] query, int queryOffset, int entry, int ef, int level,
+                                 NodeFilter filter, double maxDistance) {
+        BitSet visited = new BitSet(size);
+        NodeHeap candidates = new NodeHeap(ef * 2, false);
+        NodeHeap results = new NodeHeap(ef + 1, true);
+
+        float entryDistance = distance(query, queryOffset, entry);
+        visited.set(entry);
+        candidates.push(entry, entryDistance);
+        if (filter == null || filter.accept(entry)) {
+            results.push(entry, entryDistance);
+        }
+
+        while (candidates.size() > 0) {
+            float closest = candidates.peekDistance();
+            double bound = results.size() >= ef ? results.peekDistance() : maxDistance;
+            if (closest > bound) {
+                break;
+            }
+            int current = candidates.pop();
+            int[] neighbors = links[current][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float d = distance(query, queryOffset, neighbor);
+                if (results.size() < ef || d < results.peekDistance()) {
+                    candidates.push(neighbor, d);
+                    if (filter == null || filter.accept(neighbor)) {
+                        results.push(neighbor, d);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Neighbor selection heuristic from the HNSW paper: a candidate is kept only if it is closer
+     * to the base node than to any neighbor already kept, which preserves links across clusters.
+     * Remaining slots are filled with the closest discarded candidates.
+     *
+     * @param ascending candidates ordered by increasing distance to the base node
+     * @param distances distance of each candidate to the base node
+     */
+    private int[] selectNeighbors(int[] ascending, float[] distances, int max) {
+        if (ascending.length <= max) {
+            return ascending;
+        }
+        int[] selected = new int[max];
+        int count = 0;
+        boolean[] taken = new boolean[ascending.length];
+        for (int i = 0; i < ascending.length && count < max; i++) {
+            int candidate = ascending[i];
+            boolean keep = true;
+            for (int j = 0; j < count; j++) {
+                if (distance(vectors, candidate * dimensions, selected[j]) < distances[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = candidate;
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < ascending.length && count < max; i++) {
+            if (!taken[i]) {
+                selected[count++] = ascending[i];
+            }
+        }
+        return selected;
+    }
+
+    private void append(int node, int level, int neighbor) {
+        int[] list = links[node][level];
+        if (list[0] < list.length - 1) {
+            list[++list[0]] = neighbor;
+        }
+    }
+
+    private void connect(int node, int level, int newNeighbor) {
+        int[] list = links[node][level];
+        int capacity = list.length - 1;
+        if (list[0] < capacity) {
+            list[++list[0]] = newNeighbor;
+            return;
+        }
+        // Over capacity: re-select among the existing neighbors plus the new one
+        int[] candidates = Arrays.copyOfRange(list, 1, capacity + 2);
+        candidates[capacity] = newNeighbor;
+        int offset = node * dimensions;
+        float[] distances = new float[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            distances[i] = distance(vectors, offset, candidates[i]);
+        }
+        sortByDistance(candidates, distances);
+        int[] kept = selectNeighbors(candidates, distances, capacity);
+        list[0] = kept.length;
+        System.arraycopy(kept, 0, list, 1, kept.length);
+    }
+
+    private static void sortByDistance(int[] nodes, float[] distances) {
+        for (int i = 1; i < nodes.length; i++) {
+            int node = nodes[i];
+            float d = distances[i];
+            int j = i - 1;
+            while (j >= 0 && distances[j] > d) {
+                nodes[j + 1] = nodes[j];
+                distances[j + 1] = distances[j];
+                j--;
+            }
+            nodes[j + 1] = node;
+            distances[j + 1] = d;
+        }
+    }
+
+    // ── storage ─────────────────────────────────────────────────────────────────
+
+    private void allocate(int capacity) {
+        vectors = new float[capacity * dimensions];
+        links = new int[capacity][][];
+        ids = new String[capacity];
+        neighborhoods = new int[capacity];
+        categories = new int[capacity];
+        flags = new byte[capacity];
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = ids.length;
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity * 2);
+        vectors = Arrays.copyOf(vectors, newCapacity * dimensions);
+        links = Arrays.copyOf(links, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        neighborhoods = Arrays.copyOf(neighborhoods, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+        flags = Arrays.copyOf(flags, newCapacity);
+    }
+
+    private static int code(Map<String, Integer> codes, String value) {
+        if (value == null) {
+            return -1;
+        }
+        return codes.computeIfAbsent(value, v -> codes.size());
+    }
+
+    /** -1 means "no filter", -2 means "filter on a value no node has". */
+    private static int filterCode(Map<String, Integer> codes, String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : -2;
+    }
+
+    private float distance(float[] query, int queryOffset, int node) {
+        return 1f - VectorMath.dot(query, queryOffset, vectors, node * dimensions, dimensions);
+    }
+
+    private static void normalizeInto(float[] source, float[] target, int offset) {
+        double norm = 0;
+        for (float v : source) {
+            norm += v * v;
+        }
+        float scale = norm > 0 ? (float) (1.0 / Math.sqrt(norm)) : 0f;
+        for (int i = 0; i < source.length; i++) {
+            target[offset + i] = source[i] * scale;
+        }
+    }
+
+    @FunctionalInterface
+    private interface NodeFilter {
+        boolean accept(int node);
+    }
+
+    /** Binary heap of (node, distance) pairs on parallel primitive arrays. */
+    private static final class NodeHeap {
+        private int[] nodes;
+        private float[] distances;
+        private int size;
+        private final boolean max;
+
+        NodeHeap(int capacity, boolean max) {
+            this.nodes = new int[Math.max(capacity, 4)];
+            this.distances = new float[nodes.length];
+            this.max = max;
+        }
+
+        int size() {
+            return size;
+        }
+
+        float peekDistance() {
+            return distances[0];
+        }
+
+        void push(int node, float distance) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(distance, distances[parent])) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            distances[i] = distance;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            if (size > 0) {
+                int node = nodes[size];
+                float distance = distances[size];
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && before(distances[child + 1], distances[child])) {
+                        child++;
+                    }
+                    if (!before(distances[child], distance)) {
+                        break;
+                    }
+                    nodes[i] = nodes[child];
+                    distances[i] = distances[child];
+                    i = child;
+                }
+                nodes[i] = node;
+                distances[i] = distance;
+            }
+            return top;
+        }
+
+        /** Empties the heap and returns its nodes ordered by increasing distance. */
+        int[] drainAscending() {
+            int[] out = new int[size];
+            if (max) {
+                for (int i = size - 1; i >= 0; i--) {
+                    out[i] = pop();
+                }
+            } else {
+                for (int i = 0; i < out.length; i++) {
+                    out[i] = pop();
+                }
+            }
+            return out;
+        }
+
+        private boolean before(float a, float b) {
+            return max ? a > b : a < b;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.sharefair.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sharefair.entity.Listing;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.CursorPage;
+import com.sharefair.repository.ListingCatalogQuery;
+import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.PageCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The paged listing catalog behind {@code GET /api/v1/listings}.
+ * <p>
+ * Pages are keyset-paginated in the database. Totals are cached per filter set and invalidated
+ * by every listing write on this instance; {@code COUNT_TTL} bounds how long writes made by
+ * other replicas go unseen. The unfiltered total of a catalog above {@code EXACT_COUNT_LIMIT}
+ * rows is the planner's estimate instead of a full count.
+ */
+@Service
+public class ListingCatalogService {
+
+    static final long EXACT_COUNT_LIMIT = 100_000;
+    static final int STREAM_BATCH = 500;
+    private static final Duration COUNT_TTL = Duration.ofSeconds(30);
+    private static final long MAX_COUNTS = 1_000;
+
+    private final ListingRepository listingRepository;
+    private final Cache<FilterKey, Snapshot> counts;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ListingCatalogService(ListingRepository listingRepository, MeterRegistry meterRegistry) {
+        this.listingRepository = listingRepository;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(MAX_COUNTS)
+                .expireAfterWrite(COUNT_TTL)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, "listing_catalog_counts");
+    }
+
+    public CursorPage<Listing> page(ListingCatalogQuery query, int limit, PageCursor after) {
+        return listingRepository.findCatalog(query, limit, after);
+    }
+
+    /** Offset page, for clients that still address pages by number. */
+    public List<Listing> page(ListingCatalogQuery query, int limit, int offset) {
+        return listingRepository.findCatalog(query, limit, offset);
+    }
+
+    public CatalogCount count(ListingCatalogQuery query) {
+        FilterKey key = FilterKey.of(query);
+        Snapshot snapshot = counts.get(key, this::load);
+        if (snapshot.generation() != generation.get()) {
+            // Loaded concurrently with a write; don't serve it, and let the next caller reload.
+            counts.asMap().remove(key, snapshot);
+            snapshot = counts.get(key, this::load);
+        }
+        return snapshot.count();
+    }
+
+    /**
+     * Passes every listing matching {@code query} to {@code action} in catalog order, reading
+     * {@code STREAM_BATCH} rows per query so no connection or transaction is held in between.
+     * Exceptions from {@code action} stop the scan.
+     */
+    public void forEach(ListingCatalogQuery query, Consumer<Listing> action) {
+        PageCursor after = null;
+        CursorPage<Listing> page;
+        do {
+            page = listingRepository.findCatalog(query, STREAM_BATCH, after);
+            page.items().forEach(action);
+            after = page.hasMore() ? PageCursor.decode(page.nextCursor()) : null;
+        } while (after != null);
+    }
+
+    @EventListener
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.getType() == ListingChangedEvent.Type.EMBEDDING_UPDATED) {
+            return;
+        }
+        generation.incrementAndGet();
+        counts.invalidateAll();
+    }
+
+    private Snapshot load(FilterKey key) {
+        long loadedAt = generation.get();
+        if (key.isUnfiltered()) {
+            long estimate = listingRepository.estimateCount();
+            if (estimate >= EXACT_COUNT_LIMIT) {
+                return new Snapshot(loadedAt, new CatalogCount(estimate, false));
+            }
+        }
+        return new Snapshot(loadedAt, new CatalogCount(listingRepository.countCatalog(key.toQuery()), true));
+    }
+
+    /** Total listings matching a catalog query; {@code exact} is false for a planner estimate. */
+    public record CatalogCount(long total, boolean exact) {
+    }
+
+    private record FilterKey(String neighborhood, String category, String status, Boolean available) {
+
+        static FilterKey of(ListingCatalogQuery query) {
+            return new FilterKey(blankToNull(query.getNeighborhood()), blankToNull(query.getCategory()),
+                    blankToNull(query.getStatus()), query.getAvailable());
+        }
+
+        boolean isUnfiltered() {
+            return !toQuery().isFiltered();
+        }
+
+        ListingCatalogQuery toQuery() {
+            return ListingCatalogQuery.builder()
+                    .neighborhood(neighborhood)
+                    .category(category)
+                    .status(status)
+                    .available(available)
+                    .build();
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value;
+        }
+    }
+
+    private record Snapshot(long generation, CatalogCount count) {
+    }
+}
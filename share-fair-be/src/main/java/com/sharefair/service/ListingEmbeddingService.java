@@ -0,0 +1,254 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.dto.EmbeddingJobStatusDto;
+import com.sharefair.entity.EmbeddingJob;
+import com.sharefair.entity.EmbeddingJobStats;
+import com.sharefair.entity.Listing;
+import com.sharefair.repository.EmbeddingJobRepository;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Worker for the durable {@code embedding_jobs} queue.
+ * <p>
+ * Jobs are enqueued by a database trigger in the same transaction as the listing write (see
+ * V20), so they survive restarts and model outages. Every replica polls the queue and claims up
+ * to {@code threads} ready jobs with {@code FOR UPDATE SKIP LOCKED}, so replicas never block on
+ * or duplicate each other's work.
+ * <p>
+ * A job re-reads the listing and compares the SHA-256 fingerprint of its
+ * {@link SearchService#buildEmbeddingText text} with the one stored next to the embedding; the
+ * model is only called when they differ. Failures are retried with exponential backoff and
+ * jitter, and after {@code maxAttempts} the job is left in the DEAD state for inspection.
+ */
+@Service
+public class ListingEmbeddingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ListingEmbeddingService.class);
+    private static final String METRIC = "sharefair.embedding.jobs";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ListingRepository listingRepository;
+    private final EmbeddingJobRepository jobRepository;
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddingProperties.Jobs config;
+    private final String workerId;
+
+    private final ScheduledExecutorService poller;
+    // separate from the poller, whose drain loop runs for as long as the queue is backed up
+    private final ScheduledExecutorService statsRefresher;
+    private final ExecutorService workers;
+    private final AtomicReference<EmbeddingJobStats> stats = new AtomicReference<>(new EmbeddingJobStats());
+
+    private final Counter embedded;
+    private final Counter unchanged;
+    private final Counter retried;
+    private final Counter dead;
+    private final Timer jobTimer;
+
+    public ListingEmbeddingService(ListingRepository listingRepository,
+                                   EmbeddingJobRepository jobRepository,
+                                   EmbeddingModel embeddingModel,
+                                   EmbeddingProperties embeddingProperties,
+                                   MeterRegistry meterRegistry) {
+        this.listingRepository = listingRepository;
+        this.jobRepository = jobRepository;
+        this.embeddingModel = embeddingModel;
+        this.config = embeddingProperties.getJobs();
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+        this.poller = Executors.newSingleThreadScheduledExecutor(named("embedding-job-poller"));
+        this.statsRefresher = Executors.newSingleThreadScheduledExecutor(named("embedding-job-stats"));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, config.getThreads()), named("embedding-job-worker"));
+
+        this.embedded = Counter.builder(METRIC).tag("result", "embedded").register(meterRegistry);
+        this.unchanged = Counter.builder(METRIC).tag("result", "unchanged").register(meterRegistry);
+        this.retried = Counter.builder(METRIC).tag("result", "retried").register(meterRegistry);
+        this.dead = Counter.builder(METRIC).tag("result", "dead").register(meterRegistry);
+        this.jobTimer = Timer.builder(METRIC + ".duration")
+                .description("Time to run one embedding job, including the fingerprint check")
+                .register(meterRegistry);
+        Gauge.builder(METRIC + ".queue", stats, s -> s.get().getPending()).tag("state", "pending")
+                .register(meterRegistry);
+        Gauge.builder(METRIC + ".queue", stats, s -> s.get().getRunning()).tag("state", "running")
+                .register(meterRegistry);
+        Gauge.builder(METRIC + ".queue", stats, s -> s.get().getDead()).tag("state", "dead")
+                .register(meterRegistry);
+        Gauge.builder(METRIC + ".oldest.age", stats, s -> s.get().getOldestAgeSeconds())
+                .description("Age of the oldest pending or running job")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!config.isEnabled()) {
+            log.info("Embedding job worker disabled");
+            return;
+        }
+        poller.scheduleWithFixedDelay(this::drain, 0, config.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+        statsRefresher.scheduleWithFixedDelay(this::refreshStats, 0, config.getStatsInterval().toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Embedding job worker {} started with {} threads", workerId, config.getThreads());
+    }
+
+    public EmbeddingJobStatusDto status() {
+        EmbeddingJobStats current = refreshStats();
+        return EmbeddingJobStatusDto.builder()
+                .pending(current.getPending())
+                .running(current.getRunning())
+                .dead(current.getDead())
+                .oldestAgeSeconds(current.getOldestAgeSeconds())
+                .build();
+    }
+
+    public int requeueDead() {
+        int requeued = jobRepository.requeueDead();
+        log.info("Requeued {} dead embedding jobs", requeued);
+        return requeued;
+    }
+
+    /** Claims and runs batches until the queue has no ready jobs left. */
+    private void drain() {
+        int batch = Math.max(1, config.getThreads());
+        try {
+            int claimed;
+            do {
+                claimed = poll();
+            } while (claimed == batch);
+        } catch (Exception e) {
+            log.warn("Embedding job poll failed: {}", e.getMessage());
+        }
+    }
+
+    /** Claims one batch of jobs, runs it to completion and returns the number of jobs claimed. */
+    int poll() {
+        List<EmbeddingJob> jobs = jobRepository.claim(workerId, Math.max(1, config.getThreads()), config.getLease());
+        List<CompletableFuture<Void>> running = new ArrayList<>(jobs.size());
+        for (EmbeddingJob job : jobs) {
+            running.add(CompletableFuture.runAsync(() -> jobTimer.record(() -> run(job)), workers));
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+        return jobs.size();
+    }
+
+    private void run(EmbeddingJob job) {
+        try {
+            embedIfChanged(job.getListingId());
+            jobRepository.complete(job, workerId);
+        } catch (Exception e) {
+            String error = truncate(e.getMessage());
+            if (job.getAttempts() >= config.getMaxAttempts()) {
+                dead.increment();
+                log.warn("Embedding job for listing {} is dead after {} attempts: {}",
+                        job.getListingId(), job.getAttempts(), error);
+                jobRepository.bury(job, workerId, error);
+            } else {
+                Duration delay = backoff(job.getAttempts());
+                retried.increment();
+                log.debug("Embedding job for listing {} failed (attempt {}), retrying in {}: {}",
+                        job.getListingId(), job.getAttempts(), delay, error);
+                jobRepository.retry(job, workerId, delay, error);
+            }
+        }
+    }
+
+    private void embedIfChanged(String listingId) {
+        Optional<Listing> listing = listingRepository.findById(listingId);
+        if (listing.isEmpty()) {
+            return;
+        }
+        String text = SearchService.buildEmbeddingText(listing.get());
+        String fingerprint = fingerprint(text);
+        if (fingerprint.equals(listingRepository.findEmbeddingFingerprint(listingId).orElse(null))) {
+            unchanged.increment();
+            return;
+        }
+        float[] embedding = embeddingModel.embed(text);
+        listingRepository.updateEmbedding(listingId, embedding, fingerprint);
+        embedded.increment();
+        log.debug("Updated embedding for listing {}", listingId);
+    }
+
+    /** {@code initialBackoff * 2^(attempt-1)}, capped at {@code maxBackoff}, with up to 50% jitter subtracted. */
+    Duration backoff(int attempt) {
+        long initial = config.getInitialBackoff().toMillis();
+        long max = config.getMaxBackoff().toMillis();
+        long delay = Math.min(max, initial << Math.min(30, Math.max(0, attempt - 1)));
+        long jitter = delay > 1 ? ThreadLocalRandom.current().nextLong(delay / 2 + 1) : 0;
+        return Duration.ofMillis(delay - jitter);
+    }
+
+    private EmbeddingJobStats refreshStats() {
+        try {
+            EmbeddingJobStats current = jobRepository.stats();
+            stats.set(current);
+            return current;
+        } catch (Exception e) {
+            log.warn("Failed to read embedding job stats: {}", e.getMessage());
+            return stats.get();
+        }
+    }
+
+    /** Hex SHA-256 of the embedding input text. */
+    static String fingerprint(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "unknown error";
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+        statsRefresher.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,265 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.Listing;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-JVM approximate nearest neighbour index over {@code listings.embedding}.
+ * <p>
+ * Loaded from the database once the application is ready (retrying with backoff until a load
+ * succeeds) and kept current through committed {@link ListingChangedEvent}s, which are applied
+ * in order on a single background thread so that publishers never wait for the database read
+ * or the graph insert. The graph is rebuilt once deletes and re-embeddings have left too many
+ * tombstones. Until the first load completes (or when disabled via
+ * {@code sharefair.embedding.local-index.enabled}) {@link #isReady()} is false and callers
+ * should use the pgvector query instead.
+ */
+@Component
+public class ListingVectorIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ListingVectorIndex.class);
+    private static final int LOAD_BATCH_SIZE = 1000;
+    /** Tombstones, relative to live nodes, above which the graph is rebuilt. */
+    private static final double MAX_TOMBSTONE_RATIO = 0.5;
+
+    private final ListingRepository listingRepository;
+    private final EmbeddingProperties.LocalIndex config;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Set<String> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "vector-index-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile HnswIndex index;
+    private volatile boolean loaded;
+    private volatile Duration retryDelay;
+
+    public ListingVectorIndex(ListingRepository listingRepository, EmbeddingProperties embeddingProperties) {
+        this.listingRepository = listingRepository;
+        this.config = embeddingProperties.getLocalIndex();
+        this.retryDelay = config.getInitialBackoff();
+    }
+
+    public boolean isReady() {
+        return config.isEnabled() && loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (config.isEnabled()) {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Returns the ids of the closest available listings, in order, applying the neighborhood and
+     * category filters during the graph walk.
+     */
+    public List<String> search(float[] queryEmbedding, String neighborhood, String category,
+                               double similarityThreshold, int limit, int offset) {
+        HnswIndex current = index;
+        if (current == null) {
+            return List.of();
+        }
+        int k = offset + limit;
+        List<HnswIndex.Hit> hits;
+        lock.readLock().lock();
+        try {
+            hits = current.search(queryEmbedding, k, Math.max(config.getEfSearch(), k),
+                    neighborhood, category, similarityThreshold);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<String> ids = new ArrayList<>(limit);
+        for (int i = offset; i < hits.size(); i++) {
+            ids.add(hits.get(i).id());
+        }
+        return ids;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (config.isEnabled()) {
+            updater.execute(() -> apply(event));
+        }
+    }
+
+    /** Runs on the updater thread, as does the swap of a rebuilt graph, so the two never interleave. */
+    private void apply(ListingChangedEvent event) {
+        try {
+            applyChange(event);
+        } catch (Exception e) {
+            log.warn("Failed to apply {} of listing {} to the local vector index: {}",
+                    event.getType(), event.getListingId(), e.getMessage());
+        }
+    }
+
+    private void applyChange(ListingChangedEvent event) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(event.getListingId());
+        }
+        if (!loaded) {
+            return;
+        }
+        HnswIndex current = index;
+        if (current == null) {
+            if (event.getType() == ListingChangedEvent.Type.EMBEDDING_UPDATED) {
+                refresh(null, event.getListingId());
+            }
+            return;
+        }
+        switch (event.getType()) {
+            case UPDATED -> {
+                Listing listing = event.getListing();
+                withWriteLock(() -> current.updateAttributes(listing.getId(), listing.getNeighborhood(),
+                        listing.getCategory(), Boolean.TRUE.equals(listing.getAvailable())));
+            }
+            case EMBEDDING_UPDATED -> refresh(current, event.getListingId());
+            case DELETED -> withWriteLock(() -> current.remove(event.getListingId()));
+            default -> {
+                // New listings have no embedding yet; they enter the index on EMBEDDING_UPDATED.
+            }
+        }
+        // Re-embedding replaces a node as well, so both deletes and refreshes leave tombstones
+        int tombstones = current.deletedCount();
+        if (tombstones > LOAD_BATCH_SIZE && tombstones > current.size() * MAX_TOMBSTONE_RATIO) {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the graph from the database in the background and swaps it in when complete.
+     * Tombstoned nodes from deletes and re-embeddings are dropped in the process. The swap and
+     * the replay of listings changed during the load run as one task on the updater thread, so
+     * no change can land on the old graph after it has been replaced.
+     */
+    public void scheduleRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        CompletableFuture.supplyAsync(this::load)
+                .thenAcceptAsync(rebuilt -> {
+                    withWriteLock(() -> {
+                        index = rebuilt;
+                        loaded = true;
+                    });
+                    rebuilding.set(false);
+                    replayChanges(rebuilt);
+                    log.info("Loaded local vector index with {} listings in {} ms",
+                            rebuilt != null ? rebuilt.size() : 0, System.currentTimeMillis() - start);
+                }, updater)
+                .whenComplete((ignored, e) -> {
+                    rebuilding.set(false);
+                    if (e == null) {
+                        retryDelay = config.getInitialBackoff();
+                    } else if (!updater.isShutdown()) {
+                        Duration delay = retryDelay;
+                        retryDelay = min(delay.multipliedBy(2), config.getMaxBackoff());
+                        log.warn("Failed to build local vector index, retrying in {} s: {}",
+                                delay.toSeconds(), e.getMessage());
+                        CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS)
+                                .execute(this::scheduleRebuild);
+                    }
+                });
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        updater.shutdownNow();
+    }
+
+    private HnswIndex load() {
+        HnswIndex built = null;
+        String afterId = null;
+        while (true) {
+            List<ListingEmbedding> batch = listingRepository.findEmbeddingsAfter(afterId, LOAD_BATCH_SIZE);
+            for (ListingEmbedding row : batch) {
+                if (built == null) {
+                    built = new HnswIndex(row.getEmbedding().length, config.getM(),
+                            config.getEfConstruction(), 42L);
+                }
+                add(built, row);
+            }
+            if (batch.size() < LOAD_BATCH_SIZE) {
+                return built;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private void replayChanges(HnswIndex current) {
+        List<String> ids = new ArrayList<>(changedDuringRebuild);
+        changedDuringRebuild.removeAll(ids);
+        for (String id : ids) {
+            refresh(current, id);
+        }
+    }
+
+    private void refresh(HnswIndex current, String listingId) {
+        Optional<ListingEmbedding> row = listingRepository.findEmbeddingById(listingId);
+        withWriteLock(() -> {
+            HnswIndex target = current != null ? current : index;
+            if (row.isPresent() && row.get().getEmbedding() != null) {
+                if (target == null) {
+                    target = new HnswIndex(row.get().getEmbedding().length, config.getM(),
+                            config.getEfConstruction(), 42L);
+                    index = target;
+                }
+                add(target, row.get());
+            } else if (target != null) {
+                target.remove(listingId);
+            }
+        });
+    }
+
+    private void add(HnswIndex target, ListingEmbedding row) {
+        if (row.getEmbedding().length != target.dimensions()) {
+            log.warn("Skipping listing {} with {}-dimensional embedding (index has {})",
+                    row.getId(), row.getEmbedding().length, target.dimensions());
+            return;
+        }
+        target.add(row.getId(), row.getEmbedding(), row.getNeighborhood(), row.getCategory(),
+                Boolean.TRUE.equals(row.getAvailable()));
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
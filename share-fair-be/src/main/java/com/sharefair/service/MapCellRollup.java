@@ -0,0 +1,61 @@
+package com.sharefair.service;
+
+import com.sharefair.repository.MapCellRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps {@code listing_map_cells} current by folding the listing moves queued by the listings
+ * trigger into the cells every {@code INTERVAL}, so listing writes never lock shared cell rows.
+ * Every replica runs it; the database lets one at a time apply deltas.
+ */
+@Service
+public class MapCellRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(MapCellRollup.class);
+    static final Duration INTERVAL = Duration.ofSeconds(2);
+    static final int BATCH_SIZE = 5_000;
+
+    private final MapCellRepository mapCellRepository;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "map-cell-rollup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MapCellRollup(MapCellRepository mapCellRepository) {
+        this.mapCellRepository = mapCellRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long millis = INTERVAL.toMillis();
+        scheduler.scheduleWithFixedDelay(this::applyDeltas, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Applies queued deltas until fewer than a full batch remain. */
+    void applyDeltas() {
+        try {
+            int applied;
+            do {
+                applied = mapCellRepository.applyDeltas(BATCH_SIZE);
+            } while (applied >= BATCH_SIZE);
+        } catch (Exception e) {
+            log.warn("Failed to apply map cell deltas: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
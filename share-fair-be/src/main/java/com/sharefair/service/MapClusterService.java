@@ -0,0 +1,127 @@
+package com.sharefair.service;
+
+import com.sharefair.dto.ListingMapper;
+import com.sharefair.dto.MapClusterDto;
+import com.sharefair.dto.MapViewDto;
+import com.sharefair.entity.Listing;
+import com.sharefair.entity.MapCell;
+import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.MapCellRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Viewport queries for the map. Zoomed out, listings are clustered by web-mercator tile from the
+ * precomputed {@code listing_map_cells} aggregates; zoomed in far enough that clusters would be
+ * single listings, the listings themselves are returned.
+ */
+@Service
+public class MapClusterService {
+
+    static final int MIN_LEVEL = 2;
+    static final int MAX_LEVEL = 18;
+    /** Cells two levels below the view's zoom: 4x4 cells (64px each) per 256px map tile. */
+    static final int CELL_LEVEL_OFFSET = 2;
+    static final int POINTS_MIN_ZOOM = 16;
+    static final int MAX_POINTS = 500;
+    /** Upper bound on cells scanned per request; oversized boxes are clustered at a coarser level. */
+    static final int MAX_CELLS = 4096;
+    static final int ESTIMATE_CELLS = 16;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final MapCellRepository mapCellRepository;
+    private final ListingRepository listingRepository;
+
+    public MapClusterService(MapCellRepository mapCellRepository, ListingRepository listingRepository) {
+        this.mapCellRepository = mapCellRepository;
+        this.listingRepository = listingRepository;
+    }
+
+    /**
+     * @param west may exceed {@code east} when the viewport crosses the antimeridian
+     * @throws IllegalArgumentException if the box is not a valid latitude/longitude range
+     */
+    public MapViewDto view(double south, double west, double north, double east, int zoom) {
+        if (south > north || south < -90 || north > 90
+                || west < -180 || west > 180 || east < -180 || east > 180) {
+            throw new IllegalArgumentException("Invalid bounding box");
+        }
+        List<double[]> spans = west <= east
+                ? List.of(new double[]{west, east})
+                : List.of(new double[]{west, 180}, new double[]{-180, east});
+
+        if (zoom >= POINTS_MIN_ZOOM) {
+            return points(south, north, spans);
+        }
+
+        int level = cellLevel(south, north, spans, zoom);
+        List<MapClusterDto> clusters = new ArrayList<>();
+        for (double[] span : spans) {
+            for (MapCell cell : mapCellRepository.findCells(level,
+                    MapTiles.tileX(span[0], level), MapTiles.tileX(span[1], level),
+                    MapTiles.tileY(north, level), MapTiles.tileY(south, level))) {
+                clusters.add(MapClusterDto.builder()
+                        .cell(MapTiles.quadkey(level, cell.getX(), cell.getY()))
+                        .count(cell.getCount())
+                        .latitude(cell.getLatitude())
+                        .longitude(cell.getLongitude())
+                        .build());
+            }
+        }
+        return MapViewDto.builder().level(level).clusters(clusters).build();
+    }
+
+    /**
+     * Upper-bound estimate of the available listings within {@code radiusKm} of a point: the
+     * listing count of the tile cells covering the circle's bounding box, read at the finest
+     * level that needs at most {@link #ESTIMATE_CELLS} cells.
+     */
+    public long estimateWithin(double latitude, double longitude, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEGREE;
+        double dLng = radiusKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(latitude))));
+        double south = Math.max(-90, latitude - dLat);
+        double north = Math.min(90, latitude + dLat);
+        double west = Math.max(-180, longitude - dLng);
+        double east = Math.min(180, longitude + dLng);
+
+        int level = MAX_LEVEL;
+        while (level > MIN_LEVEL && (MapTiles.tileX(east, level) - MapTiles.tileX(west, level) + 1L)
+                * (MapTiles.tileY(south, level) - MapTiles.tileY(north, level) + 1L) > ESTIMATE_CELLS) {
+            level--;
+        }
+        return mapCellRepository.countListings(level,
+                MapTiles.tileX(west, level), MapTiles.tileX(east, level),
+                MapTiles.tileY(north, level), MapTiles.tileY(south, level));
+    }
+
+    private MapViewDto points(double south, double north, List<double[]> spans) {
+        List<Listing> listings = new ArrayList<>();
+        for (double[] span : spans) {
+            listings.addAll(listingRepository.findInBounds(south, span[0], north, span[1],
+                    MAX_POINTS + 1 - listings.size()));
+        }
+        boolean truncated = listings.size() > MAX_POINTS;
+        return MapViewDto.builder()
+                .points(listings.stream().limit(MAX_POINTS).map(ListingMapper::toDto).toList())
+                .truncated(truncated)
+                .build();
+    }
+
+    /** The finest level at or below {@code zoom + CELL_LEVEL_OFFSET} whose cell range fits MAX_CELLS. */
+    static int cellLevel(double south, double north, List<double[]> spans, int zoom) {
+        int level = Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, zoom + CELL_LEVEL_OFFSET));
+        for (; level > MIN_LEVEL; level--) {
+            long rows = MapTiles.tileY(south, level) - MapTiles.tileY(north, level) + 1L;
+            long cells = 0;
+            for (double[] span : spans) {
+                cells += (MapTiles.tileX(span[1], level) - MapTiles.tileX(span[0], level) + 1L) * rows;
+            }
+            if (cells <= MAX_CELLS) {
+                break;
+            }
+        }
+        return level;
+    }
+}
@@ -0,0 +1,39 @@
+package com.sharefair.service;
+
+/**
+ * Web-mercator (slippy map) tile arithmetic, matching the {@code map_tile_x}/{@code map_tile_y}
+ * SQL functions that maintain {@code listing_map_cells}.
+ */
+final class MapTiles {
+
+    static final double MAX_LATITUDE = 85.05112878;
+
+    private MapTiles() {
+    }
+
+    static int tileX(double longitude, int level) {
+        int n = 1 << level;
+        int x = (int) Math.floor((longitude + 180.0) / 360.0 * n);
+        return Math.min(Math.max(x, 0), n - 1);
+    }
+
+    static int tileY(double latitude, int level) {
+        int n = 1 << level;
+        double r = Math.toRadians(Math.max(Math.min(latitude, MAX_LATITUDE), -MAX_LATITUDE));
+        int y = (int) Math.floor((1.0 - Math.log(Math.tan(r) + 1.0 / Math.cos(r)) / Math.PI) / 2.0 * n);
+        return Math.min(Math.max(y, 0), n - 1);
+    }
+
+    /** Bing-style quadkey: one base-4 digit per level, most significant first. */
+    static String quadkey(int level, int x, int y) {
+        StringBuilder key = new StringBuilder(level);
+        for (int i = level; i > 0; i--) {
+            int mask = 1 << (i - 1);
+            int digit = 0;
+            if ((x & mask) != 0) digit += 1;
+            if ((y & mask) != 0) digit += 2;
+            key.append((char) ('0' + digit));
+        }
+        return key.toString();
+    }
+}
@@ -6,7 +6,9 @@ import com.sharefair.entity.Conversation;
 import com.sharefair.entity.Message;
 import com.sharefair.exception.ResourceNotFoundException;
 import com.sharefair.repository.ConversationRepository;
+import com.sharefair.repository.CursorPage;
 import com.sharefair.repository.MessageRepository;
+import com.sharefair.repository.PageCursor;
 import com.sharefair.repository.UserRepository;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.access.AccessDeniedException;
@@ -70,6 +72,19 @@ public class MessageService {
         return messages.stream().map(this::toMessageDto).collect(Collectors.toList());
     }
 
+    public CursorPage<MessageDto> getMessages(String conversationId, String userId, int limit, PageCursor after) {
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+
+        assertParticipant(conversation, userId);
+
+        CursorPage<Message> page = messageRepository.findByConversationId(conversationId, limit, after);
+        messageRepository.markConversationAsRead(conversationId, userId);
+
+        return new CursorPage<>(page.items().stream().map(this::toMessageDto).collect(Collectors.toList()),
+                page.nextCursor());
+    }
+
     public MessageDto sendMessage(String conversationId, String senderId, String content) {
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
@@ -4,8 +4,10 @@ import com.sharefair.dto.NotificationDto;
 import com.sharefair.entity.Notification;
 import com.sharefair.entity.NotificationPreference;
 import com.sharefair.entity.User;
+import com.sharefair.repository.CursorPage;
 import com.sharefair.repository.NotificationPreferenceRepository;
 import com.sharefair.repository.NotificationRepository;
+import com.sharefair.repository.PageCursor;
 import com.sharefair.repository.UserRepository;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
@@ -36,6 +38,10 @@ public class NotificationService {
         return notificationRepository.findByUserId(userId, limit, offset);
     }
 
+    public CursorPage<Notification> getUserNotifications(String userId, int limit, PageCursor after) {
+        return notificationRepository.findByUserId(userId, limit, after);
+    }
+
     public int getUnreadCount(String userId) {
         return notificationRepository.countUnread(userId);
     }
@@ -0,0 +1,215 @@
+package com.sharefair.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Mean-centering plus an optional principal-component projection, learned from a sample of
+ * unit-normalized embeddings.
+ * <p>
+ * The components are the top eigenvectors of the sample covariance, found by subspace (block
+ * power) iteration, so training costs {@code O(d^2 k)} per iteration and never forms a full
+ * eigendecomposition. Because the rows are orthonormal, {@code project(q) . project(x - mean)}
+ * approximates {@code q . x} up to a per-query constant, which is all ranking needs.
+ * <p>
+ * PCA concentrates variance in the first components. For sign-bit codes, where every kept
+ * dimension is worth one bit, the components can be followed by a random rotation that spreads
+ * the variance evenly without changing dot products.
+ */
+public final class PcaProjection {
+
+    private static final int ITERATIONS = 30;
+
+    private final int inputDimensions;
+    private final int outputDimensions;
+    private final float[] mean;
+    /** Row-major {@code outputDimensions x inputDimensions}; null when not reducing dimensions. */
+    private final float[] components;
+
+    private PcaProjection(int inputDimensions, int outputDimensions, float[] mean, float[] components) {
+        this.inputDimensions = inputDimensions;
+        this.outputDimensions = outputDimensions;
+        this.mean = mean;
+        this.components = components;
+    }
+
+    /**
+     * @param outputDimensions target dimensionality; zero or at least the input dimensionality
+     *                         keeps all dimensions and only centers
+     * @param rotate           whether to randomly rotate the reduced space (ignored when not reducing)
+     */
+    public static PcaProjection train(List<float[]> sample, int outputDimensions, boolean rotate, long seed) {
+        if (sample.isEmpty()) {
+            throw new IllegalArgumentException("Cannot train a projection on an empty sample");
+        }
+        int d = sample.get(0).length;
+        double[] sum = new double[d];
+        for (float[] vector : sample) {
+            for (int i = 0; i < d; i++) {
+                sum[i] += vector[i];
+            }
+        }
+        float[] mean = new float[d];
+        for (int i = 0; i < d; i++) {
+            mean[i] = (float) (sum[i] / sample.size());
+        }
+        if (outputDimensions <= 0 || outputDimensions >= d) {
+            return new PcaProjection(d, d, mean, null);
+        }
+        float[] components = principalComponents(covariance(sample, mean), d, outputDimensions, seed);
+        return new PcaProjection(d, outputDimensions, mean,
+                rotate ? rotate(components, outputDimensions, d, seed) : components);
+    }
+
+    public int inputDimensions() {
+        return inputDimensions;
+    }
+
+    public int outputDimensions() {
+        return outputDimensions;
+    }
+
+    /** Projection of {@code vector} without centering (used for queries). */
+    public float[] project(float[] vector) {
+        if (components == null) {
+            return vector.clone();
+        }
+        float[] projected = new float[outputDimensions];
+        for (int r = 0; r < outputDimensions; r++) {
+            projected[r] = VectorMath.dot(components, r * inputDimensions, vector, 0, inputDimensions);
+        }
+        return projected;
+    }
+
+    /** Projection of {@code vector - mean}. */
+    public float[] projectCentered(float[] vector) {
+        float[] centered = new float[inputDimensions];
+        for (int i = 0; i < inputDimensions; i++) {
+            centered[i] = vector[i] - mean[i];
+        }
+        return components == null ? centered : project(centered);
+    }
+
+    private static double[] covariance(List<float[]> sample, float[] mean) {
+        int d = mean.length;
+        double[] covariance = new double[d * d];
+        double[] centered = new double[d];
+        for (float[] vector : sample) {
+            for (int i = 0; i < d; i++) {
+                centered[i] = vector[i] - mean[i];
+            }
+            for (int i = 0; i < d; i++) {
+                double ci = centered[i];
+                int row = i * d;
+                for (int j = i; j < d; j++) {
+                    covariance[row + j] += ci * centered[j];
+                }
+            }
+        }
+        for (int i = 0; i < d; i++) {
+            for (int j = i; j < d; j++) {
+                covariance[i * d + j] /= sample.size();
+                covariance[j * d + i] = covariance[i * d + j];
+            }
+        }
+        return covariance;
+    }
+
+    /** Top-{@code k} eigenvectors of the symmetric {@code d x d} matrix, as rows. */
+    private static float[] principalComponents(double[] matrix, int d, int k, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] basis = new double[k][d];
+        for (double[] column : basis) {
+            for (int i = 0; i < d; i++) {
+                column[i] = random.nextDouble() - 0.5;
+            }
+        }
+        orthonormalize(basis);
+        double[][] next = new double[k][d];
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            for (int c = 0; c < k; c++) {
+                double[] column = basis[c];
+                double[] product = next[c];
+                for (int i = 0; i < d; i++) {
+                    double value = 0;
+                    int row = i * d;
+                    for (int j = 0; j < d; j++) {
+                        value += matrix[row + j] * column[j];
+                    }
+                    product[i] = value;
+                }
+            }
+            double[][] swap = basis;
+            basis = next;
+            next = swap;
+            orthonormalize(basis);
+        }
+        float[] components = new float[k * d];
+        for (int c = 0; c < k; c++) {
+            for (int i = 0; i < d; i++) {
+                components[c * d + i] = (float) basis[c][i];
+            }
+        }
+        return components;
+    }
+
+    /** {@code R x components} for a random orthogonal {@code k x k} matrix R. */
+    private static float[] rotate(float[] components, int k, int d, long seed) {
+        SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        double[][] rotation = new double[k][k];
+        for (double[] row : rotation) {
+            for (int i = 0; i < k; i++) {
+                row[i] = gaussian(random);
+            }
+        }
+        orthonormalize(rotation);
+        float[] rotated = new float[k * d];
+        for (int r = 0; r < k; r++) {
+            for (int c = 0; c < k; c++) {
+                float weight = (float) rotation[r][c];
+                int source = c * d;
+                int target = r * d;
+                for (int i = 0; i < d; i++) {
+                    rotated[target + i] += weight * components[source + i];
+                }
+            }
+        }
+        return rotated;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    /** Modified Gram-Schmidt; a column that collapses to zero is replaced by a unit axis. */
+    private static void orthonormalize(double[][] columns) {
+        for (int c = 0; c < columns.length; c++) {
+            double[] column = columns[c];
+            for (int p = 0; p < c; p++) {
+                double[] previous = columns[p];
+                double dot = 0;
+                for (int i = 0; i < column.length; i++) {
+                    dot += column[i] * previous[i];
+                }
+                for (int i = 0; i < column.length; i++) {
+                    column[i] -= dot * previous[i];
+                }
+            }
+            double norm = 0;
+            for (double v : column) {
+                norm += v * v;
+            }
+            norm = Math.sqrt(norm);
+            if (norm < 1e-12) {
+                Arrays.fill(column, 0);
+                column[c % column.length] = 1;
+                continue;
+            }
+            for (int i = 0; i < column.length; i++) {
+                column[i] /= norm;
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.sharefair.service;
+
+import com.sharefair.config.RecommendationProperties;
+import com.sharefair.entity.PopularityIncrement;
+import com.sharefair.event.TransactionCompletedEvent;
+import com.sharefair.repository.PopularityRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time-decayed listing popularity ({@code sharefair.recommendations.popularity}).
+ * <p>
+ * Listing detail views and completed transactions increment striped per-listing counters
+ * ({@link LongAdder}), so recording an event never touches the database or contends on a lock.
+ * Every {@code flushInterval} the counters are drained into {@code listing_popularity} in
+ * batches of {@code flushBatch} listings per statement, each batch weighted as
+ * {@code views * viewWeight + transactions * transactionWeight} and forward-decayed with
+ * {@code halfLife} (see V24), and the new scores are pushed to {@link AutocompleteIndex}. Every
+ * {@code decayInterval} the stored scores of idle listings are decayed as well.
+ * <p>
+ * Readers (the popular list behind feeds and top-ups, autocomplete weights) use the stored
+ * ranks; events still in the counters are lost if the process dies before the next flush, but
+ * not if a flush fails.
+ */
+@Service
+public class PopularityService {
+
+    private static final Logger log = LoggerFactory.getLogger(PopularityService.class);
+    private static final String METRIC_PREFIX = "sharefair.popularity";
+
+    private final PopularityRepository popularityRepository;
+    private final AutocompleteIndex autocompleteIndex;
+    private final RecommendationProperties.Popularity config;
+
+    private final ConcurrentHashMap<String, Activity> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "popularity-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter views;
+    private final Counter transactions;
+    private final Timer flushTimer;
+
+    public PopularityService(PopularityRepository popularityRepository,
+                             AutocompleteIndex autocompleteIndex,
+                             RecommendationProperties recommendationProperties,
+                             MeterRegistry meterRegistry) {
+        this.popularityRepository = popularityRepository;
+        this.autocompleteIndex = autocompleteIndex;
+        this.config = recommendationProperties.getPopularity();
+        this.views = Counter.builder(METRIC_PREFIX + ".events").tag("type", "view").register(meterRegistry);
+        this.transactions = Counter.builder(METRIC_PREFIX + ".events").tag("type", "transaction")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder(METRIC_PREFIX + ".flush")
+                .description("Time to write buffered popularity counters")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".pending", pending, Map::size)
+                .description("Listings with activity not yet flushed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduler.execute(this::seedIfEmpty);
+        long flushMillis = config.getFlushInterval().toMillis();
+        long decayMillis = config.getDecayInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::decay, decayMillis, decayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordView(String listingId) {
+        activity(listingId).views.increment();
+        views.increment();
+    }
+
+    @EventListener
+    public void onTransactionCompleted(TransactionCompletedEvent event) {
+        if (event.getListingId() != null) {
+            activity(event.getListingId()).transactions.increment();
+            transactions.increment();
+        }
+    }
+
+    /** Ids of up to {@code limit} active listings, most popular first. */
+    public List<String> topListingIds(int limit) {
+        return popularityRepository.findTopListingIds(limit);
+    }
+
+    /**
+     * Writes the buffered counters; called on a schedule. Batches are sorted by listing id so
+     * that concurrent flushes from several replicas lock {@code listing_popularity} rows in the
+     * same order. If a batch fails, its counts and those of the batches not yet written are
+     * added back for the next flush.
+     */
+    void flush() {
+        try {
+            flushTimer.record(this::writePending);
+        } catch (Exception e) {
+            log.warn("Failed to flush listing popularity: {}", e.getMessage());
+        }
+    }
+
+    private void writePending() {
+        double now = exponent(Instant.now(), config.getHalfLife());
+        List<PopularityIncrement> increments = drain(now);
+        increments.sort(Comparator.comparing(PopularityIncrement::getListingId));
+        int batchSize = Math.max(1, config.getFlushBatch());
+        for (int from = 0; from < increments.size(); from += batchSize) {
+            List<PopularityIncrement> batch =
+                    new ArrayList<>(increments.subList(from, Math.min(increments.size(), from + batchSize)));
+            Map<String, Long> scores;
+            try {
+                scores = popularityRepository.add(batch, now);
+            } catch (Exception e) {
+                List<PopularityIncrement> unwritten = increments.subList(from, increments.size());
+                unwritten.forEach(this::restore);
+                log.warn("Failed to flush listing popularity, keeping {} listings for the next flush: {}",
+                        unwritten.size(), e.getMessage());
+                return;
+            }
+            scores.forEach(autocompleteIndex::updatePopularity);
+        }
+    }
+
+    /** Resets the counters and returns the activity of every listing that had any. */
+    private List<PopularityIncrement> drain(double now) {
+        List<PopularityIncrement> increments = new ArrayList<>();
+        for (Map.Entry<String, Activity> entry : pending.entrySet()) {
+            long viewCount = entry.getValue().views.sumThenReset();
+            long transactionCount = entry.getValue().transactions.sumThenReset();
+            if (viewCount == 0 && transactionCount == 0) {
+                // idle for a whole interval; an increment racing this removal is dropped
+                pending.remove(entry.getKey(), entry.getValue());
+                continue;
+            }
+            double weight = viewCount * config.getViewWeight() + transactionCount * config.getTransactionWeight();
+            if (weight > 0) {
+                increments.add(new PopularityIncrement(entry.getKey(), Math.log(weight) + now, viewCount,
+                        transactionCount));
+            }
+        }
+        return increments;
+    }
+
+    private void restore(PopularityIncrement increment) {
+        Activity activity = activity(increment.getListingId());
+        activity.views.add(increment.getViews());
+        activity.transactions.add(increment.getTransactions());
+    }
+
+    private void decay() {
+        try {
+            double now = exponent(Instant.now(), config.getHalfLife());
+            int decayed = 0;
+            Map<String, Long> scores;
+            do {
+                scores = popularityRepository.decayScores(now, config.getFlushBatch());
+                scores.forEach(autocompleteIndex::updatePopularity);
+                decayed += scores.size();
+            } while (scores.size() >= config.getFlushBatch());
+            log.debug("Decayed {} listing popularity scores", decayed);
+        } catch (Exception e) {
+            log.warn("Failed to decay listing popularity: {}", e.getMessage());
+        }
+    }
+
+    private void seedIfEmpty() {
+        try {
+            if (popularityRepository.isEmpty()) {
+                int seeded = popularityRepository.seedFromTransactions(Math.log(config.getTransactionWeight()),
+                        exponentPerSecond(config.getHalfLife()), exponent(Instant.now(), config.getHalfLife()));
+                log.info("Seeded popularity of {} listings from completed transactions", seeded);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to seed listing popularity: {}", e.getMessage());
+        }
+    }
+
+    private Activity activity(String listingId) {
+        return pending.computeIfAbsent(listingId, id -> new Activity());
+    }
+
+    /** {@code t / halfLife * ln 2}: the log of the forward-decay factor of an event at {@code at}. */
+    static double exponent(Instant at, Duration halfLife) {
+        return at.getEpochSecond() * exponentPerSecond(halfLife);
+    }
+
+    static double exponentPerSecond(Duration halfLife) {
+        return Math.log(2) / Math.max(1, halfLife.toSeconds());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        scheduler.shutdownNow();
+    }
+
+    private static final class Activity {
+        final LongAdder views = new LongAdder();
+        final LongAdder transactions = new LongAdder();
+    }
+}
@@ -0,0 +1,238 @@
+package com.sharefair.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compressed (radix) trie from normalized keys to weighted suggestions.
+ * <p>
+ * Every node caches the best {@code k} suggestions of its subtree, so a lookup is a walk of at
+ * most {@code prefix.length()} characters followed by a copy of one cached array. Writes
+ * recompute the caches along the affected path only. A suggestion may be reachable through
+ * several keys (e.g. once per word of a title); it is reported at most once per lookup.
+ * <p>
+ * Not thread-safe; callers synchronize.
+ */
+final class PrefixIndex {
+
+    /** Suggestion text with a mutable weight; call {@link #reweigh} for its keys after changing it. */
+    static final class Suggestion {
+        private final String text;
+        private long weight;
+
+        Suggestion(String text, long weight) {
+            this.text = text;
+            this.weight = weight;
+        }
+
+        String text() {
+            return text;
+        }
+
+        long weight() {
+            return weight;
+        }
+
+        void setWeight(long weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final Suggestion[] NONE = new Suggestion[0];
+
+    /** Heaviest first, then shortest, then alphabetical. */
+    private static final Comparator<Suggestion> ORDER = Comparator
+            .comparingLong((Suggestion s) -> s.weight).reversed()
+            .thenComparingInt(s -> s.text.length())
+            .thenComparing(s -> s.text);
+
+    private static final class Node {
+        private String label;
+        private Map<Character, Node> children = new HashMap<>(4);
+        private List<Suggestion> terminals = new ArrayList<>(1);
+        private Suggestion[] top = NONE;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private final int k;
+    private final Node root = new Node("");
+    private int nodeCount = 1;
+
+    PrefixIndex(int k) {
+        this.k = k;
+    }
+
+    void add(String key, Suggestion suggestion) {
+        List<Node> path = insertPath(key);
+        Node end = path.get(path.size() - 1);
+        if (!end.terminals.contains(suggestion)) {
+            end.terminals.add(suggestion);
+        }
+        recompute(path);
+    }
+
+    void remove(String key, Suggestion suggestion) {
+        List<Node> path = findPath(key);
+        if (path == null) {
+            return;
+        }
+        path.get(path.size() - 1).terminals.remove(suggestion);
+        prune(path);
+        recompute(path);
+    }
+
+    /** Re-ranks the caches along {@code key} after a suggestion stored there changed weight. */
+    void reweigh(String key) {
+        List<Node> path = findPath(key);
+        if (path != null) {
+            recompute(path);
+        }
+    }
+
+    /** Best suggestions for keys starting with {@code prefix}, at most {@code limit} (capped at k). */
+    List<Suggestion> top(String prefix, int limit) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                return List.of();
+            }
+            int common = commonPrefix(child.label, prefix, i);
+            if (common < child.label.length() && i + common < prefix.length()) {
+                return List.of();
+            }
+            i += common;
+            node = child;
+        }
+        Suggestion[] best = node.top;
+        List<Suggestion> result = new ArrayList<>(Math.min(limit, best.length));
+        for (int j = 0; j < best.length && j < limit; j++) {
+            result.add(best[j]);
+        }
+        return result;
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    private List<Node> insertPath(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(c, child);
+                nodeCount++;
+                path.add(child);
+                return path;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge: node -> mid -> child
+                Node mid = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.children.put(child.label.charAt(0), child);
+                mid.top = child.top;
+                node.children.put(c, mid);
+                nodeCount++;
+                child = mid;
+            }
+            i += common;
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private List<Node> findPath(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || commonPrefix(child.label, key, i) < child.label.length()) {
+                return null;
+            }
+            i += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    /** Drops empty leaves and re-merges pass-through nodes so the trie stays compressed. */
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (!node.terminals.isEmpty()) {
+                continue;
+            }
+            if (node.children.isEmpty()) {
+                path.get(i - 1).children.remove(node.label.charAt(0));
+                path.remove(i);
+                nodeCount--;
+            } else if (node.children.size() == 1) {
+                Node only = node.children.values().iterator().next();
+                node.label = node.label + only.label;
+                node.children = only.children;
+                node.terminals = only.terminals;
+                node.top = only.top;
+                nodeCount--;
+            }
+        }
+    }
+
+    private void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Suggestion> candidates = new ArrayList<>(node.terminals);
+            for (Node child : node.children.values()) {
+                Collections.addAll(candidates, child.top);
+            }
+            node.top = best(candidates);
+        }
+    }
+
+    private Suggestion[] best(List<Suggestion> candidates) {
+        if (candidates.isEmpty()) {
+            return NONE;
+        }
+        candidates.sort(ORDER);
+        Set<Suggestion> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Suggestion> best = new ArrayList<>(Math.min(k, candidates.size()));
+        for (Suggestion suggestion : candidates) {
+            if (seen.add(suggestion)) {
+                best.add(suggestion);
+                if (best.size() == k) {
+                    break;
+                }
+            }
+        }
+        return best.toArray(NONE);
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(offset + n)) {
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,235 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.Listing;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-JVM first-pass index holding int8 or binary codes of every listing embedding
+ * ({@code sharefair.embedding.quantized}). Searching it scans all codes and yields candidates in
+ * approximate order; {@link SearchService} always re-ranks them by exact distance, loading
+ * full-precision vectors for those candidates only.
+ * <p>
+ * The quantizer is trained on the first {@code trainingSample} embeddings of each (re)build and
+ * kept current through committed {@link ListingChangedEvent}s, applied in order on a background
+ * thread like {@link ListingVectorIndex}.
+ */
+@Component
+public class QuantizedListingIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(QuantizedListingIndex.class);
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ListingRepository listingRepository;
+    private final EmbeddingProperties.Quantized config;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Set<String> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "quantized-index-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile QuantizedVectorStore store;
+
+    public QuantizedListingIndex(ListingRepository listingRepository, EmbeddingProperties embeddingProperties,
+                                 MeterRegistry meterRegistry) {
+        this.listingRepository = listingRepository;
+        this.config = embeddingProperties.getQuantized();
+        Gauge.builder("sharefair.embedding.quantized.listings", this,
+                        s -> s.store != null ? s.store.size() : 0)
+                .register(meterRegistry);
+        Gauge.builder("sharefair.embedding.quantized.code.bytes", this,
+                        s -> s.store != null ? s.store.codeBytes() : 0)
+                .description("Code bytes stored per listing")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return config.isEnabled() && store != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (config.isEnabled()) {
+            scheduleRebuild();
+        }
+    }
+
+    /** Ids of the {@code k} best-scoring available listings by code, best first. */
+    public List<String> search(float[] queryEmbedding, String neighborhood, String category, int k) {
+        QuantizedVectorStore current = store;
+        if (current == null) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return current.search(queryEmbedding, k, neighborhood, category);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (config.isEnabled()) {
+            updater.execute(() -> apply(event));
+        }
+    }
+
+    /** Runs on the updater thread, as does the swap of a rebuilt store, so the two never interleave. */
+    private void apply(ListingChangedEvent event) {
+        try {
+            applyChange(event);
+        } catch (Exception e) {
+            log.warn("Failed to apply {} of listing {} to the quantized index: {}",
+                    event.getType(), event.getListingId(), e.getMessage());
+        }
+    }
+
+    private void applyChange(ListingChangedEvent event) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(event.getListingId());
+        }
+        QuantizedVectorStore current = store;
+        if (current == null) {
+            return;
+        }
+        switch (event.getType()) {
+            case UPDATED -> {
+                Listing listing = event.getListing();
+                withWriteLock(() -> current.updateAttributes(listing.getId(), listing.getNeighborhood(),
+                        listing.getCategory(), Boolean.TRUE.equals(listing.getAvailable())));
+            }
+            case EMBEDDING_UPDATED -> refresh(current, event.getListingId());
+            case DELETED -> withWriteLock(() -> current.remove(event.getListingId()));
+            default -> {
+                // New listings have no embedding yet; they are added on EMBEDDING_UPDATED.
+            }
+        }
+    }
+
+    /**
+     * Retrains the quantizer and re-encodes the catalog in the background. The swap and the
+     * replay of listings changed during the load run as one task on the updater thread.
+     */
+    public void scheduleRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        CompletableFuture.supplyAsync(this::load)
+                .thenAcceptAsync(rebuilt -> {
+                    if (rebuilt == null) {
+                        return;
+                    }
+                    withWriteLock(() -> store = rebuilt);
+                    rebuilding.set(false);
+                    replayChanges(rebuilt);
+                    log.info("Loaded {} quantized index with {} listings ({} code bytes each) in {} ms",
+                            config.getEncoding(), rebuilt.size(), rebuilt.codeBytes(),
+                            System.currentTimeMillis() - start);
+                }, updater)
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        log.warn("Failed to build quantized index: {}", e.getMessage());
+                    }
+                    rebuilding.set(false);
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        updater.shutdownNow();
+    }
+
+    private QuantizedVectorStore load() {
+        List<ListingEmbedding> pending = new ArrayList<>();
+        QuantizedVectorStore built = null;
+        String afterId = null;
+        while (true) {
+            List<ListingEmbedding> batch = listingRepository.findEmbeddingsAfter(afterId, LOAD_BATCH_SIZE);
+            if (built == null) {
+                pending.addAll(batch);
+                if (pending.size() >= config.getTrainingSample() || batch.size() < LOAD_BATCH_SIZE) {
+                    built = train(pending);
+                    pending = null;
+                }
+            } else {
+                batch.forEach(built::putRow);
+            }
+            if (batch.size() < LOAD_BATCH_SIZE) {
+                return built;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private QuantizedVectorStore train(List<ListingEmbedding> sample) {
+        if (sample.isEmpty()) {
+            return null;
+        }
+        int dimensions = sample.get(0).getEmbedding().length;
+        List<float[]> vectors = sample.stream()
+                .map(ListingEmbedding::getEmbedding)
+                .filter(v -> v.length == dimensions)
+                .toList();
+        QuantizedVectorStore trained = QuantizedVectorStore.train(vectors, config.getEncoding(),
+                config.getPcaDimensions(), 42L);
+        sample.forEach(trained::putRow);
+        return trained;
+    }
+
+    private void replayChanges(QuantizedVectorStore current) {
+        List<String> ids = new ArrayList<>(changedDuringRebuild);
+        changedDuringRebuild.removeAll(ids);
+        for (String id : ids) {
+            refresh(current, id);
+        }
+    }
+
+    private void refresh(QuantizedVectorStore current, String listingId) {
+        Optional<ListingEmbedding> row = listingRepository.findEmbeddingById(listingId);
+        withWriteLock(() -> {
+            if (row.isPresent() && row.get().getEmbedding() != null) {
+                current.putRow(row.get());
+            } else {
+                current.remove(listingId);
+            }
+        });
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.sharefair.service;
+
+import com.sharefair.entity.ListingEmbedding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact codes of unit-normalized embeddings for a brute-force first pass over the catalog.
+ * <p>
+ * Vectors are centered (and optionally PCA-projected, see {@link PcaProjection}) and then either
+ * <ul>
+ *   <li>{@link Encoding#INT8}: each dimension scalar-quantized to one byte between the sample's
+ *   per-dimension minimum and maximum, scored by an asymmetric dot product (float query times
+ *   byte code); or</li>
+ *   <li>{@link Encoding#BINARY}: one sign bit per dimension packed into longs, scored by Hamming
+ *   distance to the query's sign bits.</li>
+ * </ul>
+ * Scores only rank candidates; the caller re-ranks them with full-precision vectors. Slots are
+ * kept dense by moving the last slot into a removed one, so there are no tombstones.
+ * <p>
+ * Not thread-safe: {@link QuantizedListingIndex} guards reads and writes.
+ */
+public final class QuantizedVectorStore {
+
+    public enum Encoding { INT8, BINARY }
+
+    private final Encoding encoding;
+    private final PcaProjection projection;
+    private final int codeDimensions;
+    private final int words;
+    private final float[] min;
+    private final float[] step;
+
+    private byte[] bytes;
+    private long[] bits;
+    private String[] ids;
+    private int[] neighborhoods;
+    private int[] categories;
+    private boolean[] available;
+
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final Map<String, Integer> neighborhoodCodes = new HashMap<>();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private int size;
+
+    private QuantizedVectorStore(Encoding encoding, PcaProjection projection, float[] min, float[] step) {
+        this.encoding = encoding;
+        this.projection = projection;
+        this.codeDimensions = projection.outputDimensions();
+        this.words = (codeDimensions + 63) / 64;
+        this.min = min;
+        this.step = step;
+        allocate(1024);
+    }
+
+    /**
+     * Learns the centering, the optional projection and (for int8) the quantization ranges from
+     * a sample of embeddings.
+     *
+     * @param pcaDimensions dimensions to keep after PCA; zero keeps all
+     */
+    public static QuantizedVectorStore train(List<float[]> sample, Encoding encoding, int pcaDimensions, long seed) {
+        List<float[]> normalized = sample.stream().map(VectorMath::normalize).toList();
+        // Sign bits need variance spread evenly over the kept dimensions, which PCA does not give
+        PcaProjection projection = PcaProjection.train(normalized, pcaDimensions, encoding == Encoding.BINARY, seed);
+        if (encoding == Encoding.BINARY) {
+            return new QuantizedVectorStore(encoding, projection, null, null);
+        }
+        int k = projection.outputDimensions();
+        float[] min = new float[k];
+        float[] max = new float[k];
+        Arrays.fill(min, Float.POSITIVE_INFINITY);
+        Arrays.fill(max, Float.NEGATIVE_INFINITY);
+        for (float[] vector : normalized) {
+            float[] projected = projection.projectCentered(vector);
+            for (int i = 0; i < k; i++) {
+                min[i] = Math.min(min[i], projected[i]);
+                max[i] = Math.max(max[i], projected[i]);
+            }
+        }
+        float[] step = new float[k];
+        for (int i = 0; i < k; i++) {
+            step[i] = max[i] > min[i] ? (max[i] - min[i]) / 255f : 1f;
+        }
+        return new QuantizedVectorStore(encoding, projection, min, step);
+    }
+
+    public int dimensions() {
+        return projection.inputDimensions();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Bytes of code stored per listing (excluding the id and filter attributes). */
+    public int codeBytes() {
+        return encoding == Encoding.INT8 ? codeDimensions : words * Long.BYTES;
+    }
+
+    /** Inserts or replaces the code for {@code id}. */
+    public void put(String id, float[] vector, String neighborhood, String category, boolean isAvailable) {
+        if (vector.length != dimensions()) {
+            throw new IllegalArgumentException("Expected " + dimensions() + " dimensions but got " + vector.length);
+        }
+        Integer existing = slotById.get(id);
+        int slot = existing != null ? existing : size++;
+        ensureCapacity(size);
+        float[] projected = projection.projectCentered(VectorMath.normalize(vector));
+        if (encoding == Encoding.INT8) {
+            int offset = slot * codeDimensions;
+            for (int i = 0; i < codeDimensions; i++) {
+                int level = Math.round((projected[i] - min[i]) / step[i]);
+                bytes[offset + i] = (byte) (Math.max(0, Math.min(255, level)) - 128);
+            }
+        } else {
+            encodeSigns(projected, bits, slot * words);
+        }
+        ids[slot] = id;
+        neighborhoods[slot] = code(neighborhoodCodes, neighborhood);
+        categories[slot] = code(categoryCodes, category);
+        available[slot] = isAvailable;
+        slotById.put(id, slot);
+    }
+
+    /** Adds a listing's embedding row; rows with a different dimensionality are skipped. */
+    void putRow(ListingEmbedding row) {
+        if (row.getEmbedding() != null && row.getEmbedding().length == dimensions()) {
+            put(row.getId(), row.getEmbedding(), row.getNeighborhood(), row.getCategory(),
+                    Boolean.TRUE.equals(row.getAvailable()));
+        }
+    }
+
+    public boolean updateAttributes(String id, String neighborhood, String category, boolean isAvailable) {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            return false;
+        }
+        neighborhoods[slot] = code(neighborhoodCodes, neighborhood);
+        categories[slot] = code(categoryCodes, category);
+        available[slot] = isAvailable;
+        return true;
+    }
+
+    public boolean remove(String id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        int last = --size;
+        if (slot != last) {
+            if (encoding == Encoding.INT8) {
+                System.arraycopy(bytes, last * codeDimensions, bytes, slot * codeDimensions, codeDimensions);
+            } else {
+                System.arraycopy(bits, last * words, bits, slot * words, words);
+            }
+            ids[slot] = ids[last];
+            neighborhoods[slot] = neighborhoods[last];
+            categories[slot] = categories[last];
+            available[slot] = available[last];
+            slotById.put(ids[slot], slot);
+        }
+        ids[last] = null;
+        return true;
+    }
+
+    /**
+     * Ids of the {@code k} available listings with the best code scores for {@code query}, best
+     * first, restricted to the given neighborhood/category when those are non-blank.
+     */
+    public List<String> search(float[] query, int k, String neighborhood, String category) {
+        if (size == 0 || k <= 0 || query.length != dimensions()) {
+            return List.of();
+        }
+        int neighborhoodCode = filterCode(neighborhoodCodes, neighborhood);
+        int categoryCode = filterCode(categoryCodes, category);
+        if (neighborhoodCode == -2 || categoryCode == -2) {
+            return List.of();
+        }
+
+        TopK top = new TopK(k);
+        float[] normalized = VectorMath.normalize(query);
+        if (encoding == Encoding.INT8) {
+            // Dot product with the dequantized code min + (code + 128) * step, minus the terms
+            // that are the same for every listing
+            float[] weights = projection.project(normalized);
+            for (int i = 0; i < codeDimensions; i++) {
+                weights[i] *= step[i];
+            }
+            for (int slot = 0; slot < size; slot++) {
+                if (matches(slot, neighborhoodCode, categoryCode)) {
+                    top.offer(slot, int8Score(weights, slot * codeDimensions));
+                }
+            }
+        } else {
+            long[] querySigns = new long[words];
+            encodeSigns(projection.projectCentered(normalized), querySigns, 0);
+            for (int slot = 0; slot < size; slot++) {
+                if (matches(slot, neighborhoodCode, categoryCode)) {
+                    top.offer(slot, -hamming(querySigns, slot * words));
+                }
+            }
+        }
+
+        int[] slots = top.drainBestFirst();
+        List<String> result = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            result.add(ids[slot]);
+        }
+        return result;
+    }
+
+    private boolean matches(int slot, int neighborhoodCode, int categoryCode) {
+        return available[slot]
+                && (neighborhoodCode < 0 || neighborhoods[slot] == neighborhoodCode)
+                && (categoryCode < 0 || categories[slot] == categoryCode);
+    }
+
+    private float int8Score(float[] weights, int offset) {
+        return VectorMath.dot(weights, bytes, offset, codeDimensions);
+    }
+
+    private int hamming(long[] querySigns, int offset) {
+        int distance = 0;
+        for (int w = 0; w < words; w++) {
+            distance += Long.bitCount(querySigns[w] ^ bits[offset + w]);
+        }
+        return distance;
+    }
+
+    private static void encodeSigns(float[] values, long[] target, int offset) {
+        for (int w = 0; w * 64 < values.length; w++) {
+            long word = 0L;
+            for (int b = 0; b < 64 && w * 64 + b < values.length; b++) {
+                if (values[w * 64 + b] > 0f) {
+                    word |= 1L << b;
+                }
+            }
+            target[offset + w] = word;
+        }
+    }
+
+    private void allocate(int capacity) {
+        if (encoding == Encoding.INT8) {
+            bytes = new byte[capacity * codeDimensions];
+        } else {
+            bits = new long[capacity * words];
+        }
+        ids = new String[capacity];
+        neighborhoods = new int[capacity];
+        categories = new int[capacity];
+        available = new boolean[capacity];
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = ids.length;
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity * 2);
+        if (encoding == Encoding.INT8) {
+            bytes = Arrays.copyOf(bytes, newCapacity * codeDimensions);
+        } else {
+            bits = Arrays.copyOf(bits, newCapacity * words);
+        }
+        ids = Arrays.copyOf(ids, newCapacity);
+        neighborhoods = Arrays.copyOf(neighborhoods, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+        available = Arrays.copyOf(available, newCapacity);
+    }
+
+    private static int code(Map<String, Integer> codes, String value) {
+        if (value == null) {
+            return -1;
+        }
+        return codes.computeIfAbsent(value, v -> codes.size());
+    }
+
+    /** -1 means "no filter", -2 means "filter on a value no listing has". */
+    private static int filterCode(Map<String, Integer> codes, String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : -2;
+    }
+
+    /** Bounded min-heap of (slot, score) keeping the k highest scores. */
+    private static final class TopK {
+        private final int[] slots;
+        private final float[] scores;
+        private int count;
+
+        TopK(int k) {
+            slots = new int[k];
+            scores = new float[k];
+        }
+
+        void offer(int slot, float score) {
+            if (count < slots.length) {
+                slots[count] = slot;
+                scores[count] = score;
+                siftUp(count++);
+            } else if (score > scores[0]) {
+                slots[0] = slot;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        int[] drainBestFirst() {
+            int[] best = new int[count];
+            for (int i = count - 1; i >= 0; i--) {
+                best[i] = slots[0];
+                count--;
+                slots[0] = slots[count];
+                scores[0] = scores[count];
+                siftDown(0);
+            }
+            return best;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (scores[parent] <= scores[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int smallest = i;
+                if (left < count && scores[left] < scores[smallest]) smallest = left;
+                if (left + 1 < count && scores[left + 1] < scores[smallest]) smallest = left + 1;
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int slot = slots[a];
+            slots[a] = slots[b];
+            slots[b] = slot;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.sharefair.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.StoredQueryEmbedding;
+import com.sharefair.exception.EmbeddingUnavailableException;
+import com.sharefair.repository.QueryEmbeddingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Two-tier cache of search-query embeddings keyed on normalized query text (the model itself is
+ * given the text as typed, so the first spelling seen is the one embedded).
+ * <p>
+ * The in-memory tier is a Caffeine (W-TinyLFU) cache, which suits our head-heavy query
+ * distribution; concurrent misses for the same key are collapsed into one load. Misses fall
+ * through to the {@code query_embeddings} table, which survives restarts and is shared between
+ * replicas, and only then to the embedding model.
+ * <p>
+ * A miss is bounded by a latency budget ({@code sharefair.embedding.query-call}): the caller
+ * gives up after the timeout and gets an {@link EmbeddingUnavailableException}, while the load
+ * carries on in the background so that the next request for the same text can hit. Calls to the
+ * model can be hedged, and a circuit breaker fails model calls immediately while the model is
+ * erroring or slow. Embeddings found in either tier are served regardless of the breaker.
+ */
+@Service
+public class QueryEmbeddingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryEmbeddingCache.class);
+    private static final String METRIC = "sharefair.embedding.query.cache";
+    /** Granularity of {@code last_used_at}: far below the retention, and a hit writes at most this often. */
+    private static final Duration TOUCH_INTERVAL = Duration.ofDays(1);
+
+    private final EmbeddingModel embeddingModel;
+    private final QueryEmbeddingRepository queryEmbeddingRepository;
+    private final EmbeddingProperties.QueryCache config;
+    private final EmbeddingProperties.QueryCall callConfig;
+    private final String modelName;
+    private final AsyncCache<String, float[]> memory;
+    private final CircuitBreaker breaker;
+    private final ExecutorService executor;
+
+    private final Counter persistentHits;
+    private final Counter persistentMisses;
+    private final Counter persistentErrors;
+    private final Counter hedgedCalls;
+    private final Counter timeoutFallbacks;
+    private final Counter errorFallbacks;
+    private final Counter circuitOpenFallbacks;
+
+    public QueryEmbeddingCache(EmbeddingModel embeddingModel,
+                               QueryEmbeddingRepository queryEmbeddingRepository,
+                               EmbeddingProperties embeddingProperties,
+                               MeterRegistry meterRegistry,
+                               @Value("${spring.ai.ollama.embedding.options.model:default}") String modelName) {
+        this.embeddingModel = embeddingModel;
+        this.queryEmbeddingRepository = queryEmbeddingRepository;
+        this.config = embeddingProperties.getQueryCache();
+        this.callConfig = embeddingProperties.getQueryCall();
+        this.modelName = modelName;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterAccess(config.getExpireAfterAccess())
+                .recordStats()
+                .buildAsync();
+        this.breaker = new CircuitBreaker(callConfig.getWindowSize(), callConfig.getMinimumCalls(),
+                callConfig.getFailureRateThreshold(), callConfig.getSlowCallRateThreshold(),
+                callConfig.getSlowCallThreshold().toNanos(), callConfig.getOpenDuration().toNanos(),
+                callConfig.getHalfOpenCalls(), System::nanoTime);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, callConfig.getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "query-embedding-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        CaffeineCacheMetrics.monitor(meterRegistry, memory.synchronous(), "query_embeddings");
+        this.persistentHits = Counter.builder(METRIC).tag("tier", "persistent").tag("result", "hit")
+                .register(meterRegistry);
+        this.persistentMisses = Counter.builder(METRIC).tag("tier", "persistent").tag("result", "miss")
+                .register(meterRegistry);
+        this.persistentErrors = Counter.builder(METRIC).tag("tier", "persistent").tag("result", "error")
+                .register(meterRegistry);
+        this.hedgedCalls = Counter.builder("sharefair.embedding.query.hedged").register(meterRegistry);
+        this.timeoutFallbacks = fallbackCounter(meterRegistry, "timeout");
+        this.errorFallbacks = fallbackCounter(meterRegistry, "error");
+        this.circuitOpenFallbacks = fallbackCounter(meterRegistry, "circuit_open");
+        // 0 = closed, 1 = half-open, 2 = open
+        Gauge.builder("sharefair.embedding.query.circuit.state", breaker, b -> b.state().ordinal())
+                .register(meterRegistry);
+    }
+
+    private static Counter fallbackCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("sharefair.embedding.query.fallback").tag("reason", reason).register(meterRegistry);
+    }
+
+    /**
+     * Returns the embedding of {@code query}, calling the embedding model only when neither tier
+     * has it. Model failures propagate so that callers can fall back to keyword search; so does
+     * an {@link EmbeddingUnavailableException} when the latency budget runs out or the circuit
+     * breaker is open.
+     */
+    public float[] embed(String query) {
+        String normalized = normalize(query);
+        CompletableFuture<float[]> cached = memory.getIfPresent(normalized);
+        if (cached != null && cached.isDone() && !cached.isCompletedExceptionally()) {
+            return cached.join();
+        }
+        try {
+            return memory.get(normalized, (key, ignored) -> load(key, query))
+                    .get(callConfig.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeoutFallbacks.increment();
+            throw new EmbeddingUnavailableException(
+                    "Embedding model did not answer within " + callConfig.getTimeout().toMillis() + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EmbeddingUnavailableException circuitOpen) {
+                // rejected by the breaker; counted where the call was refused
+                throw circuitOpen;
+            }
+            errorFallbacks.increment();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new EmbeddingUnavailableException("Embedding model call failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingUnavailableException("Interrupted while embedding query", e);
+        }
+    }
+
+    CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    static String normalize(String query) {
+        String text = Normalizer.normalize(query, Normalizer.Form.NFKC);
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /** Loads the embedding cached under {@code normalized}; the model is given the text as the user typed it. */
+    private CompletableFuture<float[]> load(String normalized, String query) {
+        if (!config.isPersistentEnabled()) {
+            return callModel(query);
+        }
+
+        String hash = hash(normalized);
+        return CompletableFuture.supplyAsync(() -> findStored(hash), executor)
+                .thenCompose(stored -> stored.isPresent()
+                        ? CompletableFuture.completedFuture(stored.get())
+                        : callModel(query).thenApply(embedding -> store(hash, normalized, embedding)));
+    }
+
+    private Optional<float[]> findStored(String hash) {
+        try {
+            Optional<StoredQueryEmbedding> stored = queryEmbeddingRepository.findByHash(hash);
+            if (stored.isPresent()) {
+                persistentHits.increment();
+                LocalDateTime lastUsedAt = stored.get().getLastUsedAt();
+                if (lastUsedAt == null || lastUsedAt.isBefore(LocalDateTime.now().minus(TOUCH_INTERVAL))) {
+                    queryEmbeddingRepository.touch(hash);
+                }
+                return Optional.of(stored.get().getEmbedding());
+            }
+            persistentMisses.increment();
+        } catch (Exception e) {
+            persistentErrors.increment();
+            log.warn("Query embedding lookup failed, calling embedding model: {}", e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private float[] store(String hash, String normalized, float[] embedding) {
+        try {
+            queryEmbeddingRepository.save(hash, normalized, embedding);
+        } catch (Exception e) {
+            persistentErrors.increment();
+            log.warn("Failed to persist query embedding: {}", e.getMessage());
+        }
+        return embedding;
+    }
+
+    /**
+     * Calls the model on the executor and, if hedging is enabled and no answer has arrived after
+     * the hedge delay, once more; the first success wins and only a failure of every attempt
+     * fails the result. Fails immediately while the circuit breaker is open. The breaker records
+     * one outcome per call: its result, or a failure once the caller's timeout has passed.
+     */
+    private CompletableFuture<float[]> callModel(String text) {
+        if (!breaker.tryAcquire()) {
+            circuitOpenFallbacks.increment();
+            return CompletableFuture.failedFuture(new EmbeddingUnavailableException("Embedding model circuit is open"));
+        }
+        long start = System.nanoTime();
+        AtomicBoolean recorded = new AtomicBoolean();
+        CompletableFuture<float[]> result = new CompletableFuture<>();
+        long hedgeDelay = callConfig.getHedgeDelay().toNanos();
+        AtomicInteger attempts = new AtomicInteger(hedgeDelay > 0 ? 2 : 1);
+        Runnable attempt = () -> {
+            try {
+                float[] embedding = embeddingModel.embed(text);
+                if (recorded.compareAndSet(false, true)) {
+                    breaker.record(System.nanoTime() - start, true);
+                }
+                result.complete(embedding);
+            } catch (Exception e) {
+                if (attempts.decrementAndGet() == 0) {
+                    if (recorded.compareAndSet(false, true)) {
+                        breaker.record(System.nanoTime() - start, false);
+                    }
+                    result.completeExceptionally(e);
+                }
+            }
+        };
+        long timeout = callConfig.getTimeout().toNanos();
+        CompletableFuture.delayedExecutor(timeout, TimeUnit.NANOSECONDS).execute(() -> {
+            if (!result.isDone() && recorded.compareAndSet(false, true)) {
+                breaker.record(timeout, false);
+            }
+        });
+        executor.execute(attempt);
+        if (hedgeDelay > 0) {
+            CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.NANOSECONDS, executor).execute(() -> {
+                if (!result.isDone()) {
+                    hedgedCalls.increment();
+                    attempt.run();
+                }
+            });
+        }
+        return result;
+    }
+
+    private String hash(String normalized) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest((modelName + "\n" + normalized).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Runs on every replica; the repository lets only one of them delete. */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void evictStaleEntries() {
+        if (!config.isPersistentEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(config.getPersistentRetention());
+        int deleted = queryEmbeddingRepository.deleteUnusedSince(cutoff);
+        if (deleted > 0) {
+            log.info("Evicted {} query embeddings unused since {}", deleted, cutoff);
+        }
+    }
+}
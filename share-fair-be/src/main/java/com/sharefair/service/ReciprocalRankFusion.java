@@ -0,0 +1,40 @@
+package com.sharefair.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reciprocal-rank fusion of several ranked id lists: each list contributes
+ * {@code weight / (k + rank)} (rank starting at 1) to every id it contains, and ids are returned
+ * by descending total score. Only ranks are used, so lists with incomparable scores (ts_rank,
+ * cosine distance) can be merged directly.
+ */
+final class ReciprocalRankFusion {
+
+    private ReciprocalRankFusion() {}
+
+    /**
+     * @return fused scores keyed by id, iterating from best to worst; ties keep first-seen order
+     */
+    static Map<String, Double> fuse(List<List<String>> rankings, double[] weights, int k) {
+        if (rankings.size() != weights.length) {
+            throw new IllegalArgumentException("Expected one weight per ranking");
+        }
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (int r = 0; r < rankings.size(); r++) {
+            List<String> ranking = rankings.get(r);
+            for (int i = 0; i < ranking.size(); i++) {
+                scores.merge(ranking.get(i), weights[r] / (k + i + 1), Double::sum);
+            }
+        }
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(scores.entrySet());
+        entries.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        Map<String, Double> fused = new LinkedHashMap<>(Math.max(16, entries.size() * 2));
+        for (Map.Entry<String, Double> entry : entries) {
+            fused.put(entry.getKey(), entry.getValue());
+        }
+        return fused;
+    }
+}
@@ -0,0 +1,242 @@
+package com.sharefair.service;
+
+import com.sharefair.config.RecommendationProperties;
+import com.sharefair.entity.Listing;
+import com.sharefair.entity.RecommendationFeed;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.event.TransactionCompletedEvent;
+import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.RecommendationFeedRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Precomputes personalized recommendation feeds into {@code recommendation_feeds}.
+ * <p>
+ * A feed holds the active listings nearest to the user's {@link TasteVectorService taste vector}
+ * (one ANN query), or, for users without one, the newest active listings in the categories of
+ * their completed transactions; either way excluding the user's own and already transacted
+ * listings and topped up from the shared popular list. A user's feed is built on first request,
+ * rebuilt in the background when the user completes a transaction (after the transaction is
+ * folded into the taste vectors) and once it is older than {@code maxAge}; a newly created
+ * listing is prepended to every feed of its category with a single update. Users with neither
+ * are cold and are served the popular list (the top of {@link PopularityService}'s ranks),
+ * which every replica keeps in memory and reloads every {@code popularRefresh}.
+ */
+@Service
+public class RecommendationMaterializer {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationMaterializer.class);
+    private static final String METRIC_PREFIX = "sharefair.recommendations.feeds";
+
+    private final RecommendationFeedRepository feedRepository;
+    private final ListingRepository listingRepository;
+    private final TasteVectorService tasteVectorService;
+    private final PopularityService popularityService;
+    private final RecommendationProperties.Feeds config;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService refresher;
+    private final Set<String> pendingRefresh = ConcurrentHashMap.newKeySet();
+    private volatile List<Listing> popular;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter prepended;
+    private final Timer materializeTimer;
+
+    public RecommendationMaterializer(RecommendationFeedRepository feedRepository,
+                                      ListingRepository listingRepository,
+                                      TasteVectorService tasteVectorService,
+                                      PopularityService popularityService,
+                                      RecommendationProperties recommendationProperties,
+                                      MeterRegistry meterRegistry) {
+        this.feedRepository = feedRepository;
+        this.listingRepository = listingRepository;
+        this.tasteVectorService = tasteVectorService;
+        this.popularityService = popularityService;
+        this.config = recommendationProperties.getFeeds();
+        this.meterRegistry = meterRegistry;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(named("recommendation-scheduler"));
+        this.refresher = Executors.newFixedThreadPool(Math.max(1, config.getThreads()), named("recommendation-refresh"));
+        this.prepended = Counter.builder(METRIC_PREFIX + ".prepended")
+                .description("Feeds that received a newly created listing")
+                .register(meterRegistry);
+        this.materializeTimer = Timer.builder(METRIC_PREFIX + ".materialize")
+                .description("Time to rebuild one user's feed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long popularMillis = config.getPopularRefresh().toMillis();
+        long refreshMillis = config.getRefreshInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshPopular, 0, popularMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::refreshOutdated, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** The user's stored feed, materialized now if there is none yet. */
+    public RecommendationFeed feed(String userId) {
+        return feedRepository.findByUserId(userId)
+                .orElseGet(() -> materialize(userId, "miss"));
+    }
+
+    /** Shared popular listings, most popular first, as of the last refresh. */
+    public List<Listing> popular() {
+        List<Listing> current = popular;
+        if (current == null) {
+            refreshPopular();
+            current = popular;
+        }
+        return current != null ? current : List.of();
+    }
+
+    RecommendationFeed materialize(String userId, String trigger) {
+        return materializeTimer.record(() -> {
+            List<String> categories = feedRepository.findPreferredCategories(userId);
+            Optional<float[]> taste = tasteVectorService.find(userId);
+            List<String> ids;
+            if (taste.isPresent()) {
+                ids = rank(userId, feedRepository.findTasteCandidates(userId, taste.get(), config.getSize()));
+            } else if (!categories.isEmpty()) {
+                ids = rank(userId, feedRepository.findCategoryCandidates(userId, categories, config.getSize()));
+            } else {
+                ids = List.of();
+            }
+            RecommendationFeed feed = RecommendationFeed.builder()
+                    .userId(userId)
+                    .categories(categories)
+                    .listingIds(ids)
+                    .computedAt(LocalDateTime.now())
+                    .build();
+            feedRepository.save(feed);
+            Counter.builder(METRIC_PREFIX + ".materialized").tag("trigger", trigger).register(meterRegistry).increment();
+            return feed;
+        });
+    }
+
+    /** The candidates topped up from the popular list. */
+    private List<String> rank(String userId, List<String> candidates) {
+        List<String> ids = new ArrayList<>(candidates);
+        if (ids.size() < config.getSize()) {
+            Set<String> excluded = new HashSet<>(feedRepository.findTransactedListingIds(userId));
+            excluded.addAll(ids);
+            for (Listing listing : popular()) {
+                if (ids.size() >= config.getSize()) {
+                    break;
+                }
+                if (!userId.equals(listing.getOwnerId()) && excluded.add(listing.getId())) {
+                    ids.add(listing.getId());
+                }
+            }
+        }
+        return ids;
+    }
+
+    @EventListener
+    public void onTransactionCompleted(TransactionCompletedEvent event) {
+        submit(() -> {
+            try {
+                tasteVectorService.recordTransaction(event);
+            } finally {
+                refreshLater(event.getBorrowerId());
+                refreshLater(event.getOwnerId());
+            }
+        });
+    }
+
+    @EventListener
+    public void onListingChanged(ListingChangedEvent event) {
+        Listing listing = event.getListing();
+        if (event.getType() != ListingChangedEvent.Type.CREATED || listing == null || listing.getCategory() == null
+                || (listing.getStatus() != null && !"ACTIVE".equals(listing.getStatus()))) {
+            return;
+        }
+        submit(() -> prepended.increment(feedRepository.prependListing(
+                listing.getCategory(), event.getListingId(), listing.getOwnerId(), config.getSize())));
+    }
+
+    /** Rebuilds a feed in the background; requests for a user whose rebuild has not started yet are merged. */
+    private void refreshLater(String userId) {
+        if (userId != null && pendingRefresh.add(userId)) {
+            submit(() -> {
+                pendingRefresh.remove(userId);
+                materialize(userId, "transaction");
+            });
+        }
+    }
+
+    private void refreshOutdated() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(config.getMaxAge());
+            // Claiming bumps computed_at, so each replica rebuilds a different batch; a feed whose
+            // rebuild is lost with its replica is picked up again after another maxAge.
+            List<String> userIds = feedRepository.claimComputedBefore(cutoff, config.getRefreshBatch());
+            for (String userId : userIds) {
+                materialize(userId, "outdated");
+            }
+            if (!userIds.isEmpty()) {
+                log.debug("Rebuilt {} outdated recommendation feeds", userIds.size());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to rebuild outdated recommendation feeds: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void refreshPopular() {
+        try {
+            popular = listingRepository.findByIds(popularityService.topListingIds(config.getPopularSize()));
+        } catch (Exception e) {
+            log.warn("Failed to refresh popular listings: {}", e.getMessage());
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            refresher.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.warn("Recommendation feed update failed: {}", e.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not schedule recommendation feed update: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        refresher.shutdownNow();
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
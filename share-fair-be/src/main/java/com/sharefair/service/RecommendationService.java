@@ -1,8 +1,9 @@
 package com.sharefair.service;
 
 import com.sharefair.entity.Listing;
+import com.sharefair.entity.RecommendationFeed;
+import com.sharefair.repository.ListingRepository;
 import com.sharefair.repository.impl.JooqUtils;
-import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.impl.DSL;
@@ -42,80 +43,87 @@ public class RecommendationService {
     };
 
     private final DSLContext dsl;
-
-    public RecommendationService(DSLContext dsl) {
+    private final ListingRepository listingRepository;
+    private final RecommendationMaterializer materializer;
+    private final CooccurrenceRecommender cooccurrence;
+    private final SimilarListingService similarListings;
+
+    public RecommendationService(DSLContext dsl, ListingRepository listingRepository,
+                                 RecommendationMaterializer materializer, CooccurrenceRecommender cooccurrence,
+                                 SimilarListingService similarListings) {
         this.dsl = dsl;
+        this.listingRepository = listingRepository;
+        this.materializer = materializer;
+        this.cooccurrence = cooccurrence;
+        this.similarListings = similarListings;
     }
 
     /**
-     * Returns personalized listing recommendations for the given user based on their
-     * transaction history. Falls back to popular listings for new users.
+     * Returns personalized listing recommendations for the given user from their materialized
+     * feed (see {@link RecommendationMaterializer}): listings that have since become inactive are
+     * skipped and the rest is topped up from the popular list. Users with nothing to personalize
+     * from get the popular list.
      */
     public List<Listing> getPersonalized(String userId, int limit) {
-        List<String> preferredCategories = getPreferredCategories(userId);
-        List<UUID> transactedIds = getTransactedListingIds(userId);
-
-        if (preferredCategories.isEmpty()) {
-            return getPopular(userId, limit);
+        RecommendationFeed feed = materializer.feed(userId);
+        List<Listing> results = new ArrayList<>(limit);
+        Set<String> seen = new HashSet<>();
+        if (!feed.isCold()) {
+            List<String> ids = feed.getListingIds();
+            for (Listing listing : listingRepository.findByIds(ids.subList(0, Math.min(ids.size(), limit * 2)))) {
+                if (results.size() < limit && isRecommendable(listing, userId) && seen.add(listing.getId())) {
+                    results.add(listing);
+                }
+            }
         }
-
-        List<Condition> conditions = new ArrayList<>();
-        conditions.add(DSL.field("status").eq("ACTIVE"));
-        conditions.add(DSL.field("category").in(preferredCategories));
-        conditions.add(DSL.field("owner_id").ne(UUID.fromString(userId)));
-
-        if (!transactedIds.isEmpty()) {
-            conditions.add(DSL.field("id").notIn(transactedIds));
+        for (Listing listing : materializer.popular()) {
+            if (results.size() >= limit) {
+                break;
+            }
+            if (isRecommendable(listing, userId) && seen.add(listing.getId())) {
+                results.add(listing);
+            }
         }
+        return results;
+    }
 
-        List<Listing> results = dsl.select(LISTING_FIELDS)
-                .from(DSL.table(TABLE))
-                .where(conditions)
-                .orderBy(DSL.field("created_at").desc())
-                .limit(limit)
-                .fetch()
-                .map(this::mapToListing);
+    private static boolean isRecommendable(Listing listing, String userId) {
+        return "ACTIVE".equals(listing.getStatus()) && !userId.equals(listing.getOwnerId());
+    }
 
-        // Top up with popular listings if not enough results
-        if (results.size() < limit) {
-            List<UUID> excludeIds = new ArrayList<>(transactedIds);
-            results.stream().map(l -> UUID.fromString(l.getId())).forEach(excludeIds::add);
-            List<Listing> popular = getPopularExcluding(userId, excludeIds, limit - results.size());
-            results = new ArrayList<>(results);
-            results.addAll(popular);
+    /**
+     * Active listings most often borrowed by the borrowers of the given listing, from the
+     * precomputed neighbours of {@link CooccurrenceRecommender}.
+     */
+    public List<Listing> getAlsoBorrowed(String listingId, int limit) {
+        List<Listing> results = new ArrayList<>(limit);
+        for (Listing listing : listingRepository.findByIds(cooccurrence.neighbours(listingId, limit * 2))) {
+            if (results.size() < limit && "ACTIVE".equals(listing.getStatus())) {
+                results.add(listing);
+            }
         }
-
         return results;
     }
 
     /**
-     * Returns listings similar to the given listing using pgvector cosine similarity.
-     * Falls back to same-category listings if the source has no embedding.
+     * Returns the active listings nearest to the given listing from its precomputed neighbour
+     * list (see {@link SimilarListingService}). Falls back to same-category listings if the
+     * source has no embedding.
      */
     public List<Listing> getSimilar(String listingId, int limit) {
-        // Try pgvector similarity first
         try {
-            String sql =
-                    "SELECT id, title, description, category, condition, owner_id, price, price_per_day, " +
-                    "images, latitude, longitude, neighborhood, available, status, listing_type, created_at, updated_at " +
-                    "FROM listings " +
-                    "WHERE id != ?::uuid AND status = 'ACTIVE' AND embedding IS NOT NULL " +
-                    "AND (SELECT embedding FROM listings WHERE id = ?::uuid LIMIT 1) IS NOT NULL " +
-                    "ORDER BY embedding <=> (SELECT embedding FROM listings WHERE id = ?::uuid LIMIT 1) " +
-                    "LIMIT ?";
-
-            List<Listing> results = dsl.fetch(sql,
-                            UUID.fromString(listingId),
-                            UUID.fromString(listingId),
-                            UUID.fromString(listingId),
-                            limit)
-                    .map(this::mapToListing);
-
+            List<String> ids = similarListings.similarIds(listingId);
+            List<Listing> results = new ArrayList<>(limit);
+            for (Listing listing : listingRepository.findByIds(ids.subList(0, Math.min(ids.size(), limit * 2)))) {
+                if (results.size() < limit && "ACTIVE".equals(listing.getStatus()) && !listingId.equals(listing.getId())) {
+                    results.add(listing);
+                }
+            }
             if (!results.isEmpty()) {
                 return results;
             }
         } catch (Exception e) {
-            log.warn("pgvector similar lookup failed for listing {}: {}", listingId, e.getMessage());
+            log.warn("Similar listings lookup failed for listing {}: {}", listingId, e.getMessage());
         }
 
         // Fallback: same category
@@ -139,87 +147,6 @@ public class RecommendationService {
                 .map(this::mapToListing);
     }
 
-    private List<String> getPreferredCategories(String userId) {
-        try {
-            return dsl.selectDistinct(DSL.field("l.category", String.class))
-                    .from(DSL.table("transactions t"))
-                    .join(DSL.table("listings l")).on(DSL.field("t.listing_id").eq(DSL.field("l.id")))
-                    .where(DSL.field("t.borrower_id").eq(UUID.fromString(userId))
-                            .or(DSL.field("t.owner_id").eq(UUID.fromString(userId))))
-                    .and(DSL.field("t.status").eq("COMPLETED"))
-                    .limit(5)
-                    .fetch(DSL.field("l.category", String.class));
-        } catch (Exception e) {
-            log.warn("Failed to fetch preferred categories for user {}: {}", userId, e.getMessage());
-            return Collections.emptyList();
-        }
-    }
-
-    private List<UUID> getTransactedListingIds(String userId) {
-        try {
-            return dsl.selectDistinct(DSL.field("listing_id", UUID.class))
-                    .from(DSL.table("transactions"))
-                    .where(DSL.field("borrower_id").eq(UUID.fromString(userId))
-                            .or(DSL.field("owner_id").eq(UUID.fromString(userId))))
-                    .fetch(DSL.field("listing_id", UUID.class));
-        } catch (Exception e) {
-            return Collections.emptyList();
-        }
-    }
-
-    private List<Listing> getPopular(String userId, int limit) {
-        return getPopularExcluding(userId, Collections.emptyList(), limit);
-    }
-
-    private List<Listing> getPopularExcluding(String userId, List<UUID> excludeIds, int limit) {
-        List<Condition> conditions = new ArrayList<>();
-        conditions.add(DSL.field("l.status").eq("ACTIVE"));
-        conditions.add(DSL.field("l.owner_id").ne(UUID.fromString(userId)));
-        if (!excludeIds.isEmpty()) {
-            conditions.add(DSL.field("l.id").notIn(excludeIds));
-        }
-
-        return dsl.select(
-                        DSL.field("l.id"), DSL.field("l.title"), DSL.field("l.description"),
-                        DSL.field("l.category"), DSL.field("l.condition"), DSL.field("l.owner_id"),
-                        DSL.field("l.price"), DSL.field("l.price_per_day"), DSL.field("l.images"),
-                        DSL.field("l.latitude"), DSL.field("l.longitude"), DSL.field("l.neighborhood"),
-                        DSL.field("l.available"), DSL.field("l.status"), DSL.field("l.listing_type"),
-                        DSL.field("l.created_at"), DSL.field("l.updated_at"))
-                .from(DSL.table("listings l"))
-                .leftJoin(DSL.table("transactions t")).on(DSL.field("t.listing_id").eq(DSL.field("l.id")))
-                .where(conditions)
-                .groupBy(
-                        DSL.field("l.id"), DSL.field("l.title"), DSL.field("l.description"),
-                        DSL.field("l.category"), DSL.field("l.condition"), DSL.field("l.owner_id"),
-                        DSL.field("l.price"), DSL.field("l.price_per_day"), DSL.field("l.images"),
-                        DSL.field("l.latitude"), DSL.field("l.longitude"), DSL.field("l.neighborhood"),
-                        DSL.field("l.available"), DSL.field("l.status"), DSL.field("l.listing_type"),
-                        DSL.field("l.created_at"), DSL.field("l.updated_at"))
-                .orderBy(DSL.count(DSL.field("t.id")).desc(), DSL.field("l.created_at").desc())
-                .limit(limit)
-                .fetch()
-                .map(record -> Listing.builder()
-                        .id(record.get(DSL.field("l.id"), String.class))
-                        .title(record.get(DSL.field("l.title"), String.class))
-                        .description(record.get(DSL.field("l.description"), String.class))
-                        .category(record.get(DSL.field("l.category"), String.class))
-                        .condition(record.get(DSL.field("l.condition"), String.class))
-                        .ownerId(record.get(DSL.field("l.owner_id"), String.class))
-                        .price(record.get(DSL.field("l.price"), BigDecimal.class))
-                        .pricePerDay(record.get(DSL.field("l.price_per_day"), BigDecimal.class))
-                        .images(extractStringArray(record.get(DSL.field("l.images"))))
-                        .latitude(record.get(DSL.field("l.latitude"), Double.class))
-                        .longitude(record.get(DSL.field("l.longitude"), Double.class))
-                        .neighborhood(record.get(DSL.field("l.neighborhood"), String.class))
-                        .available(record.get(DSL.field("l.available"), Boolean.class))
-                        .status(record.get(DSL.field("l.status"), String.class))
-                        .listingType(record.get(DSL.field("l.listing_type"), String.class))
-                        .createdAt(JooqUtils.toLocalDateTime(record.get(DSL.field("l.created_at"))))
-                        .updatedAt(JooqUtils.toLocalDateTime(record.get(DSL.field("l.updated_at"))))
-                        .build());
-    }
-
     private Listing mapToListing(org.jooq.Record record) {
         return Listing.builder()
                 .id(record.get(DSL.field("id"), String.class))
@@ -0,0 +1,143 @@
+package com.sharefair.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.repository.CatalogVersion;
+import com.sharefair.repository.CursorPage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Cache of search results keyed on the normalized request and the {@link CatalogVersion}.
+ * <p>
+ * A listing write bumps the version, after which every request misses and earlier entries are
+ * never read again (they age out by TTL or size). Concurrent misses for the same key wait for a
+ * single load, which runs on the first caller's thread outside of any cache lock. Each entry
+ * carries its own TTL: shorter for empty results and for results a loader marked as
+ * {@link #degraded()}.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final ThreadLocal<boolean[]> DEGRADED = new ThreadLocal<>();
+
+    private final CatalogVersion catalogVersion;
+    private final EmbeddingProperties.ResultCache config;
+    private final AsyncCache<Key, Entry> cache;
+
+    public SearchResultCache(CatalogVersion catalogVersion, EmbeddingProperties embeddingProperties,
+                             MeterRegistry meterRegistry) {
+        this.catalogVersion = catalogVersion;
+        this.config = embeddingProperties.getResultCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfter(new Expiry<Key, Entry>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "search_results");
+    }
+
+    /**
+     * Returns the cached result for {@code request} at the current catalog version, or runs
+     * {@code loader} once for all concurrent callers with the same request. Exceptions from the
+     * loader propagate and are not cached.
+     *
+     * @param request the normalized request parameters, compared by {@code equals}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(List<?> request, Supplier<T> loader) {
+        if (!config.isEnabled()) {
+            return loader.get();
+        }
+        Key key = new Key(catalogVersion.current(), request);
+        CompletableFuture<Entry> pending = new CompletableFuture<>();
+        CompletableFuture<Entry> entry = cache.get(key, (k, executor) -> pending);
+        if (entry == pending) {
+            try {
+                pending.complete(load(loader));
+            } catch (RuntimeException | Error e) {
+                pending.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return (T) entry.join().value();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Marks the result being loaded on this thread as a degraded fallback (for example keyword
+     * results because the query could not be embedded), so it is kept only for the empty-result
+     * TTL instead of hiding the proper result until the full TTL runs out.
+     */
+    public static void degraded() {
+        boolean[] flag = DEGRADED.get();
+        if (flag != null) {
+            flag[0] = true;
+        }
+    }
+
+    private Entry load(Supplier<?> loader) {
+        boolean[] flag = new boolean[1];
+        boolean[] outer = DEGRADED.get();
+        DEGRADED.set(flag);
+        try {
+            Object value = loader.get();
+            boolean shortLived = flag[0] || isEmpty(value);
+            return new Entry(value, (shortLived ? config.getEmptyTtl() : config.getTtl()).toNanos());
+        } finally {
+            DEGRADED.set(outer);
+        }
+    }
+
+    /** Convenience for building request keys from individual parameters. */
+    public static List<Object> key(Object... parts) {
+        return Arrays.asList(parts);
+    }
+
+    private static boolean isEmpty(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection.isEmpty();
+        }
+        if (value instanceof CursorPage<?> page) {
+            return page.items().isEmpty();
+        }
+        return value == null;
+    }
+
+    private record Key(long version, List<?> request) {
+    }
+
+    private record Entry(Object value, long ttlNanos) {
+    }
+}
@@ -2,15 +2,27 @@ package com.sharefair.service;
 
 import com.sharefair.config.EmbeddingProperties;
 import com.sharefair.entity.Listing;
+import com.sharefair.repository.CursorPage;
 import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.ListingSearch;
+import com.sharefair.repository.PageCursor;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Service
 public class SearchService {
@@ -18,90 +30,406 @@ public class SearchService {
     private static final Logger log = LoggerFactory.getLogger(SearchService.class);
 
     private final ListingRepository listingRepository;
-    private final EmbeddingModel embeddingModel;
     private final EmbeddingProperties embeddingProperties;
+    private final ListingVectorIndex listingVectorIndex;
+    private final QuantizedListingIndex quantizedListingIndex;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final FacetService facetService;
+    private final MapClusterService mapClusterService;
+    private final SearchResultCache resultCache;
+    private final ExactReranker exactReranker;
+    private final ExecutorService hybridExecutor;
 
     public SearchService(ListingRepository listingRepository,
-                         EmbeddingModel embeddingModel,
-                         EmbeddingProperties embeddingProperties) {
+                         EmbeddingProperties embeddingProperties,
+                         ListingVectorIndex listingVectorIndex,
+                         QuantizedListingIndex quantizedListingIndex,
+                         QueryEmbeddingCache queryEmbeddingCache,
+                         FacetService facetService,
+                         MapClusterService mapClusterService,
+                         SearchResultCache resultCache,
+                         ExactReranker exactReranker) {
         this.listingRepository = listingRepository;
-        this.embeddingModel = embeddingModel;
         this.embeddingProperties = embeddingProperties;
+        this.listingVectorIndex = listingVectorIndex;
+        this.quantizedListingIndex = quantizedListingIndex;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.facetService = facetService;
+        this.mapClusterService = mapClusterService;
+        this.resultCache = resultCache;
+        this.exactReranker = exactReranker;
+        AtomicInteger threads = new AtomicInteger();
+        this.hybridExecutor = Executors.newFixedThreadPool(
+                Math.max(1, embeddingProperties.getHybrid().getParallelism()), runnable -> {
+                    Thread thread = new Thread(runnable, "hybrid-search-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
 
+    /**
+     * Results are served from {@link SearchResultCache} until the next listing write; the same
+     * applies to the cursor variant and {@link #searchNearby}.
+     */
     public List<Listing> semanticSearch(String query, String neighborhood,
                                          String category, String sortBy, int limit, int offset) {
+        return resultCache.get(
+                SearchResultCache.key("semantic", normalize(query), neighborhood, category, sortBy, limit, offset),
+                () -> fetchSemantic(query, neighborhood, category, sortBy, limit, offset));
+    }
+
+    private List<Listing> fetchSemantic(String query, String neighborhood,
+                                        String category, String sortBy, int limit, int offset) {
         if (query == null || query.isBlank()) {
-            return listingRepository.findByFilters(neighborhood, category, sortBy, limit, offset);
+            SearchTrace.path("filter");
+            return SearchTrace.database(() -> listingRepository.findByFilters(neighborhood, category, sortBy, limit, offset));
+        }
+
+        if (embeddingProperties.getHybrid().isEnabled()) {
+            SearchTrace.path("semantic");
+            return hybridSearch(query, neighborhood, category, sortBy, limit, offset);
         }
 
         // For price/date sorting, use keyword search (can't combine with vector similarity ordering)
         if ("price".equals(sortBy) || "date".equals(sortBy)) {
-            return listingRepository.findByKeyword(query, neighborhood, category, sortBy, limit, offset);
+            SearchTrace.path("keyword");
+            return SearchTrace.database(() ->
+                    listingRepository.findByKeyword(query, neighborhood, category, sortBy, limit, offset));
         }
 
         try {
-            float[] queryEmbedding = embeddingModel.embed(query);
-            return listingRepository.findBySimilarity(
-                    queryEmbedding,
-                    neighborhood,
-                    category,
-                    embeddingProperties.getSimilarityThreshold(),
-                    limit,
-                    offset
-            );
+            SearchTrace.path("semantic");
+            float[] queryEmbedding = embed(query);
+            return vectorCandidates(queryEmbedding, neighborhood, category, limit, offset);
         } catch (Exception e) {
             log.warn("Embedding generation failed for query '{}', falling back to keyword search: {}",
                     query, e.getMessage());
-            return listingRepository.findByKeyword(query, neighborhood, category, sortBy, limit, offset);
+            SearchResultCache.degraded();
+            SearchTrace.path("keyword");
+            return SearchTrace.database(() ->
+                    listingRepository.findByKeyword(query, neighborhood, category, sortBy, limit, offset));
         }
     }
 
-    @Async
-    public void generateEmbedding(String listingId) {
+    /**
+     * Cursor-paginated variant of {@link #semanticSearch}. Database-ordered paths seek past the
+     * cursor's sort keys; results ranked in memory (hybrid fusion, the local or quantized vector
+     * index) carry their offset in the cursor instead.
+     *
+     * @param after cursor from the previous page, or {@code null} for the first page
+     */
+    public CursorPage<Listing> semanticSearch(String query, String neighborhood, String category,
+                                              String sortBy, int limit, PageCursor after) {
+        return resultCache.get(
+                SearchResultCache.key("semantic-page", normalize(query), neighborhood, category, sortBy, limit,
+                        encode(after)),
+                () -> fetchSemanticPage(query, neighborhood, category, sortBy, limit, after));
+    }
+
+    private CursorPage<Listing> fetchSemanticPage(String query, String neighborhood, String category,
+                                                  String sortBy, int limit, PageCursor after) {
+        if (query == null || query.isBlank()) {
+            SearchTrace.path("filter");
+            return SearchTrace.database(() -> listingRepository.findByFilters(neighborhood, category, sortBy, limit, after));
+        }
+
+        if (embeddingProperties.getHybrid().isEnabled()) {
+            SearchTrace.path("semantic");
+            return offsetPage(limit, after, (window, offset) ->
+                    hybridSearch(query, neighborhood, category, sortBy, window, offset));
+        }
+
+        if ("price".equals(sortBy) || "date".equals(sortBy)) {
+            SearchTrace.path("keyword");
+            return SearchTrace.database(() ->
+                    listingRepository.findByKeyword(query, neighborhood, category, sortBy, limit, after));
+        }
+
         try {
-            Optional<Listing> listing = listingRepository.findById(listingId);
-            if (listing.isEmpty()) {
-                return;
+            SearchTrace.path("semantic");
+            float[] queryEmbedding = embed(query);
+            boolean offsetCursor = after == null || PageCursor.OFFSET.equals(after.getOrder());
+            if (offsetCursor && rankedInMemory()) {
+                return offsetPage(limit, after, (window, offset) ->
+                        vectorCandidates(queryEmbedding, neighborhood, category, window, offset));
             }
+            return SearchTrace.database(() -> listingRepository.findBySimilarity(queryEmbedding, neighborhood, category,
+                    embeddingProperties.getSimilarityThreshold(), limit, after));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("Embedding generation failed for query '{}', falling back to keyword search: {}",
+                    query, e.getMessage());
+            SearchResultCache.degraded();
+            SearchTrace.path("keyword");
+            return SearchTrace.database(() ->
+                    listingRepository.findByKeyword(query, neighborhood, category, sortBy, limit, after));
+        }
+    }
 
-            String text = buildEmbeddingText(listing.get());
-            float[] embedding = embeddingModel.embed(text);
-            listingRepository.updateEmbedding(listingId, embedding);
-            log.debug("Updated embedding for listing {}", listingId);
+    /**
+     * Search near a point: the radius, the text query and the attribute filters are applied
+     * together in one database query, ordered by {@code sortBy} ({@code distance}, {@code price},
+     * {@code date}, or relevance by default).
+     * <p>
+     * Relevance ranking uses the query embedding, and the plan is chosen by selectivity: the
+     * radius is estimated from the precomputed map cells and the neighborhood/category filters
+     * from the cached facet counts. If they are expected to leave few listings, those indexes
+     * drive the query and vector distances are computed exactly for the survivors; otherwise the
+     * HNSW index drives it and the filters are applied to its output. Other orderings, and
+     * relevance when the query cannot be embedded, filter on the full-text match instead.
+     */
+    public CursorPage<Listing> searchNearby(String query, String neighborhood, String category,
+                                            double lat, double lng, Double radiusKm,
+                                            String sortBy, int limit, PageCursor after) {
+        return resultCache.get(
+                SearchResultCache.key("nearby", normalize(query), neighborhood, category, lat, lng, radiusKm,
+                        sortBy, limit, encode(after)),
+                () -> fetchNearby(query, neighborhood, category, lat, lng, radiusKm, sortBy,
+                        search -> listingRepository.search(search, limit, after),
+                        page -> !page.hasMore() && page.items().size() < limit));
+    }
+
+    /** Offset page of {@link #searchNearby}, for clients that still address pages by number. */
+    public List<Listing> searchNearby(String query, String neighborhood, String category,
+                                      double lat, double lng, Double radiusKm,
+                                      String sortBy, int limit, int offset) {
+        return resultCache.get(
+                SearchResultCache.key("nearby-offset", normalize(query), neighborhood, category, lat, lng, radiusKm,
+                        sortBy, limit, offset),
+                () -> fetchNearby(query, neighborhood, category, lat, lng, radiusKm, sortBy,
+                        search -> listingRepository.search(search, limit, offset),
+                        rows -> rows.size() < limit));
+    }
+
+    /**
+     * Chooses the plan for a nearby search and runs it through {@code fetch}; {@code isShort}
+     * tells whether a result ended before filling its page.
+     */
+    private <T> T fetchNearby(String query, String neighborhood, String category,
+                              double lat, double lng, Double radiusKm, String sortBy,
+                              Function<ListingSearch, T> fetch, Predicate<T> isShort) {
+        ListingSearch.ListingSearchBuilder search = ListingSearch.builder()
+                .query(query)
+                .neighborhood(neighborhood)
+                .category(category)
+                .latitude(lat)
+                .longitude(lng)
+                .radiusKm(radiusKm)
+                .sortBy(sortBy)
+                .similarityThreshold(embeddingProperties.getSimilarityThreshold());
+
+        SearchTrace.path("location");
+        boolean rankByRelevance = query != null && !query.isBlank()
+                && !"price".equals(sortBy) && !"date".equals(sortBy) && !"distance".equals(sortBy);
+        if (!rankByRelevance) {
+            return SearchTrace.database(() -> fetch.apply(search.build()));
+        }
+
+        float[] queryEmbedding;
+        try {
+            queryEmbedding = embed(query);
         } catch (Exception e) {
-            log.warn("Failed to generate embedding for listing {}: {}", listingId, e.getMessage());
+            log.warn("Embedding generation failed for query '{}', falling back to keyword search: {}",
+                    query, e.getMessage());
+            SearchResultCache.degraded();
+            return SearchTrace.database(() -> fetch.apply(search.build()));
+        }
+
+        long candidates = SearchTrace.time(SearchTrace.Stage.PLANNING,
+                () -> estimateCandidates(neighborhood, category, lat, lng, radiusKm));
+        boolean exact = candidates <= embeddingProperties.getPlanner().getExactScanThreshold();
+        log.debug("Nearby search '{}': ~{} candidates after filters, {} plan",
+                query, candidates == Long.MAX_VALUE ? "all" : candidates, exact ? "filter-first" : "vector-first");
+
+        ListingSearch planned = search.queryEmbedding(queryEmbedding).exactRanking(exact).build();
+        T result = SearchTrace.database(() -> fetch.apply(planned));
+        if (!exact && isShort.test(result) && candidates != Long.MAX_VALUE) {
+            // The HNSW scan only yields its ef_search nearest rows before the filters apply, so a
+            // short page under selective filters may be starvation rather than the end.
+            ListingSearch exactPlan = search.exactRanking(true).build();
+            result = SearchTrace.database(() -> fetch.apply(exactPlan));
+        }
+        return result;
+    }
+
+    private float[] embed(String query) {
+        return SearchTrace.time(SearchTrace.Stage.EMBEDDING, () -> queryEmbeddingCache.embed(query));
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : QueryEmbeddingCache.normalize(query);
+    }
+
+    private static String encode(PageCursor cursor) {
+        return cursor == null ? null : cursor.encode();
+    }
+
+    /** Smallest estimated result size among the applied filters; Long.MAX_VALUE if none apply. */
+    private long estimateCandidates(String neighborhood, String category, double lat, double lng, Double radiusKm) {
+        long estimate = Long.MAX_VALUE;
+        if ((neighborhood != null && !neighborhood.isBlank()) || (category != null && !category.isBlank())) {
+            estimate = facetService.filterFacets(neighborhood, category).getTotal();
+        }
+        if (radiusKm != null) {
+            estimate = Math.min(estimate, mapClusterService.estimateWithin(lat, lng, radiusKm));
         }
+        return estimate;
     }
 
-    public int backfillEmbeddings(int batchSize) {
-        List<Listing> listings = listingRepository.findWithoutEmbedding(batchSize);
-        if (listings.isEmpty()) {
-            return 0;
+    /** Fetches one row past the page to learn whether an offset cursor for the next page is needed. */
+    private static CursorPage<Listing> offsetPage(int limit, PageCursor after, OffsetQuery query) {
+        int offset = after == null ? 0 : after.offsetValue();
+        List<Listing> rows = query.fetch(limit + 1, offset);
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
         }
+        return new CursorPage<>(rows.subList(0, limit), PageCursor.offset(offset + limit).encode());
+    }
+
+    @FunctionalInterface
+    private interface OffsetQuery {
+        List<Listing> fetch(int limit, int offset);
+    }
+
+    /**
+     * Runs keyword and vector candidate generation in parallel, fuses the two rankings with
+     * reciprocal-rank fusion and applies the requested sort to the fused set. If the query
+     * cannot be embedded the keyword candidates are used alone, and if the keyword query fails
+     * the vector candidates are.
+     */
+    private List<Listing> hybridSearch(String query, String neighborhood, String category,
+                                       String sortBy, int limit, int offset) {
+        EmbeddingProperties.Hybrid config = embeddingProperties.getHybrid();
+        int window = offset + limit;
+
+        CompletableFuture<List<Listing>> lexical = CompletableFuture.supplyAsync(SearchTrace.propagate(() ->
+                SearchTrace.database(() -> listingRepository.findByKeyword(query, neighborhood, category, "relevance",
+                        Math.max(config.getLexicalCandidates(), window), 0))), hybridExecutor);
 
-        int count = 0;
-        for (Listing listing : listings) {
-            try {
-                String text = buildEmbeddingText(listing);
-                float[] embedding = embeddingModel.embed(text);
-                listingRepository.updateEmbedding(listing.getId(), embedding);
-                count++;
-            } catch (Exception e) {
-                log.warn("Failed to generate embedding for listing {}: {}",
-                        listing.getId(), e.getMessage());
+        List<Listing> semantic = null;
+        try {
+            float[] queryEmbedding = embed(query);
+            semantic = vectorCandidates(queryEmbedding, neighborhood, category,
+                    Math.max(config.getVectorCandidates(), window), 0);
+        } catch (Exception e) {
+            log.warn("Embedding generation failed for query '{}', using keyword candidates only: {}",
+                    query, e.getMessage());
+            SearchResultCache.degraded();
+        }
+        List<Listing> keyword;
+        try {
+            keyword = lexical.join();
+        } catch (CompletionException e) {
+            if (semantic == null && e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
+            log.warn("Keyword candidates failed for query '{}', using vector candidates only: {}",
+                    query, e.getCause().getMessage());
+            SearchResultCache.degraded();
+            keyword = List.of();
         }
+        List<Listing> lexicalRanking = keyword;
+        List<Listing> vector = semantic == null ? List.of() : semantic;
+        return SearchTrace.time(SearchTrace.Stage.FUSION, () -> fuse(lexicalRanking, vector, config, sortBy, limit, offset));
+    }
+
+    private static List<Listing> fuse(List<Listing> keyword, List<Listing> semantic, EmbeddingProperties.Hybrid config,
+                                      String sortBy, int limit, int offset) {
+        int window = offset + limit;
+        Map<String, Listing> byId = new HashMap<>();
+        keyword.forEach(listing -> byId.put(listing.getId(), listing));
+        semantic.forEach(listing -> byId.putIfAbsent(listing.getId(), listing));
 
-        log.info("Backfilled embeddings for {} listings", count);
-        return count;
+        Map<String, Double> fused = ReciprocalRankFusion.fuse(
+                List.of(ids(keyword), ids(semantic)),
+                new double[]{config.getLexicalWeight(), config.getVectorWeight()},
+                config.getRrfK());
+
+        List<Listing> candidates = new ArrayList<>(fused.size());
+        fused.keySet().forEach(id -> candidates.add(byId.get(id)));
+        if ("price".equals(sortBy)) {
+            candidates.sort(Comparator.comparing(Listing::getPrice, Comparator.nullsLast(Comparator.naturalOrder())));
+        } else if ("date".equals(sortBy)) {
+            candidates.sort(Comparator.comparing(Listing::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        }
+
+        if (offset >= candidates.size()) {
+            return List.of();
+        }
+        return candidates.subList(offset, Math.min(candidates.size(), window));
+    }
+
+    /** Whether vector results are ordered in the JVM rather than by a database query. */
+    private boolean rankedInMemory() {
+        return listingVectorIndex.isReady() || quantizedListingIndex.isReady();
+    }
+
+    /**
+     * Nearest listings by embedding. pgvector and the HNSW index already return exact cosine
+     * distances in order; only candidates from the quantized index, whose code scores are a first
+     * pass, are over-fetched and re-ranked by exact distance before the page is cut.
+     */
+    private List<Listing> vectorCandidates(float[] queryEmbedding, String neighborhood, String category,
+                                           int limit, int offset) {
+        boolean quantized = !listingVectorIndex.isReady() && quantizedListingIndex.isReady();
+        if (!quantized) {
+            return annCandidates(queryEmbedding, neighborhood, category, limit, offset);
+        }
+        int window = offset + limit;
+        int candidateCount = Math.max(window, embeddingProperties.getQuantized().getCandidates());
+        List<Listing> candidates = annCandidates(queryEmbedding, neighborhood, category, candidateCount, 0);
+        List<Listing> ranked = SearchTrace.time(SearchTrace.Stage.RERANK, () -> exactReranker.rerank(
+                queryEmbedding, candidates, embeddingProperties.getSimilarityThreshold()));
+        if (offset >= ranked.size()) {
+            return List.of();
+        }
+        return ranked.subList(offset, Math.min(ranked.size(), window));
+    }
+
+    private List<Listing> annCandidates(float[] queryEmbedding, String neighborhood, String category,
+                                        int limit, int offset) {
+        if (listingVectorIndex.isReady()) {
+            List<String> ids = SearchTrace.time(SearchTrace.Stage.VECTOR_INDEX, () -> listingVectorIndex.search(
+                    queryEmbedding, neighborhood, category, embeddingProperties.getSimilarityThreshold(), limit, offset));
+            return SearchTrace.database(() -> listingRepository.findByIds(ids));
+        }
+        if (quantizedListingIndex.isReady()) {
+            List<String> ids = SearchTrace.time(SearchTrace.Stage.VECTOR_INDEX,
+                    () -> quantizedListingIndex.search(queryEmbedding, neighborhood, category, offset + limit));
+            return SearchTrace.database(() ->
+                    listingRepository.findByIds(ids.subList(Math.min(offset, ids.size()), ids.size())));
+        }
+        return SearchTrace.database(() -> listingRepository.findBySimilarity(
+                queryEmbedding,
+                neighborhood,
+                category,
+                embeddingProperties.getSimilarityThreshold(),
+                limit,
+                offset
+        ));
+    }
+
+    private static List<String> ids(List<Listing> listings) {
+        return listings.stream().map(Listing::getId).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hybridExecutor.shutdownNow();
     }
 
     public List<Listing> searchByLocation(double lat, double lng, double radiusKm, int limit, int offset) {
-        return listingRepository.findByLocation(lat, lng, radiusKm, limit, offset);
+        SearchTrace.path("location");
+        return SearchTrace.database(() -> listingRepository.findByLocation(lat, lng, radiusKm, limit, offset));
+    }
+
+    public CursorPage<Listing> searchByLocation(double lat, double lng, double radiusKm, int limit, PageCursor after) {
+        SearchTrace.path("location");
+        return SearchTrace.database(() -> listingRepository.findByLocation(lat, lng, radiusKm, limit, after));
     }
 
-    private String buildEmbeddingText(Listing listing) {
+    static String buildEmbeddingText(Listing listing) {
         StringBuilder sb = new StringBuilder();
         if (listing.getTitle() != null) {
             sb.append(listing.getTitle());
@@ -0,0 +1,60 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes finished {@link SearchTrace}s: a latency histogram per search path
+ * ({@code sharefair.search.duration}) and per stage and path ({@code sharefair.search.stage}),
+ * plus a sampled log line for searches over the slow threshold.
+ */
+@Component
+public class SearchTelemetry {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchTelemetry.class);
+
+    private final MeterRegistry meterRegistry;
+    private final EmbeddingProperties.SlowLog config;
+
+    public SearchTelemetry(MeterRegistry meterRegistry, EmbeddingProperties embeddingProperties) {
+        this.meterRegistry = meterRegistry;
+        this.config = embeddingProperties.getSlowLog();
+    }
+
+    public void record(SearchTrace trace, String endpoint, int status) {
+        long totalNanos = trace.finish();
+        String path = trace.path();
+        Timer.builder("sharefair.search.duration")
+                .description("Search request latency by search path")
+                .tag("endpoint", endpoint)
+                .tag("path", path)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(totalNanos, TimeUnit.NANOSECONDS);
+        for (SearchTrace.Stage stage : SearchTrace.Stage.values()) {
+            long nanos = trace.nanos(stage);
+            if (nanos > 0) {
+                Timer.builder("sharefair.search.stage")
+                        .description("Time spent per search stage")
+                        .tag("stage", stage.tag())
+                        .tag("path", path)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (totalNanos >= config.getThreshold().toNanos()
+                && ThreadLocalRandom.current().nextDouble() < config.getSampleRate()) {
+            log.warn("Slow search: {} ms on {} (path {}, status {}), request {}, stages ms {}",
+                    TimeUnit.NANOSECONDS.toMillis(totalNanos), endpoint, path, status, trace.shape(),
+                    trace.stagesMillis());
+        }
+    }
+}
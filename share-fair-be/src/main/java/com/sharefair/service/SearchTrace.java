@@ -0,0 +1,181 @@
+package com.sharefair.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Per-request timing breakdown of a search, carried in a thread local.
+ * <p>
+ * A trace is started around a search request (see {@code SearchTraceInterceptor}); code on the
+ * search path wraps its stages in {@link #time} and its repository calls in {@link #database},
+ * which splits the call into SQL (measured by a jOOQ listener through {@link #recordSql}) and
+ * row mapping (the rest of the call). Work handed to another thread is attributed to the trace
+ * through {@link #propagate}, so stages that run in parallel add up to more than the wall time.
+ * Without a current trace all of these simply run the code.
+ */
+public final class SearchTrace {
+
+    public enum Stage {
+        EMBEDDING, PLANNING, VECTOR_INDEX, SQL, ROW_MAPPING, RERANK, FUSION, FACETS, DTO_MAPPING, SERIALIZATION;
+
+        public String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    /** Result served from {@link SearchResultCache} without running any search path. */
+    public static final String CACHED = "cached";
+
+    private static final ThreadLocal<SearchTrace> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<long[]> SQL_NANOS = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLongArray stageNanos = new AtomicLongArray(Stage.values().length);
+    private final Map<String, Object> shape;
+    private volatile String path;
+    private volatile long handledNanos;
+
+    private SearchTrace(Map<String, Object> shape) {
+        this.shape = shape;
+    }
+
+    /** Starts a trace on the current thread; {@code shape} describes the request for the slow log. */
+    public static SearchTrace start(Map<String, Object> shape) {
+        SearchTrace trace = new SearchTrace(new LinkedHashMap<>(shape));
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public static SearchTrace current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+        SQL_NANOS.remove();
+    }
+
+    /** Records which search path (semantic, keyword, filter, location) produced the results. */
+    public static void path(String path) {
+        SearchTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.path = path;
+        }
+    }
+
+    public static <T> T time(Stage stage, Supplier<T> work) {
+        SearchTrace trace = CURRENT.get();
+        if (trace == null) {
+            return work.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            trace.add(stage, System.nanoTime() - start);
+        }
+    }
+
+    /** Times a repository call as SQL plus row mapping. */
+    public static <T> T database(Supplier<T> query) {
+        SearchTrace trace = CURRENT.get();
+        if (trace == null) {
+            return query.get();
+        }
+        long[] sql = new long[1];
+        long[] outer = SQL_NANOS.get();
+        SQL_NANOS.set(sql);
+        long start = System.nanoTime();
+        try {
+            return query.get();
+        } finally {
+            long total = System.nanoTime() - start;
+            SQL_NANOS.set(outer);
+            trace.add(Stage.SQL, sql[0]);
+            trace.add(Stage.ROW_MAPPING, Math.max(0, total - sql[0]));
+        }
+    }
+
+    /** Called by the jOOQ listener with the time from rendering to the last fetched row of a query. */
+    public static void recordSql(long nanos) {
+        long[] sql = SQL_NANOS.get();
+        if (sql != null) {
+            sql[0] += nanos;
+        }
+    }
+
+    /** Runs {@code work} with this thread's trace, for hand-off to an executor. */
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        SearchTrace trace = CURRENT.get();
+        if (trace == null) {
+            return work;
+        }
+        return () -> {
+            SearchTrace previous = CURRENT.get();
+            CURRENT.set(trace);
+            try {
+                return work.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    public void add(Stage stage, long nanos) {
+        stageNanos.addAndGet(stage.ordinal(), nanos);
+    }
+
+    /** Marks the end of the handler; the time until {@link #finish} is attributed to serialization. */
+    public void handled() {
+        handledNanos = System.nanoTime();
+    }
+
+    /** Closes the trace and returns its total duration in nanoseconds. */
+    public long finish() {
+        long now = System.nanoTime();
+        if (handledNanos != 0) {
+            add(Stage.SERIALIZATION, now - handledNanos);
+        }
+        return now - startNanos;
+    }
+
+    public String path() {
+        String current = path;
+        return current != null ? current : CACHED;
+    }
+
+    public Map<String, Object> shape() {
+        return shape;
+    }
+
+    public long nanos(Stage stage) {
+        return stageNanos.get(stage.ordinal());
+    }
+
+    /** Non-zero stages in milliseconds, in pipeline order. */
+    public Map<String, Double> stagesMillis() {
+        Map<String, Double> stages = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            long nanos = nanos(stage);
+            if (nanos > 0) {
+                stages.put(stage.tag(), nanos / 1_000_000.0);
+            }
+        }
+        return stages;
+    }
+
+    /** Breakdown so far, for {@code explain=true}: the path, elapsed time and per-stage times. */
+    public Map<String, Object> explain() {
+        Map<String, Object> explain = new LinkedHashMap<>();
+        explain.put("path", path());
+        explain.put("elapsedMs", (System.nanoTime() - startNanos) / 1_000_000.0);
+        explain.put("stagesMs", stagesMillis());
+        return explain;
+    }
+}
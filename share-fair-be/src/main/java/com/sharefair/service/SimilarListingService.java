@@ -0,0 +1,216 @@
+package com.sharefair.service;
+
+import com.sharefair.config.RecommendationProperties;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.entity.SimilarListings;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.SimilarListingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the precomputed nearest neighbours in {@code similar_listings} current.
+ * <p>
+ * When a listing's embedding changes its own list is recomputed with one ANN query, and the
+ * listing is merged into the list of each of its new neighbours where it is nearer than the
+ * farthest entry (cosine distance is symmetric, so a listing's neighbours are the lists it most
+ * likely belongs to). Entries that became inactive are skipped when the list is read and drop
+ * out at the next recompute; a background refresher on each replica claims a batch of missing
+ * lists and of lists older than {@code maxAge} and (re)computes them.
+ */
+@Service
+public class SimilarListingService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarListingService.class);
+    private static final String METRIC_PREFIX = "sharefair.recommendations.similar";
+
+    private final SimilarListingRepository similarRepository;
+    private final ListingRepository listingRepository;
+    private final RecommendationProperties.Similar config;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+    private final Set<String> pendingRecompute = ConcurrentHashMap.newKeySet();
+    private final MeterRegistry meterRegistry;
+    private final Counter merged;
+
+    public SimilarListingService(SimilarListingRepository similarRepository,
+                                 ListingRepository listingRepository,
+                                 RecommendationProperties recommendationProperties,
+                                 MeterRegistry meterRegistry) {
+        this.similarRepository = similarRepository;
+        this.listingRepository = listingRepository;
+        this.config = recommendationProperties.getSimilar();
+        this.meterRegistry = meterRegistry;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(named("similar-refresh"));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, config.getThreads()), named("similar-worker"));
+        this.merged = Counter.builder(METRIC_PREFIX + ".merged")
+                .description("Neighbour lists that a changed listing was merged into")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long interval = config.getRefreshInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ids of the listings nearest to {@code listingId}, nearest first; computed now if the
+     * listing has an embedding but no stored list yet, empty if it has no embedding.
+     */
+    public List<String> similarIds(String listingId) {
+        return similarRepository.findByListingId(listingId)
+                // an empty list is a refresh claim whose computation has not finished (or was lost)
+                .filter(similar -> !similar.getNeighbourIds().isEmpty())
+                .or(() -> recompute(listingId, "miss"))
+                .map(SimilarListings::getNeighbourIds)
+                .orElse(List.of());
+    }
+
+    @EventListener
+    public void onListingChanged(ListingChangedEvent event) {
+        if (event.getType() == ListingChangedEvent.Type.EMBEDDING_UPDATED) {
+            recomputeLater(event.getListingId());
+        }
+    }
+
+    /** Recomputes a list in the background; changes to a listing whose recompute has not started are merged. */
+    private void recomputeLater(String listingId) {
+        if (!pendingRecompute.add(listingId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                pendingRecompute.remove(listingId);
+                try {
+                    recompute(listingId, "embedding").ifPresent(this::mergeIntoNeighbours);
+                } catch (Exception e) {
+                    log.warn("Failed to recompute similar listings of {}: {}", listingId, e.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            pendingRecompute.remove(listingId);
+            log.warn("Could not schedule similar listings of {}: {}", listingId, e.getMessage());
+        }
+    }
+
+    Optional<SimilarListings> recompute(String listingId, String trigger) {
+        Optional<float[]> embedding = listingRepository.findEmbeddingById(listingId)
+                .map(ListingEmbedding::getEmbedding);
+        if (embedding.isEmpty()) {
+            return Optional.empty();
+        }
+        SimilarListings similar = similarRepository.findNearest(listingId, embedding.get(), config.getSize());
+        similarRepository.save(similar);
+        Counter.builder(METRIC_PREFIX + ".computed").tag("trigger", trigger).register(meterRegistry).increment();
+        return Optional.of(similar);
+    }
+
+    /**
+     * Puts {@code source} into each of its neighbours' lists where it ranks within the top
+     * {@code size}. Each list is updated under its row lock, one at a time, so merges of
+     * concurrently changed listings into the same list do not overwrite each other.
+     */
+    void mergeIntoNeighbours(SimilarListings source) {
+        List<String> ids = source.getNeighbourIds();
+        for (int i = 0; i < ids.size(); i++) {
+            float distance = source.getDistances().get(i);
+            if (similarRepository.update(ids.get(i),
+                    neighbour -> insert(neighbour, source.getListingId(), distance, config.getSize()))) {
+                merged.increment();
+            }
+        }
+    }
+
+    /** {@code list} with {@code id} at {@code distance} in order, or null if it does not rank or is unchanged. */
+    static SimilarListings insert(SimilarListings list, String id, float distance, int size) {
+        List<String> ids = new ArrayList<>(list.getNeighbourIds());
+        List<Float> distances = new ArrayList<>(list.getDistances());
+        int existing = ids.indexOf(id);
+        if (existing >= 0) {
+            if (distances.get(existing) == distance) {
+                return null;
+            }
+            ids.remove(existing);
+            distances.remove(existing);
+        } else if (ids.size() >= size && distance >= distances.get(ids.size() - 1)) {
+            return null;
+        }
+        int position = 0;
+        while (position < distances.size() && distances.get(position) <= distance) {
+            position++;
+        }
+        if (position >= size) {
+            // an existing entry moved out of range; keep it until the next full recompute
+            return null;
+        }
+        ids.add(position, id);
+        distances.add(position, distance);
+        while (ids.size() > size) {
+            ids.remove(ids.size() - 1);
+            distances.remove(distances.size() - 1);
+        }
+        return SimilarListings.builder()
+                .listingId(list.getListingId())
+                .neighbourIds(ids)
+                .distances(distances)
+                .computedAt(list.getComputedAt())
+                .build();
+    }
+
+    private void refresh() {
+        try {
+            // Both claims write the rows they return, so each replica works on a different batch
+            List<String> missing = similarRepository.claimMissing(config.getRefreshBatch());
+            for (String listingId : missing) {
+                recompute(listingId, "missing").ifPresent(this::mergeIntoNeighbours);
+            }
+            LocalDateTime cutoff = LocalDateTime.now().minus(config.getMaxAge());
+            List<String> outdated = similarRepository.claimComputedBefore(cutoff, config.getRefreshBatch());
+            for (String listingId : outdated) {
+                recompute(listingId, "outdated");
+            }
+            if (!missing.isEmpty() || !outdated.isEmpty()) {
+                log.debug("Computed similar listings of {} new and {} outdated listings", missing.size(), outdated.size());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh similar listings: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,168 @@
+package com.sharefair.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sharefair.config.RecommendationProperties;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.entity.TasteVector;
+import com.sharefair.event.TransactionCompletedEvent;
+import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.TasteVectorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maintains per-user taste vectors in {@code user_taste_vectors}: the time-decayed weighted
+ * average of the embeddings of listings the user borrowed, lent or viewed.
+ * <p>
+ * Each signal is folded in incrementally: the stored average keeps its direction, its weight
+ * decays by half every {@code halfLife} since the last update, and the new embedding is added
+ * with the signal's weight. Transactions are recorded by {@link RecommendationMaterializer}
+ * before it rebuilds the participants' feeds; views are recorded on a bounded background queue
+ * and dropped when it is full.
+ */
+@Service
+public class TasteVectorService {
+
+    private static final Logger log = LoggerFactory.getLogger(TasteVectorService.class);
+    private static final String METRIC = "sharefair.recommendations.taste.updates";
+
+    private final TasteVectorRepository tasteVectorRepository;
+    private final ListingRepository listingRepository;
+    private final RecommendationProperties.Taste config;
+
+    private final ThreadPoolExecutor viewRecorder;
+    private final Cache<String, Boolean> recentViews;
+    private final MeterRegistry meterRegistry;
+
+    public TasteVectorService(TasteVectorRepository tasteVectorRepository,
+                              ListingRepository listingRepository,
+                              RecommendationProperties recommendationProperties,
+                              MeterRegistry meterRegistry) {
+        this.tasteVectorRepository = tasteVectorRepository;
+        this.listingRepository = listingRepository;
+        this.config = recommendationProperties.getTaste();
+        this.meterRegistry = meterRegistry;
+        this.viewRecorder = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getViewQueue())), named("taste-view"),
+                (task, executor) -> count("view_dropped"));
+        this.recentViews = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(config.getViewDedupe())
+                .build();
+    }
+
+    public Optional<float[]> find(String userId) {
+        if (!config.isEnabled()) {
+            return Optional.empty();
+        }
+        return tasteVectorRepository.findByUserId(userId).map(TasteVector::getEmbedding);
+    }
+
+    /** Folds the transacted listing into the borrower's and the owner's taste vectors. */
+    public void recordTransaction(TransactionCompletedEvent event) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        float[] embedding = embedding(event.getListingId());
+        if (embedding == null) {
+            count("skipped");
+            return;
+        }
+        record(event.getBorrowerId(), embedding, config.getBorrowWeight(), "borrow");
+        record(event.getOwnerId(), embedding, config.getLendWeight(), "lend");
+    }
+
+    /** Queues a view of a listing by a signed-in user; repeated views within {@code viewDedupe} count once. */
+    public void recordView(String userId, String listingId) {
+        if (!config.isEnabled() || userId == null
+                || recentViews.asMap().putIfAbsent(userId + ":" + listingId, Boolean.TRUE) != null) {
+            return;
+        }
+        viewRecorder.execute(() -> {
+            try {
+                float[] embedding = embedding(listingId);
+                if (embedding == null) {
+                    count("skipped");
+                    return;
+                }
+                record(userId, embedding, config.getViewWeight(), "view");
+            } catch (Exception e) {
+                log.warn("Failed to record view of listing {} by user {}: {}", listingId, userId, e.getMessage());
+            }
+        });
+    }
+
+    private void record(String userId, float[] embedding, double weight, String signal) {
+        if (userId == null || weight <= 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        tasteVectorRepository.update(userId, current -> merge(current, userId, embedding, weight,
+                config.getHalfLife(), now));
+        count(signal);
+    }
+
+    private float[] embedding(String listingId) {
+        return listingRepository.findEmbeddingById(listingId)
+                .map(ListingEmbedding::getEmbedding)
+                .orElse(null);
+    }
+
+    /**
+     * The stored average decayed to {@code now} and combined with {@code embedding} at
+     * {@code weight}. A vector of another dimension (after a model change) is discarded.
+     */
+    static TasteVector merge(TasteVector current, String userId, float[] embedding, double weight,
+                             Duration halfLife, LocalDateTime now) {
+        double previous = 0;
+        if (current != null && current.getEmbedding() != null
+                && current.getEmbedding().length == embedding.length && current.getUpdatedAt() != null) {
+            double elapsed = Math.max(0, Duration.between(current.getUpdatedAt(), now).toMillis());
+            previous = current.getWeight() * Math.pow(0.5, elapsed / halfLife.toMillis());
+        }
+        double total = previous + weight;
+        float[] merged = new float[embedding.length];
+        for (int i = 0; i < merged.length; i++) {
+            double old = previous > 0 ? current.getEmbedding()[i] * previous : 0;
+            merged[i] = (float) ((old + embedding[i] * weight) / total);
+        }
+        return TasteVector.builder()
+                .userId(userId)
+                .embedding(merged)
+                .weight(total)
+                .updatedAt(now)
+                .build();
+    }
+
+    private void count(String signal) {
+        Counter.builder(METRIC).tag("signal", signal).register(meterRegistry).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        viewRecorder.shutdownNow();
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -5,12 +5,14 @@ import com.sharefair.dto.TransactionDto;
 import com.sharefair.entity.Listing;
 import com.sharefair.entity.Transaction;
 import com.sharefair.entity.User;
+import com.sharefair.event.TransactionCompletedEvent;
 import com.sharefair.exception.ResourceNotFoundException;
 import com.sharefair.repository.ListingRepository;
 import com.sharefair.repository.TransactionRepository;
 import com.sharefair.repository.UserRepository;
 import org.jooq.DSLContext;
 import org.jooq.impl.DSL;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
@@ -34,6 +36,7 @@ public class TransactionService {
     private final CarbonService carbonService;
     private final TrustScoreService trustScoreService;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TransactionService(TransactionRepository transactionRepository,
                               ListingRepository listingRepository,
@@ -41,7 +44,8 @@ public class TransactionService {
                               DSLContext dsl,
                               CarbonService carbonService,
                               TrustScoreService trustScoreService,
-                              NotificationService notificationService) {
+                              NotificationService notificationService,
+                              ApplicationEventPublisher eventPublisher) {
         this.transactionRepository = transactionRepository;
         this.listingRepository = listingRepository;
         this.userRepository = userRepository;
@@ -49,6 +53,7 @@ public class TransactionService {
         this.carbonService = carbonService;
         this.trustScoreService = trustScoreService;
         this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
     }
 
     public TransactionDto createTransaction(CreateTransactionRequest request, String borrowerId) {
@@ -154,6 +159,8 @@ public class TransactionService {
             carbonService.createCarbonRecord(id);
             trustScoreService.recalculateTrustScore(tx.getBorrowerId());
             trustScoreService.recalculateTrustScore(tx.getOwnerId());
+            eventPublisher.publishEvent(new TransactionCompletedEvent(
+                    id, tx.getListingId(), tx.getBorrowerId(), tx.getOwnerId()));
         }
 
         String listingTitle = listingRepository.findById(tx.getListingId())
@@ -0,0 +1,91 @@
+package com.sharefair.service;
+
+/**
+ * Dot-product kernel for embedding vectors.
+ * <p>
+ * Uses the Panama vector API ({@code jdk.incubator.vector}) when the build includes the SIMD kernel
+ * (the {@code simd} Maven profile, as the Dockerfile builds) and the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, and a scalar loop otherwise. Both produce the same
+ * result up to float rounding.
+ */
+public final class VectorMath {
+
+    private static final String SIMD_KERNEL = "com.sharefair.service.SimdVectorMath";
+    private static final Kernel KERNEL = loadKernel();
+
+    private VectorMath() {
+    }
+
+    public static boolean simdAvailable() {
+        return !(KERNEL instanceof ScalarKernel);
+    }
+
+    /** Dot product of {@code a[aOffset, aOffset + length)} and {@code b[bOffset, bOffset + length)}. */
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        return KERNEL.dot(a, aOffset, b, bOffset, length);
+    }
+
+    public static float dot(float[] a, float[] b) {
+        return dot(a, 0, b, 0, Math.min(a.length, b.length));
+    }
+
+    /** Dot product of {@code weights[0, length)} and the signed bytes {@code codes[codeOffset, codeOffset + length)}. */
+    public static float dot(float[] weights, byte[] codes, int codeOffset, int length) {
+        return KERNEL.dot(weights, codes, codeOffset, length);
+    }
+
+    public static float dotScalar(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float dot = 0f;
+        for (int i = 0; i < length; i++) {
+            dot += a[aOffset + i] * b[bOffset + i];
+        }
+        return dot;
+    }
+
+    /** Copy of {@code vector} scaled to unit length, so that a dot product is a cosine similarity. */
+    public static float[] normalize(float[] vector) {
+        float[] normalized = new float[vector.length];
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float scale = norm > 0 ? (float) (1.0 / Math.sqrt(norm)) : 0f;
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private static Kernel loadKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (Kernel) Class.forName(SIMD_KERNEL).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // built without the simd profile
+            }
+        }
+        return new ScalarKernel();
+    }
+
+    interface Kernel {
+        float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+        float dot(float[] weights, byte[] codes, int codeOffset, int length);
+    }
+
+    private static final class ScalarKernel implements Kernel {
+        @Override
+        public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+            return dotScalar(a, aOffset, b, bOffset, length);
+        }
+
+        @Override
+        public float dot(float[] weights, byte[] codes, int codeOffset, int length) {
+            float dot = 0f;
+            for (int i = 0; i < length; i++) {
+                dot += weights[i] * codes[codeOffset + i];
+            }
+            return dot;
+        }
+    }
+}
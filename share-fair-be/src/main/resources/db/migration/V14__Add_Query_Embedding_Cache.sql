@@ -0,0 +1,13 @@
+-- Persistent tier of the query-embedding cache, shared by all API replicas.
+-- query_hash is the SHA-256 hex of "<embedding model>\n<normalized query text>", so a model
+-- change never serves vectors produced by the previous model.
+
+CREATE TABLE IF NOT EXISTS query_embeddings (
+    query_hash    VARCHAR(64) PRIMARY KEY,
+    query_text    TEXT        NOT NULL,
+    embedding     vector(384) NOT NULL,
+    created_at    TIMESTAMP   NOT NULL DEFAULT NOW(),
+    last_used_at  TIMESTAMP   NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_query_embeddings_last_used_at ON query_embeddings(last_used_at);
@@ -0,0 +1,20 @@
+-- Full-text keyword search over listings.
+-- search_vector weights title (A) above category (B) above description (C). Each field is indexed
+-- with both the 'english' configuration (stemmed) and 'simple' (unstemmed), which is what covers
+-- Ukrainian text since PostgreSQL ships no Ukrainian stemmer. Queries OR the two configurations.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE listings ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(category, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce(category, '')), 'B') ||
+    setweight(to_tsvector('english', coalesce(description, '')), 'C') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+) STORED;
+
+CREATE INDEX idx_listings_search_vector ON listings USING gin (search_vector);
+
+-- Trigram index on title for typo-tolerant and partial-word matching (word_similarity, ILIKE).
+CREATE INDEX idx_listings_title_trgm ON listings USING gin (title gin_trgm_ops);
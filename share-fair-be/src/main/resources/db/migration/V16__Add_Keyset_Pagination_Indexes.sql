@@ -0,0 +1,9 @@
+-- Composite indexes matching the keyset orderings (sort key, then id as tiebreaker), so
+-- "WHERE (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT n" is an index range scan
+-- instead of a sort of every matching row.
+
+CREATE INDEX IF NOT EXISTS idx_listings_available_created_id ON listings(created_at DESC, id DESC) WHERE available = TRUE;
+CREATE INDEX IF NOT EXISTS idx_listings_available_price_id ON listings(price, id) WHERE available = TRUE;
+
+CREATE INDEX IF NOT EXISTS idx_notifications_user_created_id ON notifications(user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_messages_conversation_created_id ON messages(conversation_id, created_at DESC, id DESC);
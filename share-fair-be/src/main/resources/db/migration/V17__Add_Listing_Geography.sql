@@ -0,0 +1,14 @@
+-- Maintained geography point for radius search.
+-- idx_listings_location indexes the geometry expression ST_MakePoint(longitude, latitude), which
+-- the planner cannot use for the geography casts in ST_DWithin/ST_Distance, so radius queries
+-- scanned every row. The generated column is kept in sync by Postgres on every insert/update of
+-- latitude/longitude, and its GiST index serves both the ST_DWithin filter and KNN (<->) ordering.
+
+ALTER TABLE listings ADD COLUMN location geography(Point, 4326)
+    GENERATED ALWAYS AS (ST_SetSRID(ST_MakePoint(longitude, latitude), 4326)::geography) STORED;
+
+CREATE INDEX idx_listings_location_geog ON listings USING gist (location);
+
+DROP INDEX IF EXISTS idx_listings_location;
+
+ANALYZE listings;
@@ -0,0 +1,83 @@
+-- Precomputed map clusters.
+-- For every web-mercator tile level from 2 to 18, listing_map_cells holds one row per non-empty
+-- tile (the usual slippy-map x/y grid, so a tile's quadkey follows from level/x/y): how many
+-- available listings it contains and the sums of their coordinates, from which the cluster's
+-- centroid is derived. A viewport query is one primary-key range scan at a single level.
+-- The table is maintained by a trigger on listings, so each listing write touches 17 rows.
+
+CREATE TABLE listing_map_cells (
+    level SMALLINT NOT NULL,
+    x INTEGER NOT NULL,
+    y INTEGER NOT NULL,
+    listing_count INTEGER NOT NULL,
+    sum_latitude DOUBLE PRECISION NOT NULL,
+    sum_longitude DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (level, x, y)
+);
+
+-- Tile column/row of a coordinate; must stay in step with MapTiles on the Java side.
+CREATE FUNCTION map_tile_x(lng DOUBLE PRECISION, lvl INTEGER) RETURNS INTEGER
+    LANGUAGE sql IMMUTABLE STRICT AS $$
+    SELECT LEAST(GREATEST(floor((lng + 180.0) / 360.0 * (1 << lvl))::int, 0), (1 << lvl) - 1)
+$$;
+
+CREATE FUNCTION map_tile_y(lat DOUBLE PRECISION, lvl INTEGER) RETURNS INTEGER
+    LANGUAGE sql IMMUTABLE STRICT AS $$
+    SELECT LEAST(GREATEST(floor((1.0 - ln(tan(r) + 1.0 / cos(r)) / pi()) / 2.0 * (1 << lvl))::int, 0),
+                 (1 << lvl) - 1)
+    FROM (SELECT radians(GREATEST(LEAST(lat, 85.05112878), -85.05112878)) AS r) clamped
+$$;
+
+CREATE FUNCTION listing_map_cells_adjust(lat DOUBLE PRECISION, lng DOUBLE PRECISION, delta INTEGER)
+    RETURNS void LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO listing_map_cells AS c (level, x, y, listing_count, sum_latitude, sum_longitude)
+    SELECT lvl, map_tile_x(lng, lvl), map_tile_y(lat, lvl), delta, delta * lat, delta * lng
+    FROM generate_series(2, 18) AS lvl
+    ON CONFLICT (level, x, y) DO UPDATE SET
+        listing_count = c.listing_count + EXCLUDED.listing_count,
+        sum_latitude = c.sum_latitude + EXCLUDED.sum_latitude,
+        sum_longitude = c.sum_longitude + EXCLUDED.sum_longitude;
+
+    IF delta < 0 THEN
+        DELETE FROM listing_map_cells c
+        USING generate_series(2, 18) AS lvl
+        WHERE c.level = lvl
+          AND c.x = map_tile_x(lng, lvl)
+          AND c.y = map_tile_y(lat, lvl)
+          AND c.listing_count <= 0;
+    END IF;
+END
+$$;
+
+CREATE FUNCTION listings_map_cells_sync() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+        AND OLD.latitude = NEW.latitude
+        AND OLD.longitude = NEW.longitude
+        AND COALESCE(OLD.available, false) = COALESCE(NEW.available, false) THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        IF COALESCE(OLD.available, false) THEN
+            PERFORM listing_map_cells_adjust(OLD.latitude, OLD.longitude, -1);
+        END IF;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        IF COALESCE(NEW.available, false) THEN
+            PERFORM listing_map_cells_adjust(NEW.latitude, NEW.longitude, 1);
+        END IF;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_listings_map_cells
+    AFTER INSERT OR DELETE OR UPDATE OF latitude, longitude, available ON listings
+    FOR EACH ROW EXECUTE FUNCTION listings_map_cells_sync();
+
+INSERT INTO listing_map_cells (level, x, y, listing_count, sum_latitude, sum_longitude)
+SELECT lvl, map_tile_x(longitude, lvl), map_tile_y(latitude, lvl), count(*), sum(latitude), sum(longitude)
+FROM listings, generate_series(2, 18) AS lvl
+WHERE available = true
+GROUP BY 1, 2, 3;
@@ -0,0 +1,5 @@
+-- SHA-256 (hex) of the text the stored embedding was computed from, so a listing is only
+-- re-embedded when its title, description or category actually change. Existing embeddings
+-- have no fingerprint and are recomputed once on their next edit.
+
+ALTER TABLE listings ADD COLUMN embedding_fingerprint CHAR(64);
@@ -0,0 +1,53 @@
+-- Durable embedding job queue (transactional outbox).
+-- A trigger on listings enqueues a job in the same transaction as any insert or any update of
+-- the embedded text (title, description, category), so a committed listing write can no longer
+-- lose its embedding to a pod restart or an unavailable model. There is one row per listing:
+-- a second write before the job runs only bumps its generation.
+--
+-- Workers on every replica claim ready rows with FOR UPDATE SKIP LOCKED and hold them under a
+-- lease (locked_until); a worker that dies mid-job releases its rows when the lease expires.
+-- A finished job is deleted only if its generation is unchanged, otherwise it is run again.
+-- Failures are retried with backoff and end in state DEAD after the configured attempts; the
+-- next edit of the listing (or an explicit requeue) revives a dead job. Listings that predate
+-- this table and have no embedding are left to the bulk backfill.
+
+CREATE TABLE embedding_jobs (
+    listing_id UUID PRIMARY KEY REFERENCES listings(id) ON DELETE CASCADE,
+    state VARCHAR(10) NOT NULL DEFAULT 'PENDING' CHECK (state IN ('PENDING', 'RUNNING', 'DEAD')),
+    generation INTEGER NOT NULL DEFAULT 1,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    locked_by VARCHAR(100),
+    locked_until TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_embedding_jobs_ready ON embedding_jobs (available_at) WHERE state = 'PENDING';
+CREATE INDEX idx_embedding_jobs_lease ON embedding_jobs (locked_until) WHERE state = 'RUNNING';
+
+CREATE FUNCTION listings_enqueue_embedding() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+        AND OLD.title IS NOT DISTINCT FROM NEW.title
+        AND OLD.description IS NOT DISTINCT FROM NEW.description
+        AND OLD.category IS NOT DISTINCT FROM NEW.category THEN
+        RETURN NULL;
+    END IF;
+    INSERT INTO embedding_jobs AS j (listing_id) VALUES (NEW.id)
+    ON CONFLICT (listing_id) DO UPDATE SET
+        generation = j.generation + 1,
+        state = CASE WHEN j.state = 'RUNNING' THEN 'RUNNING' ELSE 'PENDING' END,
+        attempts = CASE WHEN j.state = 'RUNNING' THEN j.attempts ELSE 0 END,
+        available_at = NOW(),
+        last_error = NULL,
+        updated_at = NOW();
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_listings_embedding_jobs
+    AFTER INSERT OR UPDATE OF title, description, category ON listings
+    FOR EACH ROW EXECUTE FUNCTION listings_enqueue_embedding();
+
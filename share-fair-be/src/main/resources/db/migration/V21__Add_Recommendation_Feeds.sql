@@ -0,0 +1,17 @@
+-- Materialized per-user recommendation feeds.
+-- One row per user who has asked for recommendations: the categories the feed was built from
+-- (those of the user's completed transactions) and the ranked listing ids, newest matching
+-- listings first, topped up with popular ones. Users without completed transactions get a row
+-- with no categories and no ids and are served the shared popular list.
+-- Rows are rebuilt when the user completes a transaction and periodically once older than the
+-- configured maximum age; a new listing is prepended to every feed whose categories contain it.
+
+CREATE TABLE recommendation_feeds (
+    user_id UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    categories TEXT[] NOT NULL DEFAULT '{}',
+    listing_ids UUID[] NOT NULL DEFAULT '{}',
+    computed_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_recommendation_feeds_categories ON recommendation_feeds USING gin (categories);
+CREATE INDEX idx_recommendation_feeds_computed_at ON recommendation_feeds (computed_at);
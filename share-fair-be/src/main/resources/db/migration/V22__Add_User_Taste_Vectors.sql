@@ -0,0 +1,13 @@
+-- Per-user taste vectors for embedding-based recommendations, one row per user like trust_scores
+-- (kept in their own table so that a taste vector does not create a trust score for users
+-- who have not completed a transaction yet).
+-- embedding is the time-decayed weighted average of the embeddings of listings the user
+-- borrowed, lent or viewed; weight is the decayed total weight behind it as of updated_at.
+-- Rows are updated incrementally by the application, one signal at a time.
+
+CREATE TABLE user_taste_vectors (
+    user_id UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    embedding vector(384) NOT NULL,
+    weight DOUBLE PRECISION NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,5 @@
+-- Keyset scan of distinct (borrower, listing) pairs of completed transactions, used to rebuild
+-- the in-memory item-item co-occurrence model.
+
+CREATE INDEX idx_transactions_completed_borrows ON transactions (borrower_id, listing_id)
+    WHERE status = 'COMPLETED';
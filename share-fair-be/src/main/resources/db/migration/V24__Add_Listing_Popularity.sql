@@ -0,0 +1,18 @@
+-- Time-decayed listing popularity, fed by detail views and completed transactions.
+-- log_score is a forward-decayed score: every event adds ln(weight) + t / half_life * ln(2)
+-- (t in seconds since the Unix epoch) by log-sum-exp, so ordering by log_score ranks listings by
+-- their decayed popularity at any point in time and the index never needs rewriting as time
+-- passes. score is that popularity decayed to the last flush or decay pass, rounded, for
+-- consumers that need an absolute weight (autocomplete). views and transactions are raw totals.
+
+CREATE TABLE listing_popularity (
+    listing_id UUID PRIMARY KEY REFERENCES listings(id) ON DELETE CASCADE,
+    log_score DOUBLE PRECISION NOT NULL,
+    score BIGINT NOT NULL DEFAULT 0,
+    views BIGINT NOT NULL DEFAULT 0,
+    transactions BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_listing_popularity_rank ON listing_popularity (log_score DESC);
+CREATE INDEX idx_listing_popularity_score ON listing_popularity (score) WHERE score > 0;
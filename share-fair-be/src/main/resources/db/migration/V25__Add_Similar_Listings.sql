@@ -0,0 +1,13 @@
+-- Precomputed "similar items" per listing: the ids of its nearest active listings by embedding
+-- cosine distance, nearest first, with the distances. Rows are recomputed when the listing's
+-- embedding changes, a listing is merged into its neighbours' rows when it is nearer than
+-- their farthest entry, and rows older than the configured maximum age are rebuilt.
+
+CREATE TABLE similar_listings (
+    listing_id UUID PRIMARY KEY REFERENCES listings(id) ON DELETE CASCADE,
+    neighbour_ids UUID[] NOT NULL,
+    distances REAL[] NOT NULL,
+    computed_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_similar_listings_computed_at ON similar_listings (computed_at);
@@ -0,0 +1,5 @@
+-- Keyset orderings of the unfiltered listing catalog (GET /api/v1/listings). The V16 indexes only
+-- cover available listings, so without these every catalog page sorts the whole table.
+
+CREATE INDEX IF NOT EXISTS idx_listings_created_id ON listings(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_listings_price_id ON listings(price, id);
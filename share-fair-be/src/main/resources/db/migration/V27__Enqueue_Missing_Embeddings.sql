@@ -0,0 +1,7 @@
+-- Listings that predate the embedding job queue (V20) and still have no embedding are queued
+-- once here, so they are embedded by the job workers (claimed once across replicas) instead of
+-- by a backfill started on every application start. Listings that already have a job keep it.
+
+INSERT INTO embedding_jobs (listing_id)
+SELECT id FROM listings WHERE embedding IS NULL
+ON CONFLICT (listing_id) DO NOTHING;
@@ -0,0 +1,80 @@
+-- Move listing_map_cells maintenance out of listing writes.
+-- The V18 trigger upserted 17 tile rows inside every listing write. The coarse levels are a few
+-- global rows, so concurrent writes to available listings serialized on them until commit, and
+-- a move (-1 on the old cell, +1 on the new one) could deadlock with a move the other way.
+--
+-- The trigger now only appends the signed change to listing_map_cell_deltas, which takes no
+-- shared row locks. listing_map_cells_apply_deltas() folds a batch of deltas into every level in
+-- one statement, in (level, x, y) order, under a transaction-scoped advisory lock so a single
+-- caller at a time writes the cells. The application calls it every few seconds, so clusters
+-- lag listing writes by about that much.
+
+CREATE TABLE listing_map_cell_deltas (
+    id BIGSERIAL PRIMARY KEY,
+    latitude DOUBLE PRECISION NOT NULL,
+    longitude DOUBLE PRECISION NOT NULL,
+    delta SMALLINT NOT NULL
+);
+
+CREATE INDEX idx_listing_map_cells_empty ON listing_map_cells (level) WHERE listing_count <= 0;
+
+CREATE OR REPLACE FUNCTION listings_map_cells_sync() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+        AND OLD.latitude = NEW.latitude
+        AND OLD.longitude = NEW.longitude
+        AND COALESCE(OLD.available, false) = COALESCE(NEW.available, false) THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') AND COALESCE(OLD.available, false) THEN
+        INSERT INTO listing_map_cell_deltas (latitude, longitude, delta) VALUES (OLD.latitude, OLD.longitude, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND COALESCE(NEW.available, false) THEN
+        INSERT INTO listing_map_cell_deltas (latitude, longitude, delta) VALUES (NEW.latitude, NEW.longitude, 1);
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+DROP FUNCTION listing_map_cells_adjust(DOUBLE PRECISION, DOUBLE PRECISION, INTEGER);
+
+-- Applies up to batch_size of the oldest deltas and returns how many were applied; 0 when
+-- another transaction is applying deltas at the same time.
+CREATE FUNCTION listing_map_cells_apply_deltas(batch_size INTEGER) RETURNS INTEGER
+    LANGUAGE plpgsql AS $$
+DECLARE
+    applied INTEGER;
+BEGIN
+    IF NOT pg_try_advisory_xact_lock(hashtext('listing_map_cells')) THEN
+        RETURN 0;
+    END IF;
+
+    WITH claimed AS (
+        DELETE FROM listing_map_cell_deltas d
+        USING (SELECT id FROM listing_map_cell_deltas ORDER BY id LIMIT batch_size) batch
+        WHERE d.id = batch.id
+        RETURNING d.latitude, d.longitude, d.delta
+    ), changes AS (
+        SELECT lvl AS level, map_tile_x(longitude, lvl) AS x, map_tile_y(latitude, lvl) AS y,
+               sum(delta)::int AS listing_count,
+               sum(delta * latitude) AS sum_latitude,
+               sum(delta * longitude) AS sum_longitude
+        FROM claimed, generate_series(2, 18) AS lvl
+        GROUP BY 1, 2, 3
+    ), upserted AS (
+        INSERT INTO listing_map_cells AS c (level, x, y, listing_count, sum_latitude, sum_longitude)
+        SELECT level, x, y, listing_count, sum_latitude, sum_longitude
+        FROM changes
+        ORDER BY level, x, y
+        ON CONFLICT (level, x, y) DO UPDATE SET
+            listing_count = c.listing_count + EXCLUDED.listing_count,
+            sum_latitude = c.sum_latitude + EXCLUDED.sum_latitude,
+            sum_longitude = c.sum_longitude + EXCLUDED.sum_longitude
+        RETURNING 1
+    )
+    SELECT count(*) INTO applied FROM claimed;
+
+    DELETE FROM listing_map_cells WHERE listing_count <= 0;
+    RETURN applied;
+END
+$$;
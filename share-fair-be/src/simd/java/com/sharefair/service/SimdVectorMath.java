@@ -0,0 +1,56 @@
+package com.sharefair.service;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernels. Compiled only by the {@code simd} Maven profile, and only loaded once
+ * {@link VectorMath} has checked that the incubator module is present, so the scalar fallback
+ * keeps working on builds and JVMs without it.
+ */
+final class SimdVectorMath implements VectorMath.Kernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    /** Bytes with the same lane count as {@link #SPECIES}, widened to floats lane by lane. */
+    private static final VectorSpecies<Byte> BYTE_SPECIES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(SPECIES.length() * Byte.SIZE));
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            // mul + add rather than fma: fma falls back to a slow path on CPUs without it
+            sum = sum.add(va.mul(vb));
+        }
+        float dot = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            dot += a[aOffset + i] * b[bOffset + i];
+        }
+        return dot;
+    }
+
+    @Override
+    public float dot(float[] weights, byte[] codes, int codeOffset, int length) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector w = FloatVector.fromArray(SPECIES, weights, i);
+            FloatVector c = (FloatVector) ByteVector.fromArray(BYTE_SPECIES, codes, codeOffset + i)
+                    .convertShape(VectorOperators.B2F, SPECIES, 0);
+            sum = sum.add(w.mul(c));
+        }
+        float dot = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            dot += weights[i] * codes[codeOffset + i];
+        }
+        return dot;
+    }
+}
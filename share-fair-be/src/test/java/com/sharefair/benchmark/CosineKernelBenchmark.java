@@ -0,0 +1,90 @@
+package com.sharefair.benchmark;
+
+import com.sharefair.service.VectorMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the exact re-ranking stage's kernel: scoring one query against {@code candidates}
+ * cached 384-dimensional embeddings, with the vector API kernel used by {@link VectorMath#dot}
+ * versus the plain scalar loop. Run after {@code mvn test-compile}:
+ * <pre>
+ * java --add-modules jdk.incubator.vector \
+ *      -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *      com.sharefair.benchmark.CosineKernelBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class CosineKernelBenchmark {
+
+    private static final int DIMENSIONS = 384;
+
+    @Param({"100", "1000"})
+    public int candidates;
+
+    private float[] query;
+    private float[][] vectors;
+    private float[] scores;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        query = VectorMath.normalize(randomVector(random));
+        vectors = new float[candidates][];
+        for (int i = 0; i < candidates; i++) {
+            vectors[i] = VectorMath.normalize(randomVector(random));
+        }
+        scores = new float[candidates];
+    }
+
+    @Benchmark
+    public float[] scalar() {
+        for (int i = 0; i < candidates; i++) {
+            scores[i] = VectorMath.dotScalar(query, 0, vectors[i], 0, DIMENSIONS);
+        }
+        return scores;
+    }
+
+    @Benchmark
+    public float[] simd() {
+        for (int i = 0; i < candidates; i++) {
+            scores[i] = VectorMath.dot(query, 0, vectors[i], 0, DIMENSIONS);
+        }
+        return scores;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CosineKernelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
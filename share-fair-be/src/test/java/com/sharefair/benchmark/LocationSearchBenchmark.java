@@ -0,0 +1,181 @@
+package com.sharefair.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Radius search latency (5 km, nearest 20) against PostGIS at 100k and 1M listings: the old
+ * per-row {@code ST_MakePoint(longitude, latitude)::geography} query versus the indexed
+ * {@code location} column with KNN ordering used by {@code ListingRepositoryImpl.findByLocation}.
+ * <p>
+ * Needs a PostGIS database; the benchmark creates and fills its own {@code bench_location} schema
+ * (kept between runs, re-seeded when the row count changes). Run after {@code mvn test-compile}:
+ * <pre>
+ * java -Dbenchmark.jdbcUrl=jdbc:postgresql://localhost:5432/sharefair \
+ *      -Dbenchmark.user=sharefair -Dbenchmark.password=sharefair \
+ *      -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     com.sharefair.benchmark.LocationSearchBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocationSearchBenchmark {
+
+    private static final String SCHEMA = "bench_location";
+    private static final double RADIUS_METERS = 5_000;
+    private static final int LIMIT = 20;
+
+    // Listings spread over roughly the area of Switzerland
+    private static final double MIN_LAT = 45.8, MAX_LAT = 47.8;
+    private static final double MIN_LNG = 5.9, MAX_LNG = 10.5;
+
+    private static final String LEGACY_SQL = """
+            SELECT id, ST_Distance(ST_MakePoint(?, ?)::geography, ST_MakePoint(longitude, latitude)::geography) AS d
+            FROM bench_location.listings
+            WHERE available = true
+              AND ST_DWithin(ST_MakePoint(longitude, latitude)::geography, ST_MakePoint(?, ?)::geography, ?)
+            ORDER BY d
+            LIMIT ?""";
+
+    private static final String INDEXED_SQL = """
+            SELECT id, location <-> ST_SetSRID(ST_MakePoint(?, ?), 4326)::geography AS d
+            FROM bench_location.listings
+            WHERE available = true
+              AND ST_DWithin(location, ST_SetSRID(ST_MakePoint(?, ?), 4326)::geography, ?, false)
+            ORDER BY d, id
+            LIMIT ?""";
+
+    @Param({"100000", "1000000"})
+    public int listings;
+
+    private Connection connection;
+    private PreparedStatement legacy;
+    private PreparedStatement indexed;
+    private final Random random = new Random(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbcUrl", "jdbc:postgresql://localhost:5432/sharefair"),
+                System.getProperty("benchmark.user", "sharefair"),
+                System.getProperty("benchmark.password", "sharefair"));
+        seed();
+        legacy = connection.prepareStatement(LEGACY_SQL);
+        indexed = connection.prepareStatement(INDEXED_SQL);
+    }
+
+    private void seed() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE EXTENSION IF NOT EXISTS postgis");
+            st.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+            st.execute("""
+                    CREATE TABLE IF NOT EXISTS bench_location.listings (
+                        id UUID PRIMARY KEY,
+                        latitude DOUBLE PRECISION NOT NULL,
+                        longitude DOUBLE PRECISION NOT NULL,
+                        available BOOLEAN NOT NULL,
+                        location geography(Point, 4326) GENERATED ALWAYS AS
+                            (ST_SetSRID(ST_MakePoint(longitude, latitude), 4326)::geography) STORED
+                    )""");
+            try (ResultSet rs = st.executeQuery("SELECT count(*) FROM bench_location.listings")) {
+                rs.next();
+                if (rs.getLong(1) == listings) {
+                    return;
+                }
+            }
+            st.execute("TRUNCATE bench_location.listings");
+            st.execute("SELECT setseed(0.42)");
+            st.execute(String.format(Locale.ROOT, """
+                    INSERT INTO bench_location.listings (id, latitude, longitude, available)
+                    SELECT gen_random_uuid(), %f + random() * %f, %f + random() * %f, random() < 0.9
+                    FROM generate_series(1, %d)""",
+                    MIN_LAT, MAX_LAT - MIN_LAT, MIN_LNG, MAX_LNG - MIN_LNG, listings));
+            // The same two indexes production has before and after V17
+            st.execute("CREATE INDEX IF NOT EXISTS bench_listings_expr ON bench_location.listings "
+                    + "USING gist (ST_MakePoint(longitude, latitude))");
+            st.execute("CREATE INDEX IF NOT EXISTS bench_listings_geog ON bench_location.listings USING gist (location)");
+            st.execute("ANALYZE bench_location.listings");
+        }
+    }
+
+    @Benchmark
+    public int legacyRadiusSearch() throws SQLException {
+        double lat = randomLat(), lng = randomLng();
+        legacy.setDouble(1, lng);
+        legacy.setDouble(2, lat);
+        legacy.setDouble(3, lng);
+        legacy.setDouble(4, lat);
+        legacy.setDouble(5, RADIUS_METERS);
+        legacy.setInt(6, LIMIT);
+        return drain(legacy);
+    }
+
+    @Benchmark
+    public int indexedKnnRadiusSearch() throws SQLException {
+        double lat = randomLat(), lng = randomLng();
+        indexed.setDouble(1, lng);
+        indexed.setDouble(2, lat);
+        indexed.setDouble(3, lng);
+        indexed.setDouble(4, lat);
+        indexed.setDouble(5, RADIUS_METERS);
+        indexed.setInt(6, LIMIT);
+        return drain(indexed);
+    }
+
+    private double randomLat() {
+        return MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+    }
+
+    private double randomLng() {
+        return MIN_LNG + random.nextDouble() * (MAX_LNG - MIN_LNG);
+    }
+
+    private static int drain(PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LocationSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
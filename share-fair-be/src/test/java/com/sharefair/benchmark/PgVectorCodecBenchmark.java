@@ -0,0 +1,95 @@
+package com.sharefair.benchmark;
+
+import com.pgvector.PGvector;
+import com.sharefair.repository.impl.JooqUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side cost of moving one embedding over the wire: the old {@code "[0.1,...]"} text
+ * literal versus pgvector's binary format used by {@code PgVectorBinding}. Encode is what a
+ * query or update pays per vector, decode is what every row read pays. The server-side text
+ * parse that the binary path also avoids is not included.
+ * <p>
+ * Run after {@code mvn test-compile}:
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     com.sharefair.benchmark.PgVectorCodecBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PgVectorCodecBenchmark {
+
+    @Param({"384"})
+    public int dimensions;
+
+    private float[] vector;
+    private byte[] textBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        textBytes = JooqUtils.toVectorString(vector).getBytes(StandardCharsets.UTF_8);
+        PGvector pg = new PGvector(vector);
+        binaryBytes = new byte[pg.lengthInBytes()];
+        pg.toBytes(binaryBytes, 0);
+    }
+
+    @Benchmark
+    public byte[] encodeText() {
+        return JooqUtils.toVectorString(vector).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        PGvector pg = new PGvector(vector);
+        byte[] bytes = new byte[pg.lengthInBytes()];
+        pg.toBytes(bytes, 0);
+        return bytes;
+    }
+
+    @Benchmark
+    public float[] decodeText() {
+        return JooqUtils.parseVector(new String(textBytes, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public float[] decodeBinary() throws SQLException {
+        PGvector pg = new PGvector();
+        pg.setByteValue(binaryBytes, 0);
+        return pg.toArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PgVectorCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,156 @@
+package com.sharefair.benchmark;
+
+import com.sharefair.service.QuantizedVectorStore;
+import com.sharefair.service.VectorMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First pass over quantized codes plus exact re-rank of the best 100, for the store encodings
+ * {@link QuantizedVectorStore} supports, over 100k synthetic 384-dimensional embeddings
+ * (clustered in a 48-dimensional subspace with a shared offset, as sentence embeddings are).
+ * <p>
+ * Setup prints, per configuration, the code bytes per listing (float32 is 1536) and recall@10
+ * of the two-stage search against an exact scan. Run after {@code mvn test-compile}:
+ * <pre>
+ * java --add-modules jdk.incubator.vector \
+ *      -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *      com.sharefair.benchmark.QuantizedSearchBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xmx2g"})
+public class QuantizedSearchBenchmark {
+
+    private static final int DIMENSIONS = 384;
+    private static final int LISTINGS = 100_000;
+    private static final int CANDIDATES = 100;
+    private static final int RECALL_QUERIES = 200;
+
+    @Param({"INT8", "BINARY"})
+    public QuantizedVectorStore.Encoding encoding;
+
+    @Param({"0", "128"})
+    public int pcaDimensions;
+
+    private float[][] normalized;
+    private float[][] queries;
+    private QuantizedVectorStore store;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(11);
+        float[][] mixing = new float[48][DIMENSIONS];
+        for (float[] row : mixing) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                row[i] = (float) random.nextGaussian();
+            }
+        }
+        float[] offset = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            offset[i] = (float) random.nextGaussian() * 2;
+        }
+        float[][] centers = new float[500][48];
+        for (float[] center : centers) {
+            for (int i = 0; i < center.length; i++) {
+                center[i] = (float) random.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[LISTINGS][];
+        normalized = new float[LISTINGS][];
+        for (int n = 0; n < LISTINGS; n++) {
+            vectors[n] = sample(random, mixing, offset, centers[random.nextInt(centers.length)]);
+            normalized[n] = VectorMath.normalize(vectors[n]);
+        }
+        queries = new float[RECALL_QUERIES][];
+        for (int n = 0; n < RECALL_QUERIES; n++) {
+            queries[n] = sample(random, mixing, offset, centers[random.nextInt(centers.length)]);
+        }
+
+        store = QuantizedVectorStore.train(Arrays.asList(vectors).subList(0, 10_000), encoding, pcaDimensions, 42L);
+        for (int n = 0; n < LISTINGS; n++) {
+            store.put(Integer.toString(n), vectors[n], null, null, true);
+        }
+
+        double hits = 0;
+        for (float[] query : queries) {
+            List<Integer> exact = exactTop(query, null);
+            List<Integer> twoStage = twoStage(query);
+            hits += twoStage.stream().filter(exact::contains).count();
+        }
+        System.out.printf("%n%s pca=%d: %d code bytes per listing, recall@10 = %.3f%n",
+                encoding, pcaDimensions, store.codeBytes(), hits / (RECALL_QUERIES * 10.0));
+    }
+
+    private static float[] sample(Random random, float[][] mixing, float[] offset, float[] center) {
+        float[] vector = offset.clone();
+        for (int c = 0; c < mixing.length; c++) {
+            float latent = center[c] + (float) random.nextGaussian() * 0.7f;
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] += latent * mixing[c][i];
+            }
+        }
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] += (float) random.nextGaussian() * 0.3f;
+        }
+        return vector;
+    }
+
+    private List<Integer> twoStage(float[] query) {
+        List<Integer> candidates = new ArrayList<>(CANDIDATES);
+        for (String id : store.search(query, CANDIDATES, null, null)) {
+            candidates.add(Integer.parseInt(id));
+        }
+        return exactTop(query, candidates);
+    }
+
+    /** Top 10 by exact cosine among {@code candidates}, or among all listings when null. */
+    private List<Integer> exactTop(float[] query, List<Integer> candidates) {
+        float[] q = VectorMath.normalize(query);
+        int count = candidates == null ? LISTINGS : candidates.size();
+        Integer[] order = new Integer[count];
+        float[] scores = new float[LISTINGS];
+        for (int i = 0; i < count; i++) {
+            int n = candidates == null ? i : candidates.get(i);
+            order[i] = n;
+            scores[n] = VectorMath.dot(q, normalized[n]);
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        return Arrays.asList(order).subList(0, Math.min(10, count));
+    }
+
+    @Benchmark
+    public List<Integer> firstPassAndRerank() {
+        return twoStage(queries[next++ % RECALL_QUERIES]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QuantizedSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,39 @@
+package com.sharefair.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void roundTripsThroughUrlSafeToken() {
+        PageCursor cursor = PageCursor.of("relevance", 0.5f, "a b/c", 42);
+
+        String token = cursor.encode();
+        PageCursor decoded = PageCursor.decode(token);
+
+        assertThat(token).doesNotContain("+", "/", "=");
+        assertThat(decoded.getOrder()).isEqualTo("relevance");
+        assertThat(decoded.getValues()).containsExactly("0.5", "a b/c", "42");
+    }
+
+    @Test
+    void offsetCursorCarriesOffset() {
+        PageCursor decoded = PageCursor.decode(PageCursor.offset(40).encode());
+
+        assertThat(decoded.offsetValue()).isEqualTo(40);
+    }
+
+    @Test
+    void rejectsMalformedTokensAndMismatchedOrders() {
+        assertThatThrownBy(() -> PageCursor.decode("not a cursor!"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> PageCursor.of("date", "x", "y").offsetValue())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.of("date", "x", "y").requireOrder("price", 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,81 @@
+package com.sharefair.repository.impl;
+
+import com.sharefair.repository.CursorPage;
+import com.sharefair.repository.PageCursor;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetTest {
+
+    private static final Field<LocalDateTime> CREATED_AT = DSL.field("created_at", LocalDateTime.class);
+    private static final Field<UUID> ID = DSL.field("id", UUID.class);
+
+    private final DSLContext dsl = DSL.using(SQLDialect.POSTGRES);
+    private final Keyset newestFirst = new Keyset("date", true, CREATED_AT, ID);
+
+    @Test
+    void rendersRowComparisonSeekPredicate() {
+        UUID id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        PageCursor cursor = PageCursor.of("date", LocalDateTime.of(2024, 5, 1, 12, 0), id);
+
+        String sql = dsl.renderInlined(DSL.selectOne().where(newestFirst.after(cursor)));
+
+        assertThat(sql).contains("(created_at, id) < (timestamp '2024-05-01 12:00:00.0', '" + id + "')");
+    }
+
+    @Test
+    void pageTrimsExtraRowAndEncodesCursorOfLastKeptRow() {
+        Field<String> title = DSL.field("title", String.class);
+        Field<?>[] selected = newestFirst.select(new Field<?>[]{title});
+        Result<Record> rows = dsl.newResult(selected);
+        for (int i = 0; i < 3; i++) {
+            Record row = dsl.newRecord(selected);
+            row.fromArray("item " + i, LocalDateTime.of(2024, 5, 3 - i, 0, 0), new UUID(0, i));
+            rows.add(row);
+        }
+
+        CursorPage<String> page = newestFirst.page(rows, 2, r -> r.get(title));
+
+        assertThat(page.items()).containsExactly("item 0", "item 1");
+        assertThat(page.hasMore()).isTrue();
+        PageCursor next = PageCursor.decode(page.nextCursor());
+        assertThat(next.getOrder()).isEqualTo("date");
+        assertThat(next.getValues()).containsExactly("2024-05-02T00:00", new UUID(0, 1).toString());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        Field<?>[] selected = newestFirst.select(new Field<?>[0]);
+        Result<Record> rows = dsl.newResult(selected);
+        Record row = dsl.newRecord(selected);
+        row.fromArray(LocalDateTime.now(), UUID.randomUUID());
+        rows.add(row);
+
+        CursorPage<Record> page = newestFirst.page(rows, 2, r -> r);
+
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsCursorFromAnotherOrdering() {
+        PageCursor priceCursor = PageCursor.of("price", "10.00", UUID.randomUUID());
+
+        assertThatThrownBy(() -> newestFirst.after(priceCursor))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> newestFirst.after(PageCursor.of("date", "yesterday", UUID.randomUUID())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+}
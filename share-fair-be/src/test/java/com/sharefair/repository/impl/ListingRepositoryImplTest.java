@@ -2,11 +2,16 @@ package com.sharefair.repository.impl;
 
 import com.sharefair.BaseIntegrationTest;
 import com.sharefair.entity.Listing;
+import com.sharefair.entity.ListingFacets;
+import com.sharefair.repository.CursorPage;
+import com.sharefair.repository.ListingCatalogQuery;
 import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.PageCursor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -123,6 +128,21 @@ class ListingRepositoryImplTest extends BaseIntegrationTest {
         );
     }
 
+    @Test
+    void findByKeyword_matchesStemmedWordsAndRanksTitleMatchesFirst() {
+        List<Listing> results = listingRepository.findByKeyword("bikes", null, null, "relevance", 10, 0);
+
+        assertThat(results).isNotEmpty();
+        assertThat(results.get(0).getTitle().toLowerCase()).contains("bike");
+    }
+
+    @Test
+    void findByKeyword_toleratesTyposInTitle() {
+        List<Listing> results = listingRepository.findByKeyword("mountan bike", null, null, "relevance", 10, 0);
+
+        assertThat(results).extracting(Listing::getId).contains(MOUNTAIN_BIKE_ID);
+    }
+
     @Test
     void findByFilters_combinesNeighborhoodAndCategoryFilters() {
         List<Listing> results = listingRepository.findByFilters("Brooklyn", "Sports", null, 10, 0);
@@ -135,6 +155,82 @@ class ListingRepositoryImplTest extends BaseIntegrationTest {
         });
     }
 
+    @Test
+    void findByFilters_cursorPagesMatchOffsetPages() {
+        List<Listing> offsetPages = listingRepository.findByFilters(null, null, "price", 10, 0);
+
+        CursorPage<Listing> first = listingRepository.findByFilters(null, null, "price", 5, (PageCursor) null);
+        CursorPage<Listing> second = listingRepository.findByFilters(null, null, "price", 5,
+                PageCursor.decode(first.nextCursor()));
+
+        assertThat(first.items()).extracting(Listing::getId)
+                .containsExactlyElementsOf(offsetPages.subList(0, 5).stream().map(Listing::getId).toList());
+        assertThat(second.items()).extracting(Listing::getId)
+                .containsExactlyElementsOf(offsetPages.subList(5, 10).stream().map(Listing::getId).toList());
+    }
+
+    @Test
+    void findBySimilarity_cursorPagesOverTiedDistances_returnEachListingOnceInIdOrder() {
+        // Identical texts embed identically, so several listings can share one distance
+        float[] embedding = new float[384];
+        embedding[383] = 1f;
+        List<String> tied = listingRepository.findByFilters(null, null, "price", 5, 0).stream()
+                .map(Listing::getId)
+                .toList();
+        tied.forEach(id -> listingRepository.updateEmbedding(id, embedding, "tied"));
+
+        List<String> paged = new ArrayList<>();
+        PageCursor after = null;
+        do {
+            CursorPage<Listing> page = listingRepository.findBySimilarity(embedding, null, null, 0.01, 2, after);
+            page.items().forEach(listing -> paged.add(listing.getId()));
+            after = page.hasMore() ? PageCursor.decode(page.nextCursor()) : null;
+        } while (after != null);
+
+        assertThat(paged).containsExactlyElementsOf(tied.stream().sorted().toList());
+    }
+
+    @Test
+    void countFacets_countsEachFacetOverTheFilteredListings() {
+        ListingFacets facets = listingRepository.countFacets(null, null, 0, "Brooklyn", null);
+        ListingFacets unfiltered = listingRepository.countFacets(null, null, 0, null, null);
+
+        assertThat(facets.getTotal()).isPositive();
+        // The neighborhood facet ignores its own filter, so it still offers the other neighborhoods
+        assertThat(facets.getNeighborhoods()).isEqualTo(unfiltered.getNeighborhoods());
+        assertThat(facets.getNeighborhoods().get("Brooklyn")).isEqualTo(facets.getTotal());
+        assertThat(facets.getCategories().values().stream().mapToLong(Long::longValue).sum())
+                .isLessThanOrEqualTo(facets.getTotal());
+        assertThat(facets.getPriceRanges().values().stream().mapToLong(Long::longValue).sum())
+                .isEqualTo(facets.getTotal());
+    }
+
+    @Test
+    void findCatalog_cursorPagesMatchOffsetPages_andIncludeUnavailableListings() {
+        ListingCatalogQuery query = ListingCatalogQuery.builder().sortBy("date").build();
+        List<Listing> offsetPages = listingRepository.findCatalog(query, 10, 0);
+
+        CursorPage<Listing> first = listingRepository.findCatalog(query, 5, (PageCursor) null);
+        CursorPage<Listing> second = listingRepository.findCatalog(query, 5, PageCursor.decode(first.nextCursor()));
+
+        assertThat(first.items()).extracting(Listing::getId)
+                .containsExactlyElementsOf(offsetPages.subList(0, 5).stream().map(Listing::getId).toList());
+        assertThat(second.items()).extracting(Listing::getId)
+                .containsExactlyElementsOf(offsetPages.subList(5, 10).stream().map(Listing::getId).toList());
+        assertThat(listingRepository.countCatalog(query)).isEqualTo(listingRepository.count());
+    }
+
+    @Test
+    void countCatalog_appliesFilters() {
+        ListingCatalogQuery unavailable = ListingCatalogQuery.builder().available(false).build();
+
+        List<Listing> listings = listingRepository.findCatalog(unavailable, 100, 0);
+
+        assertThat(listings).extracting(Listing::getId).contains(GUITAR_AMP_ID);
+        assertThat(listings).allSatisfy(listing -> assertThat(listing.getAvailable()).isFalse());
+        assertThat(listingRepository.countCatalog(unavailable)).isEqualTo(listings.size());
+    }
+
     @Test
     void count_returnsCorrectCount() {
         long count = listingRepository.count();
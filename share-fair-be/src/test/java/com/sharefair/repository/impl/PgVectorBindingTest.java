@@ -0,0 +1,55 @@
+package com.sharefair.repository.impl;
+
+import com.pgvector.PGvector;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.postgresql.util.PGobject;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgVectorBindingTest {
+
+    private final DSLContext dsl = DSL.using(SQLDialect.POSTGRES);
+
+    @Test
+    void rendersBindVariableWithVectorCast() {
+        String sql = dsl.render(DSL.select(DSL.field("embedding <=> {0}", Object.class,
+                DSL.val(new float[]{0.5f, 1f}, PgVectorBinding.VECTOR))));
+
+        assertThat(sql).isEqualTo("select embedding <=> ?::vector");
+    }
+
+    @Test
+    void rendersInlinedLiteralWithVectorCast() {
+        String sql = dsl.renderInlined(DSL.select(DSL.val(new float[]{0.5f, 1f}, PgVectorBinding.VECTOR)));
+
+        assertThat(sql).isEqualTo("select '[0.5,1.0]'::vector");
+    }
+
+    @Test
+    void convertsFromBinaryTextAndStringRepresentations() throws SQLException {
+        float[] expected = {0.25f, -1.5f, 3f};
+
+        PGobject text = new PGobject();
+        text.setType("vector");
+        text.setValue("[0.25,-1.5,3]");
+
+        assertThat(PgVectorBinding.toFloats(new PGvector(expected))).containsExactly(expected);
+        assertThat(PgVectorBinding.toFloats(text)).containsExactly(expected);
+        assertThat(PgVectorBinding.toFloats("[0.25,-1.5,3]")).containsExactly(expected);
+        assertThat(PgVectorBinding.toFloats(null)).isNull();
+    }
+
+    @Test
+    void converterProducesPgvectorForBinding() {
+        Object bound = PgVectorBinding.VECTOR.getConverter().to(new float[]{1f, 2f});
+
+        assertThat(bound).isInstanceOf(PGvector.class);
+        assertThat(((PGvector) bound).toArray()).containsExactly(1f, 2f);
+    }
+}
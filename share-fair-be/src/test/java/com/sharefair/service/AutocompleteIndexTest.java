@@ -0,0 +1,105 @@
+package com.sharefair.service;
+
+import com.sharefair.entity.Listing;
+import com.sharefair.entity.ListingTitle;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AutocompleteIndexTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    private AutocompleteIndex autocompleteIndex;
+
+    @BeforeEach
+    void setUp() {
+        autocompleteIndex = new AutocompleteIndex(listingRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void suggest_ranksByPopularityAndMatchesWordStarts() {
+        load(title("1", "Mountain Bike", "Sports", 4),
+                title("2", "Bike Helmet", "Sports", 0),
+                title("3", "Moka Pot", "Kitchen", 0));
+
+        assertThat(autocompleteIndex.suggest("bi", 10)).containsExactly("Mountain Bike", "Bike Helmet");
+        assertThat(autocompleteIndex.suggest("  MO ", 10)).containsExactly("Mountain Bike", "Moka Pot");
+        // Category weight is the sum over its listings (5 + 1)
+        assertThat(autocompleteIndex.suggest("s", 10)).containsExactly("Sports");
+    }
+
+    @Test
+    void suggest_skipsInactiveListings() {
+        ListingTitle archived = title("1", "Guitar Amplifier", "Music", 0);
+        archived.setStatus("ARCHIVED");
+        load(archived);
+
+        assertThat(autocompleteIndex.suggest("gui", 10)).isEmpty();
+    }
+
+    @Test
+    void onListingChanged_appliesCreateUpdateAndDelete() {
+        load();
+
+        autocompleteIndex.onListingChanged(new ListingChangedEvent("1", ListingChangedEvent.Type.CREATED,
+                listing("1", "Camping Tent", "Outdoor")));
+        assertThat(autocompleteIndex.suggest("tent", 10)).containsExactly("Camping Tent");
+
+        autocompleteIndex.onListingChanged(new ListingChangedEvent("1", ListingChangedEvent.Type.UPDATED,
+                listing("1", "Family Tent", "Outdoor")));
+        assertThat(autocompleteIndex.suggest("tent", 10)).containsExactly("Family Tent");
+        assertThat(autocompleteIndex.suggest("camp", 10)).isEmpty();
+
+        autocompleteIndex.onListingChanged(new ListingChangedEvent("1", ListingChangedEvent.Type.DELETED, null));
+        assertThat(autocompleteIndex.suggest("tent", 10)).isEmpty();
+        assertThat(autocompleteIndex.suggest("out", 10)).isEmpty();
+    }
+
+    @Test
+    void updatePopularity_reranksSuggestions() {
+        load(title("1", "Drill", "Tools", 0), title("2", "Drum Kit", "Music", 1));
+        assertThat(autocompleteIndex.suggest("dr", 10)).containsExactly("Drum Kit", "Drill");
+
+        autocompleteIndex.updatePopularity("1", 5);
+
+        assertThat(autocompleteIndex.suggest("dr", 10)).containsExactly("Drill", "Drum Kit");
+    }
+
+    @Test
+    void keys_includeEachWordStart() {
+        assertThat(AutocompleteIndex.keys("cordless power drill"))
+                .containsExactly("cordless power drill", "power drill", "drill");
+    }
+
+    private void load(ListingTitle... rows) {
+        when(listingRepository.findTitlesAfter(isNull(), anyInt())).thenReturn(List.of(rows));
+        autocompleteIndex.scheduleRebuild();
+        await().atMost(Duration.ofSeconds(5)).until(autocompleteIndex::isReady);
+    }
+
+    private ListingTitle title(String id, String title, String category, long popularity) {
+        return ListingTitle.builder().id(id).title(title).category(category).status("ACTIVE")
+                .popularity(popularity).build();
+    }
+
+    private Listing listing(String id, String title, String category) {
+        return Listing.builder().id(id).title(title).category(category).status("ACTIVE").build();
+    }
+}
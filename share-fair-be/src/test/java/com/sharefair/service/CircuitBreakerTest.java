@@ -0,0 +1,99 @@
+package com.sharefair.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long SLOW = 100;
+    private static final long OPEN = 1_000;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 0.8, SLOW, OPEN, 2, clock::get);
+
+    private void call(boolean success, long duration) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.record(duration, success);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        call(false, 1);
+        call(false, 1);
+        call(false, 1);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensAtFailureRateAndRejectsUntilOpenDurationPasses() {
+        call(true, 1);
+        call(false, 1);
+        call(true, 1);
+        call(false, 1);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        clock.addAndGet(OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void opensWhenMostCallsAreSlow() {
+        for (int i = 0; i < 4; i++) {
+            call(true, SLOW + 1);
+        }
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        call(false, 1);
+        for (int i = 0; i < 10; i++) {
+            call(true, 1);
+        }
+        call(false, 1);
+        call(false, 1);
+        call(false, 1);
+        call(false, 1);
+
+        // Four failures in the last ten calls: the first failure has been evicted
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpen_closesAfterSuccessfulTrials() {
+        for (int i = 0; i < 4; i++) {
+            call(false, 1);
+        }
+        clock.addAndGet(OPEN);
+
+        call(true, 1);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.record(1, true);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        call(false, 1);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpen_reopensOnFailedTrial() {
+        for (int i = 0; i < 4; i++) {
+            call(false, 1);
+        }
+        clock.addAndGet(OPEN);
+
+        call(false, 1);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+}
@@ -0,0 +1,104 @@
+package com.sharefair.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CooccurrenceMatrixTest {
+
+    @Test
+    void addBorrow_countsListingsBorrowedByTheSameUser_inBothDirections() {
+        CooccurrenceMatrix matrix = new CooccurrenceMatrix(10, 100);
+        matrix.addBorrow("u1", "drill");
+        matrix.addBorrow("u1", "ladder");
+        matrix.addBorrow("u2", "drill");
+        matrix.addBorrow("u2", "ladder");
+        matrix.addBorrow("u2", "tent");
+
+        assertThat(matrix.count("drill", "ladder")).isEqualTo(2);
+        assertThat(matrix.count("ladder", "drill")).isEqualTo(2);
+        assertThat(matrix.count("drill", "tent")).isEqualTo(1);
+        assertThat(matrix.pairs()).isEqualTo(3);
+        assertThat(matrix.listings()).isEqualTo(3);
+        assertThat(matrix.users()).isEqualTo(2);
+    }
+
+    @Test
+    void addBorrow_ignoresRepeatBorrowsOfTheSameListing() {
+        CooccurrenceMatrix matrix = new CooccurrenceMatrix(10, 100);
+        matrix.addBorrow("u1", "drill");
+        matrix.addBorrow("u1", "ladder");
+
+        assertThat(matrix.addBorrow("u1", "ladder")).isFalse();
+        assertThat(matrix.count("drill", "ladder")).isEqualTo(1);
+    }
+
+    @Test
+    void neighbours_areOrderedByCount_andKeptToTopK() {
+        CooccurrenceMatrix matrix = new CooccurrenceMatrix(2, 100);
+        for (int user = 0; user < 3; user++) {
+            matrix.addBorrow("u" + user, "drill");
+            matrix.addBorrow("u" + user, "ladder");
+        }
+        matrix.addBorrow("u0", "tent");
+        matrix.addBorrow("u0", "saw");
+        matrix.addBorrow("u1", "saw");
+
+        assertThat(matrix.neighbours("drill", 10)).containsExactly("ladder", "saw");
+        assertThat(matrix.neighbours("drill", 1)).containsExactly("ladder");
+        assertThat(matrix.neighbours("unknown", 10)).isEmpty();
+    }
+
+    @Test
+    void neighbours_promoteEntryWhoseCountOvertakesTheHead() {
+        CooccurrenceMatrix matrix = new CooccurrenceMatrix(3, 100);
+        matrix.addBorrow("u0", "drill");
+        matrix.addBorrow("u0", "ladder");
+        matrix.addBorrow("u0", "tent");
+        for (int user = 1; user <= 2; user++) {
+            matrix.addBorrow("u" + user, "drill");
+            matrix.addBorrow("u" + user, "tent");
+        }
+
+        assertThat(matrix.neighbours("drill", 10)).containsExactly("tent", "ladder");
+    }
+
+    @Test
+    void addBorrow_onlyPairsTheMostRecentHistory() {
+        CooccurrenceMatrix matrix = new CooccurrenceMatrix(10, 2);
+        matrix.addBorrow("u1", "a");
+        matrix.addBorrow("u1", "b");
+        matrix.addBorrow("u1", "c");
+        matrix.addBorrow("u1", "d");
+
+        assertThat(matrix.count("d", "c")).isEqualTo(1);
+        assertThat(matrix.count("d", "b")).isEqualTo(1);
+        assertThat(matrix.count("d", "a")).isZero();
+    }
+
+    @Test
+    void addBorrow_ignoresRepeatBorrowsOfListingsOutsideTheRecentHistory() {
+        CooccurrenceMatrix matrix = new CooccurrenceMatrix(10, 2);
+        matrix.addBorrow("u1", "a");
+        matrix.addBorrow("u1", "b");
+        matrix.addBorrow("u1", "c");
+
+        // "a" has left the two-listing window, but borrowing it again must not count it twice
+        assertThat(matrix.addBorrow("u1", "a")).isFalse();
+        assertThat(matrix.count("a", "b")).isEqualTo(1);
+        assertThat(matrix.count("a", "c")).isEqualTo(1);
+    }
+
+    @Test
+    void rowsGrow_beyondTheirInitialCapacity() {
+        CooccurrenceMatrix matrix = new CooccurrenceMatrix(5, 5000);
+        for (int i = 0; i < 2000; i++) {
+            matrix.addBorrow("u", "listing-" + i);
+        }
+
+        assertThat(matrix.listings()).isEqualTo(2000);
+        assertThat(matrix.count("listing-0", "listing-1999")).isEqualTo(1);
+        assertThat(matrix.pairs()).isEqualTo(2000L * 1999 / 2);
+        assertThat(matrix.estimatedBytes()).isGreaterThan(2000L * 1999 * 8);
+    }
+}
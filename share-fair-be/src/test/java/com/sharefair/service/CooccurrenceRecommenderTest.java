@@ -0,0 +1,78 @@
+package com.sharefair.service;
+
+import com.sharefair.config.RecommendationProperties;
+import com.sharefair.entity.CompletedBorrow;
+import com.sharefair.event.TransactionCompletedEvent;
+import com.sharefair.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CooccurrenceRecommenderTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CooccurrenceRecommender recommender;
+
+    @BeforeEach
+    void setUp() {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getCooccurrence().setRebuildBatch(2);
+        meterRegistry = new SimpleMeterRegistry();
+        recommender = new CooccurrenceRecommender(transactionRepository, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recommender.shutdown();
+    }
+
+    @Test
+    void rebuild_pagesThroughCompletedBorrows() {
+        when(transactionRepository.findCompletedBorrowsAfter(null, null, 2))
+                .thenReturn(List.of(borrow("u1", "drill"), borrow("u1", "ladder")));
+        when(transactionRepository.findCompletedBorrowsAfter("u1", "ladder", 2))
+                .thenReturn(List.of(borrow("u2", "drill")));
+
+        recommender.rebuild();
+
+        assertThat(recommender.neighbours("drill", 5)).containsExactly("ladder");
+        assertThat(meterRegistry.get("sharefair.recommendations.cooccurrence.pairs").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("sharefair.recommendations.cooccurrence.memory").gauge().value()).isPositive();
+    }
+
+    @Test
+    void onTransactionCompleted_updatesTheModelIncrementally() {
+        when(transactionRepository.findCompletedBorrowsAfter(null, null, 2))
+                .thenReturn(List.of(borrow("u1", "drill")));
+        recommender.rebuild();
+
+        recommender.onTransactionCompleted(new TransactionCompletedEvent("tx", "tent", "u1", "owner"));
+
+        assertThat(recommender.neighbours("drill", 5)).containsExactly("tent");
+        assertThat(recommender.neighbours("tent", 5)).containsExactly("drill");
+    }
+
+    @Test
+    void neighbours_isEmpty_beforeFirstRebuild() {
+        recommender.onTransactionCompleted(new TransactionCompletedEvent("tx", "tent", "u1", "owner"));
+
+        assertThat(recommender.neighbours("tent", 5)).isEmpty();
+    }
+
+    private static CompletedBorrow borrow(String borrowerId, String listingId) {
+        return new CompletedBorrow(borrowerId, listingId);
+    }
+}
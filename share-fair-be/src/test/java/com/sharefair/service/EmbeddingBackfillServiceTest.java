@@ -0,0 +1,153 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.dto.BackfillStatusDto;
+import com.sharefair.entity.Listing;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmbeddingBackfillServiceTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    private EmbeddingBackfillService backfillService;
+
+    @BeforeEach
+    void setUp() {
+        EmbeddingProperties properties = new EmbeddingProperties();
+        properties.getBackfill().setPageSize(2);
+        properties.getBackfill().setBatchSize(2);
+        properties.getBackfill().setConcurrency(2);
+        backfillService = new EmbeddingBackfillService(listingRepository, embeddingModel, properties,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        backfillService.shutdown();
+    }
+
+    @Test
+    void start_completesImmediately_whenNoListingsNeedEmbedding() {
+        when(listingRepository.countWithoutEmbedding()).thenReturn(0L);
+        when(listingRepository.findWithoutEmbedding(isNull(), eq(2))).thenReturn(Collections.emptyList());
+
+        backfillService.start(0);
+
+        BackfillStatusDto status = awaitFinished();
+        assertThat(status.getState()).isEqualTo("COMPLETED");
+        assertThat(status.getProcessed()).isZero();
+        verify(embeddingModel, never()).embed(anyList());
+        verify(listingRepository, never()).updateEmbeddings(anyMap(), anyMap());
+    }
+
+    @Test
+    void start_embedsEachPageWithOneBatchedCall() {
+        Listing listing1 = listing("id-1", "Mountain Bike", "Great bike for trails", "Sports");
+        Listing listing2 = listing("id-2", "Camping Tent", "Waterproof tent", "Outdoor");
+        Listing listing3 = listing("id-3", "Drill", "Cordless", "Tools");
+
+        when(listingRepository.countWithoutEmbedding()).thenReturn(3L);
+        when(listingRepository.findWithoutEmbedding(isNull(), eq(2))).thenReturn(List.of(listing1, listing2));
+        when(listingRepository.findWithoutEmbedding(eq("id-2"), eq(2))).thenReturn(List.of(listing3));
+
+        float[] embedding1 = {0.1f, 0.2f};
+        float[] embedding2 = {0.3f, 0.4f};
+        float[] embedding3 = {0.5f, 0.6f};
+        when(embeddingModel.embed(List.of("Mountain Bike Great bike for trails Sports",
+                "Camping Tent Waterproof tent Outdoor"))).thenReturn(List.of(embedding1, embedding2));
+        when(embeddingModel.embed(List.of("Drill Cordless Tools"))).thenReturn(List.of(embedding3));
+
+        backfillService.start(0);
+
+        BackfillStatusDto status = awaitFinished();
+        assertThat(status.getState()).isEqualTo("COMPLETED");
+        assertThat(status.getProcessed()).isEqualTo(3);
+        assertThat(status.getFailed()).isZero();
+        assertThat(status.getProgress()).isEqualTo(1.0);
+        assertThat(status.getCursor()).isEqualTo("id-3");
+        verify(listingRepository).updateEmbeddings(eq(Map.of("id-1", embedding1, "id-2", embedding2)), anyMap());
+        verify(listingRepository).updateEmbeddings(eq(Map.of("id-3", embedding3)), anyMap());
+    }
+
+    @Test
+    void start_countsFailedBatchesAndKeepsGoing() {
+        Listing listing1 = listing("id-1", "Mountain Bike", "Great bike", "Sports");
+
+        when(listingRepository.countWithoutEmbedding()).thenReturn(1L);
+        when(listingRepository.findWithoutEmbedding(isNull(), eq(2))).thenReturn(List.of(listing1));
+        when(embeddingModel.embed(anyList())).thenThrow(new RuntimeException("model unavailable"));
+
+        backfillService.start(0);
+
+        BackfillStatusDto status = awaitFinished();
+        assertThat(status.getState()).isEqualTo("COMPLETED");
+        assertThat(status.getFailed()).isEqualTo(1);
+        assertThat(status.getErrorRate()).isEqualTo(1.0);
+        assertThat(status.getLastError()).isEqualTo("model unavailable");
+        verify(listingRepository, never()).updateEmbeddings(any(), any());
+    }
+
+    @Test
+    void start_stopsAfterMaxListings() {
+        Listing listing1 = listing("id-1", "Mountain Bike", "Great bike", "Sports");
+        Listing listing2 = listing("id-2", "Camping Tent", "Waterproof tent", "Outdoor");
+        float[] embedding1 = {0.1f, 0.2f};
+
+        when(listingRepository.countWithoutEmbedding()).thenReturn(5L);
+        when(listingRepository.findWithoutEmbedding(isNull(), anyInt())).thenReturn(List.of(listing1, listing2));
+        when(embeddingModel.embed(List.of("Mountain Bike Great bike Sports"))).thenReturn(List.of(embedding1));
+
+        BackfillStatusDto started = backfillService.start(1);
+        assertThat(started.getTotal()).isEqualTo(1);
+
+        BackfillStatusDto status = awaitFinished();
+        assertThat(status.getProcessed()).isEqualTo(1);
+        verify(listingRepository).updateEmbeddings(eq(Map.of("id-1", embedding1)), anyMap());
+        verify(listingRepository, never()).findWithoutEmbedding(eq("id-1"), anyInt());
+    }
+
+    private BackfillStatusDto awaitFinished() {
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> !"RUNNING".equals(backfillService.status().getState()));
+        return backfillService.status();
+    }
+
+    private Listing listing(String id, String title, String description, String category) {
+        return Listing.builder()
+                .id(id)
+                .title(title)
+                .description(description)
+                .category(category)
+                .build();
+    }
+}
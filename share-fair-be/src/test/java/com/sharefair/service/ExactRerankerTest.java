@@ -0,0 +1,70 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.Listing;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExactRerankerTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    private ExactReranker reranker;
+
+    @BeforeEach
+    void setUp() {
+        reranker = new ExactReranker(listingRepository, new EmbeddingProperties(), new SimpleMeterRegistry());
+    }
+
+    private static Listing listing(String id) {
+        return Listing.builder().id(id).title(id).build();
+    }
+
+    private static ListingEmbedding embedding(String id, float... vector) {
+        return ListingEmbedding.builder().id(id).embedding(vector).build();
+    }
+
+    @Test
+    void rerank_ordersByExactDistanceAndAppliesCutoff() {
+        List<Listing> candidates = List.of(listing("far"), listing("near"), listing("opposite"), listing("none"));
+        when(listingRepository.findEmbeddingsByIds(anyCollection())).thenReturn(List.of(
+                embedding("far", 1f, 1f),
+                embedding("near", 2f, 0.1f),
+                embedding("opposite", -1f, 0f)));
+
+        List<Listing> ranked = reranker.rerank(new float[]{1f, 0f}, candidates, 0.8);
+
+        assertThat(ranked).extracting(Listing::getId).containsExactly("near", "far");
+    }
+
+    @Test
+    void rerank_cachesEmbeddingsUntilListingIsReembedded() {
+        List<Listing> candidates = List.of(listing("a"));
+        when(listingRepository.findEmbeddingsByIds(anyCollection())).thenReturn(List.of(embedding("a", 1f, 0f)));
+
+        reranker.rerank(new float[]{1f, 0f}, candidates, 0.8);
+        reranker.rerank(new float[]{0f, 1f}, candidates, 2.0);
+        verify(listingRepository, times(1)).findEmbeddingsByIds(anyCollection());
+
+        reranker.onListingChanged(new ListingChangedEvent("a", ListingChangedEvent.Type.EMBEDDING_UPDATED, null));
+        reranker.rerank(new float[]{1f, 0f}, candidates, 0.8);
+        verify(listingRepository, times(2)).findEmbeddingsByIds(anyCollection());
+    }
+}
@@ -0,0 +1,107 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.ListingFacets;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FacetServiceTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @Mock
+    private QueryEmbeddingCache queryEmbeddingCache;
+
+    private EmbeddingProperties embeddingProperties;
+    private FacetService facetService;
+
+    @BeforeEach
+    void setUp() {
+        embeddingProperties = new EmbeddingProperties();
+        facetService = new FacetService(listingRepository, queryEmbeddingCache, embeddingProperties,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void facets_withoutQuery_servesCachedSnapshot() {
+        ListingFacets snapshot = ListingFacets.builder().total(7).build();
+        when(listingRepository.countFacets(null, null, 0, "Brooklyn", null)).thenReturn(snapshot);
+
+        assertThat(facetService.facets(null, "Brooklyn", null, null)).isSameAs(snapshot);
+        assertThat(facetService.facets("  ", "Brooklyn", "", null)).isSameAs(snapshot);
+        assertThat(facetService.filterFacets("Brooklyn", null)).isSameAs(snapshot);
+
+        verify(listingRepository, times(1)).countFacets(null, null, 0, "Brooklyn", null);
+    }
+
+    @Test
+    void facets_forVectorRankedQuery_countListingsWithinTheSimilarityThreshold() {
+        float[] embedding = {0.6f, 0.8f};
+        when(queryEmbeddingCache.embed("bike")).thenReturn(embedding);
+        when(listingRepository.countFacets(null, embedding, 0.8, null, null))
+                .thenReturn(ListingFacets.builder().total(2).build());
+
+        facetService.facets("bike", null, null, "relevance");
+        facetService.facets("bike", null, null, "relevance");
+
+        verify(listingRepository, times(2)).countFacets(null, embedding, 0.8, null, null);
+    }
+
+    @Test
+    void facets_forKeywordSortedQuery_countKeywordMatches() {
+        when(listingRepository.countFacets("bike", null, 0, null, "Sports"))
+                .thenReturn(ListingFacets.builder().total(2).build());
+
+        assertThat(facetService.facets("bike", null, "Sports", "price").getTotal()).isEqualTo(2);
+
+        verifyNoInteractions(queryEmbeddingCache);
+    }
+
+    @Test
+    void facets_forHybridQuery_countKeywordAndVectorCandidates() {
+        embeddingProperties.getHybrid().setEnabled(true);
+        float[] embedding = {0.6f, 0.8f};
+        when(queryEmbeddingCache.embed("bike")).thenReturn(embedding);
+        when(listingRepository.countFacets("bike", embedding, 0.8, null, null))
+                .thenReturn(ListingFacets.builder().total(5).build());
+
+        assertThat(facetService.facets("bike", null, null, "price").getTotal()).isEqualTo(5);
+    }
+
+    @Test
+    void facets_whenQueryCannotBeEmbedded_countKeywordMatchesLikeTheFallbackSearch() {
+        when(queryEmbeddingCache.embed("bike")).thenThrow(new IllegalStateException("model down"));
+        when(listingRepository.countFacets("bike", null, 0, null, null))
+                .thenReturn(ListingFacets.builder().total(3).build());
+
+        assertThat(facetService.facets("bike", null, null, null).getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void listingWrite_invalidatesSnapshots_butEmbeddingUpdateDoesNot() {
+        ListingFacets before = ListingFacets.builder().total(7).build();
+        ListingFacets after = ListingFacets.builder().total(8).build();
+        when(listingRepository.countFacets(null, null, 0, null, null)).thenReturn(before, after);
+
+        facetService.filterFacets(null, null);
+        facetService.onListingChanged(new ListingChangedEvent("1", ListingChangedEvent.Type.EMBEDDING_UPDATED, null));
+        assertThat(facetService.filterFacets(null, null)).isSameAs(before);
+
+        facetService.onListingChanged(new ListingChangedEvent("1", ListingChangedEvent.Type.CREATED, null));
+        assertThat(facetService.filterFacets(null, null)).isSameAs(after);
+    }
+}
@@ -0,0 +1,132 @@
+package com.sharefair.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @Test
+    void search_findsExactMatchFirst() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 16, 64, 1L);
+        float[][] vectors = randomVectors(500, 7L);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add("id-" + i, vectors[i], "Brooklyn", "Sports", true);
+        }
+
+        List<HnswIndex.Hit> hits = index.search(vectors[123], 5, 64, null, null, 2.0);
+
+        assertThat(hits).isNotEmpty();
+        assertThat(hits.get(0).id()).isEqualTo("id-123");
+        assertThat(hits.get(0).distance()).isLessThan(1e-4f);
+    }
+
+    @Test
+    void search_hasHighRecallAgainstBruteForce() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 16, 64, 1L);
+        float[][] vectors = randomVectors(2000, 11L);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add("id-" + i, vectors[i], null, null, true);
+        }
+        float[][] queries = randomVectors(50, 13L);
+
+        int found = 0;
+        for (float[] query : queries) {
+            List<String> expected = bruteForce(vectors, query, 10);
+            List<String> actual = index.search(query, 10, 100, null, null, 2.0).stream()
+                    .map(HnswIndex.Hit::id).collect(Collectors.toList());
+            found += (int) actual.stream().filter(expected::contains).count();
+        }
+
+        assertThat(found / (double) (queries.length * 10)).isGreaterThan(0.9);
+    }
+
+    @Test
+    void search_appliesFiltersDuringWalk() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 16, 64, 1L);
+        float[][] vectors = randomVectors(300, 17L);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add("id-" + i, vectors[i], i % 3 == 0 ? "Brooklyn" : "Queens",
+                    i % 2 == 0 ? "Tools" : "Sports", i % 5 != 0);
+        }
+
+        List<HnswIndex.Hit> hits = index.search(vectors[6], 20, 64, "Brooklyn", "Tools", 2.0);
+
+        assertThat(hits).isNotEmpty();
+        assertThat(hits).allSatisfy(hit -> {
+            int i = Integer.parseInt(hit.id().substring(3));
+            assertThat(i % 6).isZero();
+            assertThat(i % 5).isNotZero();
+        });
+        assertThat(index.search(vectors[6], 20, 64, "Manhattan", null, 2.0)).isEmpty();
+    }
+
+    @Test
+    void removeAndReplace_areReflectedInResults() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 8, 32, 1L);
+        float[][] vectors = randomVectors(100, 19L);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add("id-" + i, vectors[i], null, null, true);
+        }
+
+        index.remove("id-42");
+        assertThat(index.search(vectors[42], 3, 32, null, null, 2.0))
+                .extracting(HnswIndex.Hit::id).doesNotContain("id-42");
+
+        index.add("id-1", vectors[42], null, null, true);
+        assertThat(index.search(vectors[42], 1, 32, null, null, 2.0).get(0).id()).isEqualTo("id-1");
+        assertThat(index.size()).isEqualTo(99);
+
+        index.updateAttributes("id-1", null, null, false);
+        assertThat(index.search(vectors[42], 3, 32, null, null, 2.0))
+                .extracting(HnswIndex.Hit::id).doesNotContain("id-1");
+    }
+
+    @Test
+    void search_respectsMaxDistance() {
+        HnswIndex index = new HnswIndex(2, 4, 16, 1L);
+        index.add("east", new float[]{1f, 0f}, null, null, true);
+        index.add("north", new float[]{0f, 1f}, null, null, true);
+
+        List<HnswIndex.Hit> hits = index.search(new float[]{1f, 0.1f}, 5, 16, null, null, 0.5);
+
+        assertThat(hits).extracting(HnswIndex.Hit::id).containsExactly("east");
+    }
+
+    private static float[][] randomVectors(int count, long seed) {
+        Random random = new Random(seed);
+        float[][] vectors = new float[count][DIMENSIONS];
+        for (float[] vector : vectors) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                vector[d] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    private static List<String> bruteForce(float[][] vectors, float[] query, int k) {
+        return IntStream.range(0, vectors.length).boxed()
+                .sorted(Comparator.comparingDouble(i -> -cosine(vectors[i], query)))
+                .limit(k)
+                .map(i -> "id-" + i)
+                .collect(Collectors.toList());
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+}
@@ -0,0 +1,104 @@
+package com.sharefair.service;
+
+import com.sharefair.entity.Listing;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.CursorPage;
+import com.sharefair.repository.ListingCatalogQuery;
+import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.PageCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingCatalogServiceTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    private ListingCatalogService catalogService;
+
+    @BeforeEach
+    void setUp() {
+        catalogService = new ListingCatalogService(listingRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void count_smallCatalog_isExactAndCachedPerFilterSet() {
+        when(listingRepository.estimateCount()).thenReturn(50L);
+        when(listingRepository.countCatalog(any())).thenReturn(50L);
+
+        ListingCatalogService.CatalogCount count = catalogService.count(query(null));
+        catalogService.count(ListingCatalogQuery.builder().category(" ").sortBy("price").build());
+
+        assertThat(count).isEqualTo(new ListingCatalogService.CatalogCount(50, true));
+        verify(listingRepository, times(1)).countCatalog(any());
+    }
+
+    @Test
+    void count_largeUnfilteredCatalog_usesPlannerEstimate() {
+        when(listingRepository.estimateCount()).thenReturn(2_500_000L);
+
+        assertThat(catalogService.count(query(null)))
+                .isEqualTo(new ListingCatalogService.CatalogCount(2_500_000, false));
+        verify(listingRepository, never()).countCatalog(any());
+    }
+
+    @Test
+    void count_filtered_isAlwaysExact() {
+        when(listingRepository.countCatalog(any())).thenReturn(12L);
+
+        assertThat(catalogService.count(query("Tools")).exact()).isTrue();
+        verify(listingRepository, never()).estimateCount();
+    }
+
+    @Test
+    void listingWrite_invalidatesCounts_butEmbeddingUpdateDoesNot() {
+        when(listingRepository.countCatalog(any())).thenReturn(12L, 13L);
+
+        catalogService.count(query("Tools"));
+        catalogService.onListingChanged(new ListingChangedEvent("1", ListingChangedEvent.Type.EMBEDDING_UPDATED, null));
+        assertThat(catalogService.count(query("Tools")).total()).isEqualTo(12);
+
+        catalogService.onListingChanged(new ListingChangedEvent("1", ListingChangedEvent.Type.CREATED, null));
+        assertThat(catalogService.count(query("Tools")).total()).isEqualTo(13);
+    }
+
+    @Test
+    void forEach_followsCursorsUntilTheLastPage() {
+        ListingCatalogQuery query = query(null);
+        String cursor = PageCursor.of("date", "2026-01-01T00:00", "id").encode();
+        when(listingRepository.findCatalog(eq(query), eq(ListingCatalogService.STREAM_BATCH), isNull(PageCursor.class)))
+                .thenReturn(new CursorPage<>(List.of(listing("a"), listing("b")), cursor));
+        when(listingRepository.findCatalog(eq(query), eq(ListingCatalogService.STREAM_BATCH), any(PageCursor.class)))
+                .thenReturn(new CursorPage<>(List.of(listing("c")), null));
+
+        List<String> seen = new ArrayList<>();
+        catalogService.forEach(query, listing -> seen.add(listing.getId()));
+
+        assertThat(seen).containsExactly("a", "b", "c");
+    }
+
+    private static ListingCatalogQuery query(String category) {
+        return ListingCatalogQuery.builder().category(category).sortBy("date").build();
+    }
+
+    private static Listing listing(String id) {
+        return Listing.builder().id(id).build();
+    }
+}
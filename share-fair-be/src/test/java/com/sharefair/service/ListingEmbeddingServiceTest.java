@@ -0,0 +1,152 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.EmbeddingJob;
+import com.sharefair.entity.Listing;
+import com.sharefair.repository.EmbeddingJobRepository;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingEmbeddingServiceTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @Mock
+    private EmbeddingJobRepository jobRepository;
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    private EmbeddingProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ListingEmbeddingService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EmbeddingProperties();
+        properties.getJobs().setMaxAttempts(3);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new ListingEmbeddingService(listingRepository, jobRepository, embeddingModel, properties,
+                meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void poll_embedsAndCompletes_whenTextChanged() {
+        Listing listing = listing();
+        float[] embedding = {0.1f, 0.2f};
+        EmbeddingJob job = job(1);
+        when(jobRepository.claim(anyString(), anyInt(), any())).thenReturn(List.of(job));
+        when(listingRepository.findById("id-1")).thenReturn(Optional.of(listing));
+        when(listingRepository.findEmbeddingFingerprint("id-1")).thenReturn(Optional.of("stale"));
+        when(embeddingModel.embed(anyString())).thenReturn(embedding);
+
+        assertThat(service.poll()).isEqualTo(1);
+
+        String expected = ListingEmbeddingService.fingerprint(SearchService.buildEmbeddingText(listing));
+        verify(listingRepository).updateEmbedding("id-1", embedding, expected);
+        verify(jobRepository).complete(eq(job), anyString());
+        assertThat(count("embedded")).isEqualTo(1);
+    }
+
+    @Test
+    void poll_skipsModel_whenFingerprintMatches() {
+        Listing listing = listing();
+        EmbeddingJob job = job(1);
+        when(jobRepository.claim(anyString(), anyInt(), any())).thenReturn(List.of(job));
+        when(listingRepository.findById("id-1")).thenReturn(Optional.of(listing));
+        when(listingRepository.findEmbeddingFingerprint("id-1"))
+                .thenReturn(Optional.of(ListingEmbeddingService.fingerprint(SearchService.buildEmbeddingText(listing))));
+
+        service.poll();
+
+        verify(embeddingModel, never()).embed(anyString());
+        verify(listingRepository, never()).updateEmbedding(anyString(), any(), anyString());
+        verify(jobRepository).complete(eq(job), anyString());
+        assertThat(count("unchanged")).isEqualTo(1);
+    }
+
+    @Test
+    void poll_retriesWithBackoff_whenModelFails() {
+        EmbeddingJob job = job(1);
+        when(jobRepository.claim(anyString(), anyInt(), any())).thenReturn(List.of(job));
+        when(listingRepository.findById("id-1")).thenReturn(Optional.of(listing()));
+        when(listingRepository.findEmbeddingFingerprint("id-1")).thenReturn(Optional.empty());
+        when(embeddingModel.embed(anyString())).thenThrow(new RuntimeException("Ollama unavailable"));
+
+        service.poll();
+
+        verify(jobRepository).retry(eq(job), anyString(), any(Duration.class), eq("Ollama unavailable"));
+        verify(jobRepository, never()).complete(any(), anyString());
+        assertThat(count("retried")).isEqualTo(1);
+    }
+
+    @Test
+    void poll_buriesJob_afterMaxAttempts() {
+        EmbeddingJob job = job(3);
+        when(jobRepository.claim(anyString(), anyInt(), any())).thenReturn(List.of(job));
+        when(listingRepository.findById("id-1")).thenReturn(Optional.of(listing()));
+        when(listingRepository.findEmbeddingFingerprint("id-1")).thenReturn(Optional.empty());
+        when(embeddingModel.embed(anyString())).thenThrow(new RuntimeException("Ollama unavailable"));
+
+        service.poll();
+
+        verify(jobRepository).bury(eq(job), anyString(), eq("Ollama unavailable"));
+        verify(jobRepository, never()).retry(any(), anyString(), any(), anyString());
+        assertThat(count("dead")).isEqualTo(1);
+    }
+
+    @Test
+    void backoff_doublesPerAttempt_withJitterAndCap() {
+        properties.getJobs().setInitialBackoff(Duration.ofSeconds(10));
+        properties.getJobs().setMaxBackoff(Duration.ofMinutes(1));
+
+        assertThat(service.backoff(1)).isBetween(Duration.ofSeconds(5), Duration.ofSeconds(10));
+        assertThat(service.backoff(3)).isBetween(Duration.ofSeconds(20), Duration.ofSeconds(40));
+        assertThat(service.backoff(40)).isBetween(Duration.ofSeconds(30), Duration.ofMinutes(1));
+    }
+
+    @Test
+    void fingerprint_isStableHexSha256() {
+        assertThat(ListingEmbeddingService.fingerprint("abc"))
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("sharefair.embedding.jobs").tag("result", result).counter().count();
+    }
+
+    private static EmbeddingJob job(int attempts) {
+        return EmbeddingJob.builder().listingId("id-1").generation(1).attempts(attempts).build();
+    }
+
+    private static Listing listing() {
+        return Listing.builder().id("id-1").title("Drill").description("Cordless drill").category("Tools").build();
+    }
+}
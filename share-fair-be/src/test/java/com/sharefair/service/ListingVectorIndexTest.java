@@ -0,0 +1,110 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingVectorIndexTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    private ListingVectorIndex vectorIndex;
+
+    @BeforeEach
+    void setUp() {
+        EmbeddingProperties properties = new EmbeddingProperties();
+        properties.getLocalIndex().setEnabled(true);
+        properties.getLocalIndex().setInitialBackoff(Duration.ofMillis(10));
+        vectorIndex = new ListingVectorIndex(listingRepository, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        vectorIndex.shutdown();
+    }
+
+    @Test
+    void onListingChanged_doesNotReadTheDatabaseOnThePublishingThread() throws InterruptedException {
+        when(listingRepository.findEmbeddingsAfter(isNull(), anyInt())).thenReturn(List.of(row("a", 1f, 0f)));
+        vectorIndex.onApplicationReady();
+        await().atMost(Duration.ofSeconds(5)).until(vectorIndex::isReady);
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(listingRepository.findEmbeddingById("b")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(row("b", 0f, 1f));
+        });
+        vectorIndex.onListingChanged(new ListingChangedEvent("b", ListingChangedEvent.Type.EMBEDDING_UPDATED, null));
+        // The listener returned while the row read is still blocked
+        assertThat(vectorIndex.search(new float[]{0f, 1f}, null, null, 2.0, 10, 0)).containsExactly("a");
+        release.countDown();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(vectorIndex.search(new float[]{0f, 1f}, null, null, 2.0, 10, 0)).containsExactly("b", "a"));
+    }
+
+    @Test
+    void rebuild_replaysChangesMadeWhileLoadingOntoTheNewGraph() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(listingRepository.findEmbeddingsAfter(isNull(), anyInt())).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(row("a", 1f, 0f));
+        });
+        when(listingRepository.findEmbeddingById("b")).thenReturn(Optional.of(row("b", 0f, 1f)));
+
+        vectorIndex.onApplicationReady();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        vectorIndex.onListingChanged(new ListingChangedEvent("b", ListingChangedEvent.Type.EMBEDDING_UPDATED, null));
+        release.countDown();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(vectorIndex.search(new float[]{1f, 1f}, null, null, 2.0, 10, 0))
+                        .containsExactlyInAnyOrder("a", "b"));
+    }
+
+    @Test
+    void failedFirstLoad_isRetriedUntilItSucceeds() {
+        when(listingRepository.findEmbeddingsAfter(isNull(), anyInt()))
+                .thenThrow(new IllegalStateException("connection refused"))
+                .thenThrow(new IllegalStateException("connection refused"))
+                .thenReturn(List.of(row("a", 1f, 0f)));
+
+        vectorIndex.onApplicationReady();
+
+        await().atMost(Duration.ofSeconds(5)).until(vectorIndex::isReady);
+        assertThat(vectorIndex.search(new float[]{1f, 0f}, null, null, 2.0, 10, 0)).containsExactly("a");
+    }
+
+    private static ListingEmbedding row(String id, float x, float y) {
+        return ListingEmbedding.builder()
+                .id(id)
+                .embedding(new float[]{x, y})
+                .neighborhood("Brooklyn")
+                .category("Tools")
+                .available(true)
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.sharefair.service;
+
+import com.sharefair.repository.MapCellRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MapCellRollupTest {
+
+    @Mock
+    private MapCellRepository mapCellRepository;
+
+    private MapCellRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        rollup = new MapCellRollup(mapCellRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rollup.shutdown();
+    }
+
+    @Test
+    void applyDeltas_drainsFullBatchesUntilThePartialOne() {
+        when(mapCellRepository.applyDeltas(MapCellRollup.BATCH_SIZE))
+                .thenReturn(MapCellRollup.BATCH_SIZE, MapCellRollup.BATCH_SIZE, 12);
+
+        rollup.applyDeltas();
+
+        verify(mapCellRepository, times(3)).applyDeltas(MapCellRollup.BATCH_SIZE);
+    }
+
+    @Test
+    void applyDeltas_failure_isLoggedAndRetriedNextRun() {
+        when(mapCellRepository.applyDeltas(MapCellRollup.BATCH_SIZE))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(0);
+
+        assertThatCode(rollup::applyDeltas).doesNotThrowAnyException();
+        rollup.applyDeltas();
+
+        verify(mapCellRepository, times(2)).applyDeltas(MapCellRollup.BATCH_SIZE);
+    }
+}
@@ -0,0 +1,90 @@
+package com.sharefair.service;
+
+import com.sharefair.dto.MapViewDto;
+import com.sharefair.entity.Listing;
+import com.sharefair.entity.MapCell;
+import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.MapCellRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MapClusterServiceTest {
+
+    @Mock
+    private MapCellRepository mapCellRepository;
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    private MapClusterService mapClusterService;
+
+    @BeforeEach
+    void setUp() {
+        mapClusterService = new MapClusterService(mapCellRepository, listingRepository);
+    }
+
+    @Test
+    void view_zoomedOut_readsCellsTwoLevelsBelowZoom() {
+        when(mapCellRepository.findCells(12, 2144, 2145, 1433, 1434)).thenReturn(List.of(
+                MapCell.builder().level(12).x(2144).y(1433).count(7).latitude(47.38).longitude(8.54).build()));
+
+        MapViewDto view = mapClusterService.view(47.35, 8.5, 47.4, 8.6, 10);
+
+        assertThat(view.getLevel()).isEqualTo(12);
+        assertThat(view.getClusters()).singleElement().satisfies(cluster -> {
+            assertThat(cluster.getCell()).isEqualTo(MapTiles.quadkey(12, 2144, 1433));
+            assertThat(cluster.getCount()).isEqualTo(7);
+        });
+        assertThat(view.getPoints()).isEmpty();
+    }
+
+    @Test
+    void view_zoomedIn_returnsIndividualListings() {
+        Listing listing = Listing.builder().id("1").title("Drill").latitude(47.37).longitude(8.54).build();
+        when(listingRepository.findInBounds(47.36, 8.53, 47.38, 8.55, MapClusterService.MAX_POINTS + 1))
+                .thenReturn(List.of(listing));
+
+        MapViewDto view = mapClusterService.view(47.36, 8.53, 47.38, 8.55, 17);
+
+        assertThat(view.getPoints()).extracting("id").containsExactly("1");
+        assertThat(view.isTruncated()).isFalse();
+        verifyNoInteractions(mapCellRepository);
+    }
+
+    @Test
+    void view_acrossAntimeridian_queriesBothSides() {
+        mapClusterService.view(-20, 170, -10, -170, 4);
+
+        verify(mapCellRepository).findCells(6, MapTiles.tileX(170, 6), 63, MapTiles.tileY(-10, 6), MapTiles.tileY(-20, 6));
+        verify(mapCellRepository).findCells(6, 0, MapTiles.tileX(-170, 6), MapTiles.tileY(-10, 6), MapTiles.tileY(-20, 6));
+    }
+
+    @Test
+    void view_oversizedBox_fallsBackToCoarserLevel() {
+        when(mapCellRepository.findCells(anyInt(), anyInt(), anyInt(), anyInt(), anyInt())).thenReturn(List.of());
+
+        MapViewDto view = mapClusterService.view(-85, -180, 85, 180, 14);
+
+        // 64 x 64 cells at level 6 is the largest grid within MAX_CELLS
+        assertThat(view.getLevel()).isEqualTo(6);
+    }
+
+    @Test
+    void view_rejectsInvalidBox() {
+        assertThatThrownBy(() -> mapClusterService.view(48, 8, 47, 9, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
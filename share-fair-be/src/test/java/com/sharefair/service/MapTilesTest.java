@@ -0,0 +1,29 @@
+package com.sharefair.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MapTilesTest {
+
+    @Test
+    void tileCoordinatesMatchSlippyMapScheme() {
+        // Zurich is OSM tile 10/536/358
+        assertThat(MapTiles.tileX(8.5417, 10)).isEqualTo(536);
+        assertThat(MapTiles.tileY(47.3769, 10)).isEqualTo(358);
+    }
+
+    @Test
+    void clampsToTheGrid() {
+        assertThat(MapTiles.tileX(180, 4)).isEqualTo(15);
+        assertThat(MapTiles.tileX(-180, 4)).isZero();
+        assertThat(MapTiles.tileY(90, 4)).isZero();
+        assertThat(MapTiles.tileY(-90, 4)).isEqualTo(15);
+    }
+
+    @Test
+    void quadkeyInterleavesBitsMostSignificantFirst() {
+        assertThat(MapTiles.quadkey(3, 3, 5)).isEqualTo("213");
+        assertThat(MapTiles.quadkey(1, 0, 0)).isEqualTo("0");
+    }
+}
@@ -0,0 +1,155 @@
+package com.sharefair.service;
+
+import com.sharefair.config.RecommendationProperties;
+import com.sharefair.entity.PopularityIncrement;
+import com.sharefair.event.TransactionCompletedEvent;
+import com.sharefair.repository.PopularityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PopularityServiceTest {
+
+    @Mock
+    private PopularityRepository popularityRepository;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
+    private RecommendationProperties properties;
+    private PopularityService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RecommendationProperties();
+        service = new PopularityService(popularityRepository, autocompleteIndex, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesWeightedCounters_andPushesScoresToAutocomplete() {
+        when(popularityRepository.add(anyList(), anyDouble())).thenReturn(Map.of("drill", 13L));
+        service.recordView("drill");
+        service.recordView("drill");
+        service.recordView("drill");
+        service.onTransactionCompleted(new TransactionCompletedEvent("tx", "drill", "b", "o"));
+
+        service.flush();
+
+        ArgumentCaptor<List<PopularityIncrement>> batch = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Double> now = ArgumentCaptor.forClass(Double.class);
+        verify(popularityRepository).add(batch.capture(), now.capture());
+        PopularityIncrement increment = batch.getValue().get(0);
+        assertThat(increment.getListingId()).isEqualTo("drill");
+        assertThat(increment.getViews()).isEqualTo(3);
+        assertThat(increment.getTransactions()).isEqualTo(1);
+        // 3 views * 1.0 + 1 transaction * 10.0
+        assertThat(Math.exp(increment.getLogWeight() - now.getValue())).isCloseTo(13.0, within(1e-6));
+        verify(autocompleteIndex).updatePopularity("drill", 13L);
+    }
+
+    @Test
+    void flush_resetsCounters_andSkipsIdleListings() {
+        when(popularityRepository.add(anyList(), anyDouble())).thenReturn(Map.of());
+        service.recordView("drill");
+
+        service.flush();
+        service.flush();
+
+        verify(popularityRepository, times(1)).add(anyList(), anyDouble());
+    }
+
+    @Test
+    void flush_splitsLargeBatches() {
+        properties.getPopularity().setFlushBatch(2);
+        when(popularityRepository.add(anyList(), anyDouble())).thenReturn(Map.of());
+        for (int i = 0; i < 5; i++) {
+            service.recordView("listing-" + i);
+        }
+
+        service.flush();
+
+        verify(popularityRepository, times(3)).add(anyList(), anyDouble());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesBatchesInListingIdOrder() {
+        properties.getPopularity().setFlushBatch(2);
+        List<String> written = new ArrayList<>();
+        when(popularityRepository.add(anyList(), anyDouble())).thenAnswer(invocation -> {
+            List<PopularityIncrement> batch = invocation.getArgument(0);
+            batch.forEach(increment -> written.add(increment.getListingId()));
+            return Map.of();
+        });
+        for (String id : List.of("e", "b", "d", "a", "c")) {
+            service.recordView(id);
+        }
+
+        service.flush();
+
+        assertThat(written).containsExactly("a", "b", "c", "d", "e");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_failure_keepsCountsForTheNextFlush() {
+        when(popularityRepository.add(anyList(), anyDouble()))
+                .thenThrow(new IllegalStateException("deadlock detected"))
+                .thenReturn(Map.of());
+        service.recordView("drill");
+        service.recordView("drill");
+
+        service.flush();
+        service.recordView("drill");
+        service.flush();
+
+        ArgumentCaptor<List<PopularityIncrement>> batch = ArgumentCaptor.forClass(List.class);
+        verify(popularityRepository, times(2)).add(batch.capture(), anyDouble());
+        assertThat(batch.getAllValues().get(1).get(0).getViews()).isEqualTo(3);
+    }
+
+    @Test
+    void flush_withoutActivity_writesNothing() {
+        service.flush();
+
+        verify(popularityRepository, never()).add(anyList(), anyDouble());
+    }
+
+    @Test
+    void exponent_growsByLn2_perHalfLife() {
+        Duration halfLife = Duration.ofDays(7);
+        Instant now = Instant.parse("2024-06-01T00:00:00Z");
+
+        double difference = PopularityService.exponent(now.plus(halfLife), halfLife)
+                - PopularityService.exponent(now, halfLife);
+
+        assertThat(difference).isCloseTo(Math.log(2), within(1e-9));
+    }
+}
@@ -0,0 +1,68 @@
+package com.sharefair.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+
+    @Test
+    void top_returnsHeaviestSuggestionsUnderPrefix() {
+        PrefixIndex index = new PrefixIndex(2);
+        index.add("mountain bike", new PrefixIndex.Suggestion("Mountain Bike", 5));
+        index.add("mountain tent", new PrefixIndex.Suggestion("Mountain Tent", 1));
+        index.add("mouse", new PrefixIndex.Suggestion("Mouse", 3));
+        index.add("drill", new PrefixIndex.Suggestion("Drill", 10));
+
+        assertThat(texts(index.top("mou", 10))).containsExactly("Mountain Bike", "Mouse");
+        assertThat(texts(index.top("mountain", 10))).containsExactly("Mountain Bike", "Mountain Tent");
+        assertThat(texts(index.top("mountain t", 10))).containsExactly("Mountain Tent");
+        assertThat(index.top("mountains", 10)).isEmpty();
+        assertThat(index.top("x", 10)).isEmpty();
+    }
+
+    @Test
+    void reweigh_reordersCachedResults() {
+        PrefixIndex index = new PrefixIndex(1);
+        PrefixIndex.Suggestion bike = new PrefixIndex.Suggestion("Bike", 1);
+        index.add("bike", bike);
+        index.add("bicycle", new PrefixIndex.Suggestion("Bicycle", 2));
+        assertThat(texts(index.top("bi", 10))).containsExactly("Bicycle");
+
+        bike.setWeight(3);
+        index.reweigh("bike");
+
+        assertThat(texts(index.top("bi", 10))).containsExactly("Bike");
+    }
+
+    @Test
+    void remove_prunesAndRecompressesNodes() {
+        PrefixIndex index = new PrefixIndex(5);
+        PrefixIndex.Suggestion tent = new PrefixIndex.Suggestion("Tent", 1);
+        index.add("tent", tent);
+        int before = index.nodeCount();
+        index.add("tennis racket", new PrefixIndex.Suggestion("Tennis Racket", 1));
+
+        index.remove("tennis racket", index.top("tennis", 1).get(0));
+
+        assertThat(texts(index.top("te", 10))).containsExactly("Tent");
+        assertThat(index.top("tenn", 10)).isEmpty();
+        assertThat(index.nodeCount()).isEqualTo(before);
+    }
+
+    @Test
+    void top_reportsSuggestionReachableThroughSeveralKeysOnce() {
+        PrefixIndex index = new PrefixIndex(5);
+        PrefixIndex.Suggestion bikeBike = new PrefixIndex.Suggestion("Bike Bike", 1);
+        index.add("bike bike", bikeBike);
+        index.add("bike", bikeBike);
+
+        assertThat(texts(index.top("bi", 10))).containsExactly("Bike Bike");
+    }
+
+    private static List<String> texts(List<PrefixIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(PrefixIndex.Suggestion::text).toList();
+    }
+}
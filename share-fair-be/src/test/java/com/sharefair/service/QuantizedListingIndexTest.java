@@ -0,0 +1,77 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QuantizedListingIndexTest {
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    private QuantizedListingIndex quantizedIndex;
+
+    @BeforeEach
+    void setUp() {
+        EmbeddingProperties properties = new EmbeddingProperties();
+        properties.getQuantized().setEnabled(true);
+        quantizedIndex = new QuantizedListingIndex(listingRepository, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        quantizedIndex.shutdown();
+    }
+
+    @Test
+    void onListingChanged_doesNotReadTheDatabaseOnThePublishingThread() throws InterruptedException {
+        when(listingRepository.findEmbeddingsAfter(isNull(), anyInt()))
+                .thenReturn(List.of(row("a", 1f, 0f, 0f, 0f), row("b", 0f, 1f, 0f, 0f)));
+        quantizedIndex.onApplicationReady();
+        await().atMost(Duration.ofSeconds(5)).until(quantizedIndex::isReady);
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(listingRepository.findEmbeddingById("c")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(row("c", 0f, 1f, 0f, 0f));
+        });
+        quantizedIndex.onListingChanged(new ListingChangedEvent("c", ListingChangedEvent.Type.EMBEDDING_UPDATED, null));
+        // The listener returned while the row read is still blocked
+        assertThat(quantizedIndex.search(new float[]{0f, 1f, 0f, 0f}, null, null, 10)).doesNotContain("c");
+        release.countDown();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(quantizedIndex.search(new float[]{0f, 1f, 0f, 0f}, null, null, 10)).contains("c"));
+    }
+
+    private static ListingEmbedding row(String id, float... embedding) {
+        return ListingEmbedding.builder()
+                .id(id)
+                .embedding(embedding)
+                .neighborhood("Brooklyn")
+                .category("Tools")
+                .available(true)
+                .build();
+    }
+}
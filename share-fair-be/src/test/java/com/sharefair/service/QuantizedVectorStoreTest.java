@@ -0,0 +1,148 @@
+package com.sharefair.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuantizedVectorStoreTest {
+
+    private static final int DIMENSIONS = 384;
+    private static final int LISTINGS = 3_000;
+    private static final int QUERIES = 30;
+    private static final int CANDIDATES = 100;
+
+    private static List<float[]> vectors;
+    private static List<float[]> normalized;
+    private static List<float[]> queries;
+
+    @BeforeAll
+    static void generate() {
+        // Clustered vectors in a low-dimensional subspace with a shared offset, like sentence embeddings
+        Random random = new Random(11);
+        float[][] mixing = new float[48][DIMENSIONS];
+        for (float[] row : mixing) {
+            for (int i = 0; i < DIMENSIONS; i++) {
+                row[i] = (float) random.nextGaussian();
+            }
+        }
+        float[] offset = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            offset[i] = (float) random.nextGaussian() * 2;
+        }
+        float[][] centers = new float[40][48];
+        for (float[] center : centers) {
+            for (int i = 0; i < center.length; i++) {
+                center[i] = (float) random.nextGaussian();
+            }
+        }
+        vectors = new ArrayList<>();
+        for (int n = 0; n < LISTINGS; n++) {
+            vectors.add(sample(random, mixing, offset, centers[random.nextInt(centers.length)]));
+        }
+        normalized = vectors.stream().map(VectorMath::normalize).toList();
+        queries = new ArrayList<>();
+        for (int n = 0; n < QUERIES; n++) {
+            queries.add(sample(random, mixing, offset, centers[random.nextInt(centers.length)]));
+        }
+    }
+
+    private static float[] sample(Random random, float[][] mixing, float[] offset, float[] center) {
+        float[] vector = offset.clone();
+        for (int c = 0; c < mixing.length; c++) {
+            float latent = center[c] + (float) random.nextGaussian() * 0.7f;
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] += latent * mixing[c][i];
+            }
+        }
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] += (float) random.nextGaussian() * 0.3f;
+        }
+        return vector;
+    }
+
+    private static QuantizedVectorStore store(QuantizedVectorStore.Encoding encoding, int pcaDimensions) {
+        QuantizedVectorStore store = QuantizedVectorStore.train(vectors.subList(0, 1_000), encoding, pcaDimensions, 42L);
+        for (int i = 0; i < vectors.size(); i++) {
+            store.put("l" + i, vectors.get(i), "n" + (i % 3), null, true);
+        }
+        return store;
+    }
+
+    /** Recall@10 of first pass + exact re-rank against an exact scan. */
+    private static double recallAt10(QuantizedVectorStore store) {
+        double hits = 0;
+        for (float[] query : queries) {
+            List<String> exact = exactTop(query, allIds(), 10);
+            List<String> reranked = exactTop(query, store.search(query, CANDIDATES, null, null), 10);
+            hits += reranked.stream().filter(exact::contains).count();
+        }
+        return hits / (QUERIES * 10.0);
+    }
+
+    private static List<String> allIds() {
+        return IntStream.range(0, LISTINGS).mapToObj(i -> "l" + i).toList();
+    }
+
+    private static List<String> exactTop(float[] query, List<String> ids, int k) {
+        float[] q = VectorMath.normalize(query);
+        return ids.stream()
+                .sorted(Comparator.comparingDouble((String id) ->
+                        -VectorMath.dot(q, normalized.get(Integer.parseInt(id.substring(1))))))
+                .limit(k)
+                .toList();
+    }
+
+    @Test
+    void int8_recallsExactNeighboursAfterRerank() {
+        QuantizedVectorStore store = store(QuantizedVectorStore.Encoding.INT8, 0);
+
+        assertThat(store.codeBytes()).isEqualTo(384);
+        assertThat(recallAt10(store)).isGreaterThanOrEqualTo(0.98);
+    }
+
+    @Test
+    void binary_recallsMostNeighboursAfterRerank() {
+        QuantizedVectorStore store = store(QuantizedVectorStore.Encoding.BINARY, 0);
+
+        assertThat(store.codeBytes()).isEqualTo(48);
+        assertThat(recallAt10(store)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void pcaInt8_keepsRecallWithFewerDimensions() {
+        QuantizedVectorStore store = store(QuantizedVectorStore.Encoding.INT8, 64);
+
+        assertThat(store.codeBytes()).isEqualTo(64);
+        assertThat(recallAt10(store)).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void pcaBinary_rotatesSoThatEveryBitCarriesSignal() {
+        QuantizedVectorStore store = store(QuantizedVectorStore.Encoding.BINARY, 128);
+
+        assertThat(store.codeBytes()).isEqualTo(16);
+        assertThat(recallAt10(store)).isGreaterThanOrEqualTo(0.85);
+    }
+
+    @Test
+    void search_appliesFiltersAndSkipsRemovedOrUnavailable() {
+        QuantizedVectorStore store = store(QuantizedVectorStore.Encoding.BINARY, 0);
+        float[] query = vectors.get(7);
+
+        assertThat(store.search(query, 5, null, null)).first().isEqualTo("l7");
+        assertThat(store.search(query, 20, "n0", null)).allMatch(id -> Integer.parseInt(id.substring(1)) % 3 == 0);
+        assertThat(store.search(query, 5, "nowhere", null)).isEmpty();
+
+        store.remove("l7");
+        store.updateAttributes("l8", "n2", null, false);
+        assertThat(store.search(query, LISTINGS, null, null)).doesNotContain("l7", "l8").hasSize(LISTINGS - 2);
+        assertThat(store.size()).isEqualTo(LISTINGS - 1);
+    }
+}
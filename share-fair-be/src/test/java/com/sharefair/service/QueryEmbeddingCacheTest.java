@@ -0,0 +1,230 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.entity.StoredQueryEmbedding;
+import com.sharefair.exception.EmbeddingUnavailableException;
+import com.sharefair.repository.QueryEmbeddingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueryEmbeddingCacheTest {
+
+    @Mock private EmbeddingModel embeddingModel;
+    @Mock private QueryEmbeddingRepository queryEmbeddingRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EmbeddingProperties embeddingProperties;
+    private QueryEmbeddingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        embeddingProperties = new EmbeddingProperties();
+        cache = newCache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    private QueryEmbeddingCache newCache() {
+        return new QueryEmbeddingCache(embeddingModel, queryEmbeddingRepository,
+                embeddingProperties, meterRegistry, "all-minilm");
+    }
+
+    private double fallbacks(String reason) {
+        return meterRegistry.get("sharefair.embedding.query.fallback").tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void embed_missInBothTiers_callsModelOnceAndPersists() {
+        float[] vector = {0.1f, 0.2f};
+        when(queryEmbeddingRepository.findByHash(anyString())).thenReturn(Optional.empty());
+        when(embeddingModel.embed("drill")).thenReturn(vector);
+
+        assertThat(cache.embed("drill")).isSameAs(vector);
+        assertThat(cache.embed("  Drill ")).isSameAs(vector);
+
+        verify(embeddingModel, times(1)).embed("drill");
+        verify(queryEmbeddingRepository).save(anyString(), eq("drill"), eq(vector));
+        assertThat(meterRegistry.get("sharefair.embedding.query.cache").tag("result", "miss").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void embed_modelGetsOriginalText_cacheKeyIsNormalized() {
+        float[] vector = {0.1f, 0.2f};
+        when(queryEmbeddingRepository.findByHash(anyString())).thenReturn(Optional.empty());
+        when(embeddingModel.embed("Cordless  DRILL")).thenReturn(vector);
+
+        assertThat(cache.embed("Cordless  DRILL")).isSameAs(vector);
+
+        verify(queryEmbeddingRepository).save(anyString(), eq("cordless drill"), eq(vector));
+    }
+
+    @Test
+    void embed_persistentHit_skipsModel() {
+        float[] vector = {0.3f, 0.4f};
+        when(queryEmbeddingRepository.findByHash(anyString()))
+                .thenReturn(Optional.of(stored(vector, LocalDateTime.now().minusDays(2))));
+
+        assertThat(cache.embed("ladder")).isSameAs(vector);
+
+        verify(embeddingModel, never()).embed(anyString());
+        verify(queryEmbeddingRepository).touch(anyString());
+    }
+
+    @Test
+    void embed_persistentHitUsedWithinADay_isNotTouched() {
+        float[] vector = {0.3f, 0.4f};
+        when(queryEmbeddingRepository.findByHash(anyString()))
+                .thenReturn(Optional.of(stored(vector, LocalDateTime.now().minusHours(3))));
+
+        assertThat(cache.embed("ladder")).isSameAs(vector);
+
+        verify(queryEmbeddingRepository, never()).touch(anyString());
+    }
+
+    @Test
+    void embed_persistentTierFailure_stillReturnsModelEmbedding() {
+        float[] vector = {0.5f};
+        when(queryEmbeddingRepository.findByHash(anyString())).thenThrow(new RuntimeException("db down"));
+        when(embeddingModel.embed("tent")).thenReturn(vector);
+
+        assertThat(cache.embed("tent")).isSameAs(vector);
+    }
+
+    @Test
+    void embed_modelFailure_propagatesAndIsNotCached() {
+        when(queryEmbeddingRepository.findByHash(anyString())).thenReturn(Optional.empty());
+        when(embeddingModel.embed("saw")).thenThrow(new RuntimeException("Ollama unavailable"));
+
+        assertThatThrownBy(() -> cache.embed("saw")).hasMessageContaining("Ollama");
+        verify(queryEmbeddingRepository, never()).save(anyString(), anyString(), any());
+    }
+
+    @Test
+    void embed_slowModel_failsAfterTimeoutAndCachesLateAnswer() throws InterruptedException {
+        embeddingProperties.getQueryCache().setPersistentEnabled(false);
+        embeddingProperties.getQueryCall().setTimeout(Duration.ofMillis(50));
+        cache.shutdown();
+        cache = newCache();
+        float[] vector = {0.7f};
+        CountDownLatch release = new CountDownLatch(1);
+        when(embeddingModel.embed("canoe")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return vector;
+        });
+
+        assertThatThrownBy(() -> cache.embed("canoe")).isInstanceOf(EmbeddingUnavailableException.class);
+        assertThat(fallbacks("timeout")).isEqualTo(1.0);
+
+        release.countDown();
+        Thread.sleep(100);
+        assertThat(cache.embed("canoe")).isSameAs(vector);
+        verify(embeddingModel, times(1)).embed("canoe");
+    }
+
+    @Test
+    void embed_repeatedFailures_openCircuitButServeCachedEmbeddings() {
+        embeddingProperties.getQueryCache().setPersistentEnabled(false);
+        embeddingProperties.getQueryCall().setMinimumCalls(4);
+        cache.shutdown();
+        cache = newCache();
+        float[] vector = {0.9f};
+        doThrow(new RuntimeException("Ollama unavailable")).when(embeddingModel).embed(anyString());
+        doReturn(vector).when(embeddingModel).embed("drill");
+        cache.embed("drill");
+
+        // distinct queries, so that each failure is a model call the breaker records
+        for (String query : new String[]{"saw", "axe", "rake"}) {
+            assertThatThrownBy(() -> cache.embed(query)).hasMessageContaining("Ollama");
+        }
+        assertThat(cache.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> cache.embed("hammer")).isInstanceOf(EmbeddingUnavailableException.class);
+        assertThat(cache.embed("drill")).isSameAs(vector);
+        verify(embeddingModel, never()).embed("hammer");
+        assertThat(fallbacks("error")).isEqualTo(3.0);
+        assertThat(fallbacks("circuit_open")).isEqualTo(1.0);
+    }
+
+    @Test
+    void embed_openCircuit_stillServesPersistedEmbeddings() {
+        embeddingProperties.getQueryCall().setMinimumCalls(2);
+        cache.shutdown();
+        cache = newCache();
+        float[] stored = {0.4f};
+        when(queryEmbeddingRepository.findByHash(anyString())).thenReturn(Optional.empty());
+        when(embeddingModel.embed(anyString())).thenThrow(new RuntimeException("Ollama unavailable"));
+        for (String query : new String[]{"saw", "drill"}) {
+            assertThatThrownBy(() -> cache.embed(query)).hasMessageContaining("Ollama");
+        }
+        assertThat(cache.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        when(queryEmbeddingRepository.findByHash(anyString()))
+                .thenReturn(Optional.of(stored(stored, LocalDateTime.now())));
+
+        assertThat(cache.embed("ladder")).isSameAs(stored);
+        assertThat(fallbacks("circuit_open")).isEqualTo(0.0);
+    }
+
+    @Test
+    void embed_hedgedCall_returnsFirstAnswer() {
+        embeddingProperties.getQueryCache().setPersistentEnabled(false);
+        embeddingProperties.getQueryCall().setHedgeDelay(Duration.ofMillis(20));
+        embeddingProperties.getQueryCall().setTimeout(Duration.ofSeconds(2));
+        cache.shutdown();
+        cache = newCache();
+        float[] fast = {0.2f};
+        CountDownLatch stuck = new CountDownLatch(1);
+        when(embeddingModel.embed("kayak"))
+                .thenAnswer(invocation -> {
+                    stuck.await(5, TimeUnit.SECONDS);
+                    return new float[]{0.1f};
+                })
+                .thenReturn(fast);
+
+        try {
+            assertThat(cache.embed("kayak")).isSameAs(fast);
+        } finally {
+            stuck.countDown();
+        }
+        assertThat(meterRegistry.get("sharefair.embedding.query.hedged").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void normalize_collapsesWhitespaceAndCase() {
+        assertThat(QueryEmbeddingCache.normalize("  Mountain\t  BIKE ")).isEqualTo("mountain bike");
+    }
+
+    private static StoredQueryEmbedding stored(float[] embedding, LocalDateTime lastUsedAt) {
+        return StoredQueryEmbedding.builder().embedding(embedding).lastUsedAt(lastUsedAt).build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.sharefair.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ReciprocalRankFusionTest {
+
+    @Test
+    void fuse_sumsReciprocalRanksAcrossLists() {
+        Map<String, Double> fused = ReciprocalRankFusion.fuse(
+                List.of(List.of("a", "b"), List.of("b", "c")), new double[]{1.0, 1.0}, 60);
+
+        assertThat(fused.keySet()).containsExactly("b", "a", "c");
+        assertThat(fused.get("b")).isCloseTo(1.0 / 62 + 1.0 / 61, within(1e-12));
+        assertThat(fused.get("a")).isCloseTo(1.0 / 61, within(1e-12));
+    }
+
+    @Test
+    void fuse_weightsShiftTheOrder() {
+        Map<String, Double> fused = ReciprocalRankFusion.fuse(
+                List.of(List.of("a"), List.of("c")), new double[]{1.0, 2.0}, 60);
+
+        assertThat(fused.keySet()).containsExactly("c", "a");
+    }
+}
@@ -0,0 +1,155 @@
+package com.sharefair.service;
+
+import com.sharefair.config.RecommendationProperties;
+import com.sharefair.entity.Listing;
+import com.sharefair.entity.RecommendationFeed;
+import com.sharefair.event.ListingChangedEvent;
+import com.sharefair.event.TransactionCompletedEvent;
+import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.RecommendationFeedRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationMaterializerTest {
+
+    private static final String USER = "00000000-0000-0000-0000-000000000001";
+    private static final String OTHER = "00000000-0000-0000-0000-000000000002";
+
+    @Mock
+    private RecommendationFeedRepository feedRepository;
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    @Mock
+    private TasteVectorService tasteVectorService;
+
+    @Mock
+    private PopularityService popularityService;
+
+    private RecommendationMaterializer materializer;
+
+    @BeforeEach
+    void setUp() {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getFeeds().setSize(4);
+        materializer = new RecommendationMaterializer(feedRepository, listingRepository, tasteVectorService, popularityService, properties,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        materializer.shutdown();
+    }
+
+    @Test
+    void feed_servesStoredFeed_withoutRecomputing() {
+        RecommendationFeed stored = feed(List.of("Tools"), List.of("a"));
+        when(feedRepository.findByUserId(USER)).thenReturn(Optional.of(stored));
+
+        assertThat(materializer.feed(USER)).isSameAs(stored);
+        verify(feedRepository, never()).findPreferredCategories(anyString());
+        verify(feedRepository, never()).save(any());
+    }
+
+    @Test
+    void feed_materializesColdUser_withEmptyFeed() {
+        when(feedRepository.findByUserId(USER)).thenReturn(Optional.empty());
+        when(feedRepository.findPreferredCategories(USER)).thenReturn(List.of());
+
+        RecommendationFeed feed = materializer.feed(USER);
+
+        assertThat(feed.isCold()).isTrue();
+        assertThat(feed.getListingIds()).isEmpty();
+        verify(feedRepository).save(feed);
+        verify(feedRepository, never()).findCategoryCandidates(anyString(), anyList(), anyInt());
+    }
+
+    @Test
+    void materialize_topsUpFromPopular_excludingOwnAndTransactedListings() {
+        when(feedRepository.findPreferredCategories(USER)).thenReturn(List.of("Tools"));
+        when(feedRepository.findCategoryCandidates(USER, List.of("Tools"), 4)).thenReturn(List.of("a", "b"));
+        when(feedRepository.findTransactedListingIds(USER)).thenReturn(Set.of("t"));
+        when(popularityService.topListingIds(anyInt())).thenReturn(List.of("a", "t", "own", "p1", "p2", "p3"));
+        when(listingRepository.findByIds(anyList())).thenReturn(List.of(
+                listing("a", OTHER), listing("t", OTHER), listing("own", USER),
+                listing("p1", OTHER), listing("p2", OTHER), listing("p3", OTHER)));
+
+        RecommendationFeed feed = materializer.materialize(USER, "test");
+
+        assertThat(feed.getCategories()).containsExactly("Tools");
+        assertThat(feed.getListingIds()).containsExactly("a", "b", "p1", "p2");
+        ArgumentCaptor<RecommendationFeed> saved = ArgumentCaptor.forClass(RecommendationFeed.class);
+        verify(feedRepository).save(saved.capture());
+        assertThat(saved.getValue().getListingIds()).containsExactly("a", "b", "p1", "p2");
+    }
+
+    @Test
+    void materialize_ranksByTasteVector_whenUserHasOne() {
+        float[] taste = {0.1f, 0.2f};
+        when(feedRepository.findPreferredCategories(USER)).thenReturn(List.of("Tools"));
+        when(tasteVectorService.find(USER)).thenReturn(Optional.of(taste));
+        when(feedRepository.findTasteCandidates(USER, taste, 4)).thenReturn(List.of("n1", "n2", "n3", "n4"));
+
+        RecommendationFeed feed = materializer.materialize(USER, "test");
+
+        assertThat(feed.getListingIds()).containsExactly("n1", "n2", "n3", "n4");
+        assertThat(feed.isCold()).isFalse();
+        verify(feedRepository, never()).findCategoryCandidates(anyString(), anyList(), anyInt());
+        verify(popularityService, never()).topListingIds(anyInt());
+    }
+
+    @Test
+    void onListingChanged_prependsNewActiveListingToCategoryFeeds() {
+        Listing created = listing("new", OTHER);
+        created.setCategory("Tools");
+
+        materializer.onListingChanged(new ListingChangedEvent("new", ListingChangedEvent.Type.CREATED, created));
+        materializer.onListingChanged(new ListingChangedEvent("new", ListingChangedEvent.Type.UPDATED, created));
+
+        verify(feedRepository, timeout(2000)).prependListing("Tools", "new", OTHER, 4);
+    }
+
+    @Test
+    void onTransactionCompleted_rebuildsBothParticipantsFeeds() {
+        when(feedRepository.findPreferredCategories(anyString())).thenReturn(List.of());
+
+        TransactionCompletedEvent event = new TransactionCompletedEvent("tx", "l", USER, OTHER);
+        materializer.onTransactionCompleted(event);
+
+        verify(tasteVectorService, timeout(2000)).recordTransaction(event);
+        verify(feedRepository, timeout(2000)).findPreferredCategories(USER);
+        verify(feedRepository, timeout(2000)).findPreferredCategories(OTHER);
+    }
+
+    private static RecommendationFeed feed(List<String> categories, List<String> ids) {
+        return RecommendationFeed.builder().userId(USER).categories(categories).listingIds(ids)
+                .computedAt(LocalDateTime.now()).build();
+    }
+
+    private static Listing listing(String id, String ownerId) {
+        return Listing.builder().id(id).ownerId(ownerId).status("ACTIVE").build();
+    }
+}
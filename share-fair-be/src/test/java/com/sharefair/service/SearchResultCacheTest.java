@@ -0,0 +1,177 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import com.sharefair.repository.CatalogVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchResultCacheTest {
+
+    private CatalogVersion catalogVersion;
+    private EmbeddingProperties embeddingProperties;
+    private SearchResultCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        catalogVersion = new CatalogVersion();
+        embeddingProperties = new EmbeddingProperties();
+        embeddingProperties.getResultCache().setEnabled(true);
+        cache = new SearchResultCache(catalogVersion, embeddingProperties, new SimpleMeterRegistry());
+    }
+
+    private List<String> load(String... ids) {
+        loads.incrementAndGet();
+        return List.of(ids);
+    }
+
+    @Test
+    void get_sameRequest_loadsOnce() {
+        List<Object> key = SearchResultCache.key("semantic", "bike", null, null, null, 20, 0);
+
+        List<String> first = cache.get(key, () -> load("1"));
+        List<String> second = cache.get(SearchResultCache.key("semantic", "bike", null, null, null, 20, 0),
+                () -> load("2"));
+
+        assertThat(first).containsExactly("1");
+        assertThat(second).containsExactly("1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void get_differentRequest_loadsSeparately() {
+        cache.get(SearchResultCache.key("semantic", "bike", 20, 0), () -> load("1"));
+        List<String> other = cache.get(SearchResultCache.key("semantic", "bike", 20, 20), () -> load("2"));
+
+        assertThat(other).containsExactly("2");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_afterCatalogWrite_reloads() {
+        List<Object> key = SearchResultCache.key("semantic", "bike");
+        cache.get(key, () -> load("1"));
+
+        catalogVersion.bump();
+        List<String> reloaded = cache.get(key, () -> load("1", "2"));
+
+        assertThat(reloaded).containsExactly("1", "2");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_concurrentMisses_shareOneLoad() throws Exception {
+        List<Object> key = SearchResultCache.key("semantic", "tent");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture<List<String>> leader = CompletableFuture.supplyAsync(() -> cache.get(key, () -> {
+                loading.countDown();
+                await(release);
+                return load("1");
+            }), executor);
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            List<CompletableFuture<List<String>>> followers = List.of(
+                    CompletableFuture.supplyAsync(() -> cache.get(key, () -> load("x")), executor),
+                    CompletableFuture.supplyAsync(() -> cache.get(key, () -> load("x")), executor));
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).containsExactly("1");
+            for (CompletableFuture<List<String>> follower : followers) {
+                assertThat(follower.get(5, TimeUnit.SECONDS)).containsExactly("1");
+            }
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_loaderFailure_isNotCached() {
+        List<Object> key = SearchResultCache.key("semantic", "kayak");
+
+        assertThatThrownBy(() -> cache.get(key, () -> {
+            throw new IllegalStateException("database unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.<List<String>>get(key, () -> load("1"))).containsExactly("1");
+    }
+
+    @Test
+    void get_emptyResult_expiresAfterEmptyTtl() throws InterruptedException {
+        embeddingProperties.getResultCache().setEmptyTtl(Duration.ofMillis(20));
+        cache = new SearchResultCache(catalogVersion, embeddingProperties, new SimpleMeterRegistry());
+        List<Object> empty = SearchResultCache.key("semantic", "unicycle");
+        List<Object> nonEmpty = SearchResultCache.key("semantic", "bike");
+        cache.get(empty, this::load);
+        cache.get(nonEmpty, () -> load("1"));
+
+        Thread.sleep(50);
+        cache.get(empty, this::load);
+        cache.get(nonEmpty, () -> load("1"));
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void get_degradedResult_expiresAfterEmptyTtl() throws InterruptedException {
+        embeddingProperties.getResultCache().setEmptyTtl(Duration.ofMillis(20));
+        cache = new SearchResultCache(catalogVersion, embeddingProperties, new SimpleMeterRegistry());
+        List<Object> key = SearchResultCache.key("semantic", "bike");
+        cache.get(key, () -> {
+            SearchResultCache.degraded();
+            return load("keyword-1");
+        });
+
+        Thread.sleep(50);
+        List<String> reloaded = cache.get(key, () -> load("1"));
+        cache.get(key, () -> load("2"));
+
+        assertThat(reloaded).containsExactly("1");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_loaderUsingTheCache_doesNotBlock() {
+        List<Object> outer = SearchResultCache.key("semantic", "bike");
+        List<Object> inner = SearchResultCache.key("semantic", "helmet");
+
+        List<String> result = cache.get(outer, () -> cache.<List<String>>get(inner, () -> load("1")));
+
+        assertThat(result).containsExactly("1");
+        assertThat(cache.<List<String>>get(inner, () -> load("2"))).containsExactly("1");
+    }
+
+    @Test
+    void get_disabled_alwaysLoads() {
+        embeddingProperties.getResultCache().setEnabled(false);
+        List<Object> key = SearchResultCache.key("semantic", "bike");
+
+        cache.get(key, () -> load("1"));
+        cache.get(key, () -> load("1"));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,25 +2,35 @@ package com.sharefair.service;
 
 import com.sharefair.config.EmbeddingProperties;
 import com.sharefair.entity.Listing;
+import com.sharefair.entity.ListingFacets;
+import com.sharefair.repository.CatalogVersion;
+import com.sharefair.repository.CursorPage;
 import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.ListingSearch;
+import com.sharefair.repository.PageCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.ai.embedding.EmbeddingModel;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,7 +40,22 @@ class SearchServiceTest {
     private ListingRepository listingRepository;
 
     @Mock
-    private EmbeddingModel embeddingModel;
+    private ListingVectorIndex listingVectorIndex;
+
+    @Mock
+    private QueryEmbeddingCache queryEmbeddingCache;
+
+    @Mock
+    private FacetService facetService;
+
+    @Mock
+    private MapClusterService mapClusterService;
+
+    @Mock
+    private ExactReranker exactReranker;
+
+    @Mock
+    private QuantizedListingIndex quantizedListingIndex;
 
     private EmbeddingProperties embeddingProperties;
 
@@ -40,7 +65,14 @@ class SearchServiceTest {
     void setUp() {
         embeddingProperties = new EmbeddingProperties();
         embeddingProperties.setSimilarityThreshold(0.8);
-        searchService = new SearchService(listingRepository, embeddingModel, embeddingProperties);
+        // Single-path retrieval unless a test opts into hybrid mode
+        embeddingProperties.getHybrid().setEnabled(false);
+        // Every call reaches the repository; SearchResultCacheTest covers caching
+        embeddingProperties.getResultCache().setEnabled(false);
+        searchService = new SearchService(listingRepository, embeddingProperties, listingVectorIndex,
+                quantizedListingIndex, queryEmbeddingCache, facetService, mapClusterService,
+                new SearchResultCache(new CatalogVersion(), embeddingProperties, new SimpleMeterRegistry()),
+                exactReranker);
     }
 
     @Test
@@ -53,7 +85,7 @@ class SearchServiceTest {
 
         assertThat(result).isEqualTo(expected);
         verify(listingRepository).findByFilters(isNull(), isNull(), isNull(), eq(10), eq(0));
-        verify(embeddingModel, never()).embed(anyString());
+        verify(queryEmbeddingCache, never()).embed(anyString());
     }
 
     @Test
@@ -66,7 +98,7 @@ class SearchServiceTest {
 
         assertThat(result).isEqualTo(expected);
         verify(listingRepository).findByFilters(eq("Brooklyn"), isNull(), isNull(), eq(10), eq(0));
-        verify(embeddingModel, never()).embed(anyString());
+        verify(queryEmbeddingCache, never()).embed(anyString());
     }
 
     @Test
@@ -74,7 +106,7 @@ class SearchServiceTest {
         float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
         List<Listing> expected = List.of(createTestListing("1", "Bike"));
 
-        when(embeddingModel.embed("mountain bike")).thenReturn(mockEmbedding);
+        when(queryEmbeddingCache.embed("mountain bike")).thenReturn(mockEmbedding);
         when(listingRepository.findBySimilarity(
                 eq(mockEmbedding), eq("Brooklyn"), isNull(), eq(0.8), eq(10), eq(0)
         )).thenReturn(expected);
@@ -82,17 +114,55 @@ class SearchServiceTest {
         List<Listing> result = searchService.semanticSearch("mountain bike", "Brooklyn", null, null, 10, 0);
 
         assertThat(result).isEqualTo(expected);
-        verify(embeddingModel).embed("mountain bike");
+        verify(queryEmbeddingCache).embed("mountain bike");
         verify(listingRepository).findBySimilarity(
                 eq(mockEmbedding), eq("Brooklyn"), isNull(), eq(0.8), eq(10), eq(0)
         );
+        // pgvector distances are exact already
+        verifyNoInteractions(exactReranker);
+    }
+
+    @Test
+    void semanticSearch_withQuery_usesLocalIndexWhenReady() {
+        float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
+        List<Listing> expected = List.of(createTestListing("1", "Bike"));
+
+        when(queryEmbeddingCache.embed("mountain bike")).thenReturn(mockEmbedding);
+        when(listingVectorIndex.isReady()).thenReturn(true);
+        when(listingVectorIndex.search(mockEmbedding, "Brooklyn", null, 0.8, 10, 0)).thenReturn(List.of("1"));
+        when(listingRepository.findByIds(List.of("1"))).thenReturn(expected);
+
+        List<Listing> result = searchService.semanticSearch("mountain bike", "Brooklyn", null, null, 10, 0);
+
+        assertThat(result).isEqualTo(expected);
+        verify(listingRepository, never()).findBySimilarity(
+                eq(mockEmbedding), anyString(), isNull(), eq(0.8), eq(10), eq(0));
+        verifyNoInteractions(exactReranker);
+    }
+
+    @Test
+    void semanticSearch_withQuantizedIndex_alwaysReranksCandidates() {
+        embeddingProperties.getQuantized().setCandidates(30);
+        float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
+        List<Listing> candidates = List.of(createTestListing("1", "Bike"), createTestListing("2", "Bike rack"));
+
+        when(queryEmbeddingCache.embed("bike")).thenReturn(mockEmbedding);
+        when(quantizedListingIndex.isReady()).thenReturn(true);
+        when(quantizedListingIndex.search(mockEmbedding, null, null, 30)).thenReturn(List.of("1", "2"));
+        when(listingRepository.findByIds(List.of("1", "2"))).thenReturn(candidates);
+        when(exactReranker.rerank(mockEmbedding, candidates, 0.8)).thenReturn(List.of(candidates.get(1)));
+
+        List<Listing> result = searchService.semanticSearch("bike", null, null, null, 10, 0);
+
+        assertThat(result).extracting(Listing::getId).containsExactly("2");
+        verify(listingRepository, never()).findBySimilarity(any(float[].class), any(), any(), anyDouble(), anyInt(), anyInt());
     }
 
     @Test
     void semanticSearch_fallsBackToKeywordSearch_whenEmbeddingFails() {
         List<Listing> expected = List.of(createTestListing("1", "Bike"));
 
-        when(embeddingModel.embed("bike")).thenThrow(new RuntimeException("Ollama unavailable"));
+        when(queryEmbeddingCache.embed("bike")).thenThrow(new RuntimeException("Ollama unavailable"));
         when(listingRepository.findByKeyword(eq("bike"), isNull(), isNull(), isNull(), eq(10), eq(0)))
                 .thenReturn(expected);
 
@@ -103,39 +173,197 @@ class SearchServiceTest {
     }
 
     @Test
-    void backfillEmbeddings_returnsZero_whenNoListingsNeedEmbedding() {
-        when(listingRepository.findWithoutEmbedding(100)).thenReturn(Collections.emptyList());
+    void hybridSearch_fusesKeywordAndVectorRankings() {
+        enableHybrid();
+        float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
+        Listing a = createTestListing("a", "Road Bike");
+        Listing b = createTestListing("b", "Mountain Bike");
+        Listing c = createTestListing("c", "Bike Helmet");
+
+        when(listingRepository.findByKeyword("bike", null, null, "relevance", 10, 0)).thenReturn(List.of(a, b));
+        when(queryEmbeddingCache.embed("bike")).thenReturn(mockEmbedding);
+        when(listingRepository.findBySimilarity(mockEmbedding, null, null, 0.8, 10, 0)).thenReturn(List.of(b, c));
+
+        List<Listing> result = searchService.semanticSearch("bike", null, null, "relevance", 10, 0);
+
+        // b appears in both rankings, so it outranks the single-list hits
+        assertThat(result).extracting(Listing::getId).containsExactly("b", "a", "c");
+    }
+
+    @Test
+    void hybridSearch_appliesPriceSortToFusedCandidates() {
+        enableHybrid();
+        float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
+        Listing a = createTestListing("a", "Road Bike");
+        a.setPrice(new BigDecimal("30.00"));
+        Listing b = createTestListing("b", "Mountain Bike");
+        b.setPrice(new BigDecimal("20.00"));
+        Listing c = createTestListing("c", "Bike Helmet");
+        c.setPrice(new BigDecimal("5.00"));
+
+        when(listingRepository.findByKeyword("bike", null, null, "relevance", 5, 0)).thenReturn(List.of(a, b));
+        when(queryEmbeddingCache.embed("bike")).thenReturn(mockEmbedding);
+        when(listingRepository.findBySimilarity(mockEmbedding, null, null, 0.8, 5, 0)).thenReturn(List.of(c));
+
+        List<Listing> result = searchService.semanticSearch("bike", null, null, "price", 2, 0);
+
+        assertThat(result).extracting(Listing::getId).containsExactly("c", "b");
+    }
+
+    @Test
+    void hybridSearch_usesKeywordCandidatesOnly_whenEmbeddingFails() {
+        enableHybrid();
+        Listing a = createTestListing("a", "Road Bike");
+
+        when(listingRepository.findByKeyword("bike", null, null, "relevance", 10, 0)).thenReturn(List.of(a));
+        when(queryEmbeddingCache.embed("bike")).thenThrow(new RuntimeException("Ollama unavailable"));
 
-        int count = searchService.backfillEmbeddings(100);
+        List<Listing> result = searchService.semanticSearch("bike", null, null, "relevance", 10, 0);
 
-        assertThat(count).isEqualTo(0);
-        verify(listingRepository).findWithoutEmbedding(100);
-        verify(embeddingModel, never()).embed(anyString());
+        assertThat(result).extracting(Listing::getId).containsExactly("a");
     }
 
     @Test
-    void backfillEmbeddings_processesListingsAndReturnsCount() {
-        Listing listing1 = createTestListing("id-1", "Mountain Bike");
-        listing1.setDescription("Great bike for trails");
-        listing1.setCategory("Sports");
+    void hybridSearch_usesVectorCandidatesOnly_whenKeywordQueryFails() {
+        enableHybrid();
+        float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
+        Listing c = createTestListing("c", "Bike Helmet");
 
-        Listing listing2 = createTestListing("id-2", "Camping Tent");
-        listing2.setDescription("Waterproof tent");
-        listing2.setCategory("Outdoor");
+        when(listingRepository.findByKeyword("bike", null, null, "relevance", 10, 0))
+                .thenThrow(new RuntimeException("statement timeout"));
+        when(queryEmbeddingCache.embed("bike")).thenReturn(mockEmbedding);
+        when(listingRepository.findBySimilarity(mockEmbedding, null, null, 0.8, 10, 0)).thenReturn(List.of(c));
 
-        when(listingRepository.findWithoutEmbedding(100))
-                .thenReturn(List.of(listing1, listing2));
+        List<Listing> result = searchService.semanticSearch("bike", null, null, "relevance", 10, 0);
 
-        float[] embedding1 = new float[]{0.1f, 0.2f};
-        float[] embedding2 = new float[]{0.3f, 0.4f};
-        when(embeddingModel.embed("Mountain Bike Great bike for trails Sports")).thenReturn(embedding1);
-        when(embeddingModel.embed("Camping Tent Waterproof tent Outdoor")).thenReturn(embedding2);
+        assertThat(result).extracting(Listing::getId).containsExactly("c");
+    }
+
+    @Test
+    void cursorSearch_withBlankQuery_seeksInDatabase() {
+        PageCursor after = PageCursor.of("date", "2024-05-01T12:00", "00000000-0000-0000-0000-000000000001");
+        CursorPage<Listing> expected = new CursorPage<>(List.of(createTestListing("1", "Item A")), "next");
+        when(listingRepository.findByFilters(null, null, "date", 10, after)).thenReturn(expected);
 
-        int count = searchService.backfillEmbeddings(100);
+        CursorPage<Listing> result = searchService.semanticSearch(null, null, null, "date", 10, after);
+
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    void cursorSearch_withPgvector_seeksBySimilarity() {
+        float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
+        CursorPage<Listing> expected = new CursorPage<>(List.of(createTestListing("1", "Bike")), null);
+        when(queryEmbeddingCache.embed("bike")).thenReturn(mockEmbedding);
+        when(listingRepository.findBySimilarity(mockEmbedding, null, null, 0.8, 10, (PageCursor) null))
+                .thenReturn(expected);
+
+        CursorPage<Listing> result = searchService.semanticSearch("bike", null, null, null, 10, (PageCursor) null);
+
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    void cursorSearch_hybrid_usesOffsetCursorOverFusedRanking() {
+        enableHybrid();
+        float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
+        Listing a = createTestListing("a", "Road Bike");
+        Listing b = createTestListing("b", "Mountain Bike");
+        Listing c = createTestListing("c", "Bike Helmet");
+        when(listingRepository.findByKeyword("bike", null, null, "relevance", 5, 0)).thenReturn(List.of(a, b));
+        when(queryEmbeddingCache.embed("bike")).thenReturn(mockEmbedding);
+        when(listingRepository.findBySimilarity(mockEmbedding, null, null, 0.8, 5, 0)).thenReturn(List.of(b, c));
+
+        CursorPage<Listing> first = searchService.semanticSearch("bike", null, null, "relevance", 2, (PageCursor) null);
+        CursorPage<Listing> second = searchService.semanticSearch("bike", null, null, "relevance", 2,
+                PageCursor.decode(first.nextCursor()));
+
+        assertThat(first.items()).extracting(Listing::getId).containsExactly("b", "a");
+        assertThat(second.items()).extracting(Listing::getId).containsExactly("c");
+        assertThat(second.hasMore()).isFalse();
+    }
+
+    @Test
+    void searchNearby_selectiveRadius_filtersFirstAndRanksExactly() {
+        float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
+        CursorPage<Listing> expected = new CursorPage<>(List.of(createTestListing("1", "Tent")), null);
+        when(queryEmbeddingCache.embed("tent")).thenReturn(mockEmbedding);
+        when(mapClusterService.estimateWithin(47.37, 8.54, 3.0)).thenReturn(120L);
+        when(listingRepository.search(any(ListingSearch.class), eq(10), isNull())).thenReturn(expected);
+
+        CursorPage<Listing> result = searchService.searchNearby("tent", null, null, 47.37, 8.54, 3.0,
+                "relevance", 10, null);
+
+        assertThat(result).isEqualTo(expected);
+        ArgumentCaptor<ListingSearch> search = ArgumentCaptor.forClass(ListingSearch.class);
+        verify(listingRepository).search(search.capture(), eq(10), isNull());
+        assertThat(search.getValue().isExactRanking()).isTrue();
+        assertThat(search.getValue().getQueryEmbedding()).isEqualTo(mockEmbedding);
+        assertThat(search.getValue().getRadiusKm()).isEqualTo(3.0);
+    }
+
+    @Test
+    void searchNearby_unselectiveFilters_letHnswDriveAndRetryExactlyWhenStarved() {
+        float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
+        List<Boolean> plans = new ArrayList<>();
+        when(queryEmbeddingCache.embed("tent")).thenReturn(mockEmbedding);
+        when(mapClusterService.estimateWithin(47.37, 8.54, 50.0)).thenReturn(40_000L);
+        when(facetService.filterFacets(null, "Outdoor")).thenReturn(ListingFacets.builder().total(9_000).build());
+        when(listingRepository.search(any(ListingSearch.class), eq(10), isNull())).thenAnswer(invocation -> {
+            ListingSearch search = invocation.getArgument(0);
+            plans.add(search.isExactRanking());
+            return search.isExactRanking()
+                    ? new CursorPage<>(List.of(createTestListing("1", "Tent"), createTestListing("2", "Tarp")), null)
+                    : new CursorPage<>(List.of(createTestListing("1", "Tent")), null);
+        });
+
+        CursorPage<Listing> result = searchService.searchNearby("tent", null, "Outdoor", 47.37, 8.54, 50.0,
+                null, 10, null);
+
+        assertThat(plans).containsExactly(false, true);
+        assertThat(result.items()).extracting(Listing::getId).containsExactly("1", "2");
+    }
+
+    @Test
+    void searchNearby_offsetPage_usesTheSamePlanAsTheFirstPage() {
+        float[] mockEmbedding = new float[]{0.1f, 0.2f, 0.3f};
+        when(queryEmbeddingCache.embed("tent")).thenReturn(mockEmbedding);
+        when(facetService.filterFacets("Zurich", "Outdoor")).thenReturn(ListingFacets.builder().total(400).build());
+        when(mapClusterService.estimateWithin(47.37, 8.54, 3.0)).thenReturn(120L);
+        when(listingRepository.search(any(ListingSearch.class), eq(10), eq(10)))
+                .thenReturn(List.of(createTestListing("11", "Tent")));
+
+        List<Listing> result = searchService.searchNearby("tent", "Zurich", "Outdoor", 47.37, 8.54, 3.0,
+                "relevance", 10, 10);
+
+        assertThat(result).extracting(Listing::getId).containsExactly("11");
+        ArgumentCaptor<ListingSearch> search = ArgumentCaptor.forClass(ListingSearch.class);
+        verify(listingRepository).search(search.capture(), eq(10), eq(10));
+        assertThat(search.getValue().getQueryEmbedding()).isEqualTo(mockEmbedding);
+        assertThat(search.getValue().getNeighborhood()).isEqualTo("Zurich");
+        assertThat(search.getValue().getCategory()).isEqualTo("Outdoor");
+        assertThat(search.getValue().getLatitude()).isEqualTo(47.37);
+    }
+
+    @Test
+    void searchNearby_distanceSort_usesKeywordMatchWithoutEmbedding() {
+        CursorPage<Listing> expected = new CursorPage<>(List.of(createTestListing("1", "Tent")), null);
+        when(listingRepository.search(any(ListingSearch.class), eq(10), isNull())).thenReturn(expected);
+
+        searchService.searchNearby("tent", "Brooklyn", null, 40.7, -74.0, 3.0, "distance", 10, null);
+
+        ArgumentCaptor<ListingSearch> search = ArgumentCaptor.forClass(ListingSearch.class);
+        verify(listingRepository).search(search.capture(), eq(10), isNull());
+        assertThat(search.getValue().getQueryEmbedding()).isNull();
+        assertThat(search.getValue().getNeighborhood()).isEqualTo("Brooklyn");
+        verify(queryEmbeddingCache, never()).embed(anyString());
+    }
 
-        assertThat(count).isEqualTo(2);
-        verify(listingRepository).updateEmbedding("id-1", embedding1);
-        verify(listingRepository).updateEmbedding("id-2", embedding2);
+    // Candidate counts are max(configured, offset + limit)
+    private void enableHybrid() {
+        embeddingProperties.getHybrid().setEnabled(true);
+        embeddingProperties.getHybrid().setLexicalCandidates(5);
+        embeddingProperties.getHybrid().setVectorCandidates(5);
     }
 
     private Listing createTestListing(String id, String title) {
@@ -0,0 +1,116 @@
+package com.sharefair.service;
+
+import com.sharefair.config.EmbeddingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchTraceTest {
+
+    @AfterEach
+    void tearDown() {
+        SearchTrace.clear();
+    }
+
+    @Test
+    void database_splitsCallIntoSqlAndRowMapping() {
+        SearchTrace trace = SearchTrace.start(Map.of());
+
+        String result = SearchTrace.database(() -> {
+            SearchTrace.recordSql(3_000_000);
+            busyWait(5_000_000);
+            return "rows";
+        });
+
+        assertThat(result).isEqualTo("rows");
+        assertThat(trace.nanos(SearchTrace.Stage.SQL)).isEqualTo(3_000_000);
+        assertThat(trace.nanos(SearchTrace.Stage.ROW_MAPPING)).isGreaterThanOrEqualTo(2_000_000);
+    }
+
+    @Test
+    void recordSql_outsideDatabaseSection_isNotAttributed() {
+        SearchTrace trace = SearchTrace.start(Map.of());
+
+        SearchTrace.time(SearchTrace.Stage.EMBEDDING, () -> {
+            SearchTrace.recordSql(1_000_000);
+            return null;
+        });
+
+        assertThat(trace.nanos(SearchTrace.Stage.SQL)).isZero();
+        assertThat(trace.nanos(SearchTrace.Stage.EMBEDDING)).isPositive();
+    }
+
+    @Test
+    void propagate_attributesWorkOnOtherThreadsToTheTrace() {
+        SearchTrace trace = SearchTrace.start(Map.of());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture.supplyAsync(SearchTrace.propagate(() ->
+                    SearchTrace.time(SearchTrace.Stage.FUSION, () -> {
+                        busyWait(1_000_000);
+                        return null;
+                    })), executor).join();
+            assertThat(CompletableFuture.supplyAsync(SearchTrace::current, executor).join()).isNull();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(trace.nanos(SearchTrace.Stage.FUSION)).isGreaterThanOrEqualTo(1_000_000);
+    }
+
+    @Test
+    void withoutTrace_stagesJustRun() {
+        assertThat(SearchTrace.time(SearchTrace.Stage.RERANK, () -> 42)).isEqualTo(42);
+        assertThat(SearchTrace.database(() -> "ok")).isEqualTo("ok");
+        SearchTrace.path("semantic");
+        assertThat(SearchTrace.current()).isNull();
+    }
+
+    @Test
+    void telemetry_recordsDurationAndStageTimersPerPath() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SearchTelemetry telemetry = new SearchTelemetry(registry, new EmbeddingProperties());
+        SearchTrace trace = SearchTrace.start(Map.of("category", "Tools"));
+        SearchTrace.path("filter");
+        SearchTrace.database(() -> {
+            SearchTrace.recordSql(2_000_000);
+            return null;
+        });
+        trace.handled();
+
+        telemetry.record(trace, "/api/v1/search", 200);
+
+        assertThat(registry.get("sharefair.search.duration").tag("path", "filter").timer().count()).isEqualTo(1);
+        assertThat(registry.get("sharefair.search.stage").tags("path", "filter", "stage", "sql").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("sharefair.search.stage").tags("path", "filter", "stage", "serialization")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.find("sharefair.search.stage").tag("stage", "embedding").timer()).isNull();
+    }
+
+    @Test
+    void explain_reportsPathAndNonZeroStages() {
+        SearchTrace trace = SearchTrace.start(Map.of());
+        assertThat(trace.explain()).containsEntry("path", SearchTrace.CACHED);
+
+        SearchTrace.path("keyword");
+        trace.add(SearchTrace.Stage.SQL, 1_500_000);
+
+        assertThat(trace.explain()).containsEntry("path", "keyword")
+                .containsEntry("stagesMs", Map.of("sql", 1.5));
+    }
+
+    private static void busyWait(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.sharefair.service;
+
+import com.sharefair.config.RecommendationProperties;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.entity.SimilarListings;
+import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.SimilarListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SimilarListingServiceTest {
+
+    @Mock
+    private SimilarListingRepository similarRepository;
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    private SimilarListingService service;
+
+    @BeforeEach
+    void setUp() {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getSimilar().setSize(3);
+        service = new SimilarListingService(similarRepository, listingRepository, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void similarIds_readsStoredList() {
+        when(similarRepository.findByListingId("a")).thenReturn(Optional.of(list("a", List.of("b", "c"), List.of(0.1f, 0.2f))));
+
+        assertThat(service.similarIds("a")).containsExactly("b", "c");
+        verify(listingRepository, never()).findEmbeddingById(anyString());
+    }
+
+    @Test
+    void similarIds_computesAndStoresMissingList() {
+        float[] embedding = {1f, 0f};
+        SimilarListings nearest = list("a", List.of("b"), List.of(0.3f));
+        when(similarRepository.findByListingId("a")).thenReturn(Optional.empty());
+        when(listingRepository.findEmbeddingById("a"))
+                .thenReturn(Optional.of(ListingEmbedding.builder().id("a").embedding(embedding).build()));
+        when(similarRepository.findNearest("a", embedding, 3)).thenReturn(nearest);
+
+        assertThat(service.similarIds("a")).containsExactly("b");
+        verify(similarRepository).save(nearest);
+    }
+
+    @Test
+    void similarIds_isEmptyWithoutEmbedding() {
+        when(similarRepository.findByListingId("a")).thenReturn(Optional.empty());
+        when(listingRepository.findEmbeddingById("a")).thenReturn(Optional.empty());
+
+        assertThat(service.similarIds("a")).isEmpty();
+        verify(similarRepository, never()).save(any());
+    }
+
+    @Test
+    void insert_placesNearerListingInOrderAndTruncates() {
+        SimilarListings full = list("x", List.of("a", "b", "c"), List.of(0.1f, 0.3f, 0.5f));
+
+        SimilarListings updated = SimilarListingService.insert(full, "n", 0.2f, 3);
+
+        assertThat(updated.getNeighbourIds()).containsExactly("a", "n", "b");
+        assertThat(updated.getDistances()).containsExactly(0.1f, 0.2f, 0.3f);
+    }
+
+    @Test
+    void insert_ignoresListingFartherThanFullList() {
+        SimilarListings full = list("x", List.of("a", "b", "c"), List.of(0.1f, 0.3f, 0.5f));
+
+        assertThat(SimilarListingService.insert(full, "n", 0.6f, 3)).isNull();
+    }
+
+    @Test
+    void insert_movesExistingEntryToItsNewDistance() {
+        SimilarListings full = list("x", List.of("a", "b", "c"), List.of(0.1f, 0.3f, 0.5f));
+
+        SimilarListings updated = SimilarListingService.insert(full, "c", 0.05f, 3);
+
+        assertThat(updated.getNeighbourIds()).containsExactly("c", "a", "b");
+        assertThat(SimilarListingService.insert(full, "b", 0.3f, 3)).isNull();
+    }
+
+    @Test
+    void mergeIntoNeighbours_updatesOnlyListsWhereSourceRanks() {
+        SimilarListings source = list("n", List.of("x", "y"), List.of(0.2f, 0.9f));
+        Map<String, SimilarListings> stored = new HashMap<>(Map.of(
+                "x", list("x", List.of("a", "b", "c"), List.of(0.1f, 0.3f, 0.5f)),
+                "y", list("y", List.of("a", "b", "c"), List.of(0.1f, 0.3f, 0.5f))));
+        when(similarRepository.update(anyString(), any())).thenAnswer(invocation -> {
+            UnaryOperator<SimilarListings> update = invocation.getArgument(1);
+            SimilarListings next = update.apply(stored.get(invocation.<String>getArgument(0)));
+            if (next != null) {
+                stored.put(next.getListingId(), next);
+            }
+            return next != null;
+        });
+
+        service.mergeIntoNeighbours(source);
+
+        verify(similarRepository).update(eq("x"), any());
+        verify(similarRepository).update(eq("y"), any());
+        verify(similarRepository, never()).save(any());
+        assertThat(stored.get("x").getNeighbourIds()).containsExactly("a", "n", "b");
+        assertThat(stored.get("y").getNeighbourIds()).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void similarIds_recomputesListThatIsOnlyARefreshClaim() {
+        float[] embedding = {1f, 0f};
+        SimilarListings nearest = list("a", List.of("b"), List.of(0.3f));
+        when(similarRepository.findByListingId("a")).thenReturn(Optional.of(list("a", List.of(), List.of())));
+        when(listingRepository.findEmbeddingById("a"))
+                .thenReturn(Optional.of(ListingEmbedding.builder().id("a").embedding(embedding).build()));
+        when(similarRepository.findNearest("a", embedding, 3)).thenReturn(nearest);
+
+        assertThat(service.similarIds("a")).containsExactly("b");
+    }
+
+    private static SimilarListings list(String id, List<String> ids, List<Float> distances) {
+        return SimilarListings.builder()
+                .listingId(id)
+                .neighbourIds(ids)
+                .distances(distances)
+                .computedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.sharefair.service;
+
+import com.sharefair.config.RecommendationProperties;
+import com.sharefair.entity.ListingEmbedding;
+import com.sharefair.entity.TasteVector;
+import com.sharefair.event.TransactionCompletedEvent;
+import com.sharefair.repository.ListingRepository;
+import com.sharefair.repository.TasteVectorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TasteVectorServiceTest {
+
+    private static final Duration HALF_LIFE = Duration.ofDays(30);
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Mock
+    private TasteVectorRepository tasteVectorRepository;
+
+    @Mock
+    private ListingRepository listingRepository;
+
+    private TasteVectorService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TasteVectorService(tasteVectorRepository, listingRepository, new RecommendationProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void merge_startsFromSignal_whenNoVectorStored() {
+        TasteVector merged = TasteVectorService.merge(null, "u", new float[]{1f, 0f}, 0.5, HALF_LIFE, NOW);
+
+        assertThat(merged.getEmbedding()).containsExactly(1f, 0f);
+        assertThat(merged.getWeight()).isEqualTo(0.5);
+        assertThat(merged.getUpdatedAt()).isEqualTo(NOW);
+    }
+
+    @Test
+    void merge_decaysStoredWeight_byHalfPerHalfLife() {
+        TasteVector stored = TasteVector.builder().userId("u").embedding(new float[]{1f, 0f})
+                .weight(2.0).updatedAt(NOW.minus(HALF_LIFE)).build();
+
+        TasteVector merged = TasteVectorService.merge(stored, "u", new float[]{0f, 1f}, 1.0, HALF_LIFE, NOW);
+
+        // stored weight decays to 1.0, so both signals count equally
+        assertThat(merged.getWeight()).isCloseTo(2.0, within(1e-9));
+        assertThat(merged.getEmbedding()[0]).isCloseTo(0.5f, within(1e-6f));
+        assertThat(merged.getEmbedding()[1]).isCloseTo(0.5f, within(1e-6f));
+    }
+
+    @Test
+    void merge_discardsVector_ofAnotherDimension() {
+        TasteVector stored = TasteVector.builder().userId("u").embedding(new float[]{1f, 0f, 0f})
+                .weight(5.0).updatedAt(NOW).build();
+
+        TasteVector merged = TasteVectorService.merge(stored, "u", new float[]{0f, 1f}, 1.0, HALF_LIFE, NOW);
+
+        assertThat(merged.getEmbedding()).containsExactly(0f, 1f);
+        assertThat(merged.getWeight()).isEqualTo(1.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordTransaction_updatesBorrowerAndOwner_withTheirWeights() {
+        when(listingRepository.findEmbeddingById("l"))
+                .thenReturn(Optional.of(ListingEmbedding.builder().id("l").embedding(new float[]{1f, 0f}).build()));
+
+        service.recordTransaction(new TransactionCompletedEvent("tx", "l", "borrower", "owner"));
+
+        ArgumentCaptor<UnaryOperator<TasteVector>> borrower = ArgumentCaptor.forClass(UnaryOperator.class);
+        ArgumentCaptor<UnaryOperator<TasteVector>> owner = ArgumentCaptor.forClass(UnaryOperator.class);
+        verify(tasteVectorRepository).update(eq("borrower"), borrower.capture());
+        verify(tasteVectorRepository).update(eq("owner"), owner.capture());
+        assertThat(borrower.getValue().apply(null).getWeight()).isEqualTo(1.0);
+        assertThat(owner.getValue().apply(null).getWeight()).isEqualTo(0.5);
+    }
+
+    @Test
+    void recordTransaction_skips_whenListingHasNoEmbedding() {
+        when(listingRepository.findEmbeddingById("l")).thenReturn(Optional.empty());
+
+        service.recordTransaction(new TransactionCompletedEvent("tx", "l", "borrower", "owner"));
+
+        verify(tasteVectorRepository, never()).update(anyString(), any());
+    }
+
+    @Test
+    void recordView_countsRepeatedViewsOnce() {
+        when(listingRepository.findEmbeddingById("l"))
+                .thenReturn(Optional.of(ListingEmbedding.builder().id("l").embedding(new float[]{1f, 0f}).build()));
+
+        service.recordView("viewer", "l");
+        service.recordView("viewer", "l");
+
+        verify(tasteVectorRepository, timeout(2000).times(1)).update(eq("viewer"), any());
+    }
+}
@@ -0,0 +1,65 @@
+package com.sharefair.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class VectorMathTest {
+
+    @Test
+    @EnabledIfSystemProperty(named = "sharefair.simd", matches = "true")
+    void simdIsEnabledInTheSimdBuild() {
+        // The simd profile compiles the kernel and passes --add-modules jdk.incubator.vector to surefire
+        assertThat(VectorMath.simdAvailable()).isTrue();
+    }
+
+    @Test
+    void dot_matchesScalarLoopForAllTailLengths() {
+        Random random = new Random(7);
+        for (int length = 0; length <= 40; length++) {
+            float[] a = randomVector(random, length + 3);
+            float[] b = randomVector(random, length + 5);
+
+            float scalar = VectorMath.dotScalar(a, 3, b, 5, length);
+
+            assertThat(VectorMath.dot(a, 3, b, 5, length)).isCloseTo(scalar, within(1e-4f));
+        }
+    }
+
+    @Test
+    void byteDot_matchesScalarLoop() {
+        Random random = new Random(9);
+        for (int length = 0; length <= 40; length++) {
+            float[] weights = randomVector(random, length);
+            byte[] codes = new byte[length + 2];
+            random.nextBytes(codes);
+            float scalar = 0f;
+            for (int i = 0; i < length; i++) {
+                scalar += weights[i] * codes[2 + i];
+            }
+
+            assertThat(VectorMath.dot(weights, codes, 2, length)).isCloseTo(scalar, within(1e-3f));
+        }
+    }
+
+    @Test
+    void normalize_givesUnitLengthAndLeavesZeroVectorsZero() {
+        float[] unit = VectorMath.normalize(new float[]{3f, 4f});
+
+        assertThat(unit).containsExactly(0.6f, 0.8f);
+        assertThat(VectorMath.dot(unit, unit)).isCloseTo(1f, within(1e-6f));
+        assertThat(VectorMath.normalize(new float[]{0f, 0f})).containsExactly(0f, 0f);
+    }
+
+    private static float[] randomVector(Random random, int length) {
+        float[] vector = new float[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}
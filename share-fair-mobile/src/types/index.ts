@@ -148,4 +148,7 @@ export interface PaginatedResponse<T> {
   totalPages: number;
   currentPage: number;
   pageSize: number;
+  totalExact?: boolean;
+  hasMore?: boolean;
+  nextCursor?: string | null;
 }